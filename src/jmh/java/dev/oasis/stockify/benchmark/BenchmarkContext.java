@@ -0,0 +1,28 @@
+package dev.oasis.stockify.benchmark;
+
+import dev.oasis.stockify.Stockify;
+import org.springframework.boot.SpringApplication;
+import org.springframework.context.ConfigurableApplicationContext;
+
+/**
+ * Boots the application once per benchmark JVM against the in-memory H2 {@code stockifydb}
+ * of the dev profile (including the demo tenants seeded by DataLoader), without the web server.
+ */
+final class BenchmarkContext {
+
+    private static ConfigurableApplicationContext context;
+
+    private BenchmarkContext() {
+    }
+
+    static synchronized ConfigurableApplicationContext get() {
+        if (context == null) {
+            context = SpringApplication.run(Stockify.class, "--spring.profiles.active=dev,benchmark");
+        }
+        return context;
+    }
+
+    static <T> T bean(Class<T> type) {
+        return get().getBean(type);
+    }
+}
@@ -0,0 +1,115 @@
+package dev.oasis.stockify.benchmark;
+
+import dev.oasis.stockify.config.tenant.TenantContext;
+import dev.oasis.stockify.config.tenant.TenantSchemaProvisioner;
+import dev.oasis.stockify.dto.DashboardStats;
+import dev.oasis.stockify.model.Product;
+import dev.oasis.stockify.repository.ProductRepository;
+import dev.oasis.stockify.service.DashboardService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+
+import javax.sql.DataSource;
+import java.math.BigDecimal;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Catalog queries at several catalog sizes.
+ * Each size gets its own tenant schema ({@code bench_catalog_<size>}) filled over JDBC.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Fork(1)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class CatalogBenchmark {
+
+    private static final String[] CATEGORIES = {"Jewelry", "Ceramics", "Textiles", "Woodwork", "Prints"};
+
+    @Param({"100", "1000", "10000"})
+    private int catalogSize;
+
+    private ProductRepository productRepository;
+    private DashboardService dashboardService;
+    private final Pageable firstPage = PageRequest.of(0, 20);
+
+    @Setup
+    public void setUp() throws SQLException {
+        productRepository = BenchmarkContext.bean(ProductRepository.class);
+        dashboardService = BenchmarkContext.bean(DashboardService.class);
+
+        String tenant = "bench_catalog_" + catalogSize;
+        BenchmarkContext.bean(TenantSchemaProvisioner.class).provision(tenant);
+        fillCatalog(BenchmarkContext.bean(DataSource.class), tenant);
+
+        // Scope.Thread: set up by the thread that runs the benchmark methods
+        TenantContext.setCurrentTenant(tenant);
+    }
+
+    @TearDown
+    public void tearDown() throws SQLException {
+        String tenant = TenantContext.getCurrentTenant();
+        TenantContext.clear();
+        try (Connection connection = BenchmarkContext.bean(DataSource.class).getConnection()) {
+            connection.createStatement().execute("DROP SCHEMA IF EXISTS " + tenant + " CASCADE");
+        }
+    }
+
+    @Benchmark
+    public Page<Product> searchByTitle() {
+        return productRepository.search("item 42", firstPage);
+    }
+
+    @Benchmark
+    public Page<Product> searchByCategory() {
+        return productRepository.search("ceramics", firstPage);
+    }
+
+    @Benchmark
+    public DashboardStats dashboardStats() {
+        return dashboardService.getDashboardStats();
+    }
+
+    private void fillCatalog(DataSource dataSource, String tenant) throws SQLException {
+        try (Connection connection = dataSource.getConnection()) {
+            connection.setSchema(tenant);
+            connection.setAutoCommit(false);
+            try (PreparedStatement stmt = connection.prepareStatement(
+                    "INSERT INTO product (sku, title, description, category, price, stock_level, low_stock_threshold) " +
+                    "VALUES (?, ?, ?, ?, ?, ?, ?)")) {
+                for (int i = 0; i < catalogSize; i++) {
+                    stmt.setString(1, "BENCH-" + i);
+                    stmt.setString(2, "Handmade item " + i);
+                    stmt.setString(3, "Benchmark product " + i);
+                    stmt.setString(4, CATEGORIES[i % CATEGORIES.length]);
+                    stmt.setBigDecimal(5, BigDecimal.valueOf(10 + i % 90));
+                    stmt.setInt(6, i % 50);
+                    stmt.setInt(7, 5);
+                    stmt.addBatch();
+                    if (i % 1000 == 999) {
+                        stmt.executeBatch();
+                    }
+                }
+                stmt.executeBatch();
+            }
+            connection.commit();
+        }
+    }
+}
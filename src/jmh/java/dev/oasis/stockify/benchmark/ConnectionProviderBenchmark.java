@@ -0,0 +1,57 @@
+package dev.oasis.stockify.benchmark;
+
+import dev.oasis.stockify.config.tenant.SchemaMultiTenantConnectionProvider;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Tenant connection checkout: schema switch on getConnection and reset on releaseConnection,
+ * compared with a plain pool checkout
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Fork(1)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+public class ConnectionProviderBenchmark {
+
+    @Param({"public", "acme_corp"})
+    private String tenant;
+
+    private SchemaMultiTenantConnectionProvider connectionProvider;
+    private DataSource dataSource;
+
+    @Setup
+    public void setUp() {
+        // HibernateConfig re-exposes the same instance under a second bean name
+        connectionProvider = BenchmarkContext.get()
+                .getBean("schemaMultiTenantConnectionProvider", SchemaMultiTenantConnectionProvider.class);
+        dataSource = BenchmarkContext.bean(DataSource.class);
+    }
+
+    @Benchmark
+    public void poolBaseline() throws SQLException {
+        dataSource.getConnection().close();
+    }
+
+    @Benchmark
+    public void getAndReleaseConnection() throws SQLException {
+        Connection connection = connectionProvider.getConnection(tenant);
+        connectionProvider.releaseConnection(tenant, connection);
+    }
+}
@@ -0,0 +1,77 @@
+package dev.oasis.stockify.benchmark;
+
+import dev.oasis.stockify.dto.ProductResponseDTO;
+import dev.oasis.stockify.mapper.ProductMapper;
+import dev.oasis.stockify.model.Product;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * ProductMapper entity-to-DTO conversion, single product and list
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Fork(1)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+public class ProductMapperBenchmark {
+
+    @Param({"10", "100", "1000"})
+    private int listSize;
+
+    private final ProductMapper productMapper = new ProductMapper();
+    private Product product;
+    private List<Product> products;
+
+    @Setup
+    public void setUp() {
+        products = new ArrayList<>(listSize);
+        for (int i = 0; i < listSize; i++) {
+            products.add(product(i));
+        }
+        product = products.get(0);
+    }
+
+    @Benchmark
+    public ProductResponseDTO toDto() {
+        return productMapper.toDto(product);
+    }
+
+    @Benchmark
+    public List<ProductResponseDTO> toDtoList() {
+        return productMapper.toDtoList(products);
+    }
+
+    private static Product product(int i) {
+        Product product = new Product();
+        product.setId((long) i + 1);
+        product.setSku("SKU-" + i);
+        product.setTitle("Handmade item " + i);
+        product.setDescription("Benchmark product " + i);
+        product.setCategory("Category " + (i % 10));
+        product.setPrice(BigDecimal.valueOf(10 + i % 90));
+        product.setStockLevel(i % 50);
+        product.setLowStockThreshold(5);
+        product.setIsActive(true);
+        product.setIsFeatured(false);
+        product.setCreatedAt(LocalDateTime.now());
+        product.setUpdatedAt(LocalDateTime.now());
+        return product;
+    }
+}
@@ -0,0 +1,130 @@
+package dev.oasis.stockify.benchmark;
+
+import dev.oasis.stockify.config.tenant.TenantContext;
+import dev.oasis.stockify.config.tenant.TenantSchemaProvisioner;
+import dev.oasis.stockify.dto.StockReservationDTO;
+import dev.oasis.stockify.service.StockReservationService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import javax.sql.DataSource;
+import java.math.BigDecimal;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@link StockReservationService#reserve} on one hot product and spread over many: the in-memory hold,
+ * the stock read and the stock_reservation insert. reserveAndRelease also pays the release UPDATE and
+ * keeps the number of holds flat; reserve lets holds pile up until the wheel expires them (1 s TTL).
+ * Runs in its own tenant schema ({@code bench_reservations_<products>}).
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Fork(1)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class ReservationBenchmark {
+
+    private static final long TTL_SECONDS = 1;
+    private static final long EXPIRY_WAIT_SECONDS = 30;
+
+    @Param({"1", "1000"})
+    private int products;
+
+    private StockReservationService reservationService;
+    private long[] productIds;
+    private int next;
+
+    @Setup
+    public void setUp() throws SQLException {
+        reservationService = BenchmarkContext.bean(StockReservationService.class);
+
+        String tenant = "bench_reservations_" + products;
+        BenchmarkContext.bean(TenantSchemaProvisioner.class).provision(tenant);
+        productIds = fillProducts(BenchmarkContext.bean(DataSource.class), tenant);
+
+        // Scope.Thread: set up by the thread that runs the benchmark methods
+        TenantContext.setCurrentTenant(tenant);
+    }
+
+    @TearDown
+    public void tearDown() throws SQLException, InterruptedException {
+        String tenant = TenantContext.getCurrentTenant();
+        // Let the wheel expire the remaining holds first, or it keeps retrying them against a dropped schema
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(EXPIRY_WAIT_SECONDS);
+        while (Arrays.stream(productIds).anyMatch(id -> reservationService.reservedQuantity(id) > 0)
+                && System.nanoTime() < deadline) {
+            Thread.sleep(100);
+        }
+        TenantContext.clear();
+        try (Connection connection = BenchmarkContext.bean(DataSource.class).getConnection()) {
+            connection.createStatement().execute("DROP SCHEMA IF EXISTS " + tenant + " CASCADE");
+        }
+    }
+
+    @Benchmark
+    public StockReservationDTO reserve() {
+        return reservationService.reserve(nextProduct(), 1, TTL_SECONDS, null);
+    }
+
+    @Benchmark
+    public StockReservationDTO reserveAndRelease() {
+        StockReservationDTO reservation = reservationService.reserve(nextProduct(), 1, TTL_SECONDS, null);
+        return reservationService.release(reservation.getReservationId());
+    }
+
+    private long nextProduct() {
+        long productId = productIds[next];
+        next = (next + 1) % productIds.length;
+        return productId;
+    }
+
+    private long[] fillProducts(DataSource dataSource, String tenant) throws SQLException {
+        try (Connection connection = dataSource.getConnection()) {
+            connection.setSchema(tenant);
+            connection.setAutoCommit(false);
+            try (PreparedStatement stmt = connection.prepareStatement(
+                    "INSERT INTO product (sku, title, description, category, price, stock_level, low_stock_threshold) " +
+                    "VALUES (?, ?, ?, ?, ?, ?, ?)")) {
+                for (int i = 0; i < products; i++) {
+                    stmt.setString(1, "HOLD-" + i);
+                    stmt.setString(2, "Reservable item " + i);
+                    stmt.setString(3, "Benchmark product " + i);
+                    stmt.setString(4, "Benchmark");
+                    stmt.setBigDecimal(5, BigDecimal.TEN);
+                    // Never runs out, whatever the number of iterations
+                    stmt.setInt(6, 1_000_000_000);
+                    stmt.setInt(7, 5);
+                    stmt.addBatch();
+                }
+                stmt.executeBatch();
+            }
+            connection.commit();
+
+            List<Long> ids = new ArrayList<>();
+            try (ResultSet rs = connection.createStatement().executeQuery("SELECT id FROM product ORDER BY id")) {
+                while (rs.next()) {
+                    ids.add(rs.getLong(1));
+                }
+            }
+            return ids.stream().mapToLong(Long::longValue).toArray();
+        }
+    }
+}
@@ -0,0 +1,88 @@
+package dev.oasis.stockify.benchmark;
+
+import dev.oasis.stockify.config.tenant.TenantContext;
+import dev.oasis.stockify.config.tenant.TenantScoped;
+import dev.oasis.stockify.config.tenant.TenantSecurityAspect;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.aop.aspectj.annotation.AspectJProxyFactory;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Per-call cost of the {@link TenantSecurityAspect} guard: a direct call (internal calls and
+ * unannotated services), a proxy the guard does not match (proxy cost alone) and a guarded
+ * proxy (what every service call paid with the old package-wide pointcut)
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Fork(1)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+public class TenantGuardBenchmark {
+
+    private Counter direct;
+    private Counter unguardedProxy;
+    private Counter guardedProxy;
+
+    @Setup
+    public void setUp() {
+        direct = new PlainCounter();
+        unguardedProxy = proxy(new PlainCounter());
+        guardedProxy = proxy(new GuardedCounter());
+        TenantContext.setCurrentTenant("acme_corp");
+    }
+
+    @TearDown
+    public void tearDown() {
+        TenantContext.clear();
+    }
+
+    @Benchmark
+    public int directCall() {
+        return direct.next();
+    }
+
+    @Benchmark
+    public int unguardedProxyCall() {
+        return unguardedProxy.next();
+    }
+
+    @Benchmark
+    public int guardedProxyCall() {
+        return guardedProxy.next();
+    }
+
+    private static Counter proxy(Counter target) {
+        AspectJProxyFactory factory = new AspectJProxyFactory(target);
+        factory.addAspect(new TenantSecurityAspect());
+        return factory.getProxy();
+    }
+
+    public interface Counter {
+        int next();
+    }
+
+    public static class PlainCounter implements Counter {
+        private int value;
+
+        @Override
+        public int next() {
+            return ++value;
+        }
+    }
+
+    @TenantScoped
+    public static class GuardedCounter extends PlainCounter {
+    }
+}
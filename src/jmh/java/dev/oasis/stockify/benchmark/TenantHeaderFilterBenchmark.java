@@ -0,0 +1,79 @@
+package dev.oasis.stockify.benchmark;
+
+import dev.oasis.stockify.config.tenant.TenantHeaderFilter;
+import jakarta.servlet.ServletException;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Per-request overhead of tenant resolution in TenantHeaderFilter.
+ * {@code chainOnly} builds the same mock request and chain without the filter.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Fork(1)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+public class TenantHeaderFilterBenchmark {
+
+    private TenantHeaderFilter tenantHeaderFilter;
+
+    @Setup
+    public void setUp() {
+        tenantHeaderFilter = BenchmarkContext.bean(TenantHeaderFilter.class);
+    }
+
+    @Benchmark
+    public MockHttpServletResponse chainOnly() throws ServletException, IOException {
+        MockHttpServletRequest request = request();
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        new MockFilterChain().doFilter(request, response);
+        return response;
+    }
+
+    @Benchmark
+    public MockHttpServletResponse headerTenant() throws ServletException, IOException {
+        MockHttpServletRequest request = request();
+        request.addHeader("X-TenantId", "acme_corp");
+        return filter(request);
+    }
+
+    @Benchmark
+    public MockHttpServletResponse defaultTenant() throws ServletException, IOException {
+        return filter(request());
+    }
+
+    @Benchmark
+    public MockHttpServletResponse unknownTenant() throws ServletException, IOException {
+        MockHttpServletRequest request = request();
+        request.addHeader("X-TenantId", "no_such_tenant");
+        return filter(request);
+    }
+
+    private MockHttpServletResponse filter(MockHttpServletRequest request) throws ServletException, IOException {
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        tenantHeaderFilter.doFilter(request, response, new MockFilterChain());
+        return response;
+    }
+
+    private static MockHttpServletRequest request() {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/products");
+        request.setServerName("localhost");
+        return request;
+    }
+}
@@ -0,0 +1,97 @@
+package dev.oasis.stockify.loadtest;
+
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Collects request latencies per endpoint and per tenant.
+ * Samples are kept in full so percentiles are exact; a run records at most a few million requests.
+ */
+class LatencyRecorder {
+
+    static final String ALL = "all";
+
+    private final ConcurrentMap<String, Samples> byEndpoint = new ConcurrentHashMap<>();
+    private final ConcurrentMap<String, Samples> byTenant = new ConcurrentHashMap<>();
+    private final Samples overall = new Samples();
+
+    private volatile boolean recording;
+
+    void start() {
+        recording = true;
+    }
+
+    void stop() {
+        recording = false;
+    }
+
+    void record(String endpoint, String tenant, long nanos, boolean error) {
+        if (!recording) {
+            return;
+        }
+        byEndpoint.computeIfAbsent(endpoint, key -> new Samples()).add(nanos, error);
+        byTenant.computeIfAbsent(tenant, key -> new Samples()).add(nanos, error);
+        overall.add(nanos, error);
+    }
+
+    Map<String, Stats> endpointStats(double seconds) {
+        return stats(byEndpoint, seconds);
+    }
+
+    Map<String, Stats> tenantStats(double seconds) {
+        return stats(byTenant, seconds);
+    }
+
+    Stats overallStats(double seconds) {
+        return overall.stats(seconds);
+    }
+
+    private static Map<String, Stats> stats(Map<String, Samples> samples, double seconds) {
+        Map<String, Stats> stats = new LinkedHashMap<>();
+        new TreeMap<>(samples).forEach((key, value) -> stats.put(key, value.stats(seconds)));
+        return stats;
+    }
+
+    private static final class Samples {
+        private long[] nanos = new long[1024];
+        private int size;
+        private long errors;
+
+        synchronized void add(long value, boolean error) {
+            if (size == nanos.length) {
+                nanos = Arrays.copyOf(nanos, size * 2);
+            }
+            nanos[size++] = value;
+            if (error) {
+                errors++;
+            }
+        }
+
+        synchronized Stats stats(double seconds) {
+            long[] sorted = Arrays.copyOf(nanos, size);
+            Arrays.sort(sorted);
+            return new Stats(size, errors, size / seconds,
+                    percentile(sorted, 50), percentile(sorted, 95), percentile(sorted, 99),
+                    size == 0 ? 0 : sorted[size - 1] / 1_000_000.0);
+        }
+
+        private static double percentile(long[] sorted, double percentile) {
+            if (sorted.length == 0) {
+                return 0;
+            }
+            // Nearest-rank percentile
+            int rank = (int) Math.ceil(percentile / 100.0 * sorted.length);
+            return sorted[Math.max(0, rank - 1)] / 1_000_000.0;
+        }
+    }
+
+    /**
+     * Summary of one endpoint, tenant or the whole run; latencies in milliseconds
+     */
+    record Stats(long count, long errors, double throughput, double p50, double p95, double p99, double max) {
+    }
+}
@@ -0,0 +1,239 @@
+package dev.oasis.stockify.loadtest;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.opencsv.CSVReader;
+import com.opencsv.CSVWriter;
+import dev.oasis.stockify.Stockify;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.SpringApplication;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.core.env.Environment;
+
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.net.http.HttpResponse;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * End-to-end load test: boots the application on the dev H2 database, provisions tenants with
+ * catalogs built from the DataLoader sample products, drives mixed authenticated traffic and reports
+ * p50/p95/p99 latency and throughput per endpoint and per tenant.
+ * <p>
+ * Run with {@code mvn -Ploadtest verify}; settings are the {@code loadtest.*} properties in
+ * application-loadtest.properties.
+ */
+@Slf4j
+public class LoadTestRunner {
+
+    private static final Pattern EDIT_LINK = Pattern.compile("/products/edit/(\\d+)");
+    private static final String SEED_TENANT = "acme_corp";
+    private static final String TENANT_ADMIN = "lt_admin";
+    private static final String TENANT_ADMIN_PASSWORD = "loadtest123";
+
+    private final Environment env;
+    private final String baseUrl;
+    private final LatencyRecorder recorder = new LatencyRecorder();
+
+    LoadTestRunner(Environment env, int port) {
+        this.env = env;
+        this.baseUrl = "http://localhost:" + port;
+    }
+
+    public static void main(String[] args) throws Exception {
+        List<String> appArgs = new ArrayList<>(Arrays.asList(args));
+        appArgs.add("--spring.profiles.active=dev,loadtest");
+
+        ConfigurableApplicationContext context = SpringApplication.run(Stockify.class, appArgs.toArray(new String[0]));
+        int exitCode = 0;
+        try {
+            int port = context.getEnvironment().getRequiredProperty("local.server.port", Integer.class);
+            new LoadTestRunner(context.getEnvironment(), port).run();
+        } catch (Exception e) {
+            log.error("❌ Load test failed: {}", e.getMessage(), e);
+            exitCode = 1;
+        } finally {
+            context.close();
+        }
+        System.exit(exitCode);
+    }
+
+    void run() throws Exception {
+        int tenants = setting("loadtest.tenants");
+        int catalogSize = setting("loadtest.catalog-size");
+        int usersPerTenant = setting("loadtest.users-per-tenant");
+        int superAdminUsers = setting("loadtest.superadmin-users");
+        int warmupSeconds = setting("loadtest.warmup-seconds");
+        int durationSeconds = setting("loadtest.duration-seconds");
+        long seed = env.getRequiredProperty("loadtest.random-seed", Long.class);
+
+        // Seed catalog: the DataLoader sample products of a demo tenant, exported over HTTP
+        StockifyClient seedClient = new StockifyClient(baseUrl, SEED_TENANT, recorder);
+        seedClient.login("admin", "admin123");
+        List<String[]> seedRows = parseCsv(seedClient.get("seed", "/products/export/csv").body());
+        log.info("🌱 Seed catalog: {} products from {}", seedRows.size(), SEED_TENANT);
+
+        StockifyClient superAdmin = new StockifyClient(baseUrl, "stockify", recorder);
+        superAdmin.login("superadmin", "superadmin123");
+
+        List<TenantFixture> fixtures = new ArrayList<>();
+        for (int i = 1; i <= tenants; i++) {
+            fixtures.add(provisionTenant(superAdmin, i, seedRows, catalogSize));
+        }
+
+        // Virtual users: each one logs in with its own session
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(warmupSeconds + durationSeconds);
+        List<Thread> threads = new ArrayList<>();
+        int userIndex = 0;
+        for (TenantFixture fixture : fixtures) {
+            for (int u = 0; u < usersPerTenant; u++) {
+                StockifyClient client = new StockifyClient(baseUrl, fixture.tenantId, recorder);
+                client.login(TENANT_ADMIN, TENANT_ADMIN_PASSWORD);
+                threads.add(new Thread(new VirtualUser(client, fixture.productIds, fixture.searchTerms,
+                        false, seed + userIndex, deadline), "vu-" + fixture.tenantId + "-" + u));
+                userIndex++;
+            }
+        }
+        for (int u = 0; u < superAdminUsers; u++) {
+            StockifyClient client = new StockifyClient(baseUrl, "stockify", recorder);
+            client.login("superadmin", "superadmin123");
+            threads.add(new Thread(new VirtualUser(client, List.of(), List.of(), true, seed + userIndex, deadline),
+                    "vu-superadmin-" + u));
+            userIndex++;
+        }
+
+        log.info("🚦 Starting {} virtual users: {} s warmup + {} s measurement", threads.size(), warmupSeconds, durationSeconds);
+        threads.forEach(Thread::start);
+        TimeUnit.SECONDS.sleep(warmupSeconds);
+        recorder.start();
+        long measureStart = System.nanoTime();
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        recorder.stop();
+        double seconds = (System.nanoTime() - measureStart) / 1e9;
+
+        report(seconds, Map.of(
+                "tenants", tenants, "catalogSize", catalogSize, "usersPerTenant", usersPerTenant,
+                "superAdminUsers", superAdminUsers, "warmupSeconds", warmupSeconds,
+                "durationSeconds", durationSeconds, "randomSeed", seed));
+    }
+
+    private TenantFixture provisionTenant(StockifyClient superAdmin, int index, List<String[]> seedRows, int catalogSize)
+            throws Exception {
+        String body = String.format(Locale.ROOT,
+                "{\"companyName\":\"Load Test Shop %d\",\"adminUsername\":\"%s\",\"adminPassword\":\"%s\",\"adminEmail\":\"shop%d@loadtest.local\"}",
+                index, TENANT_ADMIN, TENANT_ADMIN_PASSWORD, index);
+        HttpResponse<String> response = superAdmin.postJson("provision-tenant", "/admin/tenants/api", body);
+        if (response.statusCode() != 201) {
+            throw new IllegalStateException("Tenant provisioning failed: " + response.statusCode());
+        }
+        JsonNode tenant = new ObjectMapper().readTree(response.body());
+        String tenantId = tenant.get("tenantId").asText();
+
+        StockifyClient admin = new StockifyClient(baseUrl, tenantId, recorder);
+        admin.login(TENANT_ADMIN, TENANT_ADMIN_PASSWORD);
+
+        // Catalog: the seed products repeated with unique SKUs, imported in chunks
+        Set<String> searchTerms = new LinkedHashSet<>();
+        int chunk = 500;
+        for (int from = 0; from < catalogSize; from += chunk) {
+            StringWriter csv = new StringWriter();
+            try (CSVWriter writer = new CSVWriter(csv)) {
+                writer.writeNext(new String[] {"Name", "Description", "SKU", "Price", "Quantity", "Category"});
+                for (int i = from; i < Math.min(catalogSize, from + chunk); i++) {
+                    String[] seed = seedRows.get(i % seedRows.size());
+                    writer.writeNext(new String[] {seed[0] + " " + i, seed[1], seed[2] + "-" + i, seed[3], seed[4], seed[5]});
+                    searchTerms.add(seed[0].split(" ")[0].toLowerCase(Locale.ROOT));
+                    searchTerms.add(seed[5].toLowerCase(Locale.ROOT));
+                }
+            }
+            admin.uploadCsv("seed", "/products/import/csv", csv.toString());
+        }
+
+        List<Long> productIds = new ArrayList<>();
+        for (int page = 0; productIds.size() < catalogSize; page++) {
+            Matcher matcher = EDIT_LINK.matcher(admin.get("seed", "/products?size=500&page=" + page).body());
+            int before = productIds.size();
+            while (matcher.find()) {
+                productIds.add(Long.parseLong(matcher.group(1)));
+            }
+            if (productIds.size() == before) {
+                break;
+            }
+        }
+        if (productIds.isEmpty()) {
+            throw new IllegalStateException("No products were imported for " + tenantId);
+        }
+        log.info("🏪 Provisioned {} with {} products ({} ms provisioning)",
+                tenantId, productIds.size(), tenant.path("provisioningTimeMs").asLong());
+        return new TenantFixture(tenantId, productIds, new ArrayList<>(searchTerms));
+    }
+
+    private void report(double seconds, Map<String, Object> settings) throws Exception {
+        Map<String, LatencyRecorder.Stats> endpoints = recorder.endpointStats(seconds);
+        Map<String, LatencyRecorder.Stats> tenants = recorder.tenantStats(seconds);
+        LatencyRecorder.Stats overall = recorder.overallStats(seconds);
+
+        StringBuilder table = new StringBuilder(String.format(Locale.ROOT,
+                "%n%-28s %8s %7s %9s %9s %9s %9s %9s%n", "", "requests", "errors", "req/s", "p50 ms", "p95 ms", "p99 ms", "max ms"));
+        appendRows(table, "endpoint", endpoints);
+        appendRows(table, "tenant", tenants);
+        appendRow(table, LatencyRecorder.ALL, overall);
+        log.info("📊 Load test results over {} s:{}", String.format(Locale.ROOT, "%.1f", seconds), table);
+
+        Map<String, Object> results = new LinkedHashMap<>();
+        results.put("settings", settings);
+        results.put("measuredSeconds", seconds);
+        results.put("overall", overall);
+        results.put("endpoints", endpoints);
+        results.put("tenants", tenants);
+
+        Path resultFile = Path.of(env.getRequiredProperty("loadtest.result-file"));
+        if (resultFile.getParent() != null) {
+            Files.createDirectories(resultFile.getParent());
+        }
+        new ObjectMapper().enable(SerializationFeature.INDENT_OUTPUT).writeValue(resultFile.toFile(), results);
+        log.info("💾 Results written to {}", resultFile.toAbsolutePath());
+    }
+
+    private static void appendRows(StringBuilder table, String label, Map<String, LatencyRecorder.Stats> stats) {
+        table.append(label).append(System.lineSeparator());
+        stats.forEach((key, value) -> appendRow(table, "  " + key, value));
+    }
+
+    private static void appendRow(StringBuilder table, String key, LatencyRecorder.Stats stats) {
+        table.append(String.format(Locale.ROOT, "%-28s %8d %7d %9.1f %9.2f %9.2f %9.2f %9.2f%n",
+                key, stats.count(), stats.errors(), stats.throughput(), stats.p50(), stats.p95(), stats.p99(), stats.max()));
+    }
+
+    private static List<String[]> parseCsv(String csv) throws Exception {
+        try (CSVReader reader = new CSVReader(new StringReader(csv))) {
+            List<String[]> rows = reader.readAll();
+            if (rows.size() < 2) {
+                throw new IllegalStateException("Seed export returned no products");
+            }
+            return rows.subList(1, rows.size());
+        }
+    }
+
+    private int setting(String key) {
+        return env.getRequiredProperty(key, Integer.class);
+    }
+
+    private record TenantFixture(String tenantId, List<Long> productIds, List<String> searchTerms) {
+    }
+}
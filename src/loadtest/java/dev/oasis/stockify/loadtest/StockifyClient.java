@@ -0,0 +1,117 @@
+package dev.oasis.stockify.loadtest;
+
+import java.io.IOException;
+import java.net.CookieManager;
+import java.net.URI;
+import java.net.URLEncoder;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.Map;
+import java.util.UUID;
+import java.util.stream.Collectors;
+
+/**
+ * One authenticated browser-like session against the application.
+ * Redirects are not followed, so every call measures exactly one request.
+ */
+class StockifyClient {
+
+    private final String baseUrl;
+    private final String tenant;
+    private final LatencyRecorder recorder;
+    private final HttpClient httpClient;
+
+    StockifyClient(String baseUrl, String tenant, LatencyRecorder recorder) {
+        this.baseUrl = baseUrl;
+        this.tenant = tenant;
+        this.recorder = recorder;
+        this.httpClient = HttpClient.newBuilder()
+                .cookieHandler(new CookieManager())
+                .followRedirects(HttpClient.Redirect.NEVER)
+                .connectTimeout(Duration.ofSeconds(10))
+                .build();
+    }
+
+    String tenant() {
+        return tenant;
+    }
+
+    /**
+     * Form login into the client's tenant; fails unless the app redirects away from the login page
+     */
+    void login(String username, String password) throws IOException, InterruptedException {
+        HttpResponse<String> response = send(HttpRequest.newBuilder(uri("/login"))
+                .header("Content-Type", "application/x-www-form-urlencoded")
+                .POST(HttpRequest.BodyPublishers.ofString(form(Map.of(
+                        "username", username, "password", password, "tenant_id", tenant))))
+                .build());
+        String location = response.headers().firstValue("Location").orElse("");
+        if (response.statusCode() != 302 || location.contains("/login")) {
+            throw new IllegalStateException("Login failed for " + username + "@" + tenant + ": "
+                    + response.statusCode() + " " + location);
+        }
+    }
+
+    HttpResponse<String> get(String endpoint, String path) throws IOException, InterruptedException {
+        return timed(endpoint, 200, HttpRequest.newBuilder(uri(path)).GET().build());
+    }
+
+    HttpResponse<String> postForm(String endpoint, String path, Map<String, String> fields)
+            throws IOException, InterruptedException {
+        return timed(endpoint, 302, HttpRequest.newBuilder(uri(path))
+                .header("Content-Type", "application/x-www-form-urlencoded")
+                .POST(HttpRequest.BodyPublishers.ofString(form(fields)))
+                .build());
+    }
+
+    HttpResponse<String> postJson(String endpoint, String path, String json) throws IOException, InterruptedException {
+        return timed(endpoint, 201, HttpRequest.newBuilder(uri(path))
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofString(json))
+                .build());
+    }
+
+    HttpResponse<String> uploadCsv(String endpoint, String path, String csv) throws IOException, InterruptedException {
+        String boundary = "----stockify-" + UUID.randomUUID();
+        String body = "--" + boundary + "\r\n"
+                + "Content-Disposition: form-data; name=\"file\"; filename=\"products.csv\"\r\n"
+                + "Content-Type: text/csv\r\n\r\n"
+                + csv + "\r\n"
+                + "--" + boundary + "--\r\n";
+        return timed(endpoint, 302, HttpRequest.newBuilder(uri(path))
+                .header("Content-Type", "multipart/form-data; boundary=" + boundary)
+                .POST(HttpRequest.BodyPublishers.ofString(body))
+                .build());
+    }
+
+    private HttpResponse<String> timed(String endpoint, int expectedStatus, HttpRequest request)
+            throws IOException, InterruptedException {
+        long start = System.nanoTime();
+        try {
+            HttpResponse<String> response = send(request);
+            recorder.record(endpoint, tenant, System.nanoTime() - start, response.statusCode() != expectedStatus);
+            return response;
+        } catch (IOException e) {
+            recorder.record(endpoint, tenant, System.nanoTime() - start, true);
+            throw e;
+        }
+    }
+
+    private HttpResponse<String> send(HttpRequest request) throws IOException, InterruptedException {
+        return httpClient.send(request, HttpResponse.BodyHandlers.ofString());
+    }
+
+    private URI uri(String path) {
+        return URI.create(baseUrl + path);
+    }
+
+    private static String form(Map<String, String> fields) {
+        return fields.entrySet().stream()
+                .map(e -> URLEncoder.encode(e.getKey(), StandardCharsets.UTF_8) + "="
+                        + URLEncoder.encode(e.getValue(), StandardCharsets.UTF_8))
+                .collect(Collectors.joining("&"));
+    }
+}
@@ -0,0 +1,148 @@
+package dev.oasis.stockify.loadtest;
+
+import java.io.IOException;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+/**
+ * A logged-in user issuing a weighted mix of requests until the run ends
+ */
+class VirtualUser implements Runnable {
+
+    /**
+     * Tenant admin traffic mix; weights are relative
+     */
+    enum Operation {
+        PRODUCT_LIST("product-list", 30),
+        PRODUCT_SEARCH("product-search", 20),
+        PRODUCT_EDIT_FORM("product-edit-form", 10),
+        PRODUCT_EDIT("product-edit", 5),
+        STOCK_UPDATE("stock-update", 15),
+        PRODUCT_IMPORT("product-import", 2),
+        ADMIN_DASHBOARD("admin-dashboard", 10),
+        NOTIFICATIONS("notifications", 8);
+
+        final String endpoint;
+        final int weight;
+
+        Operation(String endpoint, int weight) {
+            this.endpoint = endpoint;
+            this.weight = weight;
+        }
+    }
+
+    /**
+     * Super admin traffic: cross-tenant pages and APIs, as endpoint name / path pairs
+     */
+    private static final String[][] SUPERADMIN_PAGES = {
+        {"superadmin-tenants", "/admin/tenants"},
+        {"superadmin-tenants-api", "/admin/tenants/api"},
+        {"superadmin-statistics", "/superadmin/api/statistics"},
+        {"superadmin-migrations", "/admin/tenants/api/migrations"}
+    };
+
+    private static final int TOTAL_WEIGHT = totalWeight();
+    private static final int PAGE_SIZE = 10;
+
+    private final StockifyClient client;
+    private final List<Long> productIds;
+    private final List<String> searchTerms;
+    private final boolean superAdmin;
+    private final Random random;
+    private final long deadline;
+    private int imports;
+
+    VirtualUser(StockifyClient client, List<Long> productIds, List<String> searchTerms,
+                boolean superAdmin, long seed, long deadline) {
+        this.client = client;
+        this.productIds = productIds;
+        this.searchTerms = searchTerms;
+        this.superAdmin = superAdmin;
+        this.random = new Random(seed);
+        this.deadline = deadline;
+    }
+
+    @Override
+    public void run() {
+        while (System.nanoTime() < deadline && !Thread.currentThread().isInterrupted()) {
+            try {
+                if (superAdmin) {
+                    String[] page = SUPERADMIN_PAGES[random.nextInt(SUPERADMIN_PAGES.length)];
+                    client.get(page[0], page[1]);
+                } else {
+                    execute(pick());
+                }
+            } catch (IOException e) {
+                // Already recorded as an error; keep the user going
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    private void execute(Operation operation) throws IOException, InterruptedException {
+        long productId = productIds.get(random.nextInt(productIds.size()));
+        switch (operation) {
+            case PRODUCT_LIST -> client.get(operation.endpoint,
+                    "/products?page=" + random.nextInt(Math.max(1, productIds.size() / PAGE_SIZE)) + "&size=" + PAGE_SIZE);
+            case PRODUCT_SEARCH -> client.get(operation.endpoint,
+                    "/products?search=" + searchTerms.get(random.nextInt(searchTerms.size())).replace(' ', '+'));
+            case PRODUCT_EDIT_FORM -> client.get(operation.endpoint, "/products/edit/" + productId);
+            case PRODUCT_EDIT -> client.postForm(operation.endpoint, "/products/edit/" + productId,
+                    editForm(productId, "Load test product " + productId + " rev " + random.nextInt(1000),
+                            20 + random.nextInt(80)));
+            case STOCK_UPDATE -> client.postForm(operation.endpoint, "/products/edit/" + productId,
+                    editForm(productId, "Load test product " + productId, random.nextInt(120)));
+            case PRODUCT_IMPORT -> client.uploadCsv(operation.endpoint, "/products/import/csv", importCsv());
+            case ADMIN_DASHBOARD -> client.get(operation.endpoint, "/admin/dashboard");
+            case NOTIFICATIONS -> client.get(operation.endpoint, "/notifications");
+        }
+    }
+
+    private Operation pick() {
+        int ticket = random.nextInt(TOTAL_WEIGHT);
+        for (Operation operation : Operation.values()) {
+            ticket -= operation.weight;
+            if (ticket < 0) {
+                return operation;
+            }
+        }
+        return Operation.PRODUCT_LIST;
+    }
+
+    /**
+     * Full product form; SKU is derived from the id so repeated edits never collide
+     */
+    private static Map<String, String> editForm(long productId, String title, int stockLevel) {
+        Map<String, String> form = new LinkedHashMap<>();
+        form.put("title", title);
+        form.put("description", "Edited by the load test");
+        form.put("sku", "LT-" + productId);
+        form.put("category", "Load Test");
+        form.put("price", "19.99");
+        form.put("stockLevel", String.valueOf(stockLevel));
+        form.put("lowStockThreshold", "5");
+        return form;
+    }
+
+    private String importCsv() {
+        StringBuilder csv = new StringBuilder("Name,Description,SKU,Price,Quantity,Category\n");
+        int batch = ++imports;
+        for (int i = 0; i < 5; i++) {
+            csv.append("Imported item ").append(i).append(",Imported by the load test,IMP-")
+                    .append(Thread.currentThread().getId()).append('-').append(batch).append('-').append(i)
+                    .append(",9.99,").append(10 + i).append(",Imports\n");
+        }
+        return csv.toString();
+    }
+
+    private static int totalWeight() {
+        int total = 0;
+        for (Operation operation : Operation.values()) {
+            total += operation.weight;
+        }
+        return total;
+    }
+}
@@ -0,0 +1,21 @@
+package dev.oasis.stockify.config;
+
+import dev.oasis.stockify.config.tenant.TenantContextTaskDecorator;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.task.TaskDecorator;
+
+/**
+ * Async execution setup.
+ * The TaskDecorator is picked up by Spring Boot's auto-configured application task executor,
+ * so async MVC request processing keeps the caller's tenant. Executors owned by services are
+ * wrapped with {@link dev.oasis.stockify.config.tenant.TenantAwareExecutors} instead.
+ */
+@Configuration
+public class AsyncConfig {
+
+    @Bean
+    public TaskDecorator tenantContextTaskDecorator() {
+        return new TenantContextTaskDecorator();
+    }
+}
@@ -1,9 +1,11 @@
 package dev.oasis.stockify.config;
 
+import dev.oasis.stockify.config.metrics.EntityLoadCounter;
 import dev.oasis.stockify.config.tenant.CurrentTenantIdentifierResolverImpl;
 import dev.oasis.stockify.config.tenant.SchemaMultiTenantConnectionProvider;
 import org.hibernate.cfg.AvailableSettings;
 import org.hibernate.engine.jdbc.connections.spi.MultiTenantConnectionProvider;
+import org.hibernate.jpa.boot.spi.IntegratorProvider;
 import org.hibernate.context.spi.CurrentTenantIdentifierResolver;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -12,6 +14,7 @@ import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomi
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 
+import java.util.List;
 import java.util.Map;
 
 @Configuration
@@ -38,6 +41,10 @@ public class HibernateConfig implements HibernatePropertiesCustomizer {
         
         // Disable schema validation for multi-tenant setup
         hibernateProperties.put(AvailableSettings.HBM2DDL_AUTO, "none");
+
+        // Entity load counting for the per-request query guard (QueryGuardFilter)
+        hibernateProperties.put("hibernate.integrator_provider",
+                (IntegratorProvider) () -> List.of(new EntityLoadCounter()));
         
         log.info("Multi-tenancy configuration completed");
     }
@@ -1,15 +1,47 @@
 package dev.oasis.stockify.config;
 
+import dev.oasis.stockify.config.metrics.TenantMetricsTags;
+import dev.oasis.stockify.config.metrics.TenantRepositoryTagsProvider;
+import dev.oasis.stockify.config.metrics.TenantServerRequestObservationConvention;
+import io.micrometer.core.aop.TimedAspect;
 import io.micrometer.core.instrument.MeterRegistry;
-import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import io.micrometer.core.instrument.Tag;
+import io.micrometer.core.instrument.Tags;
+import org.aspectj.lang.ProceedingJoinPoint;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 
+import java.util.function.Function;
+
+/**
+ * Metrics are exported through the Boot-managed Prometheus registry ({@code /actuator/prometheus}).
+ * Every Stockify meter carries a bounded {@code tenant} tag, see TenantMetricsTags:
+ * <ul>
+ *   <li>{@code http.server.requests} - controllers, by uri template, method, status and outcome</li>
+ *   <li>{@code spring.data.repository.invocations} - repositories, by repository, method and state</li>
+ *   <li>{@code stockify.service} - {@code @Timed} service classes (import/export), by class, method and exception</li>
+ *   <li>{@code stockify.jdbc.*} - connection checkout and statement execution per tenant schema</li>
+ * </ul>
+ */
 @Configuration
 public class MetricsConfig {
 
     @Bean
-    public MeterRegistry meterRegistry() {
-        return new SimpleMeterRegistry();
+    public TenantServerRequestObservationConvention tenantServerRequestObservationConvention(TenantMetricsTags tenantTags) {
+        return new TenantServerRequestObservationConvention(tenantTags);
+    }
+
+    @Bean
+    public TenantRepositoryTagsProvider tenantRepositoryTagsProvider(TenantMetricsTags tenantTags) {
+        return new TenantRepositoryTagsProvider(tenantTags);
+    }
+
+    @Bean
+    public TimedAspect timedAspect(MeterRegistry meterRegistry, TenantMetricsTags tenantTags) {
+        Function<ProceedingJoinPoint, Iterable<Tag>> tags = joinPoint -> Tags.of(
+                "class", joinPoint.getStaticPart().getSignature().getDeclaringType().getSimpleName(),
+                "method", joinPoint.getStaticPart().getSignature().getName(),
+                TenantMetricsTags.TAG, tenantTags.current());
+        return new TimedAspect(meterRegistry, tags);
     }
 }
@@ -1,5 +1,6 @@
 package dev.oasis.stockify.config;
 
+import dev.oasis.stockify.config.tenant.TenantMigrationOrchestrator;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.flywaydb.core.Flyway;
@@ -20,7 +21,8 @@ import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.time.LocalDateTime;
 import java.util.Arrays;
-import java.util.List;
+import java.util.LinkedHashSet;
+import java.util.Set;
 
 /**
  * Combined Multi-tenant Setup Component
@@ -38,10 +40,8 @@ public class MultiTenantFlywayConfig implements CommandLineRunner {
     @Value("${spring.flyway.schemas:public,stockify,acme_corp,global_trade,artisan_crafts,tech_solutions,tenant1,tenant2}")
     private String[] tenantSchemas;
 
-    @Value("${spring.flyway.locations:classpath:db/migration}")
-    private String[] migrationLocations;
-    
-    private final DataSource dataSource;    @Override
+    private final DataSource dataSource;
+    private final TenantMigrationOrchestrator migrationOrchestrator;    @Override
     public void run(String... args) {
         log.info("🚀 Starting multi-tenant setup: Flyway migrations + Super admin creation...");
         
@@ -60,6 +60,7 @@ public class MultiTenantFlywayConfig implements CommandLineRunner {
         }
     }    /**
      * Custom Flyway migration strategy for multi-tenant setup
+     * Schemas are migrated in parallel (or lazily on first access) by TenantMigrationOrchestrator
      */
     @Bean
     public FlywayMigrationStrategy flywayMigrationStrategy() {
@@ -67,48 +68,12 @@ public class MultiTenantFlywayConfig implements CommandLineRunner {
             @Override
             public void migrate(Flyway flyway) {
                 log.info("🗄️ Starting Flyway migrations for all tenant schemas...");
-                
-                // Use the injected datasource
-                DataSource ds = dataSource;
-                
-                // Migrate each tenant schema
-                List<String> schemas = Arrays.asList(tenantSchemas);
-                for (String schema : schemas) {
-                    migrateSchema(ds, schema);
-                }
-                
-                log.info("✅ Flyway migrations completed for {} schemas", schemas.size());
+                // Configured schemas plus tenants provisioned at runtime (they carry their own history table)
+                Set<String> schemas = new LinkedHashSet<>(Arrays.asList(tenantSchemas));
+                schemas.addAll(migrationOrchestrator.findProvisionedSchemas());
+                migrationOrchestrator.migrateAll(schemas);
             }
         };
-    }
-
-    /**
-     * Migrate a specific schema
-     */
-    private void migrateSchema(DataSource dataSource, String schemaName) {
-        try {
-            log.info("🏗️ Migrating schema: {}", schemaName);
-            
-            Flyway tenantFlyway = Flyway.configure()
-                .dataSource(dataSource)
-                .locations(migrationLocations)
-                .schemas(schemaName)
-                .defaultSchema(schemaName)
-                .createSchemas(true)
-                .baselineOnMigrate(true)
-                .cleanOnValidationError(true)
-                .table("flyway_schema_history_" + schemaName.toLowerCase())
-                .load();
-            
-            // Create schema if it doesn't exist and migrate
-            tenantFlyway.migrate();
-            
-            log.info("✅ Successfully migrated schema: {}", schemaName);
-            
-        } catch (Exception e) {
-            log.error("❌ Failed to migrate schema {}: {}", schemaName, e.getMessage(), e);
-            throw new RuntimeException("Failed to migrate schema: " + schemaName, e);
-        }
     }    /**
      * Create super admin user in 'stockify' tenant if not exists
      * Uses direct JDBC to avoid circular dependency issues
@@ -0,0 +1,15 @@
+package dev.oasis.stockify.config;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.annotation.EnableScheduling;
+
+/**
+ * Background jobs (@Scheduled). stockify.scheduling.enabled=false turns them all off,
+ * e.g. on extra instances that should only serve requests.
+ */
+@Configuration
+@EnableScheduling
+@ConditionalOnProperty(name = "stockify.scheduling.enabled", havingValue = "true", matchIfMissing = true)
+public class SchedulingConfig {
+}
@@ -1,7 +1,8 @@
 package dev.oasis.stockify.config;
 
+import dev.oasis.stockify.config.idempotency.IdempotencyFilter;
 import dev.oasis.stockify.config.tenant.TenantHeaderFilter;
-import dev.oasis.stockify.config.tenant.TenantSecurityFilter;
+import dev.oasis.stockify.config.tenant.TenantRateLimitFilter;
 import dev.oasis.stockify.service.AppUserDetailsService;
 import dev.oasis.stockify.config.tenant.TenantAwareAuthenticationSuccessHandler;
 import org.springframework.context.annotation.Bean;
@@ -14,6 +15,7 @@ import org.springframework.security.config.annotation.web.configuration.EnableWe
 import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.security.web.SecurityFilterChain;
+import org.springframework.security.web.access.intercept.AuthorizationFilter;
 import org.springframework.security.web.authentication.UsernamePasswordAuthenticationFilter;
 import org.springframework.security.web.util.matcher.AntPathRequestMatcher;
 
@@ -21,16 +23,19 @@ import org.springframework.security.web.util.matcher.AntPathRequestMatcher;
 @EnableWebSecurity
 public class SecurityConfig {    private final AppUserDetailsService appUserDetailsService;
     private final TenantHeaderFilter tenantHeaderFilter;
-    private final TenantSecurityFilter tenantSecurityFilter;
+    private final TenantRateLimitFilter tenantRateLimitFilter;
+    private final IdempotencyFilter idempotencyFilter;
     private final TenantAwareAuthenticationSuccessHandler successHandler;
 
     public SecurityConfig(AppUserDetailsService appUserDetailsService,
                         TenantHeaderFilter tenantHeaderFilter,
-                        TenantSecurityFilter tenantSecurityFilter,
+                        TenantRateLimitFilter tenantRateLimitFilter,
+                        IdempotencyFilter idempotencyFilter,
                         TenantAwareAuthenticationSuccessHandler successHandler) {
         this.appUserDetailsService = appUserDetailsService;
         this.tenantHeaderFilter = tenantHeaderFilter;
-        this.tenantSecurityFilter = tenantSecurityFilter;
+        this.tenantRateLimitFilter = tenantRateLimitFilter;
+        this.idempotencyFilter = idempotencyFilter;
         this.successHandler = successHandler;
     }
 
@@ -48,13 +53,15 @@ public class SecurityConfig {    private final AppUserDetailsService appUserDeta
     }    @Bean
     public SecurityFilterChain filterChain(HttpSecurity http) throws Exception {        http
             .addFilterBefore(tenantHeaderFilter, UsernamePasswordAuthenticationFilter.class)
-            .addFilterAfter(tenantSecurityFilter, TenantHeaderFilter.class)
+            .addFilterAfter(tenantRateLimitFilter, TenantHeaderFilter.class)
+            .addFilterAfter(idempotencyFilter, AuthorizationFilter.class)
             .csrf(csrf -> csrf.disable())
             .authorizeHttpRequests(auth -> auth
                 .requestMatchers("/css/**", "/js/**", "/images/**", "/error", "/h2-console/**").permitAll()
                 .requestMatchers("/login*").permitAll()
                 .requestMatchers("/superadmin/**").hasRole("SUPER_ADMIN")
                 .requestMatchers("/admin/tenants/**").hasRole("SUPER_ADMIN")
+                .requestMatchers("/actuator/profiling/**").hasRole("SUPER_ADMIN")
                 .requestMatchers("/admin/**").hasRole("ADMIN")
                 .anyRequest().authenticated()
             )
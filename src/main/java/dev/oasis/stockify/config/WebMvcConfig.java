@@ -1,23 +0,0 @@
-package dev.oasis.stockify.config;
-
-import dev.oasis.stockify.config.tenant.TenantInterceptor;
-import org.springframework.context.annotation.Configuration;
-import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
-import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
-
-@Configuration
-public class WebMvcConfig implements WebMvcConfigurer {
-
-    private final TenantInterceptor tenantInterceptor;
-
-    public WebMvcConfig(TenantInterceptor tenantInterceptor) {
-        this.tenantInterceptor = tenantInterceptor;
-    }
-
-    @Override
-    public void addInterceptors(InterceptorRegistry registry) {
-        registry.addInterceptor(tenantInterceptor)
-               .addPathPatterns("/**")
-               .excludePathPatterns("/css/**", "/js/**", "/images/**", "/error", "/h2-console/**");
-    }
-}
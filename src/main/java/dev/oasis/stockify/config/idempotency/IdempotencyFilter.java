@@ -0,0 +1,258 @@
+package dev.oasis.stockify.config.idempotency;
+
+import dev.oasis.stockify.config.idempotency.IdempotencyStore.StoredResponse;
+import dev.oasis.stockify.config.metrics.TenantMetricsTags;
+import dev.oasis.stockify.config.tenant.TenantContext;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpHeaders;
+import org.springframework.lang.NonNull;
+import org.springframework.stereotype.Component;
+import org.springframework.util.AntPathMatcher;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.util.ContentCachingResponseWrapper;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.regex.Pattern;
+
+/**
+ * Makes product and stock mutations safe to retry.
+ * <p>
+ * A mutating request with an {@code Idempotency-Key} header runs once per (tenant, key); repeating it
+ * replays the first response (status, Location, body) with {@code Idempotent-Replayed: true}. A key sent
+ * with a different method, path or parameters is rejected with 422. Duplicates that arrive while the
+ * first request still runs, on this instance or another one, wait for it and get its response (409 when it
+ * takes longer than wait-timeout-ms). Responses with status 5xx
+ * are not stored, so such a request can be retried with the same key. Runs after authorization, so only
+ * authenticated requests reach the store.
+ */
+@Slf4j
+@Component
+public class IdempotencyFilter extends OncePerRequestFilter {
+
+    public static final String HEADER = "Idempotency-Key";
+    static final String REPLAYED_HEADER = "Idempotent-Replayed";
+    private static final Set<String> MUTATING_METHODS = Set.of("POST", "PUT", "PATCH", "DELETE");
+    private static final Pattern KEY_PATTERN = Pattern.compile("[A-Za-z0-9._:-]{1,128}");
+
+    private final IdempotencyStore store;
+    private final MeterRegistry meterRegistry;
+    private final TenantMetricsTags tenantTags;
+    private final AntPathMatcher pathMatcher = new AntPathMatcher();
+
+    @Value("${stockify.idempotency.enabled:true}")
+    private boolean enabled;
+
+    @Value("${stockify.idempotency.paths:/products/**,/reservations/**,/locations/**}")
+    private List<String> paths;
+
+    @Value("${stockify.idempotency.wait-timeout-ms:10000}")
+    private long waitTimeoutMs;
+
+    public IdempotencyFilter(IdempotencyStore store, MeterRegistry meterRegistry, TenantMetricsTags tenantTags) {
+        this.store = store;
+        this.meterRegistry = meterRegistry;
+        this.tenantTags = tenantTags;
+    }
+
+    @Override
+    protected void doFilterInternal(@NonNull HttpServletRequest request, @NonNull HttpServletResponse response,
+                                    @NonNull FilterChain filterChain) throws ServletException, IOException {
+        String tenantId = TenantContext.getCurrentTenant();
+        String key = request.getHeader(HEADER);
+        if (tenantId == null) {
+            filterChain.doFilter(request, response);
+            return;
+        }
+        if (!KEY_PATTERN.matcher(key).matches()) {
+            writeError(response, HttpServletResponse.SC_BAD_REQUEST,
+                    "Idempotency-Key must be 1-128 characters of letters, digits, '.', '_', ':' or '-'");
+            return;
+        }
+
+        long requestHash = requestHash(request);
+        String storeKey = tenantId + '/' + key;
+        while (true) {
+            long lookupStart = System.nanoTime();
+            StoredResponse stored = store.getHot(storeKey);
+            if (stored != null) {
+                lookupTimer("hot").record(System.nanoTime() - lookupStart, TimeUnit.NANOSECONDS);
+                replay(stored, requestHash, response, "replayed");
+                return;
+            }
+
+            CompletableFuture<StoredResponse> execution = new CompletableFuture<>();
+            CompletableFuture<StoredResponse> running = store.claim(storeKey, execution);
+            if (running != null) {
+                StoredResponse result;
+                try {
+                    result = running.get(waitTimeoutMs, TimeUnit.MILLISECONDS);
+                } catch (TimeoutException e) {
+                    count("in_progress");
+                    writeError(response, HttpServletResponse.SC_CONFLICT, "A request with this Idempotency-Key is still in progress");
+                    return;
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new ServletException("Interrupted while waiting for a duplicate request", e);
+                } catch (ExecutionException e) {
+                    result = null;
+                }
+                if (result != null) {
+                    replay(result, requestHash, response, "collapsed");
+                    return;
+                }
+                // The first request failed without a stored response; run this one instead
+                continue;
+            }
+
+            try {
+                IdempotencyStore.ColdClaim cold = store.claimCold(storeKey, key, requestHash);
+                lookupTimer(cold.stored() != null ? "cold" : "miss").record(System.nanoTime() - lookupStart, TimeUnit.NANOSECONDS);
+                if (cold.stored() != null) {
+                    // Waiters here read it from the hot tier, or claim again if it was another request's pending key
+                    replay(cold.stored(), requestHash, response, "replayed");
+                    return;
+                }
+                if (!cold.claimed()) {
+                    count("in_progress");
+                    writeError(response, HttpServletResponse.SC_CONFLICT, "A request with this Idempotency-Key is still in progress");
+                    return;
+                }
+                execute(request, response, filterChain, requestHash, storeKey, key, execution);
+            } finally {
+                store.release(storeKey, execution);
+                execution.complete(null);
+            }
+            return;
+        }
+    }
+
+    private void execute(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain, long requestHash,
+                         String storeKey, String key, CompletableFuture<StoredResponse> execution)
+            throws ServletException, IOException {
+        ContentCachingResponseWrapper wrapper = new ContentCachingResponseWrapper(response);
+        StoredResponse stored = null;
+        try {
+            filterChain.doFilter(request, wrapper);
+
+            int status = wrapper.getStatus();
+            stored = status < 500
+                    ? store.response(requestHash, status, wrapper.getContentType(), wrapper.getHeader(HttpHeaders.LOCATION),
+                            wrapper.getContentAsByteArray())
+                    : null;
+            if (stored != null) {
+                store.putHot(storeKey, stored);
+            }
+            execution.complete(stored);
+            count("executed");
+
+            wrapper.copyBodyToResponse();
+            response.flushBuffer();
+        } finally {
+            // Written after the client has its response, so the cold tier adds nothing to the request latency.
+            // A chain that threw stored nothing, so its pending row is released for the retry.
+            if (stored != null) {
+                store.persist(key, stored);
+            } else {
+                store.releaseCold(key);
+            }
+        }
+    }
+
+    private void replay(StoredResponse stored, long requestHash, HttpServletResponse response, String outcome)
+            throws IOException {
+        if (stored.requestHash() != requestHash) {
+            count("mismatch");
+            writeError(response, 422, "Idempotency-Key was already used for a different request");
+            return;
+        }
+        count(outcome);
+        response.setStatus(stored.status());
+        response.setHeader(REPLAYED_HEADER, "true");
+        if (stored.contentType() != null) {
+            response.setContentType(stored.contentType());
+        }
+        if (stored.location() != null) {
+            response.setHeader(HttpHeaders.LOCATION, stored.location());
+        }
+        if (stored.body() != null) {
+            response.setContentLength(stored.body().length);
+            response.getOutputStream().write(stored.body());
+        }
+        response.flushBuffer();
+    }
+
+    /**
+     * 64 bit fingerprint of method, path and parameters (query string and form fields)
+     */
+    static long requestHash(HttpServletRequest request) {
+        MessageDigest digest;
+        try {
+            digest = MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+        digest.update(request.getMethod().getBytes(StandardCharsets.UTF_8));
+        digest.update((byte) 0);
+        digest.update(request.getRequestURI().getBytes(StandardCharsets.UTF_8));
+        for (Map.Entry<String, String[]> parameter : new TreeMap<>(request.getParameterMap()).entrySet()) {
+            digest.update((byte) 0);
+            digest.update(parameter.getKey().getBytes(StandardCharsets.UTF_8));
+            for (String value : parameter.getValue()) {
+                digest.update((byte) 1);
+                digest.update(value.getBytes(StandardCharsets.UTF_8));
+            }
+        }
+        return ByteBuffer.wrap(digest.digest()).getLong();
+    }
+
+    private static void writeError(HttpServletResponse response, int status, String message) throws IOException {
+        response.setStatus(status);
+        response.setContentType("application/json");
+        response.getWriter().write("{\"error\":\"" + message + "\"}");
+    }
+
+    private void count(String outcome) {
+        Counter.builder("stockify.idempotency.requests")
+                .description("Requests with an Idempotency-Key, by outcome")
+                .tag(TenantMetricsTags.TAG, tenantTags.current())
+                .tag("outcome", outcome)
+                .register(meterRegistry)
+                .increment();
+    }
+
+    private Timer lookupTimer(String tier) {
+        return Timer.builder("stockify.idempotency.lookup")
+                .description("Time to look up an Idempotency-Key, by the tier that answered")
+                .tag("tier", tier)
+                .register(meterRegistry);
+    }
+
+    @Override
+    protected boolean shouldNotFilter(@NonNull HttpServletRequest request) {
+        if (!enabled || request.getHeader(HEADER) == null || !MUTATING_METHODS.contains(request.getMethod())) {
+            return true;
+        }
+        String path = request.getRequestURI();
+        return paths.stream().noneMatch(pattern -> pathMatcher.match(pattern, path));
+    }
+}
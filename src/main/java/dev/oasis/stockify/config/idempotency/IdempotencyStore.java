@@ -0,0 +1,355 @@
+package dev.oasis.stockify.config.idempotency;
+
+import dev.oasis.stockify.config.tenant.TenantContext;
+import dev.oasis.stockify.config.tenant.TenantMigrationOrchestrator;
+import dev.oasis.stockify.config.tenant.TenantRegistry;
+import dev.oasis.stockify.model.IdempotencyRecord;
+import dev.oasis.stockify.repository.IdempotencyRecordRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.sql.DataSource;
+import java.nio.charset.StandardCharsets;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.Locale;
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Two tier store of idempotent responses.
+ * <p>
+ * The hot tier is an in-memory map per instance, bounded by {@code hot-max-entries} and
+ * {@code hot-ttl-seconds}; entries are evicted oldest first (all entries share one TTL, so insertion order
+ * is expiry order). The cold tier is the tenant's idempotency_key table, read on a hot miss and written
+ * after the response went out, and purged hourly once {@code ttl-seconds} passed. Requests in flight are
+ * tracked here too, so duplicates arriving on the same instance wait for the first one instead of running.
+ * Across instances the first request claims its key with a pending row (the key is the primary key, so only
+ * one insert wins); duplicates elsewhere poll that row until the response replaces it, and get 409 after
+ * {@code wait-timeout-ms}. A pending row whose owner died expires after {@code pending-ttl-seconds}.
+ */
+@Slf4j
+@Component
+public class IdempotencyStore {
+
+    private static final String COLD_LOOKUP = "SELECT request_hash, status_code, content_type, location, response_body, expires_at, "
+            + "pending FROM idempotency_key WHERE idempotency_key = ?";
+    private static final String COLD_CLAIM = "INSERT INTO idempotency_key "
+            + "(idempotency_key, request_hash, status_code, created_at, expires_at, pending) VALUES (?, ?, 0, ?, ?, TRUE)";
+    private static final String COLD_TAKE_OVER = "DELETE FROM idempotency_key WHERE idempotency_key = ? AND expires_at <= ?";
+    private static final String COLD_RELEASE = "DELETE FROM idempotency_key WHERE idempotency_key = ? AND pending = TRUE";
+    private static final long PENDING_POLL_MILLIS = 50;
+
+    private final IdempotencyRecordRepository recordRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final TenantRegistry tenantRegistry;
+    private final DataSource dataSource;
+    private final TenantMigrationOrchestrator migrationOrchestrator;
+
+    private final ConcurrentMap<String, HotEntry> hot = new ConcurrentHashMap<>();
+    private final Queue<HotKey> hotOrder = new ConcurrentLinkedQueue<>();
+    private final ConcurrentMap<String, CompletableFuture<StoredResponse>> inFlight = new ConcurrentHashMap<>();
+
+    @Value("${stockify.idempotency.ttl-seconds:86400}")
+    private long ttlSeconds;
+
+    @Value("${stockify.idempotency.hot-ttl-seconds:600}")
+    private long hotTtlSeconds;
+
+    @Value("${stockify.idempotency.hot-max-entries:10000}")
+    private int hotMaxEntries;
+
+    @Value("${stockify.idempotency.max-body-bytes:4096}")
+    private int maxBodyBytes;
+
+    @Value("${stockify.idempotency.pending-ttl-seconds:60}")
+    private long pendingTtlSeconds;
+
+    @Value("${stockify.idempotency.wait-timeout-ms:10000}")
+    private long waitTimeoutMs;
+
+    public IdempotencyStore(IdempotencyRecordRepository recordRepository,
+                            TransactionTemplate transactionTemplate,
+                            TenantRegistry tenantRegistry,
+                            DataSource dataSource,
+                            TenantMigrationOrchestrator migrationOrchestrator) {
+        this.recordRepository = recordRepository;
+        this.transactionTemplate = transactionTemplate;
+        this.tenantRegistry = tenantRegistry;
+        this.dataSource = dataSource;
+        this.migrationOrchestrator = migrationOrchestrator;
+    }
+
+    /**
+     * Response kept for a key. body is null when the response was larger than max-body-bytes;
+     * such a response is replayed with its status and headers only.
+     */
+    public record StoredResponse(long requestHash, int status, String contentType, String location, byte[] body,
+                                 long expiresAtMillis) {
+    }
+
+    /**
+     * Result of the cold tier claim: a stored response to replay, the key claimed for this request, or the key
+     * still pending on another instance after waiting for it
+     */
+    record ColdClaim(StoredResponse stored, boolean claimed) {
+        static final ColdClaim CLAIMED = new ColdClaim(null, true);
+        static final ColdClaim IN_PROGRESS = new ColdClaim(null, false);
+    }
+
+    private record HotEntry(StoredResponse response, long expiresAtMillis) {
+    }
+
+    private record HotKey(String key, HotEntry entry) {
+    }
+
+    StoredResponse response(long requestHash, int status, String contentType, String location, byte[] body) {
+        return new StoredResponse(requestHash, status, contentType, location,
+                body.length <= maxBodyBytes ? body : null, System.currentTimeMillis() + ttlSeconds * 1000);
+    }
+
+    StoredResponse getHot(String storeKey) {
+        HotEntry entry = hot.get(storeKey);
+        if (entry == null) {
+            return null;
+        }
+        if (entry.expiresAtMillis() <= System.currentTimeMillis()) {
+            hot.remove(storeKey, entry);
+            return null;
+        }
+        return entry.response();
+    }
+
+    /**
+     * Cold tier lookup and claim in the current tenant's schema. A live response is promoted to the hot tier
+     * and returned; a missing or expired key is claimed with a pending row; a key pending on another instance
+     * is polled until its response is stored or wait-timeout-ms passes, without holding a connection between
+     * polls. Runs as plain statements on pooled connections, without an EntityManager or transaction, since it
+     * sits in front of every keyed request that missed the hot tier.
+     */
+    ColdClaim claimCold(String storeKey, String idempotencyKey, long requestHash) {
+        String tenant = TenantContext.getCurrentTenant();
+        if (tenant == null) {
+            return ColdClaim.CLAIMED;
+        }
+        String schema = tenant.toLowerCase(Locale.ROOT);
+        long deadline = System.currentTimeMillis() + waitTimeoutMs;
+        try {
+            while (true) {
+                ColdClaim claim;
+                // The connection goes back to the pool while this request waits for another instance
+                try (Connection connection = connection(schema)) {
+                    claim = claimOnce(connection, storeKey, idempotencyKey, requestHash);
+                }
+                if (claim != null) {
+                    return claim;
+                }
+                if (System.currentTimeMillis() >= deadline) {
+                    return ColdClaim.IN_PROGRESS;
+                }
+                Thread.sleep(PENDING_POLL_MILLIS);
+            }
+        } catch (SQLException e) {
+            // Treated as a miss: the request runs, and a duplicate on another instance is not caught
+            log.warn("⚠️ Idempotency key lookup failed for {}: {}", idempotencyKey, e.getMessage());
+            return ColdClaim.CLAIMED;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return ColdClaim.IN_PROGRESS;
+        }
+    }
+
+    /**
+     * One lookup and claim attempt; null when the key is pending on another instance with the same request
+     */
+    private ColdClaim claimOnce(Connection connection, String storeKey, String idempotencyKey, long requestHash)
+            throws SQLException {
+        while (true) {
+            ColdRow row = lookup(connection, idempotencyKey);
+            long now = System.currentTimeMillis();
+            if (row != null && row.expiresAtMillis() > now) {
+                if (!row.pending()) {
+                    putHot(storeKey, row.response());
+                    return new ColdClaim(row.response(), false);
+                }
+                if (row.response().requestHash() != requestHash) {
+                    // Answered with 422 by the caller without waiting for the other request
+                    return new ColdClaim(row.response(), false);
+                }
+                return null;
+            }
+            if (row != null) {
+                try (PreparedStatement statement = connection.prepareStatement(COLD_TAKE_OVER)) {
+                    statement.setString(1, idempotencyKey);
+                    statement.setTimestamp(2, new Timestamp(now));
+                    statement.executeUpdate();
+                }
+            }
+            if (insertPending(connection, idempotencyKey, requestHash, now)) {
+                return ColdClaim.CLAIMED;
+            }
+            // Another instance claimed the key first: read its row again
+        }
+    }
+
+    private record ColdRow(StoredResponse response, boolean pending, long expiresAtMillis) {
+    }
+
+    private static ColdRow lookup(Connection connection, String idempotencyKey) throws SQLException {
+        try (PreparedStatement statement = connection.prepareStatement(COLD_LOOKUP)) {
+            statement.setString(1, idempotencyKey);
+            try (ResultSet rs = statement.executeQuery()) {
+                if (!rs.next()) {
+                    return null;
+                }
+                long expiresAtMillis = rs.getTimestamp("expires_at").getTime();
+                String body = rs.getString("response_body");
+                StoredResponse stored = new StoredResponse(rs.getLong("request_hash"), rs.getInt("status_code"),
+                        rs.getString("content_type"), rs.getString("location"),
+                        body != null ? body.getBytes(StandardCharsets.UTF_8) : null, expiresAtMillis);
+                return new ColdRow(stored, rs.getBoolean("pending"), expiresAtMillis);
+            }
+        }
+    }
+
+    /**
+     * @return false when the key already has a row, i.e. another request claimed it meanwhile
+     */
+    private boolean insertPending(Connection connection, String idempotencyKey, long requestHash, long now)
+            throws SQLException {
+        try (PreparedStatement statement = connection.prepareStatement(COLD_CLAIM)) {
+            statement.setString(1, idempotencyKey);
+            statement.setLong(2, requestHash);
+            statement.setTimestamp(3, new Timestamp(now));
+            statement.setTimestamp(4, new Timestamp(now + pendingTtlSeconds * 1000));
+            statement.executeUpdate();
+            return true;
+        } catch (SQLException e) {
+            // 23xxx: integrity constraint violation, here the primary key
+            if (e.getSQLState() != null && e.getSQLState().startsWith("23")) {
+                return false;
+            }
+            throw e;
+        }
+    }
+
+    /**
+     * Drops the pending row of a request that ended without a stored response (5xx), so the key can be retried
+     */
+    void releaseCold(String idempotencyKey) {
+        String tenant = TenantContext.getCurrentTenant();
+        if (tenant == null) {
+            return;
+        }
+        try (Connection connection = connection(tenant.toLowerCase(Locale.ROOT));
+             PreparedStatement statement = connection.prepareStatement(COLD_RELEASE)) {
+            statement.setString(1, idempotencyKey);
+            statement.executeUpdate();
+        } catch (SQLException e) {
+            // The pending row expires after pending-ttl-seconds
+            log.warn("⚠️ Could not release idempotency key {}: {}", idempotencyKey, e.getMessage());
+        }
+    }
+
+    /**
+     * Pooled connection in the tenant's schema; with lazy tenant migration the first access migrates it first
+     */
+    private Connection connection(String schema) throws SQLException {
+        migrationOrchestrator.ensureTenantReady(schema);
+        Connection connection = dataSource.getConnection();
+        try {
+            connection.setSchema(schema);
+            return connection;
+        } catch (SQLException e) {
+            connection.close();
+            throw e;
+        }
+    }
+
+    void putHot(String storeKey, StoredResponse stored) {
+        HotEntry entry = new HotEntry(stored,
+                Math.min(stored.expiresAtMillis(), System.currentTimeMillis() + hotTtlSeconds * 1000));
+        hot.put(storeKey, entry);
+        hotOrder.add(new HotKey(storeKey, entry));
+        evictHot();
+    }
+
+    private void evictHot() {
+        long now = System.currentTimeMillis();
+        HotKey head;
+        while ((head = hotOrder.peek()) != null && (head.entry().expiresAtMillis() <= now || hot.size() > hotMaxEntries)) {
+            HotKey oldest = hotOrder.poll();
+            if (oldest != null) {
+                // A key stored again since has a newer entry, which stays
+                hot.remove(oldest.key(), oldest.entry());
+            }
+        }
+    }
+
+    /**
+     * Writes the response to the current tenant's cold tier, replacing the pending row of the claim
+     */
+    void persist(String idempotencyKey, StoredResponse stored) {
+        IdempotencyRecord record = new IdempotencyRecord();
+        record.setIdempotencyKey(idempotencyKey);
+        record.setRequestHash(stored.requestHash());
+        record.setStatusCode(stored.status());
+        record.setContentType(stored.contentType());
+        record.setLocation(stored.location());
+        record.setResponseBody(stored.body() != null ? new String(stored.body(), StandardCharsets.UTF_8) : null);
+        record.setCreatedAt(LocalDateTime.now());
+        record.setExpiresAt(LocalDateTime.ofInstant(Instant.ofEpochMilli(stored.expiresAtMillis()), ZoneId.systemDefault()));
+        record.setPending(false);
+        try {
+            transactionTemplate.executeWithoutResult(status -> recordRepository.save(record));
+        } catch (RuntimeException e) {
+            // The hot tier still covers retries on this instance; elsewhere the pending row expires
+            log.warn("⚠️ Could not store idempotency key {}: {}", idempotencyKey, e.getMessage());
+        }
+    }
+
+    /**
+     * Registers the caller's execution for the key; returns the execution already running, if any
+     */
+    CompletableFuture<StoredResponse> claim(String storeKey, CompletableFuture<StoredResponse> execution) {
+        return inFlight.putIfAbsent(storeKey, execution);
+    }
+
+    void release(String storeKey, CompletableFuture<StoredResponse> execution) {
+        inFlight.remove(storeKey, execution);
+    }
+
+    @Scheduled(cron = "${stockify.idempotency.purge-cron:0 15 * * * *}")
+    public void purgeExpired() {
+        for (String tenant : tenantRegistry.allTenants()) {
+            String previousTenant = TenantContext.getCurrentTenant();
+            TenantContext.setCurrentTenant(tenant);
+            try {
+                Integer removed = transactionTemplate.execute(status -> recordRepository.deleteExpired(LocalDateTime.now()));
+                if (removed != null && removed > 0) {
+                    log.info("🧹 Removed {} expired idempotency keys for tenant {}", removed, tenant);
+                }
+            } catch (RuntimeException e) {
+                log.warn("⚠️ Idempotency key purge failed for tenant {}: {}", tenant, e.getMessage());
+            } finally {
+                if (previousTenant != null) {
+                    TenantContext.setCurrentTenant(previousTenant);
+                } else {
+                    TenantContext.clear();
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,182 @@
+package dev.oasis.stockify.config.metrics;
+
+import dev.oasis.stockify.config.profiling.JdbcStatementEvent;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.stereotype.Component;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.CallableStatement;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * JDBC timings per tenant schema:
+ * <ul>
+ *   <li>{@code stockify.jdbc.connection.acquire} - pool checkout plus schema switch</li>
+ *   <li>{@code stockify.jdbc.query} - statement execution, tagged with outcome SUCCESS/ERROR</li>
+ * </ul>
+ * Statements are timed through a thin JDK proxy around the tenant connection; everything else,
+ * including {@code unwrap}, goes straight to the pooled connection.
+ * While a JFR profiling session is running each execution is also emitted as a JdbcStatementEvent,
+ * and inside a request every statement is counted in RequestQueryStats for the query guard.
+ */
+@Component
+public class JdbcTenantMetrics {
+
+    private final MeterRegistry meterRegistry;
+    private final TenantMetricsTags tenantTags;
+    private final ConcurrentMap<String, SchemaTimers> timers = new ConcurrentHashMap<>();
+
+    public JdbcTenantMetrics(MeterRegistry meterRegistry, TenantMetricsTags tenantTags) {
+        this.meterRegistry = meterRegistry;
+        this.tenantTags = tenantTags;
+    }
+
+    public void recordAcquire(String schema, long nanos) {
+        timersFor(schema).acquire.record(nanos, TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * Wrap a tenant connection so every statement it creates is timed against the schema
+     */
+    public Connection instrument(Connection connection, String schema) {
+        SchemaTimers schemaTimers = timersFor(schema);
+        return (Connection) Proxy.newProxyInstance(Connection.class.getClassLoader(),
+                new Class<?>[] {Connection.class},
+                new ConnectionHandler(connection, schemaTimers, tenantTags.of(schema)));
+    }
+
+    private SchemaTimers timersFor(String schema) {
+        String tenant = tenantTags.of(schema);
+        return timers.computeIfAbsent(tenant, key -> new SchemaTimers(
+                Timer.builder("stockify.jdbc.connection.acquire")
+                        .description("Time to check out a connection and switch it to the tenant schema")
+                        .tag(TenantMetricsTags.TAG, key)
+                        .register(meterRegistry),
+                queryTimer(key, "SUCCESS"),
+                queryTimer(key, "ERROR")));
+    }
+
+    private Timer queryTimer(String tenant, String outcome) {
+        return Timer.builder("stockify.jdbc.query")
+                .description("JDBC statement execution time per tenant schema")
+                .tag(TenantMetricsTags.TAG, tenant)
+                .tag("outcome", outcome)
+                .register(meterRegistry);
+    }
+
+    private record SchemaTimers(Timer acquire, Timer success, Timer error) {
+    }
+
+    /**
+     * Delegate to the real JDBC object; identity methods stay on the proxy so Hibernate's
+     * statement bookkeeping (hash-based) keeps working
+     */
+    private static Object invoke(Object proxy, Object target, Method method, Object[] args) throws Throwable {
+        switch (method.getName()) {
+            case "equals":
+                return proxy == args[0];
+            case "hashCode":
+                return System.identityHashCode(proxy);
+            default:
+                break;
+        }
+        try {
+            return method.invoke(target, args);
+        } catch (InvocationTargetException e) {
+            throw e.getCause();
+        }
+    }
+
+    private static final class ConnectionHandler implements InvocationHandler {
+        private final Connection target;
+        private final SchemaTimers timers;
+        private final String tenant;
+
+        ConnectionHandler(Connection target, SchemaTimers timers, String tenant) {
+            this.target = target;
+            this.timers = timers;
+            this.tenant = tenant;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            Object result = JdbcTenantMetrics.invoke(proxy, target, method, args);
+            if (result instanceof Statement statement) {
+                Class<?> type = statement instanceof CallableStatement ? CallableStatement.class
+                        : statement instanceof PreparedStatement ? PreparedStatement.class
+                        : Statement.class;
+                return Proxy.newProxyInstance(Statement.class.getClassLoader(), new Class<?>[] {type},
+                        new StatementHandler(statement, timers, tenant, sqlArgument(args)));
+            }
+            return result;
+        }
+    }
+
+    private static String sqlArgument(Object[] args) {
+        return args != null && args.length > 0 && args[0] instanceof String sql ? sql : null;
+    }
+
+    private static final class StatementHandler implements InvocationHandler {
+        private final Statement target;
+        private final SchemaTimers timers;
+        private final String tenant;
+        private final String preparedSql;
+
+        StatementHandler(Statement target, SchemaTimers timers, String tenant, String preparedSql) {
+            this.target = target;
+            this.timers = timers;
+            this.tenant = tenant;
+            this.preparedSql = preparedSql;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            if (!method.getName().startsWith("execute")) {
+                return JdbcTenantMetrics.invoke(proxy, target, method, args);
+            }
+            String sql = preparedSql != null ? preparedSql : sqlArgument(args);
+            RequestQueryStats stats = RequestQueryStats.current();
+            if (stats != null) {
+                stats.beforeStatement(sql);
+            }
+            JdbcStatementEvent event = new JdbcStatementEvent();
+            event.begin();
+            long start = System.nanoTime();
+            try {
+                Object result = JdbcTenantMetrics.invoke(proxy, target, method, args);
+                long nanos = System.nanoTime() - start;
+                timers.success.record(nanos, TimeUnit.NANOSECONDS);
+                finish(stats, event, sql, nanos, "SUCCESS");
+                return result;
+            } catch (SQLException | RuntimeException e) {
+                long nanos = System.nanoTime() - start;
+                timers.error.record(nanos, TimeUnit.NANOSECONDS);
+                finish(stats, event, sql, nanos, "ERROR");
+                throw e;
+            }
+        }
+
+        private void finish(RequestQueryStats stats, JdbcStatementEvent event, String sql, long nanos, String outcome) {
+            if (stats != null) {
+                stats.statementExecuted(sql, nanos);
+            }
+            event.end();
+            if (event.shouldCommit()) {
+                event.tenant = tenant;
+                event.sql = sql;
+                event.outcome = outcome;
+                event.commit();
+            }
+        }
+    }
+}
@@ -0,0 +1,167 @@
+package dev.oasis.stockify.config.metrics;
+
+import dev.oasis.stockify.config.tenant.ResolvedTenant;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+import org.springframework.util.AntPathMatcher;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+/**
+ * Per-request SQL accounting: statements, statement time and entity loads per tenant.
+ * Requests over the statement budget, over the query time threshold, with slow statements
+ * or with one statement shape repeated N times (N+1, e.g. the eager StockNotification.product
+ * load behind notification-list.html) are logged with their SQL fingerprints and counted.
+ * Runs ahead of Spring Security so login and session lookups are included.
+ */
+@Slf4j
+@Component
+@Order(Ordered.HIGHEST_PRECEDENCE + 10)
+public class QueryGuardFilter extends OncePerRequestFilter {
+
+    private static final AntPathMatcher PATHS = new AntPathMatcher();
+
+    private final MeterRegistry meterRegistry;
+    private final TenantMetricsTags tenantTags;
+
+    @Value("${stockify.query-guard.enabled:true}")
+    private boolean enabled;
+
+    @Value("${stockify.query-guard.statement-budget:50}")
+    private int statementBudget;
+
+    @Value("${stockify.query-guard.fail-on-budget:false}")
+    private boolean failOnBudget;
+
+    @Value("${stockify.query-guard.slow-request-ms:500}")
+    private long slowRequestMs;
+
+    @Value("${stockify.query-guard.slow-statement-ms:200}")
+    private long slowStatementMs;
+
+    @Value("${stockify.query-guard.n-plus-one-threshold:10}")
+    private int nPlusOneThreshold;
+
+    @Value("${stockify.query-guard.excluded-paths:/products/import/**}")
+    private List<String> excludedPaths;
+
+    public QueryGuardFilter(MeterRegistry meterRegistry, TenantMetricsTags tenantTags) {
+        this.meterRegistry = meterRegistry;
+        this.tenantTags = tenantTags;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response,
+                                    FilterChain filterChain) throws ServletException, IOException {
+        RequestQueryStats stats = RequestQueryStats.begin(statementBudget, failOnBudget,
+                TimeUnit.MILLISECONDS.toNanos(slowStatementMs));
+        try {
+            filterChain.doFilter(request, response);
+        } finally {
+            RequestQueryStats.end();
+            if (stats.statements() > 0) {
+                report(request, stats);
+            }
+        }
+    }
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        if (!enabled) {
+            return true;
+        }
+        String path = request.getRequestURI();
+        return path.startsWith("/css/") || path.startsWith("/js/") || path.startsWith("/images/")
+                || excludedPaths.stream().anyMatch(pattern -> PATHS.match(pattern, path));
+    }
+
+    private void report(HttpServletRequest request, RequestQueryStats stats) {
+        Object resolved = request.getAttribute(ResolvedTenant.REQUEST_ATTRIBUTE);
+        String tenant = resolved instanceof ResolvedTenant t ? tenantTags.of(t.getTenantId()) : TenantMetricsTags.NONE;
+
+        DistributionSummary.builder("stockify.hibernate.request.statements")
+                .description("SQL statements executed per request")
+                .tag(TenantMetricsTags.TAG, tenant)
+                .publishPercentileHistogram()
+                .maximumExpectedValue((double) Math.max(statementBudget * 4, 100))
+                .register(meterRegistry)
+                .record(stats.statements());
+        DistributionSummary.builder("stockify.hibernate.request.entity.loads")
+                .description("Entities loaded per request")
+                .tag(TenantMetricsTags.TAG, tenant)
+                .register(meterRegistry)
+                .record(stats.entityLoads());
+        Timer.builder("stockify.hibernate.request.query.time")
+                .description("Total SQL statement time per request")
+                .tag(TenantMetricsTags.TAG, tenant)
+                .register(meterRegistry)
+                .record(stats.statementNanos(), TimeUnit.NANOSECONDS);
+        if (stats.slowStatements() > 0) {
+            counter("stockify.hibernate.slow.statements", tenant, null).increment(stats.slowStatements());
+        }
+
+        List<String> reasons = new ArrayList<>();
+        if (stats.statements() > statementBudget) {
+            reasons.add("statement-budget");
+        }
+        if (TimeUnit.NANOSECONDS.toMillis(stats.statementNanos()) > slowRequestMs) {
+            reasons.add("slow-queries");
+        }
+        if (stats.slowStatements() > 0) {
+            reasons.add("slow-statement");
+        }
+        Map<String, RequestQueryStats.SqlTotals> fingerprints = stats.byFingerprint();
+        List<Map.Entry<String, RequestQueryStats.SqlTotals>> repeated = fingerprints.entrySet().stream()
+                .filter(e -> e.getValue().count() >= nPlusOneThreshold)
+                .sorted(Comparator.comparingInt((Map.Entry<String, RequestQueryStats.SqlTotals> e) -> e.getValue().count()).reversed())
+                .toList();
+        if (!repeated.isEmpty()) {
+            reasons.add("n-plus-one");
+        }
+        if (reasons.isEmpty()) {
+            return;
+        }
+
+        reasons.forEach(reason -> counter("stockify.hibernate.flagged.requests", tenant, reason).increment());
+        List<Map.Entry<String, RequestQueryStats.SqlTotals>> offenders = repeated.isEmpty()
+                ? fingerprints.entrySet().stream()
+                        .sorted(Comparator.comparingLong((Map.Entry<String, RequestQueryStats.SqlTotals> e) -> e.getValue().nanos()).reversed())
+                        .limit(3)
+                        .toList()
+                : repeated;
+        log.warn("🐢 Query guard {} on {} {} [tenant: {}]: {} statements, {} ms SQL, {} entity loads {}{}",
+                reasons, request.getMethod(), request.getRequestURI(), tenant,
+                stats.statements(), TimeUnit.NANOSECONDS.toMillis(stats.statementNanos()),
+                stats.entityLoads(), stats.loadsByEntity(),
+                offenders.stream()
+                        .map(e -> String.format("%n    %dx, %.1f ms total, %.1f ms max: %s", e.getValue().count(),
+                                e.getValue().nanos() / 1e6, e.getValue().maxNanos() / 1e6, e.getKey()))
+                        .collect(Collectors.joining()));
+    }
+
+    private Counter counter(String name, String tenant, String reason) {
+        Counter.Builder builder = Counter.builder(name).tag(TenantMetricsTags.TAG, tenant);
+        if (reason != null) {
+            builder.tag("reason", reason);
+        }
+        return builder.register(meterRegistry);
+    }
+}
@@ -0,0 +1,134 @@
+package dev.oasis.stockify.config.metrics;
+
+import dev.oasis.stockify.exception.QueryBudgetExceededException;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * SQL statements, statement time and entity loads of the request bound to the current thread.
+ * Fed by the tenant JDBC proxy and the Hibernate post-load listener; threads without a request
+ * (startup, schedulers) have no stats and are not counted.
+ */
+public final class RequestQueryStats {
+
+    private static final ThreadLocal<RequestQueryStats> CURRENT = new ThreadLocal<>();
+
+    private final int statementBudget;
+    private final boolean failOnBudget;
+    private final long slowStatementNanos;
+
+    private int statements;
+    private long statementNanos;
+    private int entityLoads;
+    private int slowStatements;
+    private final Map<String, SqlTotals> bySql = new HashMap<>();
+    private final Map<String, Integer> loadsByEntity = new HashMap<>();
+
+    private RequestQueryStats(int statementBudget, boolean failOnBudget, long slowStatementNanos) {
+        this.statementBudget = statementBudget;
+        this.failOnBudget = failOnBudget;
+        this.slowStatementNanos = slowStatementNanos;
+    }
+
+    static RequestQueryStats begin(int statementBudget, boolean failOnBudget, long slowStatementNanos) {
+        RequestQueryStats stats = new RequestQueryStats(statementBudget, failOnBudget, slowStatementNanos);
+        CURRENT.set(stats);
+        return stats;
+    }
+
+    static void end() {
+        CURRENT.remove();
+    }
+
+    public static RequestQueryStats current() {
+        return CURRENT.get();
+    }
+
+    /**
+     * Called before a statement runs; refuses it when the budget is spent and the guard is strict
+     */
+    public void beforeStatement(String sql) {
+        if (failOnBudget && statements >= statementBudget) {
+            throw new QueryBudgetExceededException("Request exceeded its SQL statement budget of " + statementBudget
+                    + " at: " + SqlFingerprint.of(sql));
+        }
+    }
+
+    public void statementExecuted(String sql, long nanos) {
+        statements++;
+        statementNanos += nanos;
+        if (nanos >= slowStatementNanos) {
+            slowStatements++;
+        }
+        if (sql != null) {
+            bySql.computeIfAbsent(sql, key -> new SqlTotals()).add(nanos);
+        }
+    }
+
+    public void entityLoaded(String entity) {
+        entityLoads++;
+        loadsByEntity.merge(entity, 1, Integer::sum);
+    }
+
+    public int statements() {
+        return statements;
+    }
+
+    public long statementNanos() {
+        return statementNanos;
+    }
+
+    public int entityLoads() {
+        return entityLoads;
+    }
+
+    public int slowStatements() {
+        return slowStatements;
+    }
+
+    public Map<String, Integer> loadsByEntity() {
+        return loadsByEntity;
+    }
+
+    /**
+     * Per-fingerprint totals; statements differing only in literals are merged
+     */
+    public Map<String, SqlTotals> byFingerprint() {
+        Map<String, SqlTotals> fingerprints = new HashMap<>();
+        bySql.forEach((sql, totals) -> fingerprints.merge(SqlFingerprint.of(sql), totals, SqlTotals::plus));
+        return fingerprints;
+    }
+
+    public static final class SqlTotals {
+        private int count;
+        private long nanos;
+        private long maxNanos;
+
+        void add(long statementNanos) {
+            count++;
+            nanos += statementNanos;
+            maxNanos = Math.max(maxNanos, statementNanos);
+        }
+
+        static SqlTotals plus(SqlTotals a, SqlTotals b) {
+            SqlTotals sum = new SqlTotals();
+            sum.count = a.count + b.count;
+            sum.nanos = a.nanos + b.nanos;
+            sum.maxNanos = Math.max(a.maxNanos, b.maxNanos);
+            return sum;
+        }
+
+        public int count() {
+            return count;
+        }
+
+        public long nanos() {
+            return nanos;
+        }
+
+        public long maxNanos() {
+            return maxNanos;
+        }
+    }
+}
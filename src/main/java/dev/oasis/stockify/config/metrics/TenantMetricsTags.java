@@ -0,0 +1,50 @@
+package dev.oasis.stockify.config.metrics;
+
+import dev.oasis.stockify.config.tenant.TenantContext;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.Locale;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Single source of the {@code tenant} tag used by all Stockify meters.
+ * The number of distinct tag values is capped by {@code stockify.metrics.max-tenant-tags};
+ * tenants beyond the cap are reported as {@value #OTHER} so a growing tenant count cannot blow up the registry.
+ */
+@Component
+public class TenantMetricsTags {
+
+    public static final String TAG = "tenant";
+    public static final String NONE = "none";
+    public static final String OTHER = "other";
+
+    private final Set<String> tagged = ConcurrentHashMap.newKeySet();
+
+    @Value("${stockify.metrics.max-tenant-tags:100}")
+    private int maxTenantTags;
+
+    /**
+     * Tag value for the tenant bound to the current thread
+     */
+    public String current() {
+        return of(TenantContext.getCurrentTenant());
+    }
+
+    public String of(String tenantId) {
+        if (tenantId == null || tenantId.isBlank()) {
+            return NONE;
+        }
+        String tenant = tenantId.toLowerCase(Locale.ROOT);
+        if (tagged.contains(tenant)) {
+            return tenant;
+        }
+        // Check-then-add may let a few concurrent newcomers past the cap, which is harmless
+        if (tagged.size() >= maxTenantTags) {
+            return OTHER;
+        }
+        tagged.add(tenant);
+        return tenant;
+    }
+}
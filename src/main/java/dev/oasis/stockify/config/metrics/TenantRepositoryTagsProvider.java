@@ -0,0 +1,23 @@
+package dev.oasis.stockify.config.metrics;
+
+import io.micrometer.core.instrument.Tag;
+import io.micrometer.core.instrument.Tags;
+import org.springframework.boot.actuate.metrics.data.DefaultRepositoryTagsProvider;
+import org.springframework.data.repository.core.support.RepositoryMethodInvocationListener.RepositoryMethodInvocation;
+
+/**
+ * Adds the tenant to {@code spring.data.repository.invocations} (repository, method, state, exception)
+ */
+public class TenantRepositoryTagsProvider extends DefaultRepositoryTagsProvider {
+
+    private final TenantMetricsTags tenantTags;
+
+    public TenantRepositoryTagsProvider(TenantMetricsTags tenantTags) {
+        this.tenantTags = tenantTags;
+    }
+
+    @Override
+    public Iterable<Tag> repositoryTags(RepositoryMethodInvocation invocation) {
+        return Tags.of(super.repositoryTags(invocation)).and(TenantMetricsTags.TAG, tenantTags.current());
+    }
+}
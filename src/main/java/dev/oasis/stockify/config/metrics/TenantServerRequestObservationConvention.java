@@ -0,0 +1,29 @@
+package dev.oasis.stockify.config.metrics;
+
+import dev.oasis.stockify.config.tenant.ResolvedTenant;
+import io.micrometer.common.KeyValues;
+import org.springframework.http.server.observation.DefaultServerRequestObservationConvention;
+import org.springframework.http.server.observation.ServerRequestObservationContext;
+
+/**
+ * Adds the tenant to {@code http.server.requests} next to the standard uri/method/status/outcome tags.
+ * The observation stops after TenantHeaderFilter has cleared TenantContext,
+ * so the tenant is read from the ResolvedTenant request attribute instead.
+ */
+public class TenantServerRequestObservationConvention extends DefaultServerRequestObservationConvention {
+
+    private final TenantMetricsTags tenantTags;
+
+    public TenantServerRequestObservationConvention(TenantMetricsTags tenantTags) {
+        this.tenantTags = tenantTags;
+    }
+
+    @Override
+    public KeyValues getLowCardinalityKeyValues(ServerRequestObservationContext context) {
+        Object attribute = context.getCarrier().getAttribute(ResolvedTenant.REQUEST_ATTRIBUTE);
+        String tenant = attribute instanceof ResolvedTenant resolved
+                ? tenantTags.of(resolved.getTenantId())
+                : TenantMetricsTags.NONE;
+        return super.getLowCardinalityKeyValues(context).and(TenantMetricsTags.TAG, tenant);
+    }
+}
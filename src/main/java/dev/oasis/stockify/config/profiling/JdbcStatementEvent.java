@@ -0,0 +1,25 @@
+package dev.oasis.stockify.config.profiling;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * JFR event for one JDBC statement execution; the stack trace points at the calling service
+ */
+@Name("stockify.JdbcStatement")
+@Label("JDBC Statement")
+@Description("JDBC statement executed against a tenant schema")
+@Category("Stockify")
+public class JdbcStatementEvent extends jdk.jfr.Event {
+
+    @Label("Tenant")
+    public String tenant;
+
+    @Label("SQL")
+    public String sql;
+
+    @Label("Outcome")
+    public String outcome;
+}
@@ -0,0 +1,171 @@
+package dev.oasis.stockify.config.profiling;
+
+import jakarta.annotation.PreDestroy;
+import jdk.jfr.Configuration;
+import jdk.jfr.Recording;
+import jdk.jfr.RecordingState;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.text.ParseException;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * On-demand, bounded JFR sessions inside the running application.
+ * One session at a time; it stops by itself after its duration and is capped in size,
+ * and only the latest recording is kept on disk.
+ */
+@Slf4j
+@Component
+public class JfrProfiler {
+
+    /**
+     * Event sets for the folded-stack flame graph exports
+     */
+    public enum StackKind {
+        ALLOCATION(List.of(JfrRecordingAnalyzer.ALLOCATION_SAMPLE)),
+        CPU(List.of(JfrRecordingAnalyzer.EXECUTION_SAMPLE)),
+        LOCK(List.of(JfrRecordingAnalyzer.MONITOR_ENTER, JfrRecordingAnalyzer.THREAD_PARK));
+
+        private final List<String> eventTypes;
+
+        StackKind(List<String> eventTypes) {
+            this.eventTypes = eventTypes;
+        }
+    }
+
+    @Value("${stockify.profiling.directory:${java.io.tmpdir}/stockify-jfr}")
+    private Path directory;
+
+    @Value("${stockify.profiling.default-duration:60s}")
+    private Duration defaultDuration;
+
+    @Value("${stockify.profiling.max-duration:5m}")
+    private Duration maxDuration;
+
+    @Value("${stockify.profiling.max-size-mb:100}")
+    private long maxSizeMb;
+
+    @Value("${stockify.profiling.summary-limit:20}")
+    private int summaryLimit;
+
+    private Recording recording;
+    private Path recordingFile;
+    private Instant startedAt;
+    private ProfilingSummary lastSummary;
+
+    /**
+     * Start a session; the duration is clamped to {@code stockify.profiling.max-duration}
+     */
+    public synchronized Map<String, Object> start(Duration requested) throws IOException, ParseException {
+        if (isRunning()) {
+            throw new IllegalStateException("A profiling session is already running");
+        }
+        Duration duration = requested == null || requested.isZero() || requested.isNegative() ? defaultDuration : requested;
+        if (duration.compareTo(maxDuration) > 0) {
+            duration = maxDuration;
+        }
+
+        Files.createDirectories(directory);
+        discardRecording();
+
+        // "profile" = allocation sampling, 10 ms execution samples and lock events above 10 ms
+        Recording session = new Recording(Configuration.getConfiguration("profile"));
+        session.setName("stockify-profiling");
+        session.enable("stockify.TenantRequest");
+        session.enable("stockify.ServiceCall");
+        session.enable("stockify.JdbcStatement").withStackTrace();
+        session.setDuration(duration);
+        session.setMaxSize(maxSizeMb * 1024 * 1024);
+        session.setToDisk(true);
+        Path file = directory.resolve("stockify-" + System.currentTimeMillis() + ".jfr");
+        session.setDestination(file);
+        session.start();
+
+        recording = session;
+        recordingFile = file;
+        startedAt = Instant.now();
+        lastSummary = null;
+        log.info("🔬 JFR profiling started for {} ({})", duration, file);
+        return status();
+    }
+
+    /**
+     * Stop the running session (if any) and summarize it
+     */
+    public synchronized ProfilingSummary stop() throws IOException {
+        if (recording == null) {
+            throw new IllegalStateException("No profiling session has been started");
+        }
+        if (recording.getState() == RecordingState.RUNNING || recording.getState() == RecordingState.DELAYED) {
+            recording.stop();
+            log.info("🔬 JFR profiling stopped after {}", Duration.between(startedAt, Instant.now()));
+        }
+        return summary();
+    }
+
+    /**
+     * Summary of the latest finished session, computed once
+     */
+    public synchronized ProfilingSummary summary() throws IOException {
+        if (recording == null || isRunning()) {
+            throw new IllegalStateException("No finished profiling session");
+        }
+        if (lastSummary == null) {
+            lastSummary = JfrRecordingAnalyzer.summarize(recordingFile, summaryLimit);
+        }
+        return lastSummary;
+    }
+
+    public synchronized void writeFoldedStacks(StackKind kind, Writer out) throws IOException {
+        JfrRecordingAnalyzer.writeFoldedStacks(finishedRecording(), kind.eventTypes, out);
+    }
+
+    public synchronized Path finishedRecording() {
+        if (recording == null || isRunning()) {
+            throw new IllegalStateException("No finished profiling session");
+        }
+        return recordingFile;
+    }
+
+    public synchronized Map<String, Object> status() {
+        Map<String, Object> status = new LinkedHashMap<>();
+        status.put("state", recording == null ? "IDLE" : recording.getState().name());
+        if (recording != null) {
+            status.put("startedAt", startedAt);
+            status.put("duration", recording.getDuration());
+            status.put("file", recordingFile.toString());
+            status.put("maxDuration", maxDuration);
+        }
+        return status;
+    }
+
+    public synchronized boolean isRunning() {
+        return recording != null
+                && (recording.getState() == RecordingState.RUNNING || recording.getState() == RecordingState.DELAYED);
+    }
+
+    @PreDestroy
+    public synchronized void shutdown() {
+        if (recording != null) {
+            recording.close();
+        }
+    }
+
+    private void discardRecording() throws IOException {
+        if (recording != null) {
+            recording.close();
+            Files.deleteIfExists(recordingFile);
+            recording = null;
+        }
+    }
+}
@@ -0,0 +1,319 @@
+package dev.oasis.stockify.config.profiling;
+
+import jdk.jfr.consumer.RecordedClass;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordedFrame;
+import jdk.jfr.consumer.RecordedStackTrace;
+import jdk.jfr.consumer.RecordedThread;
+import jdk.jfr.consumer.RecordingFile;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.TreeMap;
+
+/**
+ * Reads a finished JFR recording and condenses it into a ProfilingSummary or folded flame graph stacks.
+ * Tenant and service attribution works by matching a sample's thread and timestamp against the
+ * TenantRequestEvent / ServiceCallEvent spans recorded on the same thread.
+ */
+final class JfrRecordingAnalyzer {
+
+    static final String ALLOCATION_SAMPLE = "jdk.ObjectAllocationSample";
+    static final String EXECUTION_SAMPLE = "jdk.ExecutionSample";
+    static final String MONITOR_ENTER = "jdk.JavaMonitorEnter";
+    static final String THREAD_PARK = "jdk.ThreadPark";
+
+    private static final String TENANT_REQUEST = "stockify.TenantRequest";
+    private static final String SERVICE_CALL = "stockify.ServiceCall";
+    private static final String JDBC_STATEMENT = "stockify.JdbcStatement";
+    private static final String APP_PACKAGE = "dev.oasis.stockify.";
+    private static final String UNKNOWN = "(unknown)";
+    private static final int MAX_SQL_LENGTH = 300;
+
+    private JfrRecordingAnalyzer() {
+    }
+
+    static ProfilingSummary summarize(Path file, int limit) throws IOException {
+        Spans requests = new Spans();
+        Spans services = new Spans();
+        List<long[]> allocations = new ArrayList<>();
+        Map<String, long[]> allocationSites = new HashMap<>();
+        List<LockSample> lockSamples = new ArrayList<>();
+        List<JdbcSample> jdbcSamples = new ArrayList<>();
+        Instant first = null;
+        Instant last = null;
+        long events = 0;
+
+        try (RecordingFile recording = new RecordingFile(file)) {
+            while (recording.hasMoreEvents()) {
+                RecordedEvent event = recording.readEvent();
+                events++;
+                first = first == null || event.getStartTime().isBefore(first) ? event.getStartTime() : first;
+                last = last == null || event.getEndTime().isAfter(last) ? event.getEndTime() : last;
+
+                switch (event.getEventType().getName()) {
+                    case TENANT_REQUEST -> requests.add(threadId(event), event, event.getString("tenant"));
+                    case SERVICE_CALL -> services.add(threadId(event), event, event.getString("operation"));
+                    case ALLOCATION_SAMPLE -> {
+                        long weight = event.getLong("weight");
+                        RecordedStackTrace stack = event.getStackTrace();
+                        String frame = stack == null || stack.getFrames().isEmpty() ? UNKNOWN : frame(stack.getFrames().get(0));
+                        long[] totals = allocationSites.computeIfAbsent(frame + "\n" + applicationFrame(stack), key -> new long[2]);
+                        totals[0] += weight;
+                        totals[1]++;
+                        allocations.add(new long[] {threadId(event), nanos(event.getStartTime()), weight});
+                    }
+                    case MONITOR_ENTER, THREAD_PARK -> {
+                        RecordedClass lockClass = event.getEventType().getName().equals(MONITOR_ENTER)
+                                ? event.getClass("monitorClass") : event.getClass("parkedClass");
+                        String kind = event.getEventType().getName().equals(MONITOR_ENTER) ? "monitor" : "park";
+                        String key = kind + "\n" + (lockClass == null ? UNKNOWN : lockClass.getName())
+                                + "\n" + applicationFrame(event.getStackTrace());
+                        lockSamples.add(new LockSample(threadId(event), nanos(event.getStartTime()),
+                                event.getDuration().toNanos(), key));
+                    }
+                    case JDBC_STATEMENT -> jdbcSamples.add(new JdbcSample(threadId(event), nanos(event.getStartTime()),
+                            event.getDuration().toNanos(), event.getStartTime(), event.getString("tenant"),
+                            event.getString("outcome"), truncate(event.getString("sql"))));
+                    default -> {
+                    }
+                }
+            }
+        }
+        requests.link();
+        services.link();
+
+        // Allocations per tenant
+        Map<String, Long> byTenant = new TreeMap<>();
+        for (long[] allocation : allocations) {
+            String tenant = requests.labelAt(allocation[0], allocation[1]);
+            byTenant.merge(tenant == null ? "(no request)" : tenant, allocation[2], Long::sum);
+        }
+
+        // Lock contention while serving requests; idle pool threads parking between requests are noise
+        Map<String, Totals> lockSites = new HashMap<>();
+        for (LockSample sample : lockSamples) {
+            if (requests.labelAt(sample.thread, sample.startNanos) != null) {
+                lockSites.computeIfAbsent(sample.key, key -> new Totals()).add(sample.durationNanos);
+            }
+        }
+
+        // Slowest statements and statement time per service method
+        PriorityQueue<ProfilingSummary.JdbcCall> slowest = new PriorityQueue<>(
+                Comparator.comparingDouble(ProfilingSummary.JdbcCall::durationMs));
+        Map<String, Totals> byService = new HashMap<>();
+        for (JdbcSample sample : jdbcSamples) {
+            String service = services.labelAt(sample.thread, sample.startNanos);
+            service = service == null ? UNKNOWN : service;
+            byService.computeIfAbsent(service, key -> new Totals()).add(sample.durationNanos);
+            slowest.add(new ProfilingSummary.JdbcCall(service, sample.tenant, sample.outcome,
+                    millis(sample.durationNanos), sample.start, sample.sql));
+            if (slowest.size() > limit) {
+                slowest.poll();
+            }
+        }
+        List<ProfilingSummary.JdbcCall> slowestCalls = new ArrayList<>(slowest);
+        slowestCalls.sort(Comparator.comparingDouble(ProfilingSummary.JdbcCall::durationMs).reversed());
+
+        List<ProfilingSummary.AllocationSite> topAllocations = allocationSites.entrySet().stream()
+                .sorted(Comparator.comparingLong((Map.Entry<String, long[]> e) -> e.getValue()[0]).reversed())
+                .limit(limit)
+                .map(e -> {
+                    String[] key = e.getKey().split("\n", 2);
+                    return new ProfilingSummary.AllocationSite(key[0], key[1], e.getValue()[0], e.getValue()[1]);
+                })
+                .toList();
+
+        List<ProfilingSummary.LockSite> topLocks = lockSites.entrySet().stream()
+                .sorted(Comparator.comparingLong((Map.Entry<String, Totals> e) -> e.getValue().totalNanos).reversed())
+                .limit(limit)
+                .map(e -> {
+                    String[] key = e.getKey().split("\n", 3);
+                    Totals totals = e.getValue();
+                    return new ProfilingSummary.LockSite(key[0], key[1], key[2], totals.count,
+                            millis(totals.totalNanos), millis(totals.maxNanos));
+                })
+                .toList();
+
+        List<ProfilingSummary.ServiceJdbcTime> serviceTimes = byService.entrySet().stream()
+                .sorted(Comparator.comparingLong((Map.Entry<String, Totals> e) -> e.getValue().totalNanos).reversed())
+                .limit(limit)
+                .map(e -> new ProfilingSummary.ServiceJdbcTime(e.getKey(), e.getValue().count,
+                        millis(e.getValue().totalNanos), millis(e.getValue().maxNanos)))
+                .toList();
+
+        return new ProfilingSummary(first, last, events, topAllocations, byTenant, topLocks, slowestCalls, serviceTimes);
+    }
+
+    /**
+     * Write collapsed stacks ("root;...;leaf weight" per line, the flamegraph.pl / speedscope input format).
+     * Each stack is rooted at its tenant so one file yields per-tenant flame graphs.
+     */
+    static void writeFoldedStacks(Path file, List<String> eventTypes, Writer out) throws IOException {
+        Spans requests = new Spans();
+        try (RecordingFile recording = new RecordingFile(file)) {
+            while (recording.hasMoreEvents()) {
+                RecordedEvent event = recording.readEvent();
+                if (event.getEventType().getName().equals(TENANT_REQUEST)) {
+                    requests.add(threadId(event), event, event.getString("tenant"));
+                }
+            }
+        }
+        requests.link();
+
+        Map<String, Long> stacks = new HashMap<>();
+        try (RecordingFile recording = new RecordingFile(file)) {
+            while (recording.hasMoreEvents()) {
+                RecordedEvent event = recording.readEvent();
+                String type = event.getEventType().getName();
+                if (!eventTypes.contains(type) || event.getStackTrace() == null) {
+                    continue;
+                }
+                String tenant = requests.labelAt(threadId(event), nanos(event.getStartTime()));
+                StringBuilder stack = new StringBuilder("tenant:").append(tenant == null ? "none" : tenant);
+                List<RecordedFrame> frames = event.getStackTrace().getFrames();
+                for (int i = frames.size() - 1; i >= 0; i--) {
+                    RecordedFrame frame = frames.get(i);
+                    stack.append(';').append(frame.getMethod().getType().getName()).append('.').append(frame.getMethod().getName());
+                }
+                long weight = switch (type) {
+                    case ALLOCATION_SAMPLE -> event.getLong("weight");
+                    case MONITOR_ENTER, THREAD_PARK -> Math.max(1, event.getDuration().toNanos() / 1000);
+                    default -> 1;
+                };
+                stacks.merge(stack.toString(), weight, Long::sum);
+            }
+        }
+        for (Map.Entry<String, Long> entry : stacks.entrySet()) {
+            out.write(entry.getKey());
+            out.write(' ');
+            out.write(Long.toString(entry.getValue()));
+            out.write('\n');
+        }
+    }
+
+    private static String applicationFrame(RecordedStackTrace stack) {
+        if (stack == null) {
+            return UNKNOWN;
+        }
+        for (RecordedFrame frame : stack.getFrames()) {
+            String type = frame.getMethod().getType().getName();
+            // Skip Spring proxies, they only delegate
+            if (type.startsWith(APP_PACKAGE) && !type.contains("$$")) {
+                return frame(frame);
+            }
+        }
+        return UNKNOWN;
+    }
+
+    private static String frame(RecordedFrame frame) {
+        String method = frame.getMethod().getType().getName() + "." + frame.getMethod().getName();
+        return frame.getLineNumber() > 0 ? method + ":" + frame.getLineNumber() : method;
+    }
+
+    private static long threadId(RecordedEvent event) {
+        // Execution samples carry the sampled thread instead of an event thread
+        RecordedThread thread = event.hasField("sampledThread") ? event.getThread("sampledThread") : event.getThread();
+        return thread == null ? -1 : thread.getJavaThreadId();
+    }
+
+    private static long nanos(Instant instant) {
+        return instant.getEpochSecond() * 1_000_000_000L + instant.getNano();
+    }
+
+    private static double millis(long nanos) {
+        return nanos / 1_000_000.0;
+    }
+
+    private static String truncate(String sql) {
+        if (sql == null) {
+            return null;
+        }
+        String compact = sql.replaceAll("\\s+", " ").trim();
+        return compact.length() > MAX_SQL_LENGTH ? compact.substring(0, MAX_SQL_LENGTH) + "..." : compact;
+    }
+
+    private record JdbcSample(long thread, long startNanos, long durationNanos, Instant start,
+                              String tenant, String outcome, String sql) {
+    }
+
+    private record LockSample(long thread, long startNanos, long durationNanos, String key) {
+    }
+
+    private static final class Totals {
+        private long count;
+        private long totalNanos;
+        private long maxNanos;
+
+        void add(long nanos) {
+            count++;
+            totalNanos += nanos;
+            maxNanos = Math.max(maxNanos, nanos);
+        }
+    }
+
+    /**
+     * Labelled time spans per thread. Spans on one thread are properly nested (request, then service
+     * calls inside it), so the innermost span containing a timestamp is found by walking parents
+     * from the latest span that started before it.
+     */
+    private static final class Spans {
+        private final Map<Long, TreeMap<Long, Span>> byThread = new HashMap<>();
+
+        void add(long thread, RecordedEvent event, String label) {
+            Span span = new Span(nanos(event.getStartTime()), nanos(event.getEndTime()), label);
+            byThread.computeIfAbsent(thread, key -> new TreeMap<>())
+                    .merge(span.start, span, (existing, added) -> existing.end >= added.end ? existing : added);
+        }
+
+        void link() {
+            for (TreeMap<Long, Span> spans : byThread.values()) {
+                Deque<Span> open = new ArrayDeque<>();
+                for (Span span : spans.values()) {
+                    while (!open.isEmpty() && open.peek().end < span.start) {
+                        open.pop();
+                    }
+                    span.parent = open.peek();
+                    open.push(span);
+                }
+            }
+        }
+
+        String labelAt(long thread, long time) {
+            TreeMap<Long, Span> spans = byThread.get(thread);
+            if (spans == null) {
+                return null;
+            }
+            Map.Entry<Long, Span> entry = spans.floorEntry(time);
+            for (Span span = entry == null ? null : entry.getValue(); span != null; span = span.parent) {
+                if (span.end >= time) {
+                    return span.label;
+                }
+            }
+            return null;
+        }
+    }
+
+    private static final class Span {
+        private final long start;
+        private final long end;
+        private final String label;
+        private Span parent;
+
+        Span(long start, long end, String label) {
+            this.start = start;
+            this.end = end;
+            this.label = label;
+        }
+    }
+}
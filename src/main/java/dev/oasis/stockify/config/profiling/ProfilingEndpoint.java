@@ -0,0 +1,101 @@
+package dev.oasis.stockify.config.profiling;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.actuate.endpoint.annotation.DeleteOperation;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.boot.actuate.endpoint.annotation.Selector;
+import org.springframework.boot.actuate.endpoint.annotation.WriteOperation;
+import org.springframework.boot.actuate.endpoint.web.WebEndpointResponse;
+import org.springframework.core.io.ByteArrayResource;
+import org.springframework.core.io.FileSystemResource;
+import org.springframework.core.io.Resource;
+import org.springframework.stereotype.Component;
+
+import java.io.ByteArrayOutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * {@code /actuator/profiling} - JFR sessions on demand (SUPER_ADMIN only):
+ * <ul>
+ *   <li>{@code POST} with {@code {"seconds": 60}} starts a bounded session ({@code 0} for the default duration)</li>
+ *   <li>{@code GET} returns the session state and, once finished, its summary</li>
+ *   <li>{@code DELETE} stops the session early and returns the summary</li>
+ *   <li>{@code GET /recording} downloads the .jfr file (JDK Mission Control)</li>
+ *   <li>{@code GET /allocation}, {@code /cpu}, {@code /lock} download folded stacks for flame graphs</li>
+ * </ul>
+ */
+@Slf4j
+@Component
+@Endpoint(id = "profiling")
+@RequiredArgsConstructor
+public class ProfilingEndpoint {
+
+    private final JfrProfiler profiler;
+
+    @ReadOperation
+    public Map<String, Object> status() throws Exception {
+        Map<String, Object> status = new LinkedHashMap<>(profiler.status());
+        if (!"IDLE".equals(status.get("state")) && !profiler.isRunning()) {
+            status.put("summary", profiler.summary());
+        }
+        return status;
+    }
+
+    @WriteOperation
+    public WebEndpointResponse<Object> start(long seconds) {
+        try {
+            return new WebEndpointResponse<>(profiler.start(Duration.ofSeconds(seconds)));
+        } catch (IllegalStateException e) {
+            return error(WebEndpointResponse.STATUS_BAD_REQUEST, e.getMessage());
+        } catch (Exception e) {
+            log.error("❌ Could not start JFR profiling: {}", e.getMessage(), e);
+            return error(WebEndpointResponse.STATUS_INTERNAL_SERVER_ERROR, e.getMessage());
+        }
+    }
+
+    @DeleteOperation
+    public WebEndpointResponse<Object> stop() {
+        try {
+            return new WebEndpointResponse<>(profiler.stop());
+        } catch (IllegalStateException e) {
+            return error(WebEndpointResponse.STATUS_BAD_REQUEST, e.getMessage());
+        } catch (Exception e) {
+            log.error("❌ Could not stop JFR profiling: {}", e.getMessage(), e);
+            return error(WebEndpointResponse.STATUS_INTERNAL_SERVER_ERROR, e.getMessage());
+        }
+    }
+
+    @ReadOperation(produces = "application/octet-stream")
+    public WebEndpointResponse<Resource> artifact(@Selector String name) {
+        try {
+            if ("recording".equals(name)) {
+                return new WebEndpointResponse<>(new FileSystemResource(profiler.finishedRecording()));
+            }
+            JfrProfiler.StackKind kind = JfrProfiler.StackKind.valueOf(name.toUpperCase(Locale.ROOT));
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+            try (Writer writer = new OutputStreamWriter(bytes, StandardCharsets.UTF_8)) {
+                profiler.writeFoldedStacks(kind, writer);
+            }
+            return new WebEndpointResponse<>(new ByteArrayResource(bytes.toByteArray()));
+        } catch (IllegalArgumentException e) {
+            return new WebEndpointResponse<>(WebEndpointResponse.STATUS_NOT_FOUND);
+        } catch (IllegalStateException e) {
+            return new WebEndpointResponse<>(WebEndpointResponse.STATUS_BAD_REQUEST);
+        } catch (Exception e) {
+            log.error("❌ Could not export profiling data '{}': {}", name, e.getMessage(), e);
+            return new WebEndpointResponse<>(WebEndpointResponse.STATUS_INTERNAL_SERVER_ERROR);
+        }
+    }
+
+    private static WebEndpointResponse<Object> error(int status, String message) {
+        return new WebEndpointResponse<>(Map.of("error", message), status);
+    }
+}
@@ -0,0 +1,35 @@
+package dev.oasis.stockify.config.profiling;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Condensed view of one JFR profiling session, returned by the profiling actuator endpoint.
+ * Durations are in milliseconds, allocations in bytes (sampled weights, not exact totals).
+ */
+public record ProfilingSummary(
+        Instant start,
+        Instant end,
+        long events,
+        List<AllocationSite> topAllocationFrames,
+        Map<String, Long> allocatedBytesByTenant,
+        List<LockSite> topLockSites,
+        List<JdbcCall> slowestJdbcCalls,
+        List<ServiceJdbcTime> jdbcTimeByService) {
+
+    /**
+     * Allocating frame, with the nearest Stockify frame that led to it
+     */
+    public record AllocationSite(String frame, String applicationFrame, long bytes, long samples) {
+    }
+
+    public record LockSite(String kind, String lockClass, String site, long count, double totalMs, double maxMs) {
+    }
+
+    public record JdbcCall(String service, String tenant, String outcome, double durationMs, Instant start, String sql) {
+    }
+
+    public record ServiceJdbcTime(String service, long statements, double totalMs, double maxMs) {
+    }
+}
@@ -0,0 +1,26 @@
+package dev.oasis.stockify.config.profiling;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * JFR event spanning one {@code @TenantScoped} service call.
+ * JDBC statements executed inside the span are attributed to the service method,
+ * which is usually too deep for the recorded JDBC stack trace to reach.
+ */
+@Name("stockify.ServiceCall")
+@Label("Service Call")
+@Description("Tenant-scoped service method invocation")
+@Category("Stockify")
+@StackTrace(false)
+public class ServiceCallEvent extends jdk.jfr.Event {
+
+    @Label("Tenant")
+    public String tenant;
+
+    @Label("Operation")
+    public String operation;
+}
@@ -0,0 +1,28 @@
+package dev.oasis.stockify.config.profiling;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * JFR event spanning one HTTP request on its thread.
+ * Allocation and lock samples taken on the same thread inside the span are attributed to the tenant.
+ */
+@Name("stockify.TenantRequest")
+@Label("Tenant Request")
+@Description("HTTP request processed for a tenant")
+@Category("Stockify")
+@StackTrace(false)
+public class TenantRequestEvent extends jdk.jfr.Event {
+
+    @Label("Tenant")
+    public String tenant;
+
+    @Label("Method")
+    public String method;
+
+    @Label("URI")
+    public String uri;
+}
@@ -0,0 +1,51 @@
+package dev.oasis.stockify.config.tenant;
+
+import jakarta.servlet.http.HttpServletRequest;
+
+/**
+ * Immutable result of tenant resolution for one request.
+ * Attached to the request by TenantHeaderFilter so later stages never re-parse headers or parameters.
+ */
+public final class ResolvedTenant {
+
+    public static final String REQUEST_ATTRIBUTE = ResolvedTenant.class.getName();
+
+    /**
+     * Where the tenant identifier was found
+     */
+    public enum Source {
+        HEADER, LOGIN_FORM, SESSION, SUBDOMAIN, PATH, QUERY_PARAM, DEFAULT
+    }
+
+    private final String tenantId;
+    private final Source source;
+
+    public ResolvedTenant(String tenantId, Source source) {
+        this.tenantId = tenantId;
+        this.source = source;
+    }
+
+    public String getTenantId() {
+        return tenantId;
+    }
+
+    public Source getSource() {
+        return source;
+    }
+
+    public boolean isDefault() {
+        return source == Source.DEFAULT;
+    }
+
+    /**
+     * The tenant resolved for the request, or null if resolution has not run
+     */
+    public static ResolvedTenant from(HttpServletRequest request) {
+        return (ResolvedTenant) request.getAttribute(REQUEST_ATTRIBUTE);
+    }
+
+    @Override
+    public String toString() {
+        return tenantId + " (" + source + ")";
+    }
+}
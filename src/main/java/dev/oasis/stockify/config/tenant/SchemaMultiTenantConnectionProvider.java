@@ -1,5 +1,6 @@
 package dev.oasis.stockify.config.tenant;
 
+import dev.oasis.stockify.config.metrics.JdbcTenantMetrics;
 import org.hibernate.engine.jdbc.connections.spi.MultiTenantConnectionProvider;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -16,13 +17,19 @@ public class SchemaMultiTenantConnectionProvider implements MultiTenantConnectio
 
     private static final Logger log = LoggerFactory.getLogger(SchemaMultiTenantConnectionProvider.class);
     private final DataSource dataSource;
+    private final TenantMigrationOrchestrator migrationOrchestrator;
+    private final JdbcTenantMetrics jdbcMetrics;
 
     @Value("${spring.jpa.properties.hibernate.default_schema:public}")
     private String defaultSchema;
 
     @Autowired
-    public SchemaMultiTenantConnectionProvider(DataSource dataSource) {
+    public SchemaMultiTenantConnectionProvider(DataSource dataSource,
+                                               TenantMigrationOrchestrator migrationOrchestrator,
+                                               JdbcTenantMetrics jdbcMetrics) {
         this.dataSource = dataSource;
+        this.migrationOrchestrator = migrationOrchestrator;
+        this.jdbcMetrics = jdbcMetrics;
     }
 
     @Override
@@ -36,10 +43,15 @@ public class SchemaMultiTenantConnectionProvider implements MultiTenantConnectio
     }    @Override
     public Connection getConnection(String tenantIdentifier) throws SQLException {
         log.debug("Getting connection for tenant: {}", tenantIdentifier);
-        Connection connection = getAnyConnection();
         
         // Map tenant identifier to actual schema name
         String schemaName = mapTenantToSchema(tenantIdentifier);
+
+        // In lazy migration mode the first access to a tenant waits for its schema migration
+        migrationOrchestrator.ensureTenantReady(schemaName);
+
+        long start = System.nanoTime();
+        Connection connection = getAnyConnection();
         
         try {
             // Schema switching only - Flyway handles table creation
@@ -50,7 +62,8 @@ public class SchemaMultiTenantConnectionProvider implements MultiTenantConnectio
             log.error("Failed to set schema for tenant: {}", schemaName, e);
             throw new SQLException("Failed to set tenant schema: " + schemaName, e);
         }
-        return connection;
+        jdbcMetrics.recordAcquire(schemaName, System.nanoTime() - start);
+        return jdbcMetrics.instrument(connection, schemaName);
     }
       /**
      * Map tenant identifier to actual schema name in database
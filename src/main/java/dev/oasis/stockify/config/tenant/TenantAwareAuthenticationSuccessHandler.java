@@ -14,9 +14,10 @@ public class TenantAwareAuthenticationSuccessHandler extends SimpleUrlAuthentica
     public void onAuthenticationSuccess(HttpServletRequest request,
                                       HttpServletResponse response,
                                       Authentication authentication) throws IOException, ServletException {
-        String tenantId = request.getParameter("tenant_id");
-        if (tenantId != null && !tenantId.isEmpty()) {
-            TenantContext.setCurrentTenant(tenantId.toLowerCase());
+        // Remember the tenant the user logged into, so later requests resolve to it
+        ResolvedTenant tenant = ResolvedTenant.from(request);
+        if (tenant != null) {
+            request.getSession().setAttribute(TenantResolver.SESSION_ATTRIBUTE, tenant.getTenantId());
         }
 
         // Super Admin için özel dashboard
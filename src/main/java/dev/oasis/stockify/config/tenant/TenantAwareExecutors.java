@@ -0,0 +1,100 @@
+package dev.oasis.stockify.config.tenant;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.AbstractExecutorService;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Executor wrappers that propagate TenantContext to submitted tasks.
+ * Use them for hand-offs Spring does not manage, e.g.
+ * {@code CompletableFuture.supplyAsync(task, TenantAwareExecutors.wrap(executor))}.
+ */
+public final class TenantAwareExecutors {
+
+    private TenantAwareExecutors() {
+    }
+
+    public static Executor wrap(Executor delegate) {
+        return task -> delegate.execute(TenantContext.wrap(task));
+    }
+
+    public static ExecutorService wrap(ExecutorService delegate) {
+        return new TenantAwareExecutorService(delegate);
+    }
+
+    private static final class TenantAwareExecutorService extends AbstractExecutorService {
+        private final ExecutorService delegate;
+
+        private TenantAwareExecutorService(ExecutorService delegate) {
+            this.delegate = delegate;
+        }
+
+        @Override
+        public void execute(Runnable command) {
+            delegate.execute(TenantContext.wrap(command));
+        }
+
+        @Override
+        public <T> Future<T> submit(Callable<T> task) {
+            return delegate.submit(TenantContext.wrap(task));
+        }
+
+        @Override
+        public Future<?> submit(Runnable task) {
+            return delegate.submit(TenantContext.wrap(task));
+        }
+
+        @Override
+        public <T> Future<T> submit(Runnable task, T result) {
+            return delegate.submit(TenantContext.wrap(task), result);
+        }
+
+        @Override
+        public <T> List<Future<T>> invokeAll(Collection<? extends Callable<T>> tasks) throws InterruptedException {
+            return delegate.invokeAll(tasks.stream().map(TenantContext::wrap).toList());
+        }
+
+        @Override
+        public <T> T invokeAny(Collection<? extends Callable<T>> tasks) throws InterruptedException, ExecutionException {
+            return delegate.invokeAny(tasks.stream().map(TenantContext::wrap).toList());
+        }
+
+        @Override
+        public <T> T invokeAny(Collection<? extends Callable<T>> tasks, long timeout, TimeUnit unit)
+                throws InterruptedException, ExecutionException, TimeoutException {
+            return delegate.invokeAny(tasks.stream().map(TenantContext::wrap).toList(), timeout, unit);
+        }
+
+        @Override
+        public void shutdown() {
+            delegate.shutdown();
+        }
+
+        @Override
+        public List<Runnable> shutdownNow() {
+            return delegate.shutdownNow();
+        }
+
+        @Override
+        public boolean isShutdown() {
+            return delegate.isShutdown();
+        }
+
+        @Override
+        public boolean isTerminated() {
+            return delegate.isTerminated();
+        }
+
+        @Override
+        public boolean awaitTermination(long timeout, TimeUnit unit) throws InterruptedException {
+            return delegate.awaitTermination(timeout, unit);
+        }
+    }
+}
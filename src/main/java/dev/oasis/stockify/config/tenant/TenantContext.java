@@ -2,23 +2,125 @@ package dev.oasis.stockify.config.tenant;
 
 import org.slf4j.MDC;
 
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.function.Supplier;
+
 public class TenantContext {
-    
+
     private static final String TENANT_KEY = "tenantId";
     private static final ThreadLocal<String> currentTenant = new ThreadLocal<>();
-    
+
     public static void setCurrentTenant(String tenant) {
         currentTenant.set(tenant);
         // MDC'ye de ekle ki loglamada görünsün
         MDC.put(TENANT_KEY, tenant);
     }
-    
+
     public static String getCurrentTenant() {
         return currentTenant.get();
     }
-    
+
     public static void clear() {
         currentTenant.remove();
         MDC.remove(TENANT_KEY);
     }
-}
\ No newline at end of file
+
+    /**
+     * Wrap a task so it runs with the caller's tenant and MDC, on whatever thread executes it.
+     * The executing thread's previous context is restored afterwards, which keeps pooled,
+     * caller-runs and virtual threads clean; nothing relies on InheritableThreadLocal.
+     */
+    public static Runnable wrap(Runnable task) {
+        Snapshot snapshot = capture();
+        return () -> {
+            Snapshot previous = snapshot.apply();
+            try {
+                task.run();
+            } finally {
+                previous.apply();
+            }
+        };
+    }
+
+    public static <T> Callable<T> wrap(Callable<T> task) {
+        Snapshot snapshot = capture();
+        return () -> {
+            Snapshot previous = snapshot.apply();
+            try {
+                return task.call();
+            } finally {
+                previous.apply();
+            }
+        };
+    }
+
+    public static <T> Supplier<T> wrap(Supplier<T> task) {
+        Snapshot snapshot = capture();
+        return () -> {
+            Snapshot previous = snapshot.apply();
+            try {
+                return task.get();
+            } finally {
+                previous.apply();
+            }
+        };
+    }
+
+    /**
+     * Run a task as the given tenant, e.g. per-tenant work of a scheduled job or a pooled worker.
+     * Hand-offs to executors wrapped by {@link TenantAwareExecutors} inside the task carry that tenant;
+     * the calling thread's previous context is restored afterwards.
+     */
+    public static <T> T callAs(String tenant, Supplier<T> task) {
+        Snapshot previous = capture();
+        setCurrentTenant(tenant);
+        try {
+            return task.get();
+        } finally {
+            previous.apply();
+        }
+    }
+
+    public static void runAs(String tenant, Runnable task) {
+        callAs(tenant, () -> {
+            task.run();
+            return null;
+        });
+    }
+
+    private static Snapshot capture() {
+        return new Snapshot(currentTenant.get(), MDC.getCopyOfContextMap());
+    }
+
+    /**
+     * Tenant and MDC values of one thread at one point in time
+     */
+    private static final class Snapshot {
+        private final String tenant;
+        private final Map<String, String> mdc;
+
+        private Snapshot(String tenant, Map<String, String> mdc) {
+            this.tenant = tenant;
+            this.mdc = mdc;
+        }
+
+        /**
+         * Install this snapshot on the current thread and return what was there before
+         */
+        private Snapshot apply() {
+            Snapshot previous = capture();
+            if (tenant == null) {
+                currentTenant.remove();
+            } else {
+                currentTenant.set(tenant);
+            }
+            if (mdc == null) {
+                MDC.clear();
+            } else {
+                MDC.setContextMap(mdc);
+            }
+            return previous;
+        }
+    }
+}
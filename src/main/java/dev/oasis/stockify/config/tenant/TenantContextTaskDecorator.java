@@ -0,0 +1,16 @@
+package dev.oasis.stockify.config.tenant;
+
+import org.springframework.core.task.TaskDecorator;
+
+/**
+ * Carries TenantContext and MDC across TaskExecutor hand-offs.
+ * Spring Boot applies this decorator to the auto-configured application task executor,
+ * both the platform thread pool and the virtual-thread executor.
+ */
+public class TenantContextTaskDecorator implements TaskDecorator {
+
+    @Override
+    public Runnable decorate(Runnable runnable) {
+        return TenantContext.wrap(runnable);
+    }
+}
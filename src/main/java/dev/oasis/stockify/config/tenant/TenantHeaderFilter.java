@@ -1,5 +1,6 @@
 package dev.oasis.stockify.config.tenant;
 
+import dev.oasis.stockify.config.profiling.TenantRequestEvent;
 import jakarta.servlet.FilterChain;
 import jakarta.servlet.ServletException;
 import jakarta.servlet.http.HttpServletRequest;
@@ -7,58 +8,87 @@ import jakarta.servlet.http.HttpServletResponse;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.core.annotation.Order;
-import org.springframework.security.web.util.matcher.AntPathRequestMatcher;
 import org.springframework.stereotype.Component;
 import org.springframework.web.filter.OncePerRequestFilter;
 
 import java.io.IOException;
 
+/**
+ * Single tenant resolution stage for every request.
+ * Resolves the tenant once via TenantResolver, validates it against the cached TenantRegistry,
+ * attaches the immutable ResolvedTenant to the request and sets TenantContext for the rest of the chain.
+ */
 @Component
 @Order(1)
 public class TenantHeaderFilter extends OncePerRequestFilter {
 
     private static final Logger logger = LoggerFactory.getLogger(TenantHeaderFilter.class);
-    private static final String TENANT_HEADER = "X-TenantId";
-    private static final String TENANT_PARAM = "tenant_id";
-    private static final String DEFAULT_TENANT = "public";
-    private final AntPathRequestMatcher loginRequestMatcher = new AntPathRequestMatcher("/login", "POST");
+
+    private final TenantResolver tenantResolver;
+    private final TenantRegistry tenantRegistry;
+
+    public TenantHeaderFilter(TenantResolver tenantResolver, TenantRegistry tenantRegistry) {
+        this.tenantResolver = tenantResolver;
+        this.tenantRegistry = tenantRegistry;
+    }
 
     @Override
     protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response,
                                   FilterChain filterChain) throws ServletException, IOException {
-        try {
-            // Tenant ID'yi header'dan al
-            String tenantId = request.getHeader(TENANT_HEADER);
+        ResolvedTenant tenant = tenantResolver.resolve(request);
 
-            // Eğer header'da yoksa, form parametresinden al (login işlemi için)
-            if ((tenantId == null || tenantId.isEmpty()) && loginRequestMatcher.matches(request)) {
-                tenantId = request.getParameter(TENANT_PARAM);
-                logger.debug("Login request detected, using tenant_id from form parameter: {}", tenantId);
+        if (tenant.getSource() == ResolvedTenant.Source.SESSION) {
+            String headerTenant = TenantResolver.fromHeaders(request);
+            if (headerTenant != null && !headerTenant.equals(tenant.getTenantId())) {
+                logger.warn("🚫 Access denied: Session of tenant {} sent tenant header {}", tenant.getTenantId(), headerTenant);
+                response.setStatus(HttpServletResponse.SC_FORBIDDEN);
+                response.setContentType("application/json");
+                response.getWriter().write("{\"error\":\"Tenant header does not match the signed-in tenant\"}");
+                return;
             }
+        }
 
-            // Tenant ID boşsa veya null ise varsayılan tenant'ı kullan
-            if (tenantId == null || tenantId.isEmpty()) {
-                tenantId = DEFAULT_TENANT;
+        if (!tenant.isDefault() && !tenantRegistry.exists(tenant.getTenantId())) {
+            if (tenant.getSource() == ResolvedTenant.Source.SUBDOMAIN) {
+                // The host name is not always a tenant (e.g. app.example.com) - fall back to the default
+                tenant = new ResolvedTenant(TenantResolver.DEFAULT_TENANT, ResolvedTenant.Source.DEFAULT);
+            } else {
+                logger.warn("🚫 Access denied: Tenant {} does not exist", tenant);
+                response.setStatus(HttpServletResponse.SC_NOT_FOUND);
+                response.setContentType("application/json");
+                response.getWriter().write("{\"error\":\"Tenant not found\"}");
+                return;
             }
+        }
 
-            // Tenant ID'yi küçük harfe çevir
-            tenantId = tenantId.toLowerCase();
-
-            // TenantContext'e tenant bilgisini set et
-            TenantContext.setCurrentTenant(tenantId);
-            logger.debug("Set tenant context to: {}", tenantId);
+        request.setAttribute(ResolvedTenant.REQUEST_ATTRIBUTE, tenant);
+        // JFR span so profiling samples on this thread can be attributed to the tenant
+        TenantRequestEvent event = new TenantRequestEvent();
+        event.begin();
+        try {
+            TenantContext.setCurrentTenant(tenant.getTenantId());
+            logger.debug("Set tenant context to: {}", tenant);
 
             filterChain.doFilter(request, response);
         } finally {
-            // İşlem bittikten sonra TenantContext'i temizle
-            // Login işlemi için TenantContext'i temizleme, çünkü AppUserDetailsService'in kullanması gerekiyor
-            if (!loginRequestMatcher.matches(request)) {
-                TenantContext.clear();
-                logger.debug("Cleared tenant context after non-login request");
+            event.end();
+            if (event.shouldCommit()) {
+                event.tenant = TenantContext.getCurrentTenant();
+                event.method = request.getMethod();
+                event.uri = request.getRequestURI();
+                event.commit();
             }
+            // Authentication runs inside the chain, so the context can always be cleared here
+            TenantContext.clear();
         }
     }
 
+    // Async dispatches (e.g. a notification stream timing out) run controller code again and need the tenant
+    @Override
+    protected boolean shouldNotFilterAsyncDispatch() {
+        return false;
+    }
+
     @Override
     protected boolean shouldNotFilter(HttpServletRequest request) {
         String path = request.getRequestURI();
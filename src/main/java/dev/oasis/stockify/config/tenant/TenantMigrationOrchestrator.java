@@ -0,0 +1,274 @@
+package dev.oasis.stockify.config.tenant;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.flywaydb.core.Flyway;
+import org.flywaydb.core.api.configuration.FluentConfiguration;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Runs Flyway migrations for tenant schemas.
+ * <p>
+ * In eager mode every registered schema is migrated at startup on a bounded worker pool.
+ * In lazy mode only the platform schemas ({@code stockify.tenant.migration.eager-schemas})
+ * are migrated at startup; every other registered schema is migrated on first access,
+ * behind a per-tenant latch so concurrent first requests wait for a single migration.
+ */
+@Slf4j
+@Component
+public class TenantMigrationOrchestrator {
+
+    private final DataSource dataSource;
+    private final Timer migrationTimer;
+
+    @Value("${spring.flyway.locations:classpath:db/migration}")
+    private String[] migrationLocations;
+
+    @Value("${stockify.tenant.migration.parallelism:4}")
+    private int parallelism;
+
+    @Value("${stockify.tenant.migration.lazy:false}")
+    private boolean lazy;
+
+    @Value("${stockify.tenant.migration.eager-schemas:public,stockify}")
+    private Set<String> eagerSchemas;
+
+    // Schemas that may be migrated on first access (lazy mode only)
+    private final Set<String> registeredSchemas = ConcurrentHashMap.newKeySet();
+
+    // Per-schema latch: completed with the migration duration once the schema is up to date
+    private final ConcurrentMap<String, CompletableFuture<Duration>> migrations = new ConcurrentHashMap<>();
+
+    public TenantMigrationOrchestrator(DataSource dataSource, MeterRegistry meterRegistry) {
+        this.dataSource = dataSource;
+        this.migrationTimer = Timer.builder("stockify.tenant.migration")
+                .description("Flyway migration time per tenant schema")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Migrate the given schemas according to the configured mode.
+     * Eager schemas are always migrated before this method returns.
+     */
+    public void migrateAll(Collection<String> schemas) {
+        List<String> toMigrate = new ArrayList<>();
+        for (String schema : schemas) {
+            String schemaName = normalize(schema);
+            registeredSchemas.add(schemaName);
+            if (!lazy || eagerSchemas.contains(schemaName)) {
+                toMigrate.add(schemaName);
+            }
+        }
+
+        int poolSize = Math.max(1, Math.min(parallelism, toMigrate.size()));
+        log.info("🗄️ Migrating {} of {} tenant schemas with parallelism {} (lazy mode: {})",
+                toMigrate.size(), schemas.size(), poolSize, lazy);
+
+        long start = System.nanoTime();
+        ExecutorService executor = TenantAwareExecutors.wrap(Executors.newFixedThreadPool(poolSize, new MigrationThreadFactory()));
+        try {
+            List<CompletableFuture<Duration>> futures = new ArrayList<>(toMigrate.size());
+            for (String schemaName : toMigrate) {
+                futures.add(CompletableFuture.supplyAsync(
+                        () -> TenantContext.callAs(schemaName, () -> ensureMigrated(schemaName)), executor));
+            }
+            CompletableFuture.allOf(futures.toArray(new CompletableFuture[0])).join();
+        } catch (CompletionException e) {
+            throw new RuntimeException("Failed to migrate tenant schemas", e.getCause());
+        } finally {
+            executor.shutdown();
+        }
+
+        log.info("✅ Flyway migrations completed for {} schemas in {} ms",
+                toMigrate.size(), Duration.ofNanos(System.nanoTime() - start).toMillis());
+    }
+
+    /**
+     * Make sure the schema behind the given tenant is migrated before it is used.
+     * No-op in eager mode and for schemas that were never registered.
+     */
+    public void ensureTenantReady(String tenantIdentifier) {
+        if (!lazy || tenantIdentifier == null) {
+            return;
+        }
+        String schemaName = normalize(tenantIdentifier);
+        CompletableFuture<Duration> migration = migrations.get(schemaName);
+        if (migration != null && migration.isDone() && !migration.isCompletedExceptionally()) {
+            return;
+        }
+        if (registeredSchemas.contains(schemaName)) {
+            ensureMigrated(schemaName);
+        }
+    }
+
+    /**
+     * False for a registered schema whose lazy migration has not run (or failed), so background jobs can
+     * skip it instead of migrating every tenant. Always true in eager mode.
+     */
+    public boolean isMigrated(String tenantIdentifier) {
+        if (!lazy || tenantIdentifier == null) {
+            return true;
+        }
+        String schemaName = normalize(tenantIdentifier);
+        CompletableFuture<Duration> migration = migrations.get(schemaName);
+        if (migration != null) {
+            return migration.isDone() && !migration.isCompletedExceptionally();
+        }
+        return !registeredSchemas.contains(schemaName);
+    }
+
+    /**
+     * Register a schema created after startup (e.g. by tenant provisioning) and migrate it.
+     */
+    public Duration migrateTenant(String tenantIdentifier) {
+        String schemaName = normalize(tenantIdentifier);
+        registeredSchemas.add(schemaName);
+        return ensureMigrated(schemaName);
+    }
+
+    /**
+     * Migration duration in milliseconds per schema, for schemas migrated so far
+     */
+    public Map<String, Long> getMigrationTimings() {
+        Map<String, Long> timings = new TreeMap<>();
+        migrations.forEach((schema, migration) -> {
+            if (migration.isDone() && !migration.isCompletedExceptionally()) {
+                timings.put(schema, migration.join().toMillis());
+            }
+        });
+        return Collections.unmodifiableMap(timings);
+    }
+
+    /**
+     * Record a schema whose tables were created outside Flyway (e.g. from the provisioning DDL bundle)
+     * as being at the given version, so later migrations continue from there.
+     */
+    public Duration baselineTenant(String tenantIdentifier, String version) {
+        String schemaName = normalize(tenantIdentifier);
+        long start = System.nanoTime();
+        flywayFor(schemaName)
+                .baselineVersion(version)
+                .baselineDescription("Provisioned from DDL bundle")
+                .load()
+                .baseline();
+
+        Duration duration = Duration.ofNanos(System.nanoTime() - start);
+        registeredSchemas.add(schemaName);
+        migrations.put(schemaName, CompletableFuture.completedFuture(duration));
+        log.debug("📌 Baselined schema {} at version {} in {} ms", schemaName, version, duration.toMillis());
+        return duration;
+    }
+
+    /**
+     * Schemas that carry their own Flyway history table, i.e. tenants provisioned at runtime
+     */
+    public List<String> findProvisionedSchemas() {
+        List<String> schemas = new ArrayList<>();
+        try (Connection connection = dataSource.getConnection();
+             PreparedStatement stmt = connection.prepareStatement(
+                     "SELECT table_schema FROM information_schema.tables " +
+                     "WHERE table_name = CONCAT('flyway_schema_history_', table_schema)");
+             ResultSet rs = stmt.executeQuery()) {
+            while (rs.next()) {
+                schemas.add(rs.getString(1));
+            }
+        } catch (SQLException e) {
+            log.warn("⚠️ Could not look up provisioned tenant schemas: {}", e.getMessage());
+        }
+        return schemas;
+    }
+
+    public boolean isLazy() {
+        return lazy;
+    }
+
+    private Duration ensureMigrated(String schemaName) {
+        CompletableFuture<Duration> latch = new CompletableFuture<>();
+        CompletableFuture<Duration> existing = migrations.putIfAbsent(schemaName, latch);
+        if (existing != null) {
+            // Another thread owns (or finished) this migration - wait for it
+            return existing.join();
+        }
+
+        try {
+            Duration duration = migrateSchema(schemaName);
+            latch.complete(duration);
+            return duration;
+        } catch (RuntimeException e) {
+            // Drop the latch so a later access can retry the migration
+            migrations.remove(schemaName, latch);
+            latch.completeExceptionally(e);
+            throw e;
+        }
+    }
+
+    private Duration migrateSchema(String schemaName) {
+        log.info("🏗️ Migrating schema: {}", schemaName);
+        long start = System.nanoTime();
+        try {
+            Flyway tenantFlyway = flywayFor(schemaName).load();
+
+            tenantFlyway.migrate();
+
+            Duration duration = Duration.ofNanos(System.nanoTime() - start);
+            migrationTimer.record(duration);
+            log.info("✅ Successfully migrated schema: {} in {} ms", schemaName, duration.toMillis());
+            return duration;
+        } catch (Exception e) {
+            log.error("❌ Failed to migrate schema {}: {}", schemaName, e.getMessage(), e);
+            throw new RuntimeException("Failed to migrate schema: " + schemaName, e);
+        }
+    }
+
+    private FluentConfiguration flywayFor(String schemaName) {
+        return Flyway.configure()
+                .dataSource(dataSource)
+                .locations(migrationLocations)
+                .schemas(schemaName)
+                .defaultSchema(schemaName)
+                .createSchemas(true)
+                .baselineOnMigrate(true)
+                .cleanOnValidationError(true)
+                .table("flyway_schema_history_" + schemaName);
+    }
+
+    private static String normalize(String tenantIdentifier) {
+        return tenantIdentifier.trim().toLowerCase(Locale.ROOT);
+    }
+
+    private static class MigrationThreadFactory implements ThreadFactory {
+        private final AtomicInteger counter = new AtomicInteger();
+
+        @Override
+        public Thread newThread(Runnable runnable) {
+            Thread thread = new Thread(runnable, "tenant-migration-" + counter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        }
+    }
+}
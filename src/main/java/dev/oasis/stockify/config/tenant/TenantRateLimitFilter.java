@@ -0,0 +1,66 @@
+package dev.oasis.stockify.config.tenant;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.lang.NonNull;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+
+/**
+ * Enforces per-tenant rate limits and concurrent request caps.
+ * Runs after TenantHeaderFilter so the tenant is already resolved into TenantContext.
+ */
+@Slf4j
+@Component
+public class TenantRateLimitFilter extends OncePerRequestFilter {
+
+    private final TenantRateLimiter rateLimiter;
+
+    @Value("${stockify.rate-limit.enabled:true}")
+    private boolean enabled;
+
+    public TenantRateLimitFilter(TenantRateLimiter rateLimiter) {
+        this.rateLimiter = rateLimiter;
+    }
+
+    @Override
+    protected void doFilterInternal(@NonNull HttpServletRequest request, @NonNull HttpServletResponse response,
+                                    @NonNull FilterChain filterChain) throws ServletException, IOException {
+        String tenantId = TenantContext.getCurrentTenant();
+        if (!enabled || tenantId == null) {
+            filterChain.doFilter(request, response);
+            return;
+        }
+
+        try (TenantRateLimiter.Permit permit = rateLimiter.tryAcquire(tenantId)) {
+            if (!permit.isGranted()) {
+                log.debug("🚦 Throttled request {} {} for tenant: {}", request.getMethod(), request.getRequestURI(), tenantId);
+                response.setStatus(HttpStatus.TOO_MANY_REQUESTS.value());
+                response.setHeader(HttpHeaders.RETRY_AFTER, String.valueOf(permit.getRetryAfterSeconds()));
+                response.setContentType("application/json");
+                response.getWriter().write("{\"error\":\"Too many requests\"}");
+                return;
+            }
+            filterChain.doFilter(request, response);
+        }
+    }
+
+    @Override
+    protected boolean shouldNotFilter(@NonNull HttpServletRequest request) {
+        String path = request.getRequestURI();
+        return path.startsWith("/css/") ||
+               path.startsWith("/js/") ||
+               path.startsWith("/images/") ||
+               path.startsWith("/h2-console/") ||
+               path.startsWith("/actuator/health") ||
+               path.equals("/error");
+    }
+}
@@ -0,0 +1,273 @@
+package dev.oasis.stockify.config.tenant;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Per-tenant request rate limiting and concurrency quotas.
+ * <p>
+ * Rates use a token bucket in its GCRA form: each tenant keeps a single "theoretical arrival time"
+ * that is advanced with one CAS per admitted request, so the hot path never takes a lock.
+ * Limits are read from the tenant's {@code tenant_config} table
+ * ({@code rate_limit_per_second}, {@code rate_limit_burst}, {@code max_concurrent_requests})
+ * and fall back to the {@code stockify.rate-limit.*} defaults. When a refresh cannot read them,
+ * the tenant keeps its current limits and the read is retried a few seconds later.
+ */
+@Slf4j
+@Component
+public class TenantRateLimiter {
+
+    static final String RATE_KEY = "rate_limit_per_second";
+    static final String BURST_KEY = "rate_limit_burst";
+    static final String CONCURRENCY_KEY = "max_concurrent_requests";
+    // Retry delay after tenant_config could not be read
+    private static final long FAILED_LOAD_RETRY_NANOS = TimeUnit.SECONDS.toNanos(5);
+
+    private final DataSource dataSource;
+    private final MeterRegistry meterRegistry;
+    private final ConcurrentMap<String, TenantQuota> quotas = new ConcurrentHashMap<>();
+
+    @Value("${stockify.rate-limit.requests-per-second:50}")
+    private int defaultRequestsPerSecond;
+
+    @Value("${stockify.rate-limit.burst:100}")
+    private int defaultBurst;
+
+    @Value("${stockify.rate-limit.max-concurrent-requests:20}")
+    private int defaultMaxConcurrent;
+
+    @Value("${stockify.rate-limit.config-refresh-seconds:60}")
+    private long configRefreshSeconds;
+
+    public TenantRateLimiter(DataSource dataSource, MeterRegistry meterRegistry) {
+        this.dataSource = dataSource;
+        this.meterRegistry = meterRegistry;
+    }
+
+    /**
+     * Try to admit a request for the tenant.
+     * @return a permit that must be released when the request completes, or a rejection
+     */
+    public Permit tryAcquire(String tenantId) {
+        TenantQuota quota = quotaFor(tenantId);
+
+        // Concurrency first: a request turned away for it must not spend a rate token
+        if (quota.inFlight.incrementAndGet() > quota.maxConcurrent) {
+            quota.inFlight.decrementAndGet();
+            quota.concurrencyRejections.increment();
+            return Permit.rejected(TimeUnit.SECONDS.toNanos(1));
+        }
+
+        long retryAfterNanos = quota.tryConsumeToken(System.nanoTime());
+        if (retryAfterNanos > 0) {
+            quota.inFlight.decrementAndGet();
+            quota.rateRejections.increment();
+            return Permit.rejected(retryAfterNanos);
+        }
+        return new Permit(quota, 0);
+    }
+
+    /**
+     * Drop cached limits so the next request re-reads tenant_config
+     */
+    public void evict(String tenantId) {
+        quotas.remove(tenantId);
+    }
+
+    private TenantQuota quotaFor(String tenantId) {
+        TenantQuota quota = quotas.get(tenantId);
+        if (quota == null) {
+            // Loaded outside computeIfAbsent so the query does not block other tenants' map bins;
+            // when two requests race, the first quota stored wins
+            TenantQuota loaded = loadQuota(tenantId, null);
+            TenantQuota existing = quotas.putIfAbsent(tenantId, loaded);
+            return existing != null ? existing : loaded;
+        }
+        if (quota.isStale(System.nanoTime()) && quota.refreshing.compareAndSet(false, true)) {
+            // One request reloads the limits while the others keep using the current ones
+            try {
+                TenantQuota refreshed = loadQuota(tenantId, quota);
+                // An evict() meanwhile wins, so the next request reads the new config
+                quotas.replace(tenantId, quota, refreshed);
+                quota = refreshed;
+            } finally {
+                quota.refreshing.set(false);
+            }
+        }
+        return quota;
+    }
+
+    private TenantQuota loadQuota(String tenantId, TenantQuota previous) {
+        Limits limits;
+        long refreshAfterNanos = TimeUnit.SECONDS.toNanos(configRefreshSeconds);
+        try {
+            limits = readLimits(tenantId);
+        } catch (SQLException | NumberFormatException e) {
+            // A failed read keeps the limits the tenant had; defaults apply only until its config was read once
+            refreshAfterNanos = Math.min(refreshAfterNanos, FAILED_LOAD_RETRY_NANOS);
+            if (previous != null) {
+                limits = previous.limits;
+                log.warn("⚠️ Could not refresh rate limits for tenant {}, keeping the current ones: {}", tenantId, e.getMessage());
+            } else {
+                limits = new Limits(defaultRequestsPerSecond, defaultBurst, defaultMaxConcurrent);
+                log.debug("Using default rate limits for tenant {}: {}", tenantId, e.getMessage());
+            }
+        }
+
+        log.debug("Rate limits for tenant {}: {}", tenantId, limits);
+        long refreshAt = System.nanoTime() + refreshAfterNanos;
+        if (previous != null) {
+            // Keep in-flight count and bucket position across config refreshes
+            return new TenantQuota(limits, refreshAt, previous.theoreticalArrival,
+                    previous.inFlight, previous.rateRejections, previous.concurrencyRejections);
+        }
+        return new TenantQuota(limits, refreshAt, new AtomicLong(Long.MIN_VALUE),
+                new AtomicInteger(), throttledCounter(tenantId, "rate"), throttledCounter(tenantId, "concurrency"));
+    }
+
+    /**
+     * Limits from the tenant's tenant_config, with the configured defaults for keys it does not set
+     */
+    private Limits readLimits(String tenantId) throws SQLException {
+        int rate = defaultRequestsPerSecond;
+        int burst = defaultBurst;
+        int maxConcurrent = defaultMaxConcurrent;
+
+        String query = "SELECT config_key, config_value FROM tenant_config WHERE config_key IN (?, ?, ?)";
+        try (Connection connection = dataSource.getConnection()) {
+            connection.setSchema(tenantId);
+            try (PreparedStatement statement = connection.prepareStatement(query)) {
+                statement.setString(1, RATE_KEY);
+                statement.setString(2, BURST_KEY);
+                statement.setString(3, CONCURRENCY_KEY);
+                try (ResultSet rs = statement.executeQuery()) {
+                    while (rs.next()) {
+                        String configValue = rs.getString("config_value");
+                        if (configValue == null) {
+                            continue;
+                        }
+                        int value = Integer.parseInt(configValue.trim());
+                        switch (rs.getString("config_key")) {
+                            case RATE_KEY -> rate = value;
+                            case BURST_KEY -> burst = value;
+                            case CONCURRENCY_KEY -> maxConcurrent = value;
+                            default -> { }
+                        }
+                    }
+                }
+            }
+        }
+        return new Limits(rate, burst, maxConcurrent);
+    }
+
+    private Counter throttledCounter(String tenantId, String reason) {
+        return Counter.builder("stockify.tenant.requests.throttled")
+                .description("Requests rejected by tenant rate limits")
+                .tag("tenant", tenantId)
+                .tag("reason", reason)
+                .register(meterRegistry);
+    }
+
+    private record Limits(int requestsPerSecond, int burst, int maxConcurrent) {
+    }
+
+    /**
+     * Limits and lock-free counters for one tenant
+     */
+    private static final class TenantQuota {
+        private final Limits limits;
+        private final long emissionIntervalNanos;
+        private final long burstToleranceNanos;
+        private final int maxConcurrent;
+        private final long refreshAtNanos;
+        private final AtomicLong theoreticalArrival;
+        private final AtomicInteger inFlight;
+        private final Counter rateRejections;
+        private final Counter concurrencyRejections;
+        private final AtomicBoolean refreshing = new AtomicBoolean();
+
+        TenantQuota(Limits limits, long refreshAtNanos, AtomicLong theoreticalArrival, AtomicInteger inFlight,
+                    Counter rateRejections, Counter concurrencyRejections) {
+            this.limits = limits;
+            this.emissionIntervalNanos = TimeUnit.SECONDS.toNanos(1) / Math.max(1, limits.requestsPerSecond());
+            this.burstToleranceNanos = emissionIntervalNanos * (Math.max(1, limits.burst()) - 1L);
+            this.maxConcurrent = Math.max(1, limits.maxConcurrent());
+            this.refreshAtNanos = refreshAtNanos;
+            this.theoreticalArrival = theoreticalArrival;
+            this.inFlight = inFlight;
+            this.rateRejections = rateRejections;
+            this.concurrencyRejections = concurrencyRejections;
+        }
+
+        /**
+         * @return 0 if a token was taken, otherwise nanoseconds until one is available
+         */
+        long tryConsumeToken(long now) {
+            while (true) {
+                long current = theoreticalArrival.get();
+                long tat = current == Long.MIN_VALUE || current - now < 0 ? now : current;
+                long wait = tat - now - burstToleranceNanos;
+                if (wait > 0) {
+                    return wait;
+                }
+                if (theoreticalArrival.compareAndSet(current, tat + emissionIntervalNanos)) {
+                    return 0;
+                }
+            }
+        }
+
+        boolean isStale(long now) {
+            return now - refreshAtNanos > 0;
+        }
+    }
+
+    /**
+     * Result of an admission attempt
+     */
+    public static final class Permit implements AutoCloseable {
+        private final TenantQuota quota;
+        private final long retryAfterNanos;
+
+        private Permit(TenantQuota quota, long retryAfterNanos) {
+            this.quota = quota;
+            this.retryAfterNanos = retryAfterNanos;
+        }
+
+        private static Permit rejected(long retryAfterNanos) {
+            return new Permit(null, retryAfterNanos);
+        }
+
+        public boolean isGranted() {
+            return quota != null;
+        }
+
+        /**
+         * Whole seconds a rejected client should wait, for the Retry-After header
+         */
+        public long getRetryAfterSeconds() {
+            return Math.max(1, (retryAfterNanos + TimeUnit.SECONDS.toNanos(1) - 1) / TimeUnit.SECONDS.toNanos(1));
+        }
+
+        @Override
+        public void close() {
+            if (quota != null) {
+                quota.inFlight.decrementAndGet();
+            }
+        }
+    }
+}
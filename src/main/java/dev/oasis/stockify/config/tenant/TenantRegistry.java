@@ -0,0 +1,108 @@
+package dev.oasis.stockify.config.tenant;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.HashSet;
+import java.util.Locale;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Cached set of existing tenant schemas.
+ * <p>
+ * Lookups are served from an immutable snapshot. A miss reloads the snapshot from
+ * {@code information_schema.schemata}, at most once per {@code stockify.tenant.registry.reload-interval-ms},
+ * so requests for unknown tenants cannot turn into one database query each.
+ */
+@Slf4j
+@Component
+public class TenantRegistry {
+
+    private final DataSource dataSource;
+    private final AtomicLong lastReloadNanos = new AtomicLong(System.nanoTime() - TimeUnit.DAYS.toNanos(1));
+    private volatile Set<String> knownTenants = Set.of();
+
+    @Value("${stockify.tenant.registry.reload-interval-ms:5000}")
+    private long reloadIntervalMs;
+
+    public TenantRegistry(DataSource dataSource) {
+        this.dataSource = dataSource;
+    }
+
+    /**
+     * Check if a tenant schema exists
+     */
+    public boolean exists(String tenantId) {
+        if (tenantId == null) {
+            return false;
+        }
+        if (knownTenants.contains(tenantId)) {
+            return true;
+        }
+        long last = lastReloadNanos.get();
+        long now = System.nanoTime();
+        if (now - last >= TimeUnit.MILLISECONDS.toNanos(reloadIntervalMs)
+                && lastReloadNanos.compareAndSet(last, now)) {
+            reload();
+        }
+        return knownTenants.contains(tenantId);
+    }
+
+    /**
+     * All tenant schemas, re-read from the database (for background jobs)
+     */
+    public Set<String> allTenants() {
+        lastReloadNanos.set(System.nanoTime());
+        reload();
+        return knownTenants;
+    }
+
+    /**
+     * Add a tenant created at runtime
+     */
+    public synchronized void register(String tenantId) {
+        Set<String> updated = new HashSet<>(knownTenants);
+        updated.add(tenantId.toLowerCase(Locale.ROOT));
+        knownTenants = Set.copyOf(updated);
+    }
+
+    /**
+     * Remove a tenant whose schema was dropped
+     */
+    public synchronized void unregister(String tenantId) {
+        Set<String> updated = new HashSet<>(knownTenants);
+        updated.remove(tenantId.toLowerCase(Locale.ROOT));
+        knownTenants = Set.copyOf(updated);
+    }
+
+    private void reload() {
+        String query = "SELECT schema_name FROM information_schema.schemata";
+        Set<String> tenants = new HashSet<>();
+        try (Connection connection = dataSource.getConnection();
+             PreparedStatement statement = connection.prepareStatement(query);
+             ResultSet resultSet = statement.executeQuery()) {
+            while (resultSet.next()) {
+                String schemaName = resultSet.getString(1).toLowerCase(Locale.ROOT);
+                if (!isSystemSchema(schemaName)) {
+                    tenants.add(schemaName);
+                }
+            }
+            knownTenants = Set.copyOf(tenants);
+            log.debug("🔄 Tenant registry reloaded with {} schemas", tenants.size());
+        } catch (SQLException e) {
+            log.error("❌ Error loading tenant registry: {}", e.getMessage());
+        }
+    }
+
+    private boolean isSystemSchema(String schemaName) {
+        return schemaName.equals("information_schema") || schemaName.startsWith("pg_");
+    }
+}
@@ -0,0 +1,152 @@
+package dev.oasis.stockify.config.tenant;
+
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpSession;
+import org.springframework.stereotype.Component;
+
+import java.util.Locale;
+
+/**
+ * Resolves the tenant of a request in a single pass.
+ * <p>
+ * Lookup order: {@code tenant_id} form parameter on login, tenant stored in the session at login,
+ * {@code X-TenantId} header, {@code X-Tenant-ID} header, subdomain ({@code tenant.app.com}),
+ * path ({@code /tenant/{tenantId}/...}), {@code tenantId} query parameter, and finally {@code public}.
+ * A signed-in session keeps its tenant; TenantHeaderFilter rejects a header naming another one.
+ * Parsing uses index scans instead of {@code split}/regex and only allocates when a value
+ * has to be trimmed or lowercased. Existence of the tenant is checked separately against TenantRegistry.
+ */
+@Component
+public class TenantResolver {
+
+    public static final String DEFAULT_TENANT = "public";
+    public static final String SESSION_ATTRIBUTE = "STOCKIFY_TENANT_ID";
+
+    static final String TENANT_HEADER = "X-TenantId";
+    static final String TENANT_HEADER_ALIAS = "X-Tenant-ID";
+    static final String LOGIN_PARAM = "tenant_id";
+    static final String QUERY_PARAM = "tenantId";
+    private static final String TENANT_PATH_PREFIX = "/tenant/";
+
+    private static final ResolvedTenant DEFAULT = new ResolvedTenant(DEFAULT_TENANT, ResolvedTenant.Source.DEFAULT);
+
+    public ResolvedTenant resolve(HttpServletRequest request) {
+        String tenantId;
+        if (isLoginRequest(request)) {
+            tenantId = normalize(request.getParameter(LOGIN_PARAM));
+            if (tenantId != null) {
+                return new ResolvedTenant(tenantId, ResolvedTenant.Source.LOGIN_FORM);
+            }
+        }
+
+        // The tenant the user signed in to; a header must not move an existing session to another tenant
+        String sessionTenant = sessionTenant(request);
+        if (sessionTenant != null) {
+            return new ResolvedTenant(sessionTenant, ResolvedTenant.Source.SESSION);
+        }
+
+        tenantId = fromHeaders(request);
+        if (tenantId != null) {
+            return new ResolvedTenant(tenantId, ResolvedTenant.Source.HEADER);
+        }
+
+        tenantId = fromSubdomain(request.getServerName());
+        if (tenantId != null) {
+            return new ResolvedTenant(tenantId, ResolvedTenant.Source.SUBDOMAIN);
+        }
+
+        tenantId = fromPath(request.getRequestURI());
+        if (tenantId != null) {
+            return new ResolvedTenant(tenantId, ResolvedTenant.Source.PATH);
+        }
+
+        // Only look at the query string when it can contain the parameter, to avoid parsing the body
+        String query = request.getQueryString();
+        if (query != null && query.contains(QUERY_PARAM)) {
+            tenantId = normalize(request.getParameter(QUERY_PARAM));
+            if (tenantId != null) {
+                return new ResolvedTenant(tenantId, ResolvedTenant.Source.QUERY_PARAM);
+            }
+        }
+
+        return DEFAULT;
+    }
+
+    /**
+     * Tenant of the {@code X-TenantId} or {@code X-Tenant-ID} header, or null
+     */
+    static String fromHeaders(HttpServletRequest request) {
+        String tenantId = normalize(request.getHeader(TENANT_HEADER));
+        return tenantId != null ? tenantId : normalize(request.getHeader(TENANT_HEADER_ALIAS));
+    }
+
+    static String sessionTenant(HttpServletRequest request) {
+        HttpSession session = request.getSession(false);
+        return session != null && session.getAttribute(SESSION_ATTRIBUTE) instanceof String value ? value : null;
+    }
+
+    static boolean isLoginRequest(HttpServletRequest request) {
+        return "POST".equals(request.getMethod()) && "/login".equals(request.getServletPath());
+    }
+
+    /**
+     * tenant.yourapp.com -> tenant (www, api and IP addresses are ignored)
+     */
+    static String fromSubdomain(String serverName) {
+        if (serverName == null || serverName.isEmpty() || Character.isDigit(serverName.charAt(0))) {
+            return null;
+        }
+        int firstDot = serverName.indexOf('.');
+        if (firstDot <= 0 || serverName.indexOf('.', firstDot + 1) < 0) {
+            return null;
+        }
+        if (serverName.startsWith("www.") || serverName.startsWith("api.")) {
+            return null;
+        }
+        return normalize(serverName.substring(0, firstDot));
+    }
+
+    /**
+     * /tenant/{tenantId}/... -> tenantId
+     */
+    static String fromPath(String path) {
+        if (path == null || !path.startsWith(TENANT_PATH_PREFIX)) {
+            return null;
+        }
+        int start = TENANT_PATH_PREFIX.length();
+        int end = path.indexOf('/', start);
+        if (end < 0) {
+            end = path.length();
+        }
+        return end > start ? normalize(path.substring(start, end)) : null;
+    }
+
+    /**
+     * Trim and lowercase a tenant identifier, returning null for blank values.
+     * The input is returned as-is when it is already trimmed and lowercase.
+     */
+    static String normalize(String value) {
+        if (value == null) {
+            return null;
+        }
+        int start = 0;
+        int end = value.length();
+        while (start < end && value.charAt(start) <= ' ') {
+            start++;
+        }
+        while (end > start && value.charAt(end - 1) <= ' ') {
+            end--;
+        }
+        if (start == end) {
+            return null;
+        }
+
+        for (int i = start; i < end; i++) {
+            char c = value.charAt(i);
+            if (c >= 'A' && c <= 'Z' || c > 0x7F) {
+                return value.substring(start, end).toLowerCase(Locale.ROOT);
+            }
+        }
+        return start == 0 && end == value.length() ? value : value.substring(start, end);
+    }
+}
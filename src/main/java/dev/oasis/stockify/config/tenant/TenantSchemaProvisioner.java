@@ -0,0 +1,167 @@
+package dev.oasis.stockify.config.tenant;
+
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.flywaydb.core.api.MigrationVersion;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.Resource;
+import org.springframework.core.io.support.PathMatchingResourcePatternResolver;
+import org.springframework.stereotype.Component;
+
+import javax.sql.DataSource;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Locale;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Creates the tables of a new tenant schema.
+ * <p>
+ * The versioned Flyway scripts are read once at startup into a DDL bundle. Provisioning replays the
+ * bundle in a single transaction (one round trip per script) and then baselines the schema's Flyway
+ * history at the bundle version, so later migrations continue normally. When the bundle is disabled
+ * or cannot be used, the schema is migrated through {@link TenantMigrationOrchestrator} instead.
+ */
+@Slf4j
+@Component
+public class TenantSchemaProvisioner {
+
+    private static final Pattern VERSIONED_SCRIPT = Pattern.compile("V([0-9._]+)__.*\\.sql");
+
+    private final DataSource dataSource;
+    private final TenantMigrationOrchestrator migrationOrchestrator;
+
+    @Value("${spring.flyway.locations:classpath:db/migration}")
+    private String[] migrationLocations;
+
+    @Value("${stockify.tenant.provisioning.ddl-bundle:true}")
+    private boolean ddlBundleEnabled;
+
+    // Cached migration scripts in version order; empty when the bundle is not usable
+    private List<String> ddlBundle = List.of();
+    private String bundleVersion;
+
+    public TenantSchemaProvisioner(DataSource dataSource, TenantMigrationOrchestrator migrationOrchestrator) {
+        this.dataSource = dataSource;
+        this.migrationOrchestrator = migrationOrchestrator;
+    }
+
+    @PostConstruct
+    public void loadDdlBundle() {
+        if (!ddlBundleEnabled) {
+            log.info("📦 Tenant DDL bundle disabled, new tenants are migrated through Flyway");
+            return;
+        }
+        try {
+            List<BundledScript> scripts = new ArrayList<>();
+            PathMatchingResourcePatternResolver resolver = new PathMatchingResourcePatternResolver();
+            for (String location : migrationLocations) {
+                String pattern = toResourcePattern(location);
+                if (pattern == null) {
+                    log.warn("⚠️ Unsupported migration location {} for the tenant DDL bundle", location);
+                    return;
+                }
+                for (Resource resource : resolver.getResources(pattern)) {
+                    Matcher matcher = VERSIONED_SCRIPT.matcher(resource.getFilename());
+                    if (!matcher.matches()) {
+                        continue;
+                    }
+                    String sql = resource.getContentAsString(StandardCharsets.UTF_8);
+                    if (sql.contains("${")) {
+                        // Flyway placeholders are only replaced on the Flyway path
+                        log.warn("⚠️ {} uses Flyway placeholders, tenant DDL bundle disabled", resource.getFilename());
+                        return;
+                    }
+                    scripts.add(new BundledScript(MigrationVersion.fromVersion(matcher.group(1)), sql));
+                }
+            }
+            if (scripts.isEmpty()) {
+                log.warn("⚠️ No versioned migrations found for the tenant DDL bundle");
+                return;
+            }
+
+            scripts.sort(Comparator.comparing(BundledScript::version));
+            ddlBundle = scripts.stream().map(BundledScript::sql).toList();
+            bundleVersion = scripts.get(scripts.size() - 1).version().getVersion();
+            log.info("📦 Cached tenant DDL bundle: {} scripts up to version {}", ddlBundle.size(), bundleVersion);
+        } catch (IOException e) {
+            log.warn("⚠️ Could not load tenant DDL bundle, falling back to Flyway: {}", e.getMessage());
+            ddlBundle = List.of();
+        }
+    }
+
+    /**
+     * Create and populate the schema for a new tenant
+     *
+     * @return time spent creating the schema and its tables
+     */
+    public Duration provision(String tenantId) throws SQLException {
+        String schemaName = tenantId.toLowerCase(Locale.ROOT);
+        long start = System.nanoTime();
+
+        if (!ddlBundle.isEmpty()) {
+            try {
+                replayBundle(schemaName);
+                migrationOrchestrator.baselineTenant(schemaName, bundleVersion);
+                Duration duration = Duration.ofNanos(System.nanoTime() - start);
+                log.debug("🏗️ Provisioned schema {} from DDL bundle in {} ms", schemaName, duration.toMillis());
+                return duration;
+            } catch (SQLException | RuntimeException e) {
+                log.warn("⚠️ DDL bundle replay failed for {}, falling back to Flyway: {}", schemaName, e.getMessage());
+                dropSchema(schemaName);
+            }
+        }
+
+        migrationOrchestrator.migrateTenant(schemaName);
+        return Duration.ofNanos(System.nanoTime() - start);
+    }
+
+    private void replayBundle(String schemaName) throws SQLException {
+        try (Connection connection = dataSource.getConnection()) {
+            boolean autoCommit = connection.getAutoCommit();
+            connection.setAutoCommit(false);
+            try (Statement statement = connection.createStatement()) {
+                statement.execute(String.format("CREATE SCHEMA %s", schemaName));
+                connection.setSchema(schemaName);
+                for (String script : ddlBundle) {
+                    statement.execute(script);
+                }
+                connection.commit();
+            } catch (SQLException e) {
+                connection.rollback();
+                throw e;
+            } finally {
+                connection.setAutoCommit(autoCommit);
+            }
+        }
+    }
+
+    private void dropSchema(String schemaName) throws SQLException {
+        try (Connection connection = dataSource.getConnection();
+             Statement statement = connection.createStatement()) {
+            statement.execute(String.format("DROP SCHEMA IF EXISTS %s CASCADE", schemaName));
+        }
+    }
+
+    private static String toResourcePattern(String location) {
+        if (location.startsWith("classpath:")) {
+            return "classpath*:" + location.substring("classpath:".length()) + "/V*__*.sql";
+        }
+        if (location.startsWith("filesystem:")) {
+            return "file:" + location.substring("filesystem:".length()) + "/V*__*.sql";
+        }
+        // Flyway treats locations without a prefix as classpath locations
+        return location.contains(":") ? null : "classpath*:" + location + "/V*__*.sql";
+    }
+
+    private record BundledScript(MigrationVersion version, String sql) {
+    }
+}
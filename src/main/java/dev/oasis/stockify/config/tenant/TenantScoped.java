@@ -0,0 +1,18 @@
+package dev.oasis.stockify.config.tenant;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Marks a service (or a single method) as a tenant-data entry point.
+ * Calls through the Spring proxy fail fast when no TenantContext is set;
+ * calls inside the bean are not intercepted.
+ */
+@Target({ElementType.TYPE, ElementType.METHOD})
+@Retention(RetentionPolicy.RUNTIME)
+@Documented
+public @interface TenantScoped {
+}
@@ -1,18 +1,43 @@
 package dev.oasis.stockify.config.tenant;
 
+import dev.oasis.stockify.config.profiling.ServiceCallEvent;
 import org.aspectj.lang.ProceedingJoinPoint;
 import org.aspectj.lang.annotation.Around;
 import org.aspectj.lang.annotation.Aspect;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
 import org.springframework.stereotype.Component;
 
+/**
+ * Tenant guard for {@link TenantScoped} entry points.
+ * Pointcut matching is resolved once per method when the proxy is built and Spring caches
+ * the interceptor chain per method, so a guarded call costs one ThreadLocal read.
+ * Runs before the transaction advice so no connection is opened without a tenant.
+ * Also marks the call as a ServiceCallEvent span for JFR profiling sessions.
+ */
 @Aspect
 @Component
-public class TenantSecurityAspect {    @Around("execution(* dev.oasis.stockify.service..*(..)) && !within(dev.oasis.stockify.service.AppUserDetailsService) && !within(dev.oasis.stockify.service.SuperAdminService)")
+@Order(Ordered.HIGHEST_PRECEDENCE)
+public class TenantSecurityAspect {
+
+    @Around("@within(dev.oasis.stockify.config.tenant.TenantScoped) || @annotation(dev.oasis.stockify.config.tenant.TenantScoped)")
     public Object enforceTenantSecurity(ProceedingJoinPoint joinPoint) throws Throwable {
         String currentTenant = TenantContext.getCurrentTenant();
         if (currentTenant == null) {
             throw new IllegalStateException("No tenant context found");
         }
-        return joinPoint.proceed();
+        ServiceCallEvent event = new ServiceCallEvent();
+        event.begin();
+        try {
+            return joinPoint.proceed();
+        } finally {
+            event.end();
+            if (event.shouldCommit()) {
+                event.tenant = currentTenant;
+                event.operation = joinPoint.getSignature().getDeclaringType().getSimpleName()
+                        + "." + joinPoint.getSignature().getName();
+                event.commit();
+            }
+        }
     }
 }
@@ -0,0 +1,38 @@
+package dev.oasis.stockify.controller;
+
+import dev.oasis.stockify.dto.KitDTO;
+import dev.oasis.stockify.service.KitAvailabilityService;
+import org.springframework.web.bind.annotation.*;
+
+/**
+ * Bill of materials of kit products
+ */
+@RestController
+@RequestMapping("/products/{kitId}/components")
+public class KitController {
+    private final KitAvailabilityService kitAvailabilityService;
+
+    public KitController(KitAvailabilityService kitAvailabilityService) {
+        this.kitAvailabilityService = kitAvailabilityService;
+    }
+
+    @GetMapping
+    public KitDTO getKit(@PathVariable Long kitId) {
+        return kitAvailabilityService.getKit(kitId);
+    }
+
+    /**
+     * Sets how many units of the component go into one kit
+     */
+    @PostMapping
+    public KitDTO setComponent(@PathVariable Long kitId,
+                               @RequestParam Long componentId,
+                               @RequestParam int quantity) {
+        return kitAvailabilityService.setComponent(kitId, componentId, quantity);
+    }
+
+    @DeleteMapping("/{componentId}")
+    public KitDTO removeComponent(@PathVariable Long kitId, @PathVariable Long componentId) {
+        return kitAvailabilityService.removeComponent(kitId, componentId);
+    }
+}
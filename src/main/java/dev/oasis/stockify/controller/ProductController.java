@@ -1,10 +1,19 @@
 package dev.oasis.stockify.controller;
 
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import dev.oasis.stockify.dto.ProductCreateDTO;
 import dev.oasis.stockify.dto.ProductResponseDTO;
+import dev.oasis.stockify.dto.StockAdjustmentDTO;
+import dev.oasis.stockify.dto.StockTransferDTO;
 import dev.oasis.stockify.exception.FileOperationException;
+import dev.oasis.stockify.exception.InsufficientStockException;
+import dev.oasis.stockify.exception.ProductVersionConflictException;
+import dev.oasis.stockify.mapper.ProductMapper;
+import dev.oasis.stockify.model.StockMovementType;
 import dev.oasis.stockify.service.ProductService;
 import dev.oasis.stockify.service.ProductImportExportService;
+import dev.oasis.stockify.service.StockAdjustmentService;
 import jakarta.servlet.http.HttpServletResponse;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
@@ -29,10 +38,40 @@ import java.util.List;
 public class ProductController {
     private final ProductService productService;
     private final ProductImportExportService importExportService;
+    private final ProductMapper productMapper;
+    private final StockAdjustmentService stockAdjustmentService;
+    private final ObjectMapper objectMapper;
 
-    public ProductController(ProductService productService, ProductImportExportService importExportService) {
+    public ProductController(ProductService productService, ProductImportExportService importExportService,
+                             ProductMapper productMapper, StockAdjustmentService stockAdjustmentService,
+                             ObjectMapper objectMapper) {
         this.productService = productService;
         this.importExportService = importExportService;
+        this.productMapper = productMapper;
+        this.stockAdjustmentService = stockAdjustmentService;
+        this.objectMapper = objectMapper;
+    }
+
+    /**
+     * The state an edit form starts from, as JSON for its hidden editBase field
+     */
+    private String editBase(ProductResponseDTO product) throws JsonProcessingException {
+        return objectMapper.writeValueAsString(productMapper.toCreateDto(product));
+    }
+
+    /**
+     * The edit form's starting state; null without one, or when it cannot be read, so the update
+     * falls back to the version check
+     */
+    private ProductCreateDTO readEditBase(String editBase) {
+        if (editBase == null || editBase.isBlank()) {
+            return null;
+        }
+        try {
+            return objectMapper.readValue(editBase, ProductCreateDTO.class);
+        } catch (JsonProcessingException e) {
+            return null;
+        }
     }
 
     /**
@@ -132,9 +171,11 @@ public class ProductController {
      * Displays the form for editing an existing product
      */
     @GetMapping("/edit/{id}")
-    public String showEditForm(@PathVariable Long id, Model model) {
+    public String showEditForm(@PathVariable Long id, Model model) throws JsonProcessingException {
         ProductResponseDTO product = productService.getProductById(id)
                 .orElseThrow(() -> new RuntimeException("Product not found with id: " + id));
+        // The state the form starts from, so the update only writes the fields the user changed
+        model.addAttribute("editBase", editBase(product));
         model.addAttribute("product", product);
         model.addAttribute("isEdit", true);
         return "product-form";
@@ -146,8 +187,11 @@ public class ProductController {
     @PostMapping("/edit/{id}")
     public String editProduct(@PathVariable Long id,
                             @ModelAttribute("product") ProductCreateDTO productCreateDTO,
+                            @RequestParam(required = false) String editBase,
                             RedirectAttributes redirectAttributes,
                             Model model) {
+        // Kept when the form is shown again with an error
+        model.addAttribute("editBase", editBase);
         try {
             // Ürünün var olup olmadığını kontrol et
             ProductResponseDTO existingProduct = productService.getProductById(id)
@@ -186,11 +230,15 @@ public class ProductController {
                 return "product-form";
             }
 
-            ProductResponseDTO updatedProduct = productService.updateProduct(id, productCreateDTO);
+            ProductResponseDTO updatedProduct = productService.updateProduct(id, productCreateDTO, readEditBase(editBase));
             redirectAttributes.addFlashAttribute("successMessage",
                 String.format("Product '%s' was successfully updated", updatedProduct.getTitle()));
             return "redirect:/products";
 
+        } catch (ProductVersionConflictException | InsufficientStockException e) {
+            // Reload the form with the current values instead of re-rendering stale ones
+            redirectAttributes.addFlashAttribute("errorMessage", e.getMessage());
+            return "redirect:/products/edit/" + id;
         } catch (Exception e) {
             model.addAttribute("errorMessage", "Error updating product: " + e.getMessage());
             model.addAttribute("isEdit", true);
@@ -198,6 +246,32 @@ public class ProductController {
         }
     }
 
+    /**
+     * Records a stock movement (sale, receipt, correction) and returns the resulting stock level
+     */
+    @PostMapping("/{id}/stock")
+    @ResponseBody
+    public StockAdjustmentDTO adjustStock(@PathVariable Long id,
+                                          @RequestParam StockMovementType type,
+                                          @RequestParam int quantity,
+                                          @RequestParam(required = false) String reference,
+                                          @RequestParam(required = false) Long locationId) {
+        return stockAdjustmentService.adjust(id, type, quantity, reference, locationId);
+    }
+
+    /**
+     * Moves stock between two locations; the product total stays the same
+     */
+    @PostMapping("/{id}/stock/transfer")
+    @ResponseBody
+    public StockTransferDTO transferStock(@PathVariable Long id,
+                                          @RequestParam Long from,
+                                          @RequestParam Long to,
+                                          @RequestParam int quantity,
+                                          @RequestParam(required = false) String reference) {
+        return stockAdjustmentService.transfer(id, from, to, quantity, reference);
+    }
+
     /**
      * Deletes a product
      */
@@ -0,0 +1,39 @@
+package dev.oasis.stockify.controller;
+
+import dev.oasis.stockify.dto.DemandForecastRunDTO;
+import dev.oasis.stockify.dto.RestockItemDTO;
+import dev.oasis.stockify.service.DemandForecastService;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.List;
+
+/**
+ * Restock suggestions from the demand forecast (smoothed OUT movements per product)
+ */
+@RestController
+@RequestMapping("/stock")
+public class RestockController {
+    private final DemandForecastService demandForecastService;
+
+    public RestockController(DemandForecastService demandForecastService) {
+        this.demandForecastService = demandForecastService;
+    }
+
+    /**
+     * Products at or below their reorder point, fewest days of cover first
+     */
+    @GetMapping("/restock")
+    public List<RestockItemDTO> getRestockList(@RequestParam(required = false) Integer limit) {
+        return demandForecastService.getRestockList(limit);
+    }
+
+    /**
+     * Folds the days since the last forecast run now instead of waiting for the nightly run
+     */
+    @PostMapping("/demand/forecast")
+    @PreAuthorize("hasRole('ADMIN')")
+    public DemandForecastRunDTO forecast() {
+        return demandForecastService.forecastCurrentTenant();
+    }
+}
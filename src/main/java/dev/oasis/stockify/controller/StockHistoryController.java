@@ -0,0 +1,75 @@
+package dev.oasis.stockify.controller;
+
+import dev.oasis.stockify.dto.StockAsOfDTO;
+import dev.oasis.stockify.dto.StockReconciliationDTO;
+import dev.oasis.stockify.dto.StockValuationDTO;
+import dev.oasis.stockify.exception.GlobalExceptionHandler.ResourceNotFoundException;
+import dev.oasis.stockify.model.StockSnapshot;
+import dev.oasis.stockify.service.StockReconciliationService;
+import dev.oasis.stockify.service.StockSnapshotService;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.*;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Point-in-time stock and valuation, replayed from the stock movement ledger and its snapshots.
+ * Times are ISO local date-times, e.g. 2025-12-31T23:59:59; without one the current stock is returned.
+ */
+@RestController
+@RequestMapping("/stock")
+public class StockHistoryController {
+    private final StockSnapshotService stockSnapshotService;
+    private final StockReconciliationService stockReconciliationService;
+
+    public StockHistoryController(StockSnapshotService stockSnapshotService,
+                                  StockReconciliationService stockReconciliationService) {
+        this.stockSnapshotService = stockSnapshotService;
+        this.stockReconciliationService = stockReconciliationService;
+    }
+
+    @GetMapping("/as-of")
+    public StockAsOfDTO getStockAsOf(@RequestParam String sku,
+                                     @RequestParam(required = false)
+                                     @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime at) {
+        return stockSnapshotService.getStockAsOf(sku, at);
+    }
+
+    @GetMapping("/valuation")
+    public StockValuationDTO getValuation(@RequestParam(required = false)
+                                          @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime at) {
+        return stockSnapshotService.getValuationAsOf(at);
+    }
+
+    @GetMapping("/snapshots")
+    public List<StockSnapshot> getSnapshots() {
+        return stockSnapshotService.getSnapshots();
+    }
+
+    /**
+     * Takes a snapshot outside the schedule, e.g. before a stock count
+     */
+    @PostMapping("/snapshots")
+    @PreAuthorize("hasRole('ADMIN')")
+    public StockSnapshot createSnapshot(@RequestParam(required = false)
+                                        @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime asOf) {
+        return stockSnapshotService.createSnapshot(asOf);
+    }
+
+    @GetMapping("/reconciliation")
+    public StockReconciliationDTO getReconciliation() {
+        return stockReconciliationService.getLastReport()
+                .orElseThrow(() -> new ResourceNotFoundException("No stock reconciliation has run on this instance yet"));
+    }
+
+    /**
+     * Checks stock levels against the ledger now instead of waiting for the nightly run
+     */
+    @PostMapping("/reconciliation")
+    @PreAuthorize("hasRole('ADMIN')")
+    public StockReconciliationDTO reconcile() {
+        return stockReconciliationService.reconcileCurrentTenant();
+    }
+}
@@ -0,0 +1,54 @@
+package dev.oasis.stockify.controller;
+
+import dev.oasis.stockify.dto.LocationStockDTO;
+import dev.oasis.stockify.dto.ProductLocationsDTO;
+import dev.oasis.stockify.model.StockLocation;
+import dev.oasis.stockify.service.StockLocationService;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.List;
+
+/**
+ * Stock locations (warehouses) and per-location stock of products
+ */
+@RestController
+@RequestMapping("/locations")
+public class StockLocationController {
+    private final StockLocationService stockLocationService;
+
+    public StockLocationController(StockLocationService stockLocationService) {
+        this.stockLocationService = stockLocationService;
+    }
+
+    @GetMapping
+    public List<StockLocation> getLocations() {
+        return stockLocationService.getLocations();
+    }
+
+    @PostMapping
+    @PreAuthorize("hasRole('ADMIN')")
+    public StockLocation createLocation(@RequestParam String code, @RequestParam String name) {
+        return stockLocationService.createLocation(code, name);
+    }
+
+    @GetMapping("/products/{productId}")
+    public ProductLocationsDTO getProductLocations(@PathVariable Long productId) {
+        return stockLocationService.getProductLocations(productId);
+    }
+
+    /**
+     * Sets the alert threshold of a product at a location; without a threshold it is cleared
+     */
+    @PostMapping("/{locationId}/products/{productId}/threshold")
+    public LocationStockDTO setLowStockThreshold(@PathVariable Long locationId,
+                                                 @PathVariable Long productId,
+                                                 @RequestParam(required = false) Integer threshold) {
+        return stockLocationService.setLowStockThreshold(productId, locationId, threshold);
+    }
+
+    @GetMapping("/low-stock")
+    public List<LocationStockDTO> getLowStockLocations() {
+        return stockLocationService.getLowStockLocations();
+    }
+}
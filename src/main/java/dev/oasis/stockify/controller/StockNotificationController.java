@@ -1,37 +1,94 @@
 package dev.oasis.stockify.controller;
 
-import dev.oasis.stockify.model.StockNotification;
+import dev.oasis.stockify.config.tenant.TenantContext;
+import dev.oasis.stockify.dto.NotificationPageDTO;
+import dev.oasis.stockify.service.NotificationStreamService;
 import dev.oasis.stockify.service.StockNotificationService;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.MediaType;
 import org.springframework.stereotype.Controller;
 import org.springframework.ui.Model;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
+import java.time.LocalDateTime;
 import java.util.List;
+import java.util.Map;
 
 @Controller
 @RequestMapping("/notifications")
 public class StockNotificationController {
     private final StockNotificationService stockNotificationService;
+    private final NotificationStreamService notificationStreamService;
 
-    public StockNotificationController(StockNotificationService stockNotificationService) {
+    public StockNotificationController(StockNotificationService stockNotificationService,
+                                       NotificationStreamService notificationStreamService) {
         this.stockNotificationService = stockNotificationService;
+        this.notificationStreamService = notificationStreamService;
     }
 
+    /**
+     * Keyset-paged list, newest first; "before"/"beforeId" come from the previous page's "older" link
+     */
     @GetMapping
-    public String listNotifications(Model model) {
-        List<StockNotification> notifications = stockNotificationService.getAllNotifications();
-        model.addAttribute("notifications", notifications);
+    public String listNotifications(@RequestParam(defaultValue = "false") boolean unread,
+                                    @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime before,
+                                    @RequestParam(required = false) Long beforeId,
+                                    @RequestParam(required = false) Integer size,
+                                    Model model) {
+        NotificationPageDTO page = stockNotificationService.getNotificationPage(unread, before, beforeId, size);
+        model.addAttribute("notifications", page.getNotifications());
+        model.addAttribute("page", page);
+        model.addAttribute("unreadOnly", unread);
+        model.addAttribute("firstPage", before == null);
         return "notification-list";
     }
 
+    @GetMapping("/unread-count")
+    @ResponseBody
+    public Map<String, Long> unreadCountJson() {
+        return Map.of("unread", stockNotificationService.getUnreadCount());
+    }
+
+    /**
+     * Live stream of new notifications and unread count changes for the current tenant
+     */
+    @GetMapping(path = "/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter stream() {
+        return notificationStreamService.subscribe(TenantContext.getCurrentTenant(),
+                stockNotificationService.getUnreadCount());
+    }
+
     @PostMapping("/{id}/read")
     @ResponseBody
     public void markAsRead(@PathVariable Long id) {
         stockNotificationService.markAsRead(id);
     }
 
+    @PostMapping("/read")
+    @ResponseBody
+    public Map<String, Integer> markAsRead(@RequestParam List<Long> ids) {
+        return Map.of("updated", stockNotificationService.markAsRead(ids));
+    }
+
+    @PostMapping("/products/{productId}/read")
+    @ResponseBody
+    public Map<String, Integer> markProductAsRead(@PathVariable Long productId) {
+        return Map.of("updated", stockNotificationService.markProductAsRead(productId));
+    }
+
+    /**
+     * Acknowledge everything created before "before" (ISO date-time), or everything up to now
+     */
+    @PostMapping("/read-all")
+    @ResponseBody
+    public Map<String, Integer> markAllAsRead(@RequestParam(required = false)
+                                              @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime before) {
+        return Map.of("updated", stockNotificationService.markAllAsRead(before));
+    }
+
     @ModelAttribute("unreadCount")
-    public int unreadCount() {
-        return stockNotificationService.getUnreadNotifications().size();
+    public long unreadCount() {
+        return stockNotificationService.getUnreadCount();
     }
 }
@@ -0,0 +1,50 @@
+package dev.oasis.stockify.controller;
+
+import dev.oasis.stockify.dto.StockAvailabilityDTO;
+import dev.oasis.stockify.dto.StockReservationDTO;
+import dev.oasis.stockify.service.StockReservationService;
+import org.springframework.web.bind.annotation.*;
+
+/**
+ * Reserve / confirm / release API for checkout flows
+ */
+@RestController
+@RequestMapping("/reservations")
+public class StockReservationController {
+    private final StockReservationService stockReservationService;
+
+    public StockReservationController(StockReservationService stockReservationService) {
+        this.stockReservationService = stockReservationService;
+    }
+
+    /**
+     * Holds quantity of a product for ttlSeconds (default stockify.reservations.default-ttl-seconds)
+     */
+    @PostMapping
+    public StockReservationDTO reserve(@RequestParam Long productId,
+                                       @RequestParam int quantity,
+                                       @RequestParam(required = false) Long ttlSeconds,
+                                       @RequestParam(required = false) String reference) {
+        return stockReservationService.reserve(productId, quantity, ttlSeconds, reference);
+    }
+
+    @GetMapping("/{reservationId}")
+    public StockReservationDTO getReservation(@PathVariable String reservationId) {
+        return stockReservationService.getReservation(reservationId);
+    }
+
+    @PostMapping("/{reservationId}/confirm")
+    public StockReservationDTO confirm(@PathVariable String reservationId) {
+        return stockReservationService.confirm(reservationId);
+    }
+
+    @PostMapping("/{reservationId}/release")
+    public StockReservationDTO release(@PathVariable String reservationId) {
+        return stockReservationService.release(reservationId);
+    }
+
+    @GetMapping("/products/{productId}/availability")
+    public StockAvailabilityDTO availability(@PathVariable Long productId) {
+        return stockReservationService.getAvailability(productId);
+    }
+}
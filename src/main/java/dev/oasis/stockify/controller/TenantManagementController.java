@@ -1,5 +1,6 @@
 package dev.oasis.stockify.controller;
 
+import dev.oasis.stockify.config.tenant.TenantMigrationOrchestrator;
 import dev.oasis.stockify.dto.TenantCreateDTO;
 import dev.oasis.stockify.dto.TenantDTO;
 import dev.oasis.stockify.service.TenantManagementService;
@@ -16,6 +17,7 @@ import org.springframework.web.servlet.mvc.support.RedirectAttributes;
 
 import jakarta.validation.Valid;
 import java.util.List;
+import java.util.Map;
 
 /**
  * Controller for tenant management operations
@@ -29,6 +31,7 @@ import java.util.List;
 public class TenantManagementController {
 
     private final TenantManagementService tenantManagementService;
+    private final TenantMigrationOrchestrator migrationOrchestrator;
 
     /**
      * Display tenant management dashboard
@@ -188,4 +191,13 @@ public class TenantManagementController {
             return ResponseEntity.status(HttpStatus.NOT_FOUND).build();
         }
     }
+
+    /**
+     * REST API: Flyway migration time (ms) per tenant schema
+     */
+    @GetMapping("/api/migrations")
+    @ResponseBody
+    public ResponseEntity<Map<String, Long>> getMigrationTimingsApi() {
+        return ResponseEntity.ok(migrationOrchestrator.getMigrationTimings());
+    }
 }
@@ -0,0 +1,26 @@
+package dev.oasis.stockify.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+/**
+ * Result of a demand forecast run of one tenant: the days fromDay..throughDay were folded into the smoothed
+ * demand of productsUpdated products. fromDay is null when the forecast was already up to date.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class DemandForecastRunDTO {
+    private String tenantId;
+    private LocalDateTime startedAt;
+    private long durationMs;
+    private LocalDate fromDay;
+    private LocalDate throughDay;
+    private int chunks;
+    private long productsUpdated;
+    private int reorderNotifications;
+}
@@ -0,0 +1,20 @@
+package dev.oasis.stockify.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * A component of a kit; buildable = stockLevel / quantity
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class KitComponentDTO {
+    private Long componentId;
+    private String sku;
+    private String title;
+    private int quantity;
+    private int stockLevel;
+    private int buildable;
+}
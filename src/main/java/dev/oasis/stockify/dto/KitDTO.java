@@ -0,0 +1,21 @@
+package dev.oasis.stockify.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * Bill of materials of a kit. kitAvailability is the stored buildable quantity
+ * (the smallest component buildable), null when the kit has no components.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class KitDTO {
+    private Long kitId;
+    private String title;
+    private Integer kitAvailability;
+    private List<KitComponentDTO> components;
+}
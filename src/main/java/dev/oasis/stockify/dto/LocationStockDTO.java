@@ -0,0 +1,22 @@
+package dev.oasis.stockify.dto;
+
+import dev.oasis.stockify.model.StockAlertLevel;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Stock of a product at one location. alertLevel is evaluated against the location's own
+ * threshold and is NORMAL or OUT_OF_STOCK when it has none.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class LocationStockDTO {
+    private Long productId;
+    private Long locationId;
+    private String locationCode;
+    private int stockLevel;
+    private Integer lowStockThreshold;
+    private StockAlertLevel alertLevel;
+}
@@ -0,0 +1,23 @@
+package dev.oasis.stockify.dto;
+
+import dev.oasis.stockify.model.StockNotification;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * One keyset page of notifications, newest first.
+ * The next page starts strictly after (nextBefore, nextBeforeId); both are null on the last page.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class NotificationPageDTO {
+    private List<StockNotification> notifications;
+    private boolean hasMore;
+    private LocalDateTime nextBefore;
+    private Long nextBeforeId;
+}
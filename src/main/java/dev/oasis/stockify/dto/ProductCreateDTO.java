@@ -33,8 +33,14 @@ public class ProductCreateDTO {    @NotBlank(message = "Başlık boş olamaz")
     @Min(value = 1, message = "Düşük stok eşiği en az 1 olmalıdır")
     private int lowStockThreshold = 5;
 
+    @Min(value = 1, message = "Fazla stok sınırı en az 1 olmalıdır")
+    private Integer overstockThreshold;
+
     private String etsyProductId;
 
+    // Product version the form was loaded from (edit only)
+    private Long version;
+
     // Getters and Setters
     public String getTitle() {
         return title;
@@ -92,6 +98,22 @@ public class ProductCreateDTO {    @NotBlank(message = "Başlık boş olamaz")
         this.lowStockThreshold = lowStockThreshold;
     }
 
+    public Integer getOverstockThreshold() {
+        return overstockThreshold;
+    }
+
+    public void setOverstockThreshold(Integer overstockThreshold) {
+        this.overstockThreshold = overstockThreshold;
+    }
+
+    public Long getVersion() {
+        return version;
+    }
+
+    public void setVersion(Long version) {
+        this.version = version;
+    }
+
     public String getEtsyProductId() {
         return etsyProductId;
     }
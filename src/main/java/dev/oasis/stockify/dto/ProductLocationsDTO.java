@@ -0,0 +1,21 @@
+package dev.oasis.stockify.dto;
+
+import dev.oasis.stockify.model.StockAlertLevel;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * Stock of a product per location, with the total and its alert level against the product thresholds
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ProductLocationsDTO {
+    private Long productId;
+    private int stockLevel;
+    private StockAlertLevel alertLevel;
+    private List<LocationStockDTO> locations;
+}
@@ -13,7 +13,10 @@ public class ProductResponseDTO {    private Long id;
     private BigDecimal price;
     private int stockLevel;
     private int lowStockThreshold;
+    private Integer overstockThreshold;
+    private Integer kitAvailability;
     private String etsyProductId;
+    private Long version;
 
     // Getters and Setters
     public Long getId() {
@@ -80,6 +83,30 @@ public class ProductResponseDTO {    private Long id;
         this.lowStockThreshold = lowStockThreshold;
     }
 
+    public Integer getOverstockThreshold() {
+        return overstockThreshold;
+    }
+
+    public void setOverstockThreshold(Integer overstockThreshold) {
+        this.overstockThreshold = overstockThreshold;
+    }
+
+    public Integer getKitAvailability() {
+        return kitAvailability;
+    }
+
+    public void setKitAvailability(Integer kitAvailability) {
+        this.kitAvailability = kitAvailability;
+    }
+
+    public Long getVersion() {
+        return version;
+    }
+
+    public void setVersion(Long version) {
+        this.version = version;
+    }
+
     public boolean isLowStock() {
         return stockLevel <= lowStockThreshold;
     }
@@ -0,0 +1,24 @@
+package dev.oasis.stockify.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * A product at or below its reorder point. daysOfCover is how long the current stock lasts at the smoothed
+ * demand; suggestedQuantity brings stock up to the reorder point plus the configured order cover.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class RestockItemDTO {
+    private Long productId;
+    private String sku;
+    private String title;
+    private String category;
+    private int stockLevel;
+    private int reorderPoint;
+    private double demandPerDay;
+    private double daysOfCover;
+    private int suggestedQuantity;
+}
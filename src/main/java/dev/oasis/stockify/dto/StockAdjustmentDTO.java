@@ -0,0 +1,21 @@
+package dev.oasis.stockify.dto;
+
+import dev.oasis.stockify.model.StockMovementType;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Result of a stock movement. stockLevel is the committed level, or the projected level
+ * when the movement was accepted by the write-behind buffer (buffered = true).
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class StockAdjustmentDTO {
+    private Long productId;
+    private StockMovementType movementType;
+    private int delta;
+    private int stockLevel;
+    private boolean buffered;
+}
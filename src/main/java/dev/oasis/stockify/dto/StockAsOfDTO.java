@@ -0,0 +1,27 @@
+package dev.oasis.stockify.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+/**
+ * Stock of one product as of a point in time. checkpointAsOf is the snapshot the movements were
+ * replayed from, null when they were replayed back from the current stock.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class StockAsOfDTO {
+    private Long productId;
+    private String sku;
+    private String title;
+    private LocalDateTime asOf;
+    private int stockLevel;
+    private BigDecimal unitPrice;
+    private BigDecimal value;
+    private LocalDateTime checkpointAsOf;
+    private long replayedMovements;
+}
@@ -0,0 +1,18 @@
+package dev.oasis.stockify.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Stock of a product with the quantity held by reservations; availableToSell = stockLevel - reserved
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class StockAvailabilityDTO {
+    private Long productId;
+    private int stockLevel;
+    private int reserved;
+    private int availableToSell;
+}
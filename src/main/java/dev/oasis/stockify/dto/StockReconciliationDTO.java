@@ -0,0 +1,41 @@
+package dev.oasis.stockify.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Result of a ledger reconciliation run of one tenant. snapshotAsOf is the snapshot the ledger levels start
+ * from, null when they are the net sum of all movements. mismatches lists at most max-reported products;
+ * mismatchCount counts all of them.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class StockReconciliationDTO {
+    private String tenantId;
+    private LocalDateTime startedAt;
+    private long durationMs;
+    private LocalDateTime snapshotAsOf;
+    private int chunks;
+    private long productsChecked;
+    private long mismatchCount;
+    private List<Mismatch> mismatches;
+
+    /**
+     * A product whose stock_level differs from its ledger level or from the sum of its location rows
+     */
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class Mismatch {
+        private Long productId;
+        private String sku;
+        private int stockLevel;
+        private long ledgerLevel;
+        private long locationLevel;
+    }
+}
@@ -0,0 +1,24 @@
+package dev.oasis.stockify.dto;
+
+import dev.oasis.stockify.model.ReservationStatus;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * A stock reservation. availableToSell is only set in the response to a new reservation.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class StockReservationDTO {
+    private String reservationId;
+    private Long productId;
+    private int quantity;
+    private ReservationStatus status;
+    private String reference;
+    private LocalDateTime expiresAt;
+    private Integer availableToSell;
+}
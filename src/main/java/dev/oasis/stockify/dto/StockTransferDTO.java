@@ -0,0 +1,22 @@
+package dev.oasis.stockify.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Result of moving stock between two locations; the product total (stockLevel) is unchanged
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class StockTransferDTO {
+    private Long productId;
+    private Long fromLocationId;
+    private Long toLocationId;
+    private int quantity;
+    private int fromStockLevel;
+    private int toStockLevel;
+    private int stockLevel;
+    private String reference;
+}
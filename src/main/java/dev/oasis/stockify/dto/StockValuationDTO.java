@@ -0,0 +1,36 @@
+package dev.oasis.stockify.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Catalog stock and its value as of a point in time, in total and per category.
+ * checkpointAsOf is as in StockAsOfDTO.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class StockValuationDTO {
+    private LocalDateTime asOf;
+    private LocalDateTime checkpointAsOf;
+    private long replayedMovements;
+    private int productCount;
+    private long totalUnits;
+    private BigDecimal totalValue;
+    private List<CategoryValuation> categories;
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class CategoryValuation {
+        private String category;
+        private int productCount;
+        private long units;
+        private BigDecimal value;
+    }
+}
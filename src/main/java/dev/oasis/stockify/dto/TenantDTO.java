@@ -29,4 +29,5 @@ public class TenantDTO {
     private boolean isActive;
     private long userCount;
     private long productCount;
+    private Long provisioningTimeMs;
 }
@@ -0,0 +1,16 @@
+package dev.oasis.stockify.event;
+
+import java.time.LocalDateTime;
+
+/**
+ * Published when a stock notification is saved; listeners use the after-commit phase
+ */
+public record NotificationCreatedEvent(String tenantId,
+                                       Long notificationId,
+                                       Long productId,
+                                       String productTitle,
+                                       String message,
+                                       String notificationType,
+                                       String priority,
+                                       LocalDateTime createdAt) {
+}
@@ -0,0 +1,7 @@
+package dev.oasis.stockify.event;
+
+/**
+ * Published when notifications are marked as read; count is the number that were unread
+ */
+public record NotificationsReadEvent(String tenantId, int count) {
+}
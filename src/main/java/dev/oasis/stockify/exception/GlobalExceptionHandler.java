@@ -198,6 +198,26 @@ public class GlobalExceptionHandler {
         return new ResponseEntity<>(body, HttpStatus.NOT_FOUND);
     }
 
+    @ExceptionHandler(InsufficientStockException.class)
+    public ResponseEntity<Object> handleInsufficientStock(InsufficientStockException ex) {
+        Map<String, Object> body = createErrorResponse(
+            "Insufficient Stock",
+            ex.getMessage(),
+            HttpStatus.CONFLICT
+        );
+        return new ResponseEntity<>(body, HttpStatus.CONFLICT);
+    }
+
+    @ExceptionHandler(ReservationNotActiveException.class)
+    public ResponseEntity<Object> handleReservationNotActive(ReservationNotActiveException ex) {
+        Map<String, Object> body = createErrorResponse(
+            "Reservation Not Active",
+            ex.getMessage(),
+            HttpStatus.CONFLICT
+        );
+        return new ResponseEntity<>(body, HttpStatus.CONFLICT);
+    }
+
     // You can add more custom exception handlers here
     // Example for business logic exceptions:
     /*
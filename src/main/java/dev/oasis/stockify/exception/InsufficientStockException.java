@@ -0,0 +1,10 @@
+package dev.oasis.stockify.exception;
+
+/**
+ * Thrown when a stock movement would take a product's stock level below zero
+ */
+public class InsufficientStockException extends RuntimeException {
+    public InsufficientStockException(String message) {
+        super(message);
+    }
+}
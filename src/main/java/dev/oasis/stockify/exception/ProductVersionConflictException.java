@@ -0,0 +1,11 @@
+package dev.oasis.stockify.exception;
+
+/**
+ * Thrown when a product update cannot be reconciled with a concurrent change,
+ * e.g. retries are used up or the caller's starting state is unknown
+ */
+public class ProductVersionConflictException extends RuntimeException {
+    public ProductVersionConflictException(String message) {
+        super(message);
+    }
+}
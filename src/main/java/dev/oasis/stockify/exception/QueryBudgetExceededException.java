@@ -0,0 +1,11 @@
+package dev.oasis.stockify.exception;
+
+/**
+ * Thrown when a request runs more SQL statements than {@code stockify.query-guard.statement-budget}
+ * allows and the guard is configured to fail (test and load-test profiles)
+ */
+public class QueryBudgetExceededException extends RuntimeException {
+    public QueryBudgetExceededException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,10 @@
+package dev.oasis.stockify.exception;
+
+/**
+ * Thrown when a stock reservation is no longer held (confirmed, released or expired)
+ */
+public class ReservationNotActiveException extends RuntimeException {
+    public ReservationNotActiveException(String message) {
+        super(message);
+    }
+}
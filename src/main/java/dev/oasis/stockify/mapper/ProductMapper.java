@@ -2,10 +2,16 @@ package dev.oasis.stockify.mapper;
 
 import dev.oasis.stockify.dto.ProductCreateDTO;
 import dev.oasis.stockify.dto.ProductResponseDTO;
+import dev.oasis.stockify.exception.InsufficientStockException;
 import dev.oasis.stockify.model.Product;
 import org.springframework.stereotype.Component;
 
+import java.math.BigDecimal;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.Objects;
+import java.util.function.BiConsumer;
+import java.util.function.Function;
 import java.util.stream.Collectors;
 
 /**
@@ -14,6 +20,18 @@ import java.util.stream.Collectors;
 @Component
 public class ProductMapper {
 
+    // Fields an edit can change (used for field-level merges); stock is rebased instead, see mergeChangedFields
+    private static final List<MergeField<?>> MERGE_FIELDS = List.of(
+            new MergeField<>("title", ProductCreateDTO::getTitle, Product::getTitle, Product::setTitle),
+            new MergeField<>("description", ProductCreateDTO::getDescription, Product::getDescription, Product::setDescription),
+            new MergeField<>("sku", ProductCreateDTO::getSku, Product::getSku, Product::setSku),
+            new MergeField<>("category", ProductCreateDTO::getCategory, Product::getCategory, Product::setCategory),
+            new MergeField<>("price", ProductCreateDTO::getPrice, Product::getPrice, Product::setPrice),
+            new MergeField<>("lowStockThreshold", ProductCreateDTO::getLowStockThreshold,
+                    Product::getLowStockThreshold, Product::setLowStockThreshold),
+            new MergeField<>("overstockThreshold", ProductCreateDTO::getOverstockThreshold,
+                    Product::getOverstockThreshold, Product::setOverstockThreshold));
+
     /**
      * Converts a ProductCreateDTO to a Product entity
      * @param productCreateDTO the DTO to convert
@@ -32,6 +50,7 @@ public class ProductMapper {
         product.setPrice(productCreateDTO.getPrice());
         product.setStockLevel(productCreateDTO.getStockLevel());
         product.setLowStockThreshold(productCreateDTO.getLowStockThreshold());
+        product.setOverstockThreshold(productCreateDTO.getOverstockThreshold());
         product.setEtsyProductId(productCreateDTO.getEtsyProductId());
         product.setIsActive(true);
         product.setIsFeatured(false);
@@ -56,6 +75,7 @@ public class ProductMapper {
         product.setPrice(productCreateDTO.getPrice());
         product.setStockLevel(productCreateDTO.getStockLevel());
         product.setLowStockThreshold(productCreateDTO.getLowStockThreshold());  // Bu satırı ekledim
+        product.setOverstockThreshold(productCreateDTO.getOverstockThreshold());
 
         // SKU değişmişse ve yeni SKU null değilse güncelle
         if (productCreateDTO.getSku() != null && !productCreateDTO.getSku().equals(product.getSku())) {
@@ -67,6 +87,95 @@ public class ProductMapper {
         return product;
     }
 
+    /**
+     * Editable fields of a product as a ProductCreateDTO, e.g. the state an edit form starts from
+     * @param product the product as displayed
+     * @return the editable fields and version
+     */
+    public ProductCreateDTO toCreateDto(ProductResponseDTO product) {
+        if (product == null) {
+            return null;
+        }
+        ProductCreateDTO dto = new ProductCreateDTO();
+        dto.setTitle(product.getTitle());
+        dto.setDescription(product.getDescription());
+        dto.setSku(product.getSku());
+        dto.setCategory(product.getCategory());
+        dto.setPrice(product.getPrice());
+        dto.setStockLevel(product.getStockLevel());
+        dto.setLowStockThreshold(product.getLowStockThreshold());
+        dto.setOverstockThreshold(product.getOverstockThreshold());
+        dto.setEtsyProductId(product.getEtsyProductId());
+        dto.setVersion(product.getVersion());
+        return dto;
+    }
+
+    /**
+     * Field-level merge: applies only the fields that differ between base (what the caller started from)
+     * and changes, so fields changed concurrently by someone else keep their current value. Stock is rebased:
+     * the current stock plus (submitted - base).
+     * @param product the current entity
+     * @param base the caller's starting state
+     * @param changes the caller's submitted state
+     * @return fields the caller changed that were also changed concurrently to a different value (caller wins)
+     */
+    public List<String> mergeChangedFields(Product product, ProductCreateDTO base, ProductCreateDTO changes) {
+        List<String> overwritten = new ArrayList<>();
+        // The stock the user typed is a change to the stock they saw: applied to the current stock, so sales
+        // and receipts committed since the form was opened are kept
+        int stockChange = changes.getStockLevel() - base.getStockLevel();
+        if (stockChange != 0) {
+            int rebased = product.getStockLevel() + stockChange;
+            if (rebased < 0) {
+                throw new InsufficientStockException("Stock changed to " + product.getStockLevel()
+                        + " since the form was opened; lowering it by " + -stockChange + " would make it negative");
+            }
+            product.setStockLevel(rebased);
+        }
+        for (MergeField<?> field : MERGE_FIELDS) {
+            if (field.merge(product, base, changes)) {
+                overwritten.add(field.name);
+            }
+        }
+        return overwritten;
+    }
+
+    /**
+     * One editable field: how to read it from the form and read/write it on the entity
+     */
+    private record MergeField<T>(String name,
+                                 Function<ProductCreateDTO, T> fromDto,
+                                 Function<Product, T> fromEntity,
+                                 BiConsumer<Product, T> toEntity) {
+
+        /**
+         * @return true when the caller's change replaced a different concurrent change
+         */
+        boolean merge(Product product, ProductCreateDTO base, ProductCreateDTO changes) {
+            T wanted = fromDto.apply(changes);
+            T started = fromDto.apply(base);
+            if (sameValue(wanted, started)) {
+                return false;
+            }
+            T current = fromEntity.apply(product);
+            toEntity.accept(product, wanted);
+            return !sameValue(current, started) && !sameValue(current, wanted);
+        }
+
+        private static boolean sameValue(Object a, Object b) {
+            if (a instanceof String s && s.isEmpty()) {
+                a = null;
+            }
+            if (b instanceof String s && s.isEmpty()) {
+                b = null;
+            }
+            if (a instanceof BigDecimal x && b instanceof BigDecimal y) {
+                return x.compareTo(y) == 0;
+            }
+            return Objects.equals(a, b);
+        }
+    }
+
     /**
      * Converts a Product entity to a ProductResponseDTO
      * @param product the entity to convert
@@ -85,6 +194,9 @@ public class ProductMapper {
         productResponseDTO.setPrice(product.getPrice());
         productResponseDTO.setStockLevel(product.getStockLevel());
         productResponseDTO.setLowStockThreshold(product.getLowStockThreshold());  // Bu satırı ekledim
+        productResponseDTO.setOverstockThreshold(product.getOverstockThreshold());
+        productResponseDTO.setKitAvailability(product.getKitAvailability());
+        productResponseDTO.setVersion(product.getVersion());
 
         return productResponseDTO;
     }
@@ -36,10 +36,23 @@ public class Product {
     @Column(name = "low_stock_threshold")
     private Integer lowStockThreshold;
 
+    // Üst stok sınırı; null ise fazla stok kontrolü yapılmaz
+    @Column(name = "overstock_threshold")
+    private Integer overstockThreshold;
+
+    // Buildable kits from component stock, null unless the product is a kit; maintained by KitAvailabilityService
+    @Column(name = "kit_availability", insertable = false, updatable = false)
+    private Integer kitAvailability;
+
     @Column(name = "etsy_product_id")
     private String etsyProductId;
 
     // Audit fields
+    // Optimistic locking: incremented on every update
+    @Version
+    @Column(name = "version")
+    private Long version;
+
     @Column(name = "created_at")
     private LocalDateTime createdAt;
 
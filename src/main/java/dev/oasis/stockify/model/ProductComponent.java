@@ -0,0 +1,39 @@
+package dev.oasis.stockify.model;
+
+import jakarta.persistence.*;
+import lombok.Data;
+
+import java.time.LocalDateTime;
+
+/**
+ * One line of a kit's bill of materials: quantity units of the component go into one kit
+ */
+@Data
+@Entity
+@Table(name = "product_component")
+public class ProductComponent {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @Column(name = "id")
+    private Long id;
+
+    @Column(name = "kit_id", nullable = false)
+    private Long kitId;
+
+    @Column(name = "component_id", nullable = false)
+    private Long componentId;
+
+    @Column(name = "quantity", nullable = false)
+    private Integer quantity;
+
+    @Column(name = "created_at")
+    private LocalDateTime createdAt;
+
+    @PrePersist
+    protected void onCreate() {
+        if (createdAt == null) {
+            createdAt = LocalDateTime.now();
+        }
+    }
+}
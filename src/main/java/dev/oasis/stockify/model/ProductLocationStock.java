@@ -0,0 +1,43 @@
+package dev.oasis.stockify.model;
+
+import jakarta.persistence.*;
+import lombok.Data;
+
+import java.time.LocalDateTime;
+
+/**
+ * Stock of one product at one location. Written together with product.stock_level,
+ * which stays the total over all locations.
+ */
+@Data
+@Entity
+@Table(name = "product_location_stock")
+public class ProductLocationStock {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @Column(name = "id")
+    private Long id;
+
+    @Column(name = "product_id", nullable = false)
+    private Long productId;
+
+    @Column(name = "location_id", nullable = false)
+    private Long locationId;
+
+    @Column(name = "stock_level", nullable = false)
+    private Integer stockLevel = 0;
+
+    // Per-location alert threshold; null means only the product total is evaluated
+    @Column(name = "low_stock_threshold")
+    private Integer lowStockThreshold;
+
+    @Column(name = "updated_at")
+    private LocalDateTime updatedAt;
+
+    @PrePersist
+    @PreUpdate
+    protected void onUpdate() {
+        updatedAt = LocalDateTime.now();
+    }
+}
@@ -0,0 +1,11 @@
+package dev.oasis.stockify.model;
+
+/**
+ * stock_reservation.status values; only HELD reservations count against available stock
+ */
+public enum ReservationStatus {
+    HELD,
+    CONFIRMED,
+    RELEASED,
+    EXPIRED
+}
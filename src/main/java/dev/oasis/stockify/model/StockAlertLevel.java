@@ -0,0 +1,36 @@
+package dev.oasis.stockify.model;
+
+/**
+ * Stock state of a product against its thresholds. Alert states carry the
+ * stock_notification.notification_type they are reported with.
+ */
+public enum StockAlertLevel {
+    OUT_OF_STOCK,
+    LOW_STOCK,
+    NORMAL,
+    OVERSTOCKED;
+
+    public static StockAlertLevel of(Integer stockLevel, Integer lowStockThreshold, Integer overstockThreshold) {
+        if (stockLevel == null) {
+            return NORMAL;
+        }
+        if (stockLevel <= 0) {
+            return OUT_OF_STOCK;
+        }
+        if (lowStockThreshold != null && stockLevel <= lowStockThreshold) {
+            return LOW_STOCK;
+        }
+        if (overstockThreshold != null && stockLevel > overstockThreshold) {
+            return OVERSTOCKED;
+        }
+        return NORMAL;
+    }
+
+    public static StockAlertLevel of(Product product) {
+        return of(product.getStockLevel(), product.getLowStockThreshold(), product.getOverstockThreshold());
+    }
+
+    public boolean isAlert() {
+        return this != NORMAL;
+    }
+}
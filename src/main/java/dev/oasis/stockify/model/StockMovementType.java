@@ -0,0 +1,37 @@
+package dev.oasis.stockify.model;
+
+/**
+ * stock_movement.movement_type values. Typed movements always move stock in one direction;
+ * ADJUSTMENT and TRANSFER take a signed quantity.
+ */
+public enum StockMovementType {
+    IN(1),
+    OUT(-1),
+    ADJUSTMENT(0),
+    RETURN(1),
+    TRANSFER(0),
+    DAMAGED(-1),
+    EXPIRED(-1);
+
+    private final int direction;
+
+    StockMovementType(int direction) {
+        this.direction = direction;
+    }
+
+    /**
+     * Signed stock change for a quantity given with this movement type
+     */
+    public int delta(int quantity) {
+        if (quantity == 0) {
+            throw new IllegalArgumentException("Quantity cannot be zero");
+        }
+        if (direction == 0) {
+            return quantity;
+        }
+        if (quantity < 0) {
+            throw new IllegalArgumentException("Quantity must be positive for " + name() + " movements");
+        }
+        return direction * quantity;
+    }
+}
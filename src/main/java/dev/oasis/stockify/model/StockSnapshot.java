@@ -0,0 +1,44 @@
+package dev.oasis.stockify.model;
+
+import jakarta.persistence.*;
+import lombok.Data;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+/**
+ * Checkpoint of the stock ledger: stock of every product as of asOf, with its lines in stock_snapshot_line.
+ * Totals are over the lines, valued at the prices when the snapshot was taken.
+ */
+@Data
+@Entity
+@Table(name = "stock_snapshot")
+public class StockSnapshot {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @Column(name = "id")
+    private Long id;
+
+    @Column(name = "as_of", nullable = false, unique = true)
+    private LocalDateTime asOf;
+
+    @Column(name = "product_count", nullable = false)
+    private Integer productCount = 0;
+
+    @Column(name = "total_units", nullable = false)
+    private Long totalUnits = 0L;
+
+    @Column(name = "total_value", nullable = false)
+    private BigDecimal totalValue = BigDecimal.ZERO;
+
+    @Column(name = "created_at")
+    private LocalDateTime createdAt;
+
+    @PrePersist
+    protected void onCreate() {
+        if (createdAt == null) {
+            createdAt = LocalDateTime.now();
+        }
+    }
+}
@@ -0,0 +1,44 @@
+package dev.oasis.stockify.repository;
+
+import dev.oasis.stockify.model.ProductComponent;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+
+public interface ProductComponentRepository extends JpaRepository<ProductComponent, Long> {
+    List<ProductComponent> findByKitIdOrderByComponentIdAsc(Long kitId);
+
+    Optional<ProductComponent> findByKitIdAndComponentId(Long kitId, Long componentId);
+
+    boolean existsByKitId(Long kitId);
+
+    boolean existsByComponentId(Long componentId);
+
+    boolean existsByKitIdIn(Collection<Long> kitIds);
+
+    // Reverse dependency lookup, served by idx_product_component_component
+    @Query("SELECT DISTINCT c.kitId FROM ProductComponent c WHERE c.componentId IN :componentIds")
+    List<Long> findKitIdsByComponentIds(@Param("componentIds") Collection<Long> componentIds);
+
+    /**
+     * Buildable quantity per kit (kit id, MIN(component stock / quantity)); only reads the given kits' lines
+     */
+    @Query(value = "SELECT c.kit_id, MIN(p.stock_level / c.quantity) FROM product_component c " +
+                   "JOIN product p ON p.id = c.component_id WHERE c.kit_id IN (:kitIds) GROUP BY c.kit_id",
+           nativeQuery = true)
+    List<Object[]> computeKitAvailability(@Param("kitIds") Collection<Long> kitIds);
+
+    // Locks product rows in one id ordered pass, the order StockMovementWriter locks products and kits in
+    @Query(value = "SELECT id FROM product WHERE id IN (:ids) ORDER BY id FOR UPDATE", nativeQuery = true)
+    List<Long> lockProducts(@Param("ids") Collection<Long> ids);
+
+    // Bypasses the entity so kit recomputation does not bump the kit's version
+    @Modifying
+    @Query(value = "UPDATE product SET kit_availability = :availability WHERE id = :kitId", nativeQuery = true)
+    int updateKitAvailability(@Param("kitId") Long kitId, @Param("availability") Integer availability);
+}
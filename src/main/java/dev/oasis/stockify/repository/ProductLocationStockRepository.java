@@ -0,0 +1,71 @@
+package dev.oasis.stockify.repository;
+
+import dev.oasis.stockify.model.ProductLocationStock;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+
+public interface ProductLocationStockRepository extends JpaRepository<ProductLocationStock, Long> {
+    List<ProductLocationStock> findByProductIdOrderByLocationIdAsc(Long productId);
+
+    Optional<ProductLocationStock> findByProductIdAndLocationId(Long productId, Long locationId);
+
+    // Locations with their own threshold that are at or below it
+    @Query("SELECT s FROM ProductLocationStock s WHERE s.lowStockThreshold IS NOT NULL " +
+           "AND s.stockLevel <= s.lowStockThreshold ORDER BY s.locationId, s.productId")
+    List<ProductLocationStock> findLowStockLocations();
+
+    /**
+     * Moves the default location's stock by delta; 0 rows when the row is missing or would go negative
+     */
+    @Modifying
+    @Query(value = "UPDATE product_location_stock SET stock_level = stock_level + :delta, updated_at = CURRENT_TIMESTAMP " +
+                   "WHERE product_id = :productId AND stock_level + :delta >= 0 " +
+                   "AND location_id = (SELECT id FROM stock_location WHERE is_default = TRUE)", nativeQuery = true)
+    int addToDefaultLocation(@Param("productId") Long productId, @Param("delta") int delta);
+
+    /**
+     * Creates the default location row of a product unless it exists
+     */
+    @Modifying
+    @Query(value = "INSERT INTO product_location_stock (product_id, location_id, stock_level, updated_at) " +
+                   "SELECT :productId, l.id, :stockLevel, CURRENT_TIMESTAMP FROM stock_location l WHERE l.is_default = TRUE " +
+                   "AND NOT EXISTS (SELECT 1 FROM product_location_stock s WHERE s.product_id = :productId AND s.location_id = l.id)",
+           nativeQuery = true)
+    int insertDefaultLocation(@Param("productId") Long productId, @Param("stockLevel") int stockLevel);
+
+    /**
+     * Ledgers a change of the product's default location row that was just written, so stock edited
+     * outside StockMovementWriter (product create and edit) is in stock_movement as well. created_at comes
+     * from the application clock like every other movement, since as-of queries and snapshots compare it
+     * with application times
+     */
+    @Modifying
+    @Query(value = "INSERT INTO stock_movement (product_id, movement_type, quantity, previous_stock, new_stock, " +
+                   "reference_id, created_by, created_at, location_id) " +
+                   "SELECT s.product_id, :type, :delta, s.stock_level - :delta, s.stock_level, :reference, " +
+                   "(SELECT u.id FROM app_user u WHERE u.username = :username), :createdAt, s.location_id " +
+                   "FROM product_location_stock s JOIN stock_location l ON l.id = s.location_id AND l.is_default = TRUE " +
+                   "WHERE s.product_id = :productId", nativeQuery = true)
+    int recordDefaultLocationMovement(@Param("productId") Long productId, @Param("type") String type,
+                                      @Param("delta") int delta, @Param("reference") String reference,
+                                      @Param("username") String username, @Param("createdAt") LocalDateTime createdAt);
+
+    /**
+     * Ledgers the stock a product still holds at each location as going out, before the product is deleted;
+     * its movements stay in stock_movement
+     */
+    @Modifying
+    @Query(value = "INSERT INTO stock_movement (product_id, movement_type, quantity, previous_stock, new_stock, " +
+                   "reference_id, created_by, created_at, location_id) " +
+                   "SELECT s.product_id, 'ADJUSTMENT', -s.stock_level, s.stock_level, 0, 'product:delete', " +
+                   "(SELECT u.id FROM app_user u WHERE u.username = :username), :createdAt, s.location_id " +
+                   "FROM product_location_stock s WHERE s.product_id = :productId AND s.stock_level <> 0", nativeQuery = true)
+    int recordWriteOff(@Param("productId") Long productId, @Param("username") String username,
+                       @Param("createdAt") LocalDateTime createdAt);
+}
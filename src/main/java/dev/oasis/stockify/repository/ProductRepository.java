@@ -4,9 +4,11 @@ import dev.oasis.stockify.model.Product;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 
+import java.time.LocalDateTime;
 import java.util.List;
 import java.util.Optional;
 
@@ -17,6 +19,9 @@ public interface ProductRepository extends JpaRepository<Product, Long> {
     Page<Product> search(@Param("searchTerm") String searchTerm, Pageable pageable);
 
     Optional<Product> findBySku(String sku);
+
+    @Query("SELECT p.stockLevel FROM Product p WHERE p.id = :id")
+    Optional<Integer> findStockLevelById(@Param("id") Long id);
     
     @Query("SELECT p FROM Product p WHERE p.stockLevel <= p.lowStockThreshold")
     List<Product> findLowStockProducts();
@@ -29,4 +34,12 @@ public interface ProductRepository extends JpaRepository<Product, Long> {
     
     @Query("SELECT p FROM Product p WHERE p.category = :category")
     List<Product> findByCategory(@Param("category") String category);
+
+    /**
+     * Keeps what past valuations need of a product that is about to be deleted
+     */
+    @Modifying
+    @Query(value = "INSERT INTO deleted_product (id, sku, category, price, deleted_at) " +
+                   "SELECT id, sku, category, price, :deletedAt FROM product WHERE id = :id", nativeQuery = true)
+    int recordDeletion(@Param("id") Long id, @Param("deletedAt") LocalDateTime deletedAt);
 }
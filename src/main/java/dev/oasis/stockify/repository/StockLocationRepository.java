@@ -0,0 +1,13 @@
+package dev.oasis.stockify.repository;
+
+import dev.oasis.stockify.model.StockLocation;
+import org.springframework.data.jpa.repository.JpaRepository;
+
+import java.util.List;
+import java.util.Optional;
+
+public interface StockLocationRepository extends JpaRepository<StockLocation, Long> {
+    Optional<StockLocation> findByCode(String code);
+
+    List<StockLocation> findAllByOrderByCodeAsc();
+}
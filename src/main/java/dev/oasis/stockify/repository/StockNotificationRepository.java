@@ -1,10 +1,78 @@
 package dev.oasis.stockify.repository;
 
 import dev.oasis.stockify.model.StockNotification;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 
 public interface StockNotificationRepository extends JpaRepository<StockNotification, Long> {
+    @EntityGraph(attributePaths = "product")
     List<StockNotification> findByReadFalseOrderByCreatedAtDesc();
+
+    @EntityGraph(attributePaths = "product")
     List<StockNotification> findAllByOrderByCreatedAtDesc();
+
+    long countByReadFalse();
+
+    // Page queries follow the (is_read, created_at DESC, id DESC) / (created_at DESC, id DESC) index order
+    // so they stop after the page. LEFT JOIN keeps stock_notification as the driving table (product_id is
+    // NOT NULL, so no rows change); with an inner join H2 starts from product and sorts the whole table.
+
+    @Query("SELECT n FROM StockNotification n LEFT JOIN FETCH n.product WHERE n.read = false " +
+           "ORDER BY n.read, n.createdAt DESC, n.id DESC")
+    List<StockNotification> findUnreadFirstPage(Limit limit);
+
+    @Query("SELECT n FROM StockNotification n LEFT JOIN FETCH n.product ORDER BY n.createdAt DESC, n.id DESC")
+    List<StockNotification> findFirstPage(Limit limit);
+
+    // Keyset pages, newest first: rows strictly older than the cursor (createdAt, id).
+    // The createdAt <= bound keeps the range on idx_stock_notification_unread_by_date / idx_stock_notification_created.
+    @Query("SELECT n FROM StockNotification n LEFT JOIN FETCH n.product " +
+           "WHERE n.read = false AND n.createdAt <= :before " +
+           "AND (n.createdAt < :before OR n.id < :beforeId) " +
+           "ORDER BY n.read, n.createdAt DESC, n.id DESC")
+    List<StockNotification> findUnreadPage(@Param("before") LocalDateTime before,
+                                           @Param("beforeId") Long beforeId, Limit limit);
+
+    @Query("SELECT n FROM StockNotification n LEFT JOIN FETCH n.product " +
+           "WHERE n.createdAt <= :before " +
+           "AND (n.createdAt < :before OR n.id < :beforeId) " +
+           "ORDER BY n.createdAt DESC, n.id DESC")
+    List<StockNotification> findPage(@Param("before") LocalDateTime before,
+                                     @Param("beforeId") Long beforeId, Limit limit);
+
+    // Bulk acknowledge: one UPDATE each, only unread rows are touched so the result is the unread delta
+    @Modifying
+    @Query("UPDATE StockNotification n SET n.read = true, n.readAt = :now WHERE n.read = false AND n.id IN :ids")
+    int markReadByIds(@Param("ids") Collection<Long> ids, @Param("now") LocalDateTime now);
+
+    @Modifying
+    @Query("UPDATE StockNotification n SET n.read = true, n.readAt = :now WHERE n.read = false AND n.product.id = :productId")
+    int markReadByProduct(@Param("productId") Long productId, @Param("now") LocalDateTime now);
+
+    @Modifying
+    @Query("UPDATE StockNotification n SET n.read = true, n.readAt = :now WHERE n.read = false AND n.createdAt < :before")
+    int markReadBefore(@Param("before") LocalDateTime before, @Param("now") LocalDateTime now);
+
+    // Retention: one chunk of read notifications older than the cutoff (range on idx_stock_notification_unread_by_date)
+    @Query("SELECT n.id FROM StockNotification n WHERE n.read = true AND n.createdAt < :cutoff")
+    List<Long> findExpiredReadIds(@Param("cutoff") LocalDateTime cutoff, Limit limit);
+
+    @Modifying
+    @Query(value = "INSERT INTO stock_notification_rollup (rollup_date, product_id, notification_type, notification_count) " +
+                   "SELECT CAST(created_at AS DATE), product_id, notification_type, COUNT(*) FROM stock_notification " +
+                   "WHERE id IN (:ids) GROUP BY CAST(created_at AS DATE), product_id, notification_type",
+           nativeQuery = true)
+    int rollUp(@Param("ids") Collection<Long> ids);
+
+    @Modifying
+    @Query("DELETE FROM StockNotification n WHERE n.id IN :ids")
+    int deleteByIds(@Param("ids") Collection<Long> ids);
 }
@@ -0,0 +1,28 @@
+package dev.oasis.stockify.repository;
+
+import dev.oasis.stockify.model.ReservationStatus;
+import dev.oasis.stockify.model.StockReservation;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+
+public interface StockReservationRepository extends JpaRepository<StockReservation, Long> {
+    Optional<StockReservation> findByReservationKey(String reservationKey);
+
+    // Startup rebuild of the in-memory index; served by the (status, expires_at) index
+    List<StockReservation> findByStatus(ReservationStatus status);
+
+    /**
+     * Moves HELD reservations to a final status; rows resolved concurrently are left alone
+     */
+    @Modifying
+    @Query("UPDATE StockReservation r SET r.status = :status, r.resolvedAt = :now " +
+           "WHERE r.status = dev.oasis.stockify.model.ReservationStatus.HELD AND r.id IN :ids")
+    int resolveHeld(@Param("ids") Collection<Long> ids, @Param("status") ReservationStatus status, @Param("now") LocalDateTime now);
+}
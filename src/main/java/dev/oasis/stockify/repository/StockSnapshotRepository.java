@@ -0,0 +1,21 @@
+package dev.oasis.stockify.repository;
+
+import dev.oasis.stockify.model.StockSnapshot;
+import org.springframework.data.jpa.repository.JpaRepository;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+
+public interface StockSnapshotRepository extends JpaRepository<StockSnapshot, Long> {
+    Optional<StockSnapshot> findByAsOf(LocalDateTime asOf);
+
+    // Nearest snapshots on either side of a point in time
+    Optional<StockSnapshot> findFirstByAsOfLessThanEqualOrderByAsOfDesc(LocalDateTime asOf);
+
+    Optional<StockSnapshot> findFirstByAsOfGreaterThanOrderByAsOfAsc(LocalDateTime asOf);
+
+    Optional<StockSnapshot> findFirstByAsOfLessThanOrderByAsOfDesc(LocalDateTime asOf);
+
+    List<StockSnapshot> findTop50ByOrderByAsOfDesc();
+}
@@ -11,9 +11,6 @@ import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.security.core.userdetails.UserDetailsService;
 import org.springframework.security.core.userdetails.UsernameNotFoundException;
 import org.springframework.stereotype.Service;
-import org.springframework.web.context.request.RequestContextHolder;
-import org.springframework.web.context.request.ServletRequestAttributes;
-import jakarta.servlet.http.HttpServletRequest;
 import org.springframework.transaction.annotation.Transactional;
 
 @Service
@@ -34,28 +31,10 @@ public class AppUserDetailsService implements UserDetailsService {
                 throw new UsernameNotFoundException("Kullanıcı adı boş olamaz");
             }
 
-            // Request'ten tenant ID'yi al
-            ServletRequestAttributes attr = (ServletRequestAttributes) RequestContextHolder.currentRequestAttributes();
-            HttpServletRequest request = attr.getRequest();
-            String paramTenantId = request.getParameter("tenant_id");
-
-            // Mevcut tenant context'i kontrol et
-            String currentTenant = TenantContext.getCurrentTenant();
-
-            // Final tenant ID'yi belirle
-            final String tenantId;
-
-            // Eğer tenant context zaten ayarlanmışsa, onu kullan
-            if (currentTenant != null && !currentTenant.isEmpty()) {
-                logger.debug("Using existing tenant context: {}", currentTenant);
-                tenantId = currentTenant;
-            } else if (paramTenantId == null || paramTenantId.trim().isEmpty()) {
-                // Eğer tenant context ayarlanmamışsa ve form parametresi de yoksa hata ver
+            // Tenant, TenantHeaderFilter tarafından login formundaki tenant_id'den çözümlenir
+            final String tenantId = TenantContext.getCurrentTenant();
+            if (tenantId == null || tenantId.isEmpty()) {
                 throw new AuthenticationServiceException("Tenant ID boş olamaz");
-            } else {
-                // Tenant ID'yi küçük harfe çevir ve context'e ayarla
-                tenantId = paramTenantId.toLowerCase();
-                TenantContext.setCurrentTenant(tenantId);
             }
 
             logger.debug("Login attempt - Username: {}, Tenant: {}", username, tenantId);
@@ -1,5 +1,6 @@
 package dev.oasis.stockify.service;
 
+import dev.oasis.stockify.config.tenant.TenantScoped;
 import dev.oasis.stockify.dto.UserCreateDTO;
 import dev.oasis.stockify.dto.UserResponseDTO;
 import dev.oasis.stockify.mapper.UserMapper;
@@ -18,6 +19,7 @@ import java.util.stream.Collectors;
  * Service for managing user operations
  */
 @Service
+@TenantScoped
 public class AppUserService {
     private final AppUserRepository appUserRepository;
     private final PasswordEncoder passwordEncoder;
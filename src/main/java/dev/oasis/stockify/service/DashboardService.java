@@ -1,5 +1,6 @@
 package dev.oasis.stockify.service;
 
+import dev.oasis.stockify.config.tenant.TenantScoped;
 import dev.oasis.stockify.dto.DashboardMetricsDTO;
 import dev.oasis.stockify.dto.DashboardStats;
 import dev.oasis.stockify.model.Product;
@@ -14,6 +15,7 @@ import java.math.BigDecimal;
 import java.util.List;
 
 @Service
+@TenantScoped
 @RequiredArgsConstructor
 public class DashboardService {
     private final ProductRepository productRepository;
@@ -0,0 +1,698 @@
+package dev.oasis.stockify.service;
+
+import dev.oasis.stockify.config.metrics.TenantMetricsTags;
+import dev.oasis.stockify.config.tenant.TenantContext;
+import dev.oasis.stockify.config.tenant.TenantMigrationOrchestrator;
+import dev.oasis.stockify.config.tenant.TenantRegistry;
+import dev.oasis.stockify.config.tenant.TenantScoped;
+import dev.oasis.stockify.dto.DemandForecastRunDTO;
+import dev.oasis.stockify.dto.RestockItemDTO;
+import dev.oasis.stockify.model.Product;
+import dev.oasis.stockify.repository.ProductRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import lombok.extern.slf4j.Slf4j;
+import org.hibernate.Session;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.Date;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinWorkerThread;
+import java.util.concurrent.RecursiveTask;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+/**
+ * Demand velocity and reorder points from the OUT movements of the stock_movement ledger.
+ * <p>
+ * Daily demand of each product is exponentially smoothed with alpha = 2 / (window-days + 1), together with
+ * its variance, and kept in product_demand. A run only folds the days after the previous run (the first one
+ * starts history-days back), so the nightly job reads one day of movements instead of the whole year.
+ * Products are processed in id range chunks on a fork/join pool: each chunk reads its states and one
+ * aggregated row per product and day, folds the days in memory and writes the changed states back in one
+ * batch. Like the reconciliation, chunks hold a permit for their connection, at most max-connection-share
+ * of the pool. Products whose smoothed demand is zero are not written.
+ * <p>
+ * The reorder point is rate * lead time + service factor * sigma * sqrt(lead time). Lead time and service
+ * factor come from the tenant's tenant_config ({@code reorder_lead_time_days}, {@code reorder_service_factor})
+ * with the {@code stockify.demand.*} defaults. Stock is compared with the reorder point after each run and
+ * every reorder-check-interval-ms in between, so a sale that crosses it creates a REORDER notification the
+ * same day.
+ */
+@Slf4j
+@Service
+public class DemandForecastService {
+
+    static final String LEAD_TIME_KEY = "reorder_lead_time_days";
+    static final String SERVICE_FACTOR_KEY = "reorder_service_factor";
+
+    // Smoothed demand below this is treated as no demand
+    private static final double MIN_RATE = 1e-6;
+
+    private final DataSource dataSource;
+    private final TenantMigrationOrchestrator migrationOrchestrator;
+    private final TenantRegistry tenantRegistry;
+    private final ProductRepository productRepository;
+    private final StockNotificationService notificationService;
+    private final TransactionTemplate transactionTemplate;
+    private final MeterRegistry meterRegistry;
+    private final TenantMetricsTags tenantTags;
+    private final ForkJoinPool pool;
+    private final Semaphore connectionPermits;
+
+    private final ConcurrentMap<String, CompletableFuture<DemandForecastRunDTO>> running = new ConcurrentHashMap<>();
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Value("${stockify.demand.enabled:true}")
+    private boolean enabled;
+
+    @Value("${stockify.demand.window-days:28}")
+    private int windowDays;
+
+    @Value("${stockify.demand.history-days:365}")
+    private int historyDays;
+
+    @Value("${stockify.demand.lead-time-days:7}")
+    private double defaultLeadTimeDays;
+
+    @Value("${stockify.demand.service-factor:1.65}")
+    private double defaultServiceFactor;
+
+    @Value("${stockify.demand.order-cover-days:14}")
+    private double orderCoverDays;
+
+    @Value("${stockify.demand.chunk-size:1000}")
+    private int chunkSize;
+
+    @Value("${stockify.demand.max-notifications-per-check:500}")
+    private int maxNotificationsPerCheck;
+
+    @Value("${stockify.demand.restock.max-size:500}")
+    private int maxRestockSize;
+
+    public DemandForecastService(DataSource dataSource,
+                                 TenantMigrationOrchestrator migrationOrchestrator,
+                                 TenantRegistry tenantRegistry,
+                                 ProductRepository productRepository,
+                                 StockNotificationService notificationService,
+                                 TransactionTemplate transactionTemplate,
+                                 MeterRegistry meterRegistry,
+                                 TenantMetricsTags tenantTags,
+                                 @Value("${stockify.demand.workers:4}") int workerCount,
+                                 @Value("${stockify.demand.max-connection-share:0.25}") double maxConnectionShare,
+                                 @Value("${spring.datasource.hikari.maximum-pool-size:10}") int poolSize) {
+        this.dataSource = dataSource;
+        this.migrationOrchestrator = migrationOrchestrator;
+        this.tenantRegistry = tenantRegistry;
+        this.productRepository = productRepository;
+        this.notificationService = notificationService;
+        this.transactionTemplate = transactionTemplate;
+        this.meterRegistry = meterRegistry;
+        this.tenantTags = tenantTags;
+        int permits = Math.max(1, (int) Math.floor(poolSize * maxConnectionShare));
+        this.connectionPermits = new Semaphore(permits, true);
+        // More workers than permits would only wait for them
+        int parallelism = Math.max(1, Math.min(workerCount, permits));
+        this.pool = new ForkJoinPool(parallelism, forkJoinPool -> {
+            ForkJoinWorkerThread thread = ForkJoinPool.defaultForkJoinWorkerThreadFactory.newThread(forkJoinPool);
+            thread.setName("demand-forecast-" + thread.getPoolIndex());
+            thread.setDaemon(true);
+            return thread;
+        }, null, false);
+        log.info("📈 Demand forecast uses {} workers and at most {} of {} pooled connections", parallelism, permits, poolSize);
+    }
+
+    @PreDestroy
+    void shutdown() {
+        pool.shutdownNow();
+    }
+
+    @Scheduled(cron = "${stockify.demand.cron:0 45 0 * * *}")
+    public void forecastAllTenants() {
+        if (!enabled) {
+            return;
+        }
+        for (String tenant : tenantRegistry.allTenants()) {
+            try {
+                forecast(tenant);
+            } catch (RuntimeException e) {
+                log.warn("⚠️ Demand forecast failed for tenant {}: {}", tenant, e.getMessage());
+            }
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${stockify.demand.reorder-check-interval-ms:600000}",
+            initialDelayString = "${stockify.demand.reorder-check-interval-ms:600000}")
+    public void checkAllTenants() {
+        if (!enabled) {
+            return;
+        }
+        for (String tenant : tenantRegistry.allTenants()) {
+            try {
+                checkReorderPoints(tenant);
+            } catch (RuntimeException e) {
+                log.warn("⚠️ Reorder point check failed for tenant {}: {}", tenant, e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * Folds the days since the last run for the current tenant now; a run already in progress is joined instead
+     */
+    @TenantScoped
+    public DemandForecastRunDTO forecastCurrentTenant() {
+        return forecast(TenantContext.getCurrentTenant());
+    }
+
+    public DemandForecastRunDTO forecast(String tenantId) {
+        CompletableFuture<DemandForecastRunDTO> run = new CompletableFuture<>();
+        CompletableFuture<DemandForecastRunDTO> existing = running.putIfAbsent(tenantId, run);
+        if (existing != null) {
+            return existing.join();
+        }
+        try {
+            DemandForecastRunDTO result = TenantContext.callAs(tenantId, () -> runForecast(tenantId));
+            run.complete(result);
+            return result;
+        } catch (RuntimeException e) {
+            run.completeExceptionally(e);
+            throw e;
+        } finally {
+            running.remove(tenantId, run);
+        }
+    }
+
+    /**
+     * Products of the current tenant at or below their reorder point, the ones that run out first on top
+     */
+    @TenantScoped
+    public List<RestockItemDTO> getRestockList(Integer limit) {
+        int size = limit == null || limit < 1 ? 50 : Math.min(limit, maxRestockSize);
+        String query = "SELECT p.id, p.sku, p.title, p.category, p.stock_level, d.reorder_point, d.demand_rate " +
+                "FROM product_demand d JOIN product p ON p.id = d.product_id " +
+                "WHERE d.reorder_point > 0 AND p.stock_level <= d.reorder_point AND COALESCE(p.is_active, TRUE) = TRUE " +
+                "ORDER BY p.stock_level / d.demand_rate, p.id LIMIT ?";
+        List<RestockItemDTO> items = new ArrayList<>();
+        try (Connection connection = connection(TenantContext.getCurrentTenant().toLowerCase(Locale.ROOT))) {
+            try (PreparedStatement statement = connection.prepareStatement(query)) {
+                statement.setInt(1, size);
+                try (ResultSet rs = statement.executeQuery()) {
+                    while (rs.next()) {
+                        int stockLevel = rs.getInt("stock_level");
+                        int reorderPoint = rs.getInt("reorder_point");
+                        double rate = rs.getDouble("demand_rate");
+                        items.add(new RestockItemDTO(rs.getLong("id"), rs.getString("sku"), rs.getString("title"),
+                                rs.getString("category"), stockLevel, reorderPoint, rate, stockLevel / rate,
+                                suggestedQuantity(stockLevel, reorderPoint, rate)));
+                    }
+                }
+            }
+        } catch (SQLException e) {
+            throw new IllegalStateException("Could not read the restock list: " + e.getMessage(), e);
+        }
+        return items;
+    }
+
+    private DemandForecastRunDTO runForecast(String tenantId) {
+        String schema = tenantId.toLowerCase(Locale.ROOT);
+        LocalDateTime startedAt = LocalDateTime.now();
+        long start = System.nanoTime();
+
+        Policy policy = loadPolicy(schema);
+        Baseline baseline = withConnection(schema, DemandForecastService::baseline);
+        LocalDate throughDay = LocalDate.now().minusDays(1);
+        LocalDate fromDay = baseline.watermark() != null
+                ? baseline.watermark().plusDays(1) : throughDay.minusDays(historyDays - 1L);
+
+        ChunkResult result = new ChunkResult(0, 0);
+        boolean upToDate = fromDay.isAfter(throughDay);
+        if (!upToDate) {
+            if (baseline.minId() != null) {
+                Window window = new Window(schema, fromDay, throughDay, policy);
+                result = pool.invoke(new ForecastTask(window, baseline.minId(), baseline.maxId()));
+            }
+            long durationMs = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+            ChunkResult completed = result;
+            withConnection(schema, connection -> recordRun(connection, fromDay, throughDay, completed.updated(), durationMs));
+        }
+        int notifications = checkReorderPoints(tenantId);
+
+        long durationNanos = System.nanoTime() - start;
+        Timer.builder("stockify.demand.forecast.duration")
+                .description("Duration of demand forecast runs")
+                .tag(TenantMetricsTags.TAG, tenantTags.of(tenantId))
+                .register(meterRegistry)
+                .record(durationNanos, TimeUnit.NANOSECONDS);
+
+        DemandForecastRunDTO run = new DemandForecastRunDTO(tenantId, startedAt,
+                TimeUnit.NANOSECONDS.toMillis(durationNanos), upToDate ? null : fromDay, throughDay,
+                result.chunks(), result.updated(), notifications);
+        if (upToDate) {
+            log.debug("Demand forecast of tenant {} is up to date through {}", tenantId, throughDay);
+        } else {
+            log.info("📈 Demand forecast of tenant {}: folded {} to {} into {} products ({} chunks, {} ms)",
+                    tenantId, fromDay, throughDay, result.updated(), result.chunks(), run.getDurationMs());
+        }
+        return run;
+    }
+
+    /**
+     * Sends REORDER notifications for products whose stock reached their reorder point since the last check
+     * and re-arms products whose stock recovered above it. Each product is claimed (reorder_alerted flipped
+     * from FALSE) in the transaction that creates its notification, so overlapping checks, e.g. a manual run
+     * and the scheduled one or two instances, notify it once.
+     *
+     * @return number of notifications created
+     */
+    public int checkReorderPoints(String tenantId) {
+        String schema = tenantId.toLowerCase(Locale.ROOT);
+        List<Candidate> candidates = withConnection(schema, this::reorderCandidates);
+        if (candidates.isEmpty()) {
+            return 0;
+        }
+
+        List<Long> notified = TenantContext.callAs(tenantId, () -> transactionTemplate.execute(status -> {
+            Map<Long, Product> products = new HashMap<>();
+            productRepository.findAllById(candidates.stream().map(Candidate::productId).toList())
+                    .forEach(product -> products.put(product.getId(), product));
+            List<Long> ids = new ArrayList<>();
+            for (Candidate candidate : candidates) {
+                Product product = products.get(candidate.productId());
+                if (product == null || !claimReorderAlert(product.getId())) {
+                    continue;
+                }
+                notificationService.notifyReorder(product, candidate.reorderPoint(),
+                        suggestedQuantity(product.getStockLevel(), candidate.reorderPoint(), candidate.rate()));
+                ids.add(product.getId());
+            }
+            return ids;
+        }));
+        if (notified == null || notified.isEmpty()) {
+            return 0;
+        }
+
+        Counter.builder("stockify.demand.reorder.notifications")
+                .description("REORDER notifications created from the demand forecast")
+                .tag(TenantMetricsTags.TAG, tenantTags.of(tenantId))
+                .register(meterRegistry)
+                .increment(notified.size());
+        log.info("🛒 Tenant {}: {} products reached their reorder point", tenantId, notified.size());
+        return notified.size();
+    }
+
+    private List<Candidate> reorderCandidates(Connection connection) throws SQLException {
+        try (PreparedStatement statement = connection.prepareStatement(
+                "UPDATE product_demand SET reorder_alerted = FALSE WHERE reorder_alerted = TRUE AND EXISTS " +
+                "(SELECT 1 FROM product p WHERE p.id = product_demand.product_id AND p.stock_level > product_demand.reorder_point)")) {
+            statement.executeUpdate();
+        }
+        List<Candidate> candidates = new ArrayList<>();
+        try (PreparedStatement statement = connection.prepareStatement(
+                "SELECT d.product_id, d.reorder_point, d.demand_rate FROM product_demand d JOIN product p ON p.id = d.product_id " +
+                "WHERE d.reorder_alerted = FALSE AND d.reorder_point > 0 AND p.stock_level <= d.reorder_point " +
+                "AND COALESCE(p.is_active, TRUE) = TRUE ORDER BY p.stock_level / d.demand_rate, d.product_id LIMIT ?")) {
+            statement.setInt(1, maxNotificationsPerCheck);
+            try (ResultSet rs = statement.executeQuery()) {
+                while (rs.next()) {
+                    candidates.add(new Candidate(rs.getLong(1), rs.getInt(2), rs.getDouble(3)));
+                }
+            }
+        }
+        return candidates;
+    }
+
+    /**
+     * Sets reorder_alerted on the current transaction's connection; false when another check already did
+     */
+    private boolean claimReorderAlert(Long productId) {
+        Session session = entityManager.unwrap(Session.class);
+        return session.doReturningWork(connection -> {
+            try (PreparedStatement statement = connection.prepareStatement(
+                    "UPDATE product_demand SET reorder_alerted = TRUE WHERE product_id = ? AND reorder_alerted = FALSE")) {
+                statement.setLong(1, productId);
+                return statement.executeUpdate() == 1;
+            }
+        });
+    }
+
+    /**
+     * Folds the days of the window into the demand states of the products from..to and writes the changed ones
+     */
+    private ChunkResult forecastChunk(Connection connection, Window window, long from, long to) throws SQLException {
+        Map<Long, DemandState> states = new HashMap<>();
+        try (PreparedStatement statement = connection.prepareStatement(
+                "SELECT product_id, demand_rate, demand_variance, through_day FROM product_demand WHERE product_id BETWEEN ? AND ?")) {
+            statement.setLong(1, from);
+            statement.setLong(2, to);
+            try (ResultSet rs = statement.executeQuery()) {
+                while (rs.next()) {
+                    states.put(rs.getLong(1), new DemandState(rs.getLong(1), rs.getDouble(2), rs.getDouble(3),
+                            rs.getDate(4).toLocalDate(), true));
+                }
+            }
+        }
+
+        int days = window.days();
+        double[] demand = new double[days];
+        List<DemandState> changed = new ArrayList<>();
+        Function<Long, DemandState> stateOf = productId -> states.containsKey(productId) ? states.remove(productId)
+                : new DemandState(productId, 0, 0, window.fromDay().minusDays(1), false);
+
+        // One row per product and day with sales, in product order, so a product is complete when the next starts
+        try (PreparedStatement statement = connection.prepareStatement(
+                "SELECT product_id, CAST(created_at AS DATE) AS demand_day, SUM(quantity) AS units FROM stock_movement " +
+                "WHERE product_id BETWEEN ? AND ? AND movement_type = 'OUT' AND created_at >= ? AND created_at < ? " +
+                "GROUP BY product_id, CAST(created_at AS DATE) ORDER BY product_id, demand_day")) {
+            statement.setLong(1, from);
+            statement.setLong(2, to);
+            statement.setTimestamp(3, Timestamp.valueOf(window.fromDay().atStartOfDay()));
+            statement.setTimestamp(4, Timestamp.valueOf(window.throughDay().plusDays(1).atStartOfDay()));
+            statement.setFetchSize(chunkSize);
+            try (ResultSet rs = statement.executeQuery()) {
+                Long current = null;
+                while (rs.next()) {
+                    long productId = rs.getLong(1);
+                    if (current != null && current != productId) {
+                        fold(stateOf.apply(current), demand, window, changed);
+                        Arrays.fill(demand, 0);
+                    }
+                    current = productId;
+                    int day = (int) ChronoUnit.DAYS.between(window.fromDay(), rs.getDate(2).toLocalDate());
+                    // OUT movements are stored with negative quantities
+                    demand[day] = -rs.getLong(3);
+                }
+                if (current != null) {
+                    fold(stateOf.apply(current), demand, window, changed);
+                    Arrays.fill(demand, 0);
+                }
+            }
+        }
+        // Products without sales in the window still decay
+        for (DemandState state : states.values()) {
+            fold(state, demand, window, changed);
+        }
+
+        if (!changed.isEmpty()) {
+            write(connection, changed);
+        }
+        return new ChunkResult(1, changed.size());
+    }
+
+    /**
+     * Exponential smoothing of the daily demand and of its variance (West's incremental form), one step per
+     * day the state has not seen yet; a retried run skips the days it already folded
+     */
+    private void fold(DemandState state, double[] demand, Window window, List<DemandState> changed) {
+        int first = (int) Math.max(0, ChronoUnit.DAYS.between(window.fromDay(), state.throughDay) + 1);
+        if (first >= demand.length || (state.rate == 0 && state.variance == 0 && isZero(demand, first))) {
+            return;
+        }
+        double alpha = 2.0 / (windowDays + 1);
+        double rate = state.rate;
+        double variance = state.variance;
+        for (int day = first; day < demand.length; day++) {
+            double diff = demand[day] - rate;
+            double increment = alpha * diff;
+            rate += increment;
+            variance = (1 - alpha) * (variance + diff * increment);
+        }
+        if (rate < MIN_RATE) {
+            rate = 0;
+            variance = 0;
+        }
+        state.rate = rate;
+        state.variance = variance;
+        state.throughDay = window.throughDay();
+        double leadTime = window.policy().leadTimeDays();
+        state.reorderPoint = rate == 0 ? 0
+                : (int) Math.ceil(rate * leadTime + window.policy().serviceFactor() * Math.sqrt(variance * leadTime));
+        changed.add(state);
+    }
+
+    private static boolean isZero(double[] demand, int first) {
+        for (int day = first; day < demand.length; day++) {
+            if (demand[day] != 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static void write(Connection connection, List<DemandState> states) throws SQLException {
+        boolean autoCommit = connection.getAutoCommit();
+        connection.setAutoCommit(false);
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+        try (PreparedStatement update = connection.prepareStatement(
+                "UPDATE product_demand SET demand_rate = ?, demand_variance = ?, through_day = ?, reorder_point = ?, " +
+                "updated_at = ? WHERE product_id = ?");
+             PreparedStatement insert = connection.prepareStatement(
+                "INSERT INTO product_demand (demand_rate, demand_variance, through_day, reorder_point, updated_at, product_id) " +
+                "VALUES (?, ?, ?, ?, ?, ?)")) {
+            for (DemandState state : states) {
+                PreparedStatement statement = state.stored ? update : insert;
+                statement.setDouble(1, state.rate);
+                statement.setDouble(2, state.variance);
+                statement.setDate(3, Date.valueOf(state.throughDay));
+                statement.setInt(4, state.reorderPoint);
+                statement.setTimestamp(5, now);
+                statement.setLong(6, state.productId);
+                statement.addBatch();
+            }
+            update.executeBatch();
+            insert.executeBatch();
+            connection.commit();
+        } catch (SQLException e) {
+            connection.rollback();
+            throw e;
+        } finally {
+            connection.setAutoCommit(autoCommit);
+        }
+    }
+
+    private static Void recordRun(Connection connection, LocalDate fromDay, LocalDate throughDay,
+                                  long updated, long durationMs) throws SQLException {
+        try (PreparedStatement statement = connection.prepareStatement(
+                "INSERT INTO demand_forecast_run (from_day, through_day, products_updated, duration_ms) VALUES (?, ?, ?, ?)")) {
+            statement.setDate(1, Date.valueOf(fromDay));
+            statement.setDate(2, Date.valueOf(throughDay));
+            statement.setLong(3, updated);
+            statement.setLong(4, durationMs);
+            statement.executeUpdate();
+        }
+        return null;
+    }
+
+    /**
+     * Last completed day and the product id range, read once per run so all chunks use the same window
+     */
+    private static Baseline baseline(Connection connection) throws SQLException {
+        LocalDate watermark = null;
+        try (PreparedStatement statement = connection.prepareStatement("SELECT MAX(through_day) FROM demand_forecast_run");
+             ResultSet rs = statement.executeQuery()) {
+            if (rs.next() && rs.getDate(1) != null) {
+                watermark = rs.getDate(1).toLocalDate();
+            }
+        }
+        try (PreparedStatement statement = connection.prepareStatement("SELECT MIN(id), MAX(id) FROM product");
+             ResultSet rs = statement.executeQuery()) {
+            rs.next();
+            return new Baseline(watermark, rs.getObject(1, Long.class), rs.getObject(2, Long.class));
+        }
+    }
+
+    private Policy loadPolicy(String schema) {
+        try {
+            return withConnection(schema, connection -> readPolicy(connection, schema));
+        } catch (IllegalStateException e) {
+            log.debug("Using default reorder policy for schema {}: {}", schema, e.getMessage());
+            return new Policy(defaultLeadTimeDays, defaultServiceFactor);
+        }
+    }
+
+    private Policy readPolicy(Connection connection, String schema) throws SQLException {
+        double leadTimeDays = defaultLeadTimeDays;
+        double serviceFactor = defaultServiceFactor;
+
+        String query = "SELECT config_key, config_value FROM tenant_config WHERE config_key IN (?, ?)";
+        try (PreparedStatement statement = connection.prepareStatement(query)) {
+            statement.setString(1, LEAD_TIME_KEY);
+            statement.setString(2, SERVICE_FACTOR_KEY);
+            try (ResultSet rs = statement.executeQuery()) {
+                while (rs.next()) {
+                    String key = rs.getString("config_key");
+                    String configValue = rs.getString("config_value");
+                    double value = positiveNumber(configValue);
+                    if (Double.isNaN(value)) {
+                        // Zero or negative values would give NaN or zero reorder points
+                        log.warn("⚠️ Ignoring {} = '{}' of schema {}: not a positive number, using the default", key, configValue, schema);
+                        continue;
+                    }
+                    switch (key) {
+                        case LEAD_TIME_KEY -> leadTimeDays = value;
+                        case SERVICE_FACTOR_KEY -> serviceFactor = value;
+                        default -> { }
+                    }
+                }
+            }
+        }
+        return new Policy(leadTimeDays, serviceFactor);
+    }
+
+    /**
+     * @return the value, or NaN when it is missing, not a number, not finite or not above zero
+     */
+    private static double positiveNumber(String configValue) {
+        if (configValue == null) {
+            return Double.NaN;
+        }
+        try {
+            double value = Double.parseDouble(configValue.trim());
+            return value > 0 && Double.isFinite(value) ? value : Double.NaN;
+        } catch (NumberFormatException e) {
+            return Double.NaN;
+        }
+    }
+
+    private int suggestedQuantity(int stockLevel, int reorderPoint, double rate) {
+        return Math.max(0, (int) Math.ceil(reorderPoint + rate * orderCoverDays) - stockLevel);
+    }
+
+    /**
+     * Runs the work on a pooled connection in the tenant's schema, holding a connection permit meanwhile
+     */
+    private <T> T withConnection(String schema, SqlWork<T> work) {
+        try {
+            connectionPermits.acquire();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting for a demand forecast connection", e);
+        }
+        try (Connection connection = connection(schema)) {
+            return work.run(connection);
+        } catch (SQLException e) {
+            throw new IllegalStateException("Demand forecast query failed in schema " + schema + ": " + e.getMessage(), e);
+        } finally {
+            connectionPermits.release();
+        }
+    }
+
+    /**
+     * Pooled connection in the tenant's schema; with lazy tenant migration the first access migrates it first
+     */
+    private Connection connection(String schema) throws SQLException {
+        migrationOrchestrator.ensureTenantReady(schema);
+        Connection connection = dataSource.getConnection();
+        try {
+            connection.setSchema(schema);
+            return connection;
+        } catch (SQLException e) {
+            connection.close();
+            throw e;
+        }
+    }
+
+    /**
+     * Splits the product id range in halves down to chunk-size ranges, which run as one forecastChunk each
+     */
+    private final class ForecastTask extends RecursiveTask<ChunkResult> {
+        private final Window window;
+        private final long from;
+        private final long to;
+        // Forked halves may run on any worker, so each task carries the tenant of the thread that created it
+        private final Supplier<ChunkResult> inTenant = TenantContext.wrap((Supplier<ChunkResult>) this::split);
+
+        ForecastTask(Window window, long from, long to) {
+            this.window = window;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected ChunkResult compute() {
+            return inTenant.get();
+        }
+
+        private ChunkResult split() {
+            if (to - from < chunkSize) {
+                return withConnection(window.schema(), connection -> forecastChunk(connection, window, from, to));
+            }
+            long middle = from + (to - from) / 2;
+            ForecastTask left = new ForecastTask(window, from, middle);
+            left.fork();
+            ChunkResult right = new ForecastTask(window, middle + 1, to).compute();
+            return right.plus(left.join());
+        }
+    }
+
+    @FunctionalInterface
+    private interface SqlWork<T> {
+        T run(Connection connection) throws SQLException;
+    }
+
+    private static final class DemandState {
+        private final long productId;
+        private final boolean stored;
+        private double rate;
+        private double variance;
+        private LocalDate throughDay;
+        private int reorderPoint;
+
+        DemandState(long productId, double rate, double variance, LocalDate throughDay, boolean stored) {
+            this.productId = productId;
+            this.rate = rate;
+            this.variance = variance;
+            this.throughDay = throughDay;
+            this.stored = stored;
+        }
+    }
+
+    private record Policy(double leadTimeDays, double serviceFactor) {
+    }
+
+    private record Window(String schema, LocalDate fromDay, LocalDate throughDay, Policy policy) {
+        int days() {
+            return (int) ChronoUnit.DAYS.between(fromDay, throughDay) + 1;
+        }
+    }
+
+    private record Baseline(LocalDate watermark, Long minId, Long maxId) {
+    }
+
+    private record Candidate(long productId, int reorderPoint, double rate) {
+    }
+
+    private record ChunkResult(int chunks, long updated) {
+        ChunkResult plus(ChunkResult other) {
+            return new ChunkResult(chunks + other.chunks, updated + other.updated);
+        }
+    }
+}
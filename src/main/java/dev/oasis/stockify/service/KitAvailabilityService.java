@@ -0,0 +1,192 @@
+package dev.oasis.stockify.service;
+
+import dev.oasis.stockify.config.tenant.TenantScoped;
+import dev.oasis.stockify.dto.KitComponentDTO;
+import dev.oasis.stockify.dto.KitDTO;
+import dev.oasis.stockify.exception.GlobalExceptionHandler.ResourceNotFoundException;
+import dev.oasis.stockify.model.Product;
+import dev.oasis.stockify.model.ProductComponent;
+import dev.oasis.stockify.model.StockAlertLevel;
+import dev.oasis.stockify.repository.ProductComponentRepository;
+import dev.oasis.stockify.repository.ProductRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.TreeSet;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Kits (bundles) and their bill of materials.
+ * <p>
+ * A kit's availability is MIN(component stock / quantity per kit), stored in product.kit_availability.
+ * When component stock changes, the kits using those components are found through the component_id
+ * index and only they are recomputed, in the same transaction, so the cost follows the number of
+ * affected kits rather than the catalog. Kits are one level deep: a kit cannot be a component.
+ */
+@Slf4j
+@Service
+@TenantScoped
+public class KitAvailabilityService {
+    private final ProductComponentRepository componentRepository;
+    private final ProductRepository productRepository;
+    private final StockNotificationService stockNotificationService;
+
+    public KitAvailabilityService(ProductComponentRepository componentRepository,
+                                  ProductRepository productRepository,
+                                  StockNotificationService stockNotificationService) {
+        this.componentRepository = componentRepository;
+        this.productRepository = productRepository;
+        this.stockNotificationService = stockNotificationService;
+    }
+
+    /**
+     * Kits that use any of the given products as a component
+     */
+    public List<Long> findKitIds(Collection<Long> componentIds) {
+        if (componentIds.isEmpty()) {
+            return List.of();
+        }
+        return componentRepository.findKitIdsByComponentIds(componentIds);
+    }
+
+    /**
+     * Locks the given products together with the kits using them, in id order like StockMovementWriter,
+     * so an edit cannot deadlock with a stock batch. Call before the products are written. Products that
+     * are neither kits nor components are not locked: an edit then writes only their own row, and the
+     * version check (see ProductService.withVersionRetry) handles concurrent writers.
+     *
+     * @return the kits using the products
+     */
+    public List<Long> lockWithKits(Collection<Long> productIds) {
+        List<Long> kitIds = findKitIds(productIds);
+        if (kitIds.isEmpty() && !componentRepository.existsByKitIdIn(productIds)) {
+            return kitIds;
+        }
+        TreeSet<Long> ids = new TreeSet<>(productIds);
+        ids.addAll(kitIds);
+        componentRepository.lockProducts(ids);
+        return kitIds;
+    }
+
+    /**
+     * Recomputes the kits using the given products; call in the transaction that changed their stock
+     */
+    public void componentsChanged(Collection<Long> componentIds) {
+        recompute(findKitIds(componentIds));
+    }
+
+    /**
+     * Recomputes the availability of the given kits and raises alerts for kits that crossed their
+     * low stock threshold. Kit rows are locked so concurrent component changes recompute one after another;
+     * writers lock them up front with their components (lockWithKits), which makes this lock a no-op for them.
+     */
+    public void recompute(Collection<Long> kitIds) {
+        if (kitIds.isEmpty()) {
+            return;
+        }
+        TreeSet<Long> ids = new TreeSet<>(kitIds);
+        componentRepository.lockProducts(ids);
+        Map<Long, Integer> availability = new HashMap<>();
+        for (Object[] row : componentRepository.computeKitAvailability(ids)) {
+            availability.put(((Number) row[0]).longValue(), ((Number) row[1]).intValue());
+        }
+
+        for (Product kit : productRepository.findAllById(ids)) {
+            Integer previous = kit.getKitAvailability();
+            Integer current = availability.get(kit.getId());
+            if (Objects.equals(previous, current)) {
+                continue;
+            }
+            componentRepository.updateKitAvailability(kit.getId(), current);
+            kit.setKitAvailability(current);
+            if (current != null) {
+                stockNotificationService.checkKitStockAlert(levelOf(previous, kit), levelOf(current, kit), kit, current);
+            }
+            log.debug("🧩 Kit {} availability {} -> {}", kit.getId(), previous, current);
+        }
+    }
+
+    @Transactional(readOnly = true)
+    public KitDTO getKit(Long kitId) {
+        Product kit = productRepository.findById(kitId)
+                .orElseThrow(() -> new ResourceNotFoundException("Product not found with id: " + kitId));
+        List<ProductComponent> lines = componentRepository.findByKitIdOrderByComponentIdAsc(kitId);
+        Map<Long, Product> components = productRepository.findAllById(lines.stream().map(ProductComponent::getComponentId).toList())
+                .stream()
+                .collect(Collectors.toMap(Product::getId, Function.identity()));
+        List<KitComponentDTO> componentDtos = lines.stream()
+                .map(line -> {
+                    Product component = components.get(line.getComponentId());
+                    int stock = component != null ? component.getStockLevel() : 0;
+                    return new KitComponentDTO(line.getComponentId(), component != null ? component.getSku() : null,
+                            component != null ? component.getTitle() : null, line.getQuantity(), stock, stock / line.getQuantity());
+                })
+                .toList();
+        return new KitDTO(kitId, kit.getTitle(), kit.getKitAvailability(), componentDtos);
+    }
+
+    /**
+     * Adds a component to a kit, or changes its quantity per kit
+     */
+    @Transactional
+    public KitDTO setComponent(Long kitId, Long componentId, int quantity) {
+        if (kitId == null || componentId == null) {
+            throw new IllegalArgumentException("Kit and component IDs are required");
+        }
+        if (kitId.equals(componentId)) {
+            throw new IllegalArgumentException("A kit cannot contain itself");
+        }
+        if (quantity <= 0) {
+            throw new IllegalArgumentException("Component quantity must be positive");
+        }
+        if (!productRepository.existsById(kitId)) {
+            throw new ResourceNotFoundException("Product not found with id: " + kitId);
+        }
+        if (!productRepository.existsById(componentId)) {
+            throw new ResourceNotFoundException("Product not found with id: " + componentId);
+        }
+        if (componentRepository.existsByKitId(componentId)) {
+            throw new IllegalArgumentException("Product " + componentId + " is a kit and cannot be used as a component");
+        }
+        if (componentRepository.existsByComponentId(kitId)) {
+            throw new IllegalArgumentException("Product " + kitId + " is a component of another kit and cannot be a kit");
+        }
+
+        ProductComponent line = componentRepository.findByKitIdAndComponentId(kitId, componentId)
+                .orElseGet(() -> {
+                    ProductComponent created = new ProductComponent();
+                    created.setKitId(kitId);
+                    created.setComponentId(componentId);
+                    return created;
+                });
+        line.setQuantity(quantity);
+        componentRepository.saveAndFlush(line);
+        recompute(List.of(kitId));
+        log.info("🧩 Kit {} now uses {} x product {}", kitId, quantity, componentId);
+        return getKit(kitId);
+    }
+
+    @Transactional
+    public KitDTO removeComponent(Long kitId, Long componentId) {
+        ProductComponent line = componentRepository.findByKitIdAndComponentId(kitId, componentId)
+                .orElseThrow(() -> new ResourceNotFoundException("Product " + componentId + " is not a component of kit " + kitId));
+        componentRepository.delete(line);
+        componentRepository.flush();
+        recompute(List.of(kitId));
+        log.info("🧩 Product {} removed from kit {}", componentId, kitId);
+        return getKit(kitId);
+    }
+
+    private static StockAlertLevel levelOf(Integer availability, Product kit) {
+        // A kit that just got its first component starts from NORMAL, so an empty kit alerts once
+        return availability == null ? StockAlertLevel.NORMAL
+                : StockAlertLevel.of(availability, kit.getLowStockThreshold(), null);
+    }
+}
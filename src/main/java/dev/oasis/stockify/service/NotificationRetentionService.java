@@ -0,0 +1,202 @@
+package dev.oasis.stockify.service;
+
+import dev.oasis.stockify.config.metrics.TenantMetricsTags;
+import dev.oasis.stockify.config.tenant.TenantContext;
+import dev.oasis.stockify.config.tenant.TenantRegistry;
+import dev.oasis.stockify.repository.StockNotificationRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Limit;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Retention for read stock notifications.
+ * <p>
+ * Read notifications older than the tenant's policy are removed in chunks of
+ * {@code stockify.notifications.retention.chunk-size} rows, one short transaction per chunk, so the
+ * job never holds long locks or one huge undo log. In ROLLUP mode each chunk is first summed into
+ * {@code stock_notification_rollup} (per day, product and type). The policy is read from the tenant's
+ * {@code tenant_config} table ({@code notification_retention_days}, {@code notification_retention_mode})
+ * and falls back to the {@code stockify.notifications.retention.*} defaults; 0 days keeps everything.
+ */
+@Slf4j
+@Service
+public class NotificationRetentionService {
+
+    static final String RETENTION_DAYS_KEY = "notification_retention_days";
+    static final String RETENTION_MODE_KEY = "notification_retention_mode";
+
+    public enum Mode { DELETE, ROLLUP }
+
+    private final StockNotificationRepository notificationRepository;
+    private final TenantRegistry tenantRegistry;
+    private final DataSource dataSource;
+    private final TransactionTemplate transactionTemplate;
+    private final MeterRegistry meterRegistry;
+    private final TenantMetricsTags tenantTags;
+
+    @Value("${stockify.notifications.retention.enabled:true}")
+    private boolean enabled;
+
+    @Value("${stockify.notifications.retention.default-days:90}")
+    private int defaultDays;
+
+    @Value("${stockify.notifications.retention.default-mode:ROLLUP}")
+    private Mode defaultMode;
+
+    @Value("${stockify.notifications.retention.chunk-size:1000}")
+    private int chunkSize;
+
+    @Value("${stockify.notifications.retention.max-chunks-per-run:100}")
+    private int maxChunksPerRun;
+
+    @Value("${stockify.notifications.retention.chunk-pause-ms:50}")
+    private long chunkPauseMs;
+
+    public NotificationRetentionService(StockNotificationRepository notificationRepository,
+                                        TenantRegistry tenantRegistry,
+                                        DataSource dataSource,
+                                        TransactionTemplate transactionTemplate,
+                                        MeterRegistry meterRegistry,
+                                        TenantMetricsTags tenantTags) {
+        this.notificationRepository = notificationRepository;
+        this.tenantRegistry = tenantRegistry;
+        this.dataSource = dataSource;
+        this.transactionTemplate = transactionTemplate;
+        this.meterRegistry = meterRegistry;
+        this.tenantTags = tenantTags;
+    }
+
+    @Scheduled(cron = "${stockify.notifications.retention.cron:0 30 3 * * *}")
+    public void purgeAllTenants() {
+        if (!enabled) {
+            return;
+        }
+        for (String tenant : tenantRegistry.allTenants()) {
+            try {
+                purgeTenant(tenant);
+            } catch (RuntimeException e) {
+                log.warn("⚠️ Notification retention failed for tenant {}: {}", tenant, e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * Apply the tenant's retention policy; stops after max-chunks-per-run chunks, the next run continues
+     *
+     * @return number of notifications removed
+     */
+    public int purgeTenant(String tenantId) {
+        RetentionPolicy policy = loadPolicy(tenantId);
+        if (policy.days() <= 0) {
+            return 0;
+        }
+        LocalDateTime cutoff = LocalDateTime.now().minusDays(policy.days());
+
+        String previousTenant = TenantContext.getCurrentTenant();
+        TenantContext.setCurrentTenant(tenantId);
+        int removed = 0;
+        int chunks = 0;
+        try {
+            while (chunks < maxChunksPerRun) {
+                Integer chunk = transactionTemplate.execute(status -> purgeChunk(cutoff, policy.mode()));
+                if (chunk == null || chunk == 0) {
+                    break;
+                }
+                removed += chunk;
+                chunks++;
+                if (chunk < chunkSize || !pause()) {
+                    break;
+                }
+            }
+        } finally {
+            if (previousTenant != null) {
+                TenantContext.setCurrentTenant(previousTenant);
+            } else {
+                TenantContext.clear();
+            }
+        }
+
+        if (removed > 0) {
+            Counter.builder("stockify.notifications.retention.removed")
+                    .description("Read notifications removed by the retention job")
+                    .tag(TenantMetricsTags.TAG, tenantTags.of(tenantId))
+                    .tag("mode", policy.mode().name().toLowerCase(Locale.ROOT))
+                    .register(meterRegistry)
+                    .increment(removed);
+            log.info("🧹 Notification retention for tenant {}: removed {} read notifications older than {} days ({}, {} chunks)",
+                    tenantId, removed, policy.days(), policy.mode(), chunks);
+        }
+        return removed;
+    }
+
+    private int purgeChunk(LocalDateTime cutoff, Mode mode) {
+        List<Long> ids = notificationRepository.findExpiredReadIds(cutoff, Limit.of(chunkSize));
+        if (ids.isEmpty()) {
+            return 0;
+        }
+        if (mode == Mode.ROLLUP) {
+            notificationRepository.rollUp(ids);
+        }
+        return notificationRepository.deleteByIds(ids);
+    }
+
+    /**
+     * Give other work on the database a turn between chunks; false when the job is being stopped
+     */
+    private boolean pause() {
+        if (chunkPauseMs <= 0) {
+            return true;
+        }
+        try {
+            Thread.sleep(chunkPauseMs);
+            return true;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+
+    private RetentionPolicy loadPolicy(String tenantId) {
+        int days = defaultDays;
+        Mode mode = defaultMode;
+
+        String query = "SELECT config_key, config_value FROM tenant_config WHERE config_key IN (?, ?)";
+        try (Connection connection = dataSource.getConnection()) {
+            connection.setSchema(tenantId);
+            try (PreparedStatement statement = connection.prepareStatement(query)) {
+                statement.setString(1, RETENTION_DAYS_KEY);
+                statement.setString(2, RETENTION_MODE_KEY);
+                try (ResultSet rs = statement.executeQuery()) {
+                    while (rs.next()) {
+                        String value = rs.getString("config_value").trim();
+                        switch (rs.getString("config_key")) {
+                            case RETENTION_DAYS_KEY -> days = Integer.parseInt(value);
+                            case RETENTION_MODE_KEY -> mode = Mode.valueOf(value.toUpperCase(Locale.ROOT));
+                            default -> { }
+                        }
+                    }
+                }
+            }
+        } catch (SQLException | IllegalArgumentException e) {
+            log.debug("Using default notification retention for tenant {}: {}", tenantId, e.getMessage());
+        }
+        return new RetentionPolicy(days, mode);
+    }
+
+    private record RetentionPolicy(int days, Mode mode) {
+    }
+}
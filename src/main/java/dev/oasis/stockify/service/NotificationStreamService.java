@@ -0,0 +1,260 @@
+package dev.oasis.stockify.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import dev.oasis.stockify.config.metrics.TenantMetricsTags;
+import dev.oasis.stockify.config.tenant.TenantAwareExecutors;
+import dev.oasis.stockify.config.tenant.TenantContext;
+import dev.oasis.stockify.event.NotificationCreatedEvent;
+import dev.oasis.stockify.event.NotificationsReadEvent;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.web.server.ResponseStatusException;
+import org.springframework.web.servlet.mvc.method.annotation.ResponseBodyEmitter.DataWithMediaType;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Live notification streams (Server-Sent Events) per tenant.
+ * <p>
+ * Notification events are delivered after commit and serialized once per event. Every connection
+ * has a bounded buffer drained by a small shared dispatch pool, so connections hold no thread while
+ * idle (the servlet request stays in async mode). A consumer whose buffer overflows loses the
+ * buffered events and gets a {@code resync} event telling it to reload its state. Idle connections
+ * get a heartbeat comment so proxies keep them open and dead clients are detected.
+ * <p>
+ * Events: {@code unread} ({@code {"unread": n}} on connect, {@code {"delta": d}} afterwards),
+ * {@code notification} (the new notification) and {@code resync}.
+ */
+@Slf4j
+@Service
+public class NotificationStreamService {
+
+    private final ObjectMapper objectMapper;
+    private final MeterRegistry meterRegistry;
+    private final TenantMetricsTags tenantTags;
+    private final ConcurrentMap<String, Set<Subscriber>> subscribers = new ConcurrentHashMap<>();
+    private final AtomicInteger connections = new AtomicInteger();
+    private final ExecutorService dispatcher;
+    private final ScheduledExecutorService heartbeats;
+
+    @Value("${stockify.sse.timeout-ms:1800000}")
+    private long timeoutMs;
+
+    @Value("${stockify.sse.heartbeat-interval-ms:15000}")
+    private long heartbeatIntervalMs;
+
+    @Value("${stockify.sse.buffer-size:64}")
+    private int bufferSize;
+
+    @Value("${stockify.sse.max-connections-per-tenant:200}")
+    private int maxConnectionsPerTenant;
+
+    public NotificationStreamService(ObjectMapper objectMapper, MeterRegistry meterRegistry, TenantMetricsTags tenantTags,
+                                     @Value("${stockify.sse.dispatch-threads:2}") int dispatchThreads) {
+        this.objectMapper = objectMapper;
+        this.meterRegistry = meterRegistry;
+        this.tenantTags = tenantTags;
+        this.dispatcher = TenantAwareExecutors.wrap(Executors.newFixedThreadPool(dispatchThreads, daemonThreads("sse-dispatch-")));
+        this.heartbeats = Executors.newSingleThreadScheduledExecutor(daemonThreads("sse-heartbeat-"));
+        Gauge.builder("stockify.sse.connections", connections, AtomicInteger::get)
+                .description("Open notification streams")
+                .register(meterRegistry);
+    }
+
+    @PostConstruct
+    void startHeartbeats() {
+        // Heartbeats cover all tenants and run without one; the drains they schedule run as their subscriber's tenant
+        heartbeats.scheduleWithFixedDelay(TenantContext.wrap(this::heartbeat), heartbeatIntervalMs, heartbeatIntervalMs,
+                TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Open a stream for the tenant; the first event carries the current unread count
+     */
+    public SseEmitter subscribe(String tenantId, long unreadCount) {
+        Set<Subscriber> tenantSubscribers = subscribers.computeIfAbsent(tenantId, t -> ConcurrentHashMap.newKeySet());
+        if (tenantSubscribers.size() >= maxConnectionsPerTenant) {
+            throw new ResponseStatusException(HttpStatus.SERVICE_UNAVAILABLE, "Too many notification streams for tenant");
+        }
+
+        SseEmitter emitter = new SseEmitter(timeoutMs);
+        Subscriber subscriber = new Subscriber(tenantId, emitter);
+        emitter.onCompletion(() -> remove(subscriber));
+        emitter.onTimeout(() -> {
+            // Normal end of a stream: EventSource reconnects and gets a fresh unread count
+            remove(subscriber);
+            emitter.complete();
+        });
+        emitter.onError(e -> remove(subscriber));
+        tenantSubscribers.add(subscriber);
+        connections.incrementAndGet();
+        subscriber.offer(frame("unread", Map.of("unread", unreadCount)));
+        log.debug("📡 Notification stream opened for tenant {} ({} open)", tenantId, tenantSubscribers.size());
+        return emitter;
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onNotificationCreated(NotificationCreatedEvent event) {
+        if (hasSubscribers(event.tenantId())) {
+            broadcast(event.tenantId(), frame("notification", event));
+            broadcast(event.tenantId(), frame("unread", Map.of("delta", 1)));
+        }
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onNotificationsRead(NotificationsReadEvent event) {
+        if (hasSubscribers(event.tenantId())) {
+            broadcast(event.tenantId(), frame("unread", Map.of("delta", -event.count())));
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        heartbeats.shutdownNow();
+        dispatcher.shutdownNow();
+        subscribers.values().forEach(tenantSubscribers -> tenantSubscribers.forEach(s -> s.emitter.complete()));
+    }
+
+    private boolean hasSubscribers(String tenantId) {
+        Set<Subscriber> tenantSubscribers = tenantId != null ? subscribers.get(tenantId) : null;
+        return tenantSubscribers != null && !tenantSubscribers.isEmpty();
+    }
+
+    private void broadcast(String tenantId, Set<DataWithMediaType> frame) {
+        if (frame == null) {
+            return;
+        }
+        subscribers.getOrDefault(tenantId, Set.of()).forEach(subscriber -> subscriber.offer(frame));
+    }
+
+    private void heartbeat() {
+        long idleBefore = System.nanoTime() - TimeUnit.MILLISECONDS.toNanos(heartbeatIntervalMs);
+        Set<DataWithMediaType> comment = SseEmitter.event().comment("heartbeat").build();
+        subscribers.values().forEach(tenantSubscribers -> tenantSubscribers.forEach(subscriber -> {
+            if (subscriber.lastSentNanos - idleBefore <= 0) {
+                subscriber.offer(comment);
+            }
+        }));
+    }
+
+    private Set<DataWithMediaType> frame(String name, Object data) {
+        try {
+            return SseEmitter.event()
+                    .name(name)
+                    .data(objectMapper.writeValueAsString(data), MediaType.APPLICATION_JSON)
+                    .build();
+        } catch (JsonProcessingException e) {
+            log.warn("⚠️ Could not serialize {} event: {}", name, e.getMessage());
+            return null;
+        }
+    }
+
+    private void remove(Subscriber subscriber) {
+        Set<Subscriber> tenantSubscribers = subscribers.get(subscriber.tenantId);
+        if (tenantSubscribers != null && tenantSubscribers.remove(subscriber)) {
+            connections.decrementAndGet();
+            log.debug("📴 Notification stream closed for tenant {}", subscriber.tenantId);
+        }
+    }
+
+    private static ThreadFactory daemonThreads(String prefix) {
+        AtomicInteger counter = new AtomicInteger();
+        return runnable -> {
+            Thread thread = new Thread(runnable, prefix + counter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+
+    /**
+     * One open stream: bounded buffer plus a flag so at most one dispatch task drains it at a time
+     */
+    private final class Subscriber {
+        private final String tenantId;
+        private final SseEmitter emitter;
+        private final BlockingQueue<Set<DataWithMediaType>> buffer = new ArrayBlockingQueue<>(bufferSize);
+        private final AtomicBoolean draining = new AtomicBoolean();
+        private volatile boolean overflowed;
+        private volatile long lastSentNanos = System.nanoTime();
+
+        private Subscriber(String tenantId, SseEmitter emitter) {
+            this.tenantId = tenantId;
+            this.emitter = emitter;
+        }
+
+        void offer(Set<DataWithMediaType> frame) {
+            if (!buffer.offer(frame)) {
+                // Slow consumer: drop what is buffered, the client reloads on resync
+                int dropped = buffer.size() + 1;
+                buffer.clear();
+                overflowed = true;
+                Counter.builder("stockify.sse.events.dropped")
+                        .description("Stream events dropped for slow consumers")
+                        .tag(TenantMetricsTags.TAG, tenantTags.of(tenantId))
+                        .register(meterRegistry)
+                        .increment(dropped);
+            }
+            schedule();
+        }
+
+        private void schedule() {
+            if (draining.compareAndSet(false, true)) {
+                try {
+                    // Offers come from event listeners of any tenant and from the heartbeat thread
+                    dispatcher.execute(() -> TenantContext.runAs(tenantId, this::drain));
+                } catch (RuntimeException e) {
+                    draining.set(false);
+                }
+            }
+        }
+
+        private void drain() {
+            try {
+                if (overflowed) {
+                    overflowed = false;
+                    emitter.send(SseEmitter.event().name("resync").data("{}", MediaType.APPLICATION_JSON));
+                }
+                Set<DataWithMediaType> frame;
+                while ((frame = buffer.poll()) != null) {
+                    emitter.send(frame);
+                }
+                lastSentNanos = System.nanoTime();
+            } catch (IOException | IllegalStateException e) {
+                // Client went away or the emitter already completed
+                buffer.clear();
+                remove(this);
+                emitter.completeWithError(e);
+                return;
+            } finally {
+                draining.set(false);
+            }
+            if (!buffer.isEmpty() || overflowed) {
+                schedule();
+            }
+        }
+    }
+}
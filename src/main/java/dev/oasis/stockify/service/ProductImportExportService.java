@@ -3,9 +3,11 @@ package dev.oasis.stockify.service;
 import com.opencsv.CSVReader;
 import com.opencsv.CSVWriter;
 import com.opencsv.exceptions.CsvValidationException;
+import dev.oasis.stockify.config.tenant.TenantScoped;
 import dev.oasis.stockify.dto.ProductCreateDTO;
 import dev.oasis.stockify.dto.ProductResponseDTO;
 import dev.oasis.stockify.exception.FileOperationException;
+import io.micrometer.core.annotation.Timed;
 import lombok.RequiredArgsConstructor;
 import org.apache.poi.ss.usermodel.*;
 import org.apache.poi.xssf.usermodel.XSSFWorkbook;
@@ -18,6 +20,8 @@ import java.util.*;
 import java.util.stream.Collectors;
 
 @Service
+@TenantScoped
+@Timed(value = "stockify.service", histogram = true)
 @RequiredArgsConstructor
 public class ProductImportExportService {
     private static final String[] CSV_HEADERS = {"Name", "Description", "SKU", "Price", "Quantity", "Category"};
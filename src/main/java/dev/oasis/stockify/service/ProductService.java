@@ -1,34 +1,81 @@
 package dev.oasis.stockify.service;
 
+import dev.oasis.stockify.config.metrics.TenantMetricsTags;
+import dev.oasis.stockify.config.tenant.TenantScoped;
 import dev.oasis.stockify.dto.ProductCreateDTO;
 import dev.oasis.stockify.dto.ProductResponseDTO;
+import dev.oasis.stockify.exception.InsufficientStockException;
+import dev.oasis.stockify.exception.ProductVersionConflictException;
 import dev.oasis.stockify.mapper.ProductMapper;
 import dev.oasis.stockify.model.Product;
+import dev.oasis.stockify.model.StockAlertLevel;
+import dev.oasis.stockify.model.StockMovementType;
+import dev.oasis.stockify.repository.ProductLocationStockRepository;
 import dev.oasis.stockify.repository.ProductRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.OptimisticLockingFailureException;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.Pageable;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.server.ResponseStatusException;
 
 import jakarta.transaction.Transactional;
+import java.time.LocalDateTime;
 import java.util.List;
+import java.util.Objects;
 import java.util.Optional;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.Supplier;
 
 /**
  * Service for managing product operations
  */
+@Slf4j
 @Service
+@TenantScoped
 public class ProductService {
     private final ProductRepository productRepository;
+    private final ProductLocationStockRepository locationStockRepository;
+    private final KitAvailabilityService kitAvailabilityService;
     private final ProductMapper productMapper;
     private final StockNotificationService stockNotificationService;
+    private final TransactionTemplate transactionTemplate;
+    private final MeterRegistry meterRegistry;
+    private final TenantMetricsTags tenantTags;
+    private final Optional<StockWriteBehindBuffer> writeBehindBuffer;
+
+    @Value("${stockify.product.update.max-attempts:3}")
+    private int maxUpdateAttempts;
+
+    @Value("${stockify.product.update.backoff-ms:20}")
+    private long updateBackoffMs;
 
     public ProductService(ProductRepository productRepository,
+                        ProductLocationStockRepository locationStockRepository,
+                        KitAvailabilityService kitAvailabilityService,
                         ProductMapper productMapper,
-                        StockNotificationService stockNotificationService) {
+                        StockNotificationService stockNotificationService,
+                        TransactionTemplate transactionTemplate,
+                        MeterRegistry meterRegistry,
+                        TenantMetricsTags tenantTags,
+                        Optional<StockWriteBehindBuffer> writeBehindBuffer) {
         this.productRepository = productRepository;
+        this.locationStockRepository = locationStockRepository;
+        this.kitAvailabilityService = kitAvailabilityService;
         this.productMapper = productMapper;
         this.stockNotificationService = stockNotificationService;
+        this.transactionTemplate = transactionTemplate;
+        this.meterRegistry = meterRegistry;
+        this.tenantTags = tenantTags;
+        this.writeBehindBuffer = writeBehindBuffer;
     }
 
     /**
@@ -98,7 +145,12 @@ public class ProductService {
         try {
             Product product = productMapper.toEntity(productCreateDTO);
             Product savedProduct = productRepository.save(product);
-            stockNotificationService.checkAndCreateLowStockNotification(savedProduct);
+            locationStockRepository.insertDefaultLocation(savedProduct.getId(), savedProduct.getStockLevel());
+            if (savedProduct.getStockLevel() > 0) {
+                locationStockRepository.recordDefaultLocationMovement(savedProduct.getId(), StockMovementType.IN.name(),
+                        savedProduct.getStockLevel(), "product:create", currentUsername(), LocalDateTime.now());
+            }
+            stockNotificationService.checkStockAlert(null, savedProduct);
             return productMapper.toDto(savedProduct);
         } catch (Exception e) {
             throw new RuntimeException("Error saving product: " + e.getMessage(), e);
@@ -106,27 +158,65 @@ public class ProductService {
     }
 
     /**
-     * Updates an existing product in the database
+     * Updates an existing product in the database, writing every field
      * @param id the ID of the product to update
      * @param productCreateDTO the updated product data
      * @return the updated product data
      */
-    @Transactional
     public ProductResponseDTO updateProduct(Long id, ProductCreateDTO productCreateDTO) {
+        return updateProduct(id, productCreateDTO, null);
+    }
+
+    /**
+     * Updates an existing product with optimistic locking.
+     * With a base (the product as the caller last saw it) only the fields that differ from it are written,
+     * so concurrent changes to other fields, e.g. stock moves, are kept. Without a base every field is
+     * written and the caller's version, if set, must still be current. A version conflict at flush
+     * re-reads the product and applies the same changes again (see withVersionRetry).
+     * @param id the ID of the product to update
+     * @param productCreateDTO the updated product data
+     * @param base the caller's starting state, or null
+     * @return the updated product data
+     */
+    public ProductResponseDTO updateProduct(Long id, ProductCreateDTO productCreateDTO, ProductCreateDTO base) {
         if (id == null) {
             throw new IllegalArgumentException("Product ID cannot be null");
         }
 
         try {
-            Product existingProduct = productRepository.findById(id)
-                .orElseThrow(() -> new RuntimeException("Product not found with id: " + id));
-
             validateProductData(productCreateDTO);
-            Product updatedProduct = productMapper.updateEntity(existingProduct, productCreateDTO);
-            Product saved = productRepository.saveAndFlush(updatedProduct); // Değişiklik burada
-            stockNotificationService.checkAndCreateLowStockNotification(saved);
+            return StockWriteBehindBuffer.fenceIfEnabled(writeBehindBuffer, List.of(id), () -> withVersionRetry(() -> {
+                kitAvailabilityService.lockWithKits(List.of(id));
+                Product existingProduct = productRepository.findById(id)
+                    .orElseThrow(() -> new RuntimeException("Product not found with id: " + id));
+
+                StockAlertLevel previousLevel = StockAlertLevel.of(existingProduct);
+                int previousStock = existingProduct.getStockLevel();
+                if (base != null) {
+                    List<String> overwritten = productMapper.mergeChangedFields(existingProduct, base, productCreateDTO);
+                    if (!overwritten.isEmpty()) {
+                        conflict("overwritten");
+                        log.info("✏️ Product {} update overwrote concurrent changes to {}", id, overwritten);
+                    } else if (!Objects.equals(base.getVersion(), existingProduct.getVersion())) {
+                        conflict("merged");
+                    }
+                } else {
+                    if (productCreateDTO.getVersion() != null
+                            && !productCreateDTO.getVersion().equals(existingProduct.getVersion())) {
+                        conflict("rejected");
+                        throw new ProductVersionConflictException("Product was changed by someone else, please reload it");
+                    }
+                    productMapper.updateEntity(existingProduct, productCreateDTO);
+                }
+                Product saved = productRepository.saveAndFlush(existingProduct);
+                syncDefaultLocation(id, saved.getStockLevel() - previousStock);
+                stockNotificationService.checkStockAlert(previousLevel, saved);
+                updateCounter().increment();
 
-            return productMapper.toDto(saved);
+                return productMapper.toDto(saved);
+            }));
+        } catch (ProductVersionConflictException | InsufficientStockException | ResponseStatusException e) {
+            throw e;
         } catch (Exception e) {
             throw new RuntimeException("Error updating product: " + e.getMessage(), e);
         }
@@ -156,24 +246,114 @@ public class ProductService {
      * @param newStockLevel the new stock level
      * @return the updated product data
      */
-    @Transactional
     public ProductResponseDTO updateStockLevel(Long id, int newStockLevel) {
-        return productRepository.findById(id)
-                .map(product -> {
-                    product.setStockLevel(newStockLevel);
-                    Product saved = productRepository.save(product);
-                    stockNotificationService.checkAndCreateLowStockNotification(saved);
-                    return productMapper.toDto(saved);
-                })
-                .orElseThrow(() -> new RuntimeException("Product not found with id: " + id));
+        return StockWriteBehindBuffer.fenceIfEnabled(writeBehindBuffer, List.of(id), () -> withVersionRetry(() -> {
+            kitAvailabilityService.lockWithKits(List.of(id));
+            return productRepository.findById(id)
+                    .map(product -> {
+                        StockAlertLevel previousLevel = StockAlertLevel.of(product);
+                        int previousStock = product.getStockLevel();
+                        product.setStockLevel(newStockLevel);
+                        Product saved = productRepository.saveAndFlush(product);
+                        syncDefaultLocation(id, newStockLevel - previousStock);
+                        stockNotificationService.checkStockAlert(previousLevel, saved);
+                        updateCounter().increment();
+                        return productMapper.toDto(saved);
+                    })
+                    .orElseThrow(() -> new RuntimeException("Product not found with id: " + id));
+        }));
+    }
+
+    /**
+     * Applies a change of the product total to its default location, so the location rows keep adding
+     * up to product.stock_level, ledgers it as an ADJUSTMENT and refreshes the kits using the product.
+     * Stock at other locations is only moved by stock movements and transfers.
+     */
+    private void syncDefaultLocation(Long productId, int delta) {
+        if (delta == 0) {
+            return;
+        }
+        if (locationStockRepository.addToDefaultLocation(productId, delta) == 1
+                || delta > 0 && locationStockRepository.insertDefaultLocation(productId, delta) == 1) {
+            locationStockRepository.recordDefaultLocationMovement(productId, StockMovementType.ADJUSTMENT.name(),
+                    delta, "product:edit", currentUsername(), LocalDateTime.now());
+            kitAvailabilityService.componentsChanged(List.of(productId));
+            return;
+        }
+        throw new InsufficientStockException("The default location does not hold enough stock to lower the total by "
+                + -delta + "; record the movement at its location instead");
+    }
+
+    private static String currentUsername() {
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        return authentication != null ? authentication.getName() : null;
+    }
+
+    /**
+     * Runs one update attempt per transaction and retries it when another writer committed first.
+     * Attempts are bounded by stockify.product.update.max-attempts and spaced with full jitter
+     * (random 0..backoff * 2^attempt) so hot products do not retry in lockstep. Inside a caller's
+     * transaction the work runs once: a conflict there rolls back the caller's transaction anyway.
+     */
+    private <T> T withVersionRetry(Supplier<T> attempt) {
+        if (TransactionSynchronizationManager.isActualTransactionActive()) {
+            return attempt.get();
+        }
+        for (int attemptNumber = 1; ; attemptNumber++) {
+            try {
+                return transactionTemplate.execute(status -> attempt.get());
+            } catch (OptimisticLockingFailureException e) {
+                if (attemptNumber >= maxUpdateAttempts) {
+                    conflict("exhausted");
+                    throw new ProductVersionConflictException("Product is being changed concurrently, please try again");
+                }
+                conflict("retried");
+                long backoffMs = ThreadLocalRandom.current().nextLong(updateBackoffMs * (1L << attemptNumber) + 1);
+                log.debug("🔁 Product version conflict, retrying in {} ms (attempt {}/{})",
+                        backoffMs, attemptNumber + 1, maxUpdateAttempts);
+                try {
+                    Thread.sleep(backoffMs);
+                } catch (InterruptedException interrupted) {
+                    Thread.currentThread().interrupt();
+                    throw new ProductVersionConflictException("Interrupted while retrying a product update");
+                }
+            }
+        }
+    }
+
+    private void conflict(String outcome) {
+        Counter.builder("stockify.product.update.conflicts")
+                .description("Product updates that met a concurrent change, by outcome")
+                .tag(TenantMetricsTags.TAG, tenantTags.current())
+                .tag("outcome", outcome)
+                .register(meterRegistry)
+                .increment();
+    }
+
+    private Counter updateCounter() {
+        return Counter.builder("stockify.product.updates")
+                .description("Committed product updates (conflict rate = conflicts / updates)")
+                .tag(TenantMetricsTags.TAG, tenantTags.current())
+                .register(meterRegistry);
     }
 
     /**
-     * Deletes a product by its ID
+     * Deletes a product by its ID; its stock movements and snapshot lines are kept as history
      * @param id the ID of the product to delete
      */
     public void deleteProduct(Long id) {
-        productRepository.deleteById(id);
+        StockWriteBehindBuffer.fenceIfEnabled(writeBehindBuffer, List.of(id), () -> transactionTemplate.execute(status -> {
+            // Kits lose the component with the product (cascade), so their availability changes
+            List<Long> kitIds = kitAvailabilityService.lockWithKits(List.of(id));
+            // The product's movements stay in the ledger, so its stock leaves it with the product
+            LocalDateTime now = LocalDateTime.now();
+            locationStockRepository.recordWriteOff(id, currentUsername(), now);
+            productRepository.recordDeletion(id, now);
+            productRepository.deleteById(id);
+            productRepository.flush();
+            kitAvailabilityService.recompute(kitIds);
+            return null;
+        }));
     }
 
     /**
@@ -0,0 +1,217 @@
+package dev.oasis.stockify.service;
+
+import dev.oasis.stockify.config.tenant.TenantContext;
+import dev.oasis.stockify.config.tenant.TenantScoped;
+import dev.oasis.stockify.dto.StockAdjustmentDTO;
+import dev.oasis.stockify.dto.StockTransferDTO;
+import dev.oasis.stockify.exception.GlobalExceptionHandler.ResourceNotFoundException;
+import dev.oasis.stockify.exception.InsufficientStockException;
+import dev.oasis.stockify.model.ProductLocationStock;
+import dev.oasis.stockify.model.StockLocation;
+import dev.oasis.stockify.model.StockMovementType;
+import dev.oasis.stockify.repository.ProductLocationStockRepository;
+import dev.oasis.stockify.repository.ProductRepository;
+import dev.oasis.stockify.repository.StockLocationRepository;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.UUID;
+
+/**
+ * Stock movements of single products (sales, receipts, corrections) and transfers between locations.
+ * With the write-behind buffer enabled movements are queued and written in batches,
+ * otherwise each movement is written in its own transaction. Transfers are always written directly.
+ */
+@Service
+@TenantScoped
+public class StockAdjustmentService {
+    private static final int MAX_REFERENCE_LENGTH = 100;
+
+    private final ProductRepository productRepository;
+    private final StockLocationRepository locationRepository;
+    private final ProductLocationStockRepository locationStockRepository;
+    private final StockMovementWriter stockMovementWriter;
+    private final TransactionTemplate transactionTemplate;
+    private final Optional<StockWriteBehindBuffer> writeBehindBuffer;
+    private final StockReservationService reservationService;
+
+    public StockAdjustmentService(ProductRepository productRepository,
+                                  StockLocationRepository locationRepository,
+                                  ProductLocationStockRepository locationStockRepository,
+                                  StockMovementWriter stockMovementWriter,
+                                  TransactionTemplate transactionTemplate,
+                                  Optional<StockWriteBehindBuffer> writeBehindBuffer,
+                                  StockReservationService reservationService) {
+        this.productRepository = productRepository;
+        this.locationRepository = locationRepository;
+        this.locationStockRepository = locationStockRepository;
+        this.stockMovementWriter = stockMovementWriter;
+        this.transactionTemplate = transactionTemplate;
+        this.writeBehindBuffer = writeBehindBuffer;
+        this.reservationService = reservationService;
+    }
+
+    /**
+     * Records a stock movement for a product
+     * @param productId the product
+     * @param type the movement type; OUT, DAMAGED and EXPIRED take stock away. TRANSFER is rejected,
+     *             transfers move both locations at once through {@link #transfer}
+     * @param quantity positive quantity, signed for ADJUSTMENT
+     * @param reference optional external reference, e.g. an order number
+     * @param locationId the location that moves, null for the default location (see StockDelta)
+     * @return the resulting stock level of the product over all locations
+     * @throws InsufficientStockException when the stock level would drop below zero, or for OUT below the
+     *                                    quantity held by reservations
+     */
+    public StockAdjustmentDTO adjust(Long productId, StockMovementType type, int quantity, String reference, Long locationId) {
+        if (productId == null || type == null) {
+            throw new IllegalArgumentException("Product ID and movement type are required");
+        }
+        if (type == StockMovementType.TRANSFER) {
+            // A lone TRANSFER movement would change one location only
+            throw new IllegalArgumentException("Use POST /products/{id}/stock/transfer to move stock between locations");
+        }
+        if (locationId != null) {
+            requireActiveLocation(locationId);
+        }
+        int delta = type.delta(quantity);
+        StockDelta stockDelta = new StockDelta(null, 0, TenantContext.getCurrentTenant(), productId, locationId, delta, type,
+                normalizeReference(reference), currentUsername(), LocalDateTime.now());
+
+        if (writeBehindBuffer.isPresent()) {
+            int projected = writeBehindBuffer.get().submit(stockDelta, () -> committedStock(productId),
+                    () -> reservationService.reservedQuantity(productId));
+            return new StockAdjustmentDTO(productId, type, delta, projected, true);
+        }
+
+        int stockLevel = transactionTemplate.execute(status -> {
+            StockMovementWriter.Result result = stockMovementWriter.apply(List.of(stockDelta));
+            Integer level = result.stockLevels().get(productId);
+            if (level == null) {
+                throw new ResourceNotFoundException("Product not found with id: " + productId);
+            }
+            if (!result.skipped().isEmpty()) {
+                throw new InsufficientStockException("Not enough stock for product " + productId + ": " + level + " available");
+            }
+            // Checked with the product row locked; rolls the sale back when it ate into held stock
+            int reserved = type == StockMovementType.OUT ? reservationService.reservedQuantity(productId) : 0;
+            if (level < reserved) {
+                throw new InsufficientStockException("Not enough stock for product " + productId + ": "
+                        + (level - delta - reserved) + " available to sell, " + reserved + " reserved");
+            }
+            return level;
+        });
+        return new StockAdjustmentDTO(productId, type, delta, stockLevel, false);
+    }
+
+    /**
+     * Moves stock of a product from one location to another in one transaction: a TRANSFER movement out
+     * of the source and one into the target, sharing a reference. The product total does not change.
+     * @param reference optional reference; one is generated when missing
+     * @throws InsufficientStockException when the source location holds less than the quantity
+     */
+    public StockTransferDTO transfer(Long productId, Long fromLocationId, Long toLocationId, int quantity, String reference) {
+        if (productId == null || fromLocationId == null || toLocationId == null) {
+            throw new IllegalArgumentException("Product ID and both locations are required");
+        }
+        if (fromLocationId.equals(toLocationId)) {
+            throw new IllegalArgumentException("Source and target location must differ");
+        }
+        if (quantity <= 0) {
+            throw new IllegalArgumentException("Transfer quantity must be positive");
+        }
+        requireActiveLocation(fromLocationId);
+        requireActiveLocation(toLocationId);
+        String transferReference = Optional.ofNullable(normalizeReference(reference)).orElse("transfer:" + UUID.randomUUID());
+        String tenantId = TenantContext.getCurrentTenant();
+        String username = currentUsername();
+        LocalDateTime now = LocalDateTime.now();
+        List<StockDelta> deltas = List.of(
+                new StockDelta(null, 0, tenantId, productId, fromLocationId, -quantity, StockMovementType.TRANSFER,
+                        transferReference, username, now),
+                new StockDelta(null, 0, tenantId, productId, toLocationId, quantity, StockMovementType.TRANSFER,
+                        transferReference, username, now));
+
+        return StockWriteBehindBuffer.fenceIfEnabled(writeBehindBuffer, List.of(productId), () -> transactionTemplate.execute(status -> {
+            StockMovementWriter.Result result = stockMovementWriter.apply(deltas);
+            Integer stockLevel = result.stockLevels().get(productId);
+            if (stockLevel == null) {
+                throw new ResourceNotFoundException("Product not found with id: " + productId);
+            }
+            if (!result.skipped().isEmpty()) {
+                // Rolls back the half that was applied
+                throw new InsufficientStockException("Not enough stock of product " + productId
+                        + " at location " + fromLocationId + " to transfer " + quantity);
+            }
+            return new StockTransferDTO(productId, fromLocationId, toLocationId, quantity,
+                    locationStock(productId, fromLocationId), locationStock(productId, toLocationId),
+                    stockLevel, transferReference);
+        }));
+    }
+
+    /**
+     * The product's committed stock for the write-behind buffer, with the location levels the writer
+     * chooses from; a missing default location row holds what the other rows do not, as in the writer
+     */
+    private StockWriteBehindBuffer.CommittedStock committedStock(Long productId) {
+        int stockLevel = productRepository.findStockLevelById(productId)
+                .orElseThrow(() -> new ResourceNotFoundException("Product not found with id: " + productId));
+        Long defaultLocationId = null;
+        Set<Long> movable = new HashSet<>();
+        for (StockLocation location : locationRepository.findAll()) {
+            if (Boolean.TRUE.equals(location.getIsDefault())) {
+                defaultLocationId = location.getId();
+                movable.add(location.getId());
+            } else if (Boolean.TRUE.equals(location.getIsActive())) {
+                movable.add(location.getId());
+            }
+        }
+        Map<Long, Integer> levels = new HashMap<>();
+        int held = 0;
+        for (ProductLocationStock row : locationStockRepository.findByProductIdOrderByLocationIdAsc(productId)) {
+            held += row.getStockLevel();
+            if (movable.contains(row.getLocationId())) {
+                levels.put(row.getLocationId(), row.getStockLevel());
+            }
+        }
+        if (defaultLocationId != null && !levels.containsKey(defaultLocationId)) {
+            levels.put(defaultLocationId, Math.max(0, stockLevel - held));
+        }
+        return new StockWriteBehindBuffer.CommittedStock(stockLevel, levels, defaultLocationId);
+    }
+
+    private void requireActiveLocation(Long locationId) {
+        StockLocation location = locationRepository.findById(locationId)
+                .orElseThrow(() -> new ResourceNotFoundException("Stock location not found with id: " + locationId));
+        if (!Boolean.TRUE.equals(location.getIsActive())) {
+            throw new IllegalArgumentException("Stock location " + location.getCode() + " is not active");
+        }
+    }
+
+    private int locationStock(Long productId, Long locationId) {
+        return locationStockRepository.findByProductIdAndLocationId(productId, locationId)
+                .map(ProductLocationStock::getStockLevel)
+                .orElse(0);
+    }
+
+    private static String normalizeReference(String reference) {
+        if (reference != null && reference.length() > MAX_REFERENCE_LENGTH) {
+            throw new IllegalArgumentException("Reference cannot exceed " + MAX_REFERENCE_LENGTH + " characters");
+        }
+        return reference != null && !reference.isBlank() ? reference.trim() : null;
+    }
+
+    private static String currentUsername() {
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        return authentication != null ? authentication.getName() : null;
+    }
+}
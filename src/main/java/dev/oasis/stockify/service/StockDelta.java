@@ -0,0 +1,23 @@
+package dev.oasis.stockify.service;
+
+import dev.oasis.stockify.model.StockMovementType;
+
+import java.time.LocalDateTime;
+
+/**
+ * One requested stock change of a product, written as one stock_movement row.
+ * journalId is "<node>:<sequence>" for changes accepted by the write-behind buffer, null otherwise.
+ * locationId is the stock location that moves. Without one, stock is added to the default location and
+ * taken from it, or from the location holding the most of the product when the default cannot cover it.
+ */
+public record StockDelta(String journalId,
+                         long sequence,
+                         String tenantId,
+                         Long productId,
+                         Long locationId,
+                         int delta,
+                         StockMovementType type,
+                         String reference,
+                         String username,
+                         LocalDateTime createdAt) {
+}
@@ -0,0 +1,248 @@
+package dev.oasis.stockify.service;
+
+import dev.oasis.stockify.model.StockMovementType;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.BufferedReader;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.net.URLDecoder;
+import java.net.URLEncoder;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.security.SecureRandom;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.TreeMap;
+import java.util.stream.Stream;
+
+/**
+ * Local append-only journal of the stock deltas accepted by the write-behind buffer.
+ * <p>
+ * Every delta is appended (one tab separated line) before it is acknowledged, with a journal id
+ * "&lt;run&gt;:&lt;sequence&gt;" where the run id is random per process start. Segments roll at
+ * {@code segment-bytes} and are deleted once every delta in them is committed to the database.
+ * Segments found at startup belong to an earlier run; their deltas are handed to recovery, which
+ * replays those whose journal id is not in stock_journal_entry yet.
+ */
+@Slf4j
+class StockJournal implements Closeable {
+
+    private static final String SEGMENT_SUFFIX = ".log";
+    // An active segment with nothing pending is rolled (and deleted) past this size to keep recovery short
+    private static final long IDLE_ROLL_BYTES = 1 << 20;
+
+    private final Path directory;
+    private final long segmentBytes;
+    private final boolean syncEachWrite;
+    private final String runId;
+    private final List<Path> recoveredSegments;
+    private final List<StockDelta> recovered = new ArrayList<>();
+    // Guarded by this
+    private final NavigableMap<Long, Segment> segments = new TreeMap<>();
+    private long sequence;
+    private int segmentIndex;
+    private Segment active;
+    private boolean dirty;
+
+    StockJournal(Path directory, long segmentBytes, boolean syncEachWrite) throws IOException {
+        this.directory = directory;
+        this.segmentBytes = segmentBytes;
+        this.syncEachWrite = syncEachWrite;
+        byte[] run = new byte[6];
+        new SecureRandom().nextBytes(run);
+        this.runId = HexFormat.of().formatHex(run);
+        Files.createDirectories(directory);
+        try (Stream<Path> files = Files.list(directory)) {
+            this.recoveredSegments = files.filter(path -> path.getFileName().toString().endsWith(SEGMENT_SUFFIX))
+                    .sorted()
+                    .toList();
+        }
+        for (Path segment : recoveredSegments) {
+            read(segment);
+        }
+        this.active = openSegment(1);
+    }
+
+    /**
+     * Appends the delta and returns it with its journal id and sequence
+     */
+    synchronized StockDelta append(StockDelta delta) {
+        long next = sequence + 1;
+        StockDelta journaled = new StockDelta(runId + ":" + next, next, delta.tenantId(), delta.productId(),
+                delta.locationId(), delta.delta(), delta.type(), delta.reference(), delta.username(), delta.createdAt());
+        ByteBuffer line = ByteBuffer.wrap(format(journaled).getBytes(StandardCharsets.UTF_8));
+        try {
+            if (active.size > 0 && active.size + line.remaining() > segmentBytes) {
+                roll(next);
+            }
+            while (line.hasRemaining()) {
+                active.size += active.channel.write(line);
+            }
+            if (syncEachWrite) {
+                active.channel.force(false);
+            } else {
+                dirty = true;
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not write stock journal", e);
+        }
+        sequence = next;
+        active.pending++;
+        return journaled;
+    }
+
+    /**
+     * Forces appended entries to disk; called once per flush window when entries are not synced on write
+     */
+    synchronized void sync() {
+        if (!dirty) {
+            return;
+        }
+        try {
+            active.channel.force(false);
+            dirty = false;
+        } catch (IOException e) {
+            log.warn("⚠️ Could not sync stock journal: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * Marks deltas as applied (or finally rejected); fully applied closed segments are deleted
+     */
+    synchronized void committed(Collection<StockDelta> deltas) {
+        for (StockDelta delta : deltas) {
+            Map.Entry<Long, Segment> entry = segments.floorEntry(delta.sequence());
+            if (delta.sequence() > 0 && entry != null) {
+                entry.getValue().pending--;
+            }
+        }
+        if (active.pending == 0 && active.size >= IDLE_ROLL_BYTES) {
+            try {
+                roll(sequence + 1);
+            } catch (IOException e) {
+                log.warn("⚠️ Could not roll stock journal segment: {}", e.getMessage());
+            }
+        }
+        segments.values().removeIf(segment -> {
+            if (segment == active || segment.pending > 0) {
+                return false;
+            }
+            delete(segment.path);
+            return true;
+        });
+    }
+
+    /**
+     * Deltas found in segments of an earlier run, in journal order
+     */
+    List<StockDelta> recovered() {
+        return recovered;
+    }
+
+    /**
+     * Drops the segments of earlier runs once recovery has applied them
+     */
+    void recoveryDone() {
+        recoveredSegments.forEach(StockJournal::delete);
+        recovered.clear();
+    }
+
+    @Override
+    public synchronized void close() {
+        try {
+            active.channel.force(false);
+            active.channel.close();
+            if (active.pending == 0) {
+                delete(active.path);
+            }
+        } catch (IOException e) {
+            log.warn("⚠️ Could not close stock journal: {}", e.getMessage());
+        }
+    }
+
+    private void roll(long firstSequence) throws IOException {
+        active.channel.force(false);
+        active.channel.close();
+        active = openSegment(firstSequence);
+        dirty = false;
+    }
+
+    private Segment openSegment(long firstSequence) throws IOException {
+        Path path = directory.resolve(String.format("%s-%06d%s", runId, ++segmentIndex, SEGMENT_SUFFIX));
+        FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE_NEW, StandardOpenOption.WRITE);
+        Segment segment = new Segment(path, channel);
+        segments.put(firstSequence, segment);
+        return segment;
+    }
+
+    private void read(Path segment) throws IOException {
+        try (BufferedReader reader = Files.newBufferedReader(segment, StandardCharsets.UTF_8)) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                try {
+                    recovered.add(parse(line));
+                } catch (RuntimeException e) {
+                    // A torn last line from a crash mid-write; it was never acknowledged
+                    log.warn("⚠️ Skipping unreadable stock journal entry in {}: {}", segment.getFileName(), e.getMessage());
+                }
+            }
+        }
+    }
+
+    private static String format(StockDelta delta) {
+        return String.join("\t", delta.journalId(), delta.tenantId(), String.valueOf(delta.productId()),
+                String.valueOf(delta.delta()), delta.type().name(), delta.createdAt().toString(),
+                encode(delta.username()), encode(delta.reference()),
+                delta.locationId() != null ? String.valueOf(delta.locationId()) : "") + "\n";
+    }
+
+    private static StockDelta parse(String line) {
+        String[] fields = line.split("\t", -1);
+        // Entries written before stock locations have no location field
+        if (fields.length != 8 && fields.length != 9) {
+            throw new IllegalArgumentException("expected 9 fields, got " + fields.length);
+        }
+        Long locationId = fields.length == 9 && !fields[8].isEmpty() ? Long.valueOf(fields[8]) : null;
+        return new StockDelta(fields[0], 0, fields[1], Long.valueOf(fields[2]), locationId, Integer.parseInt(fields[3]),
+                StockMovementType.valueOf(fields[4]), decode(fields[7]), decode(fields[6]), LocalDateTime.parse(fields[5]));
+    }
+
+    private static String encode(String value) {
+        return value != null ? URLEncoder.encode(value, StandardCharsets.UTF_8) : "";
+    }
+
+    private static String decode(String value) {
+        return value.isEmpty() ? null : URLDecoder.decode(value, StandardCharsets.UTF_8);
+    }
+
+    private static void delete(Path path) {
+        try {
+            Files.deleteIfExists(path);
+        } catch (IOException e) {
+            log.warn("⚠️ Could not delete stock journal segment {}: {}", path.getFileName(), e.getMessage());
+        }
+    }
+
+    private static final class Segment {
+        private final Path path;
+        private final FileChannel channel;
+        private long size;
+        private int pending;
+
+        private Segment(Path path, FileChannel channel) {
+            this.path = path;
+            this.channel = channel;
+        }
+    }
+}
@@ -0,0 +1,135 @@
+package dev.oasis.stockify.service;
+
+import dev.oasis.stockify.config.tenant.TenantScoped;
+import dev.oasis.stockify.dto.LocationStockDTO;
+import dev.oasis.stockify.dto.ProductLocationsDTO;
+import dev.oasis.stockify.exception.GlobalExceptionHandler.ResourceNotFoundException;
+import dev.oasis.stockify.model.Product;
+import dev.oasis.stockify.model.ProductLocationStock;
+import dev.oasis.stockify.model.StockAlertLevel;
+import dev.oasis.stockify.model.StockLocation;
+import dev.oasis.stockify.repository.ProductLocationStockRepository;
+import dev.oasis.stockify.repository.ProductRepository;
+import dev.oasis.stockify.repository.StockLocationRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Stock locations (warehouses) and the stock of products per location.
+ * Stock itself only moves through StockAdjustmentService; totals are read from product.stock_level.
+ */
+@Slf4j
+@Service
+@TenantScoped
+public class StockLocationService {
+    private static final int MAX_CODE_LENGTH = 50;
+
+    private final StockLocationRepository locationRepository;
+    private final ProductLocationStockRepository locationStockRepository;
+    private final ProductRepository productRepository;
+
+    public StockLocationService(StockLocationRepository locationRepository,
+                                ProductLocationStockRepository locationStockRepository,
+                                ProductRepository productRepository) {
+        this.locationRepository = locationRepository;
+        this.locationStockRepository = locationStockRepository;
+        this.productRepository = productRepository;
+    }
+
+    public List<StockLocation> getLocations() {
+        return locationRepository.findAllByOrderByCodeAsc();
+    }
+
+    /**
+     * Adds a location; codes are stored upper case and must be unique
+     */
+    @Transactional
+    public StockLocation createLocation(String code, String name) {
+        if (code == null || code.isBlank() || name == null || name.isBlank()) {
+            throw new IllegalArgumentException("Location code and name are required");
+        }
+        String normalizedCode = code.trim().toUpperCase(Locale.ROOT);
+        if (normalizedCode.length() > MAX_CODE_LENGTH) {
+            throw new IllegalArgumentException("Location code cannot exceed " + MAX_CODE_LENGTH + " characters");
+        }
+        if (locationRepository.findByCode(normalizedCode).isPresent()) {
+            throw new IllegalArgumentException("Location code '" + normalizedCode + "' is already in use");
+        }
+        StockLocation location = new StockLocation();
+        location.setCode(normalizedCode);
+        location.setName(name.trim());
+        StockLocation saved = locationRepository.save(location);
+        log.info("🏬 Stock location {} created", saved.getCode());
+        return saved;
+    }
+
+    /**
+     * Stock of a product per location together with its total; the total is product.stock_level,
+     * which every stock write keeps equal to the sum of the location rows
+     */
+    @Transactional(readOnly = true)
+    public ProductLocationsDTO getProductLocations(Long productId) {
+        Product product = productRepository.findById(productId)
+                .orElseThrow(() -> new ResourceNotFoundException("Product not found with id: " + productId));
+        Map<Long, StockLocation> locations = locationsById();
+        List<LocationStockDTO> stock = locationStockRepository.findByProductIdOrderByLocationIdAsc(productId).stream()
+                .map(row -> toDto(row, locations))
+                .toList();
+        return new ProductLocationsDTO(productId, product.getStockLevel(), StockAlertLevel.of(product), stock);
+    }
+
+    /**
+     * Sets or clears (null) the alert threshold of a product at one location
+     */
+    @Transactional
+    public LocationStockDTO setLowStockThreshold(Long productId, Long locationId, Integer threshold) {
+        if (threshold != null && threshold <= 0) {
+            throw new IllegalArgumentException("Low stock threshold must be positive");
+        }
+        if (!productRepository.existsById(productId)) {
+            throw new ResourceNotFoundException("Product not found with id: " + productId);
+        }
+        if (!locationRepository.existsById(locationId)) {
+            throw new ResourceNotFoundException("Stock location not found with id: " + locationId);
+        }
+        ProductLocationStock row = locationStockRepository.findByProductIdAndLocationId(productId, locationId)
+                .orElseGet(() -> {
+                    ProductLocationStock created = new ProductLocationStock();
+                    created.setProductId(productId);
+                    created.setLocationId(locationId);
+                    return created;
+                });
+        row.setLowStockThreshold(threshold);
+        return toDto(locationStockRepository.save(row), locationsById());
+    }
+
+    /**
+     * Product stock at locations that are at or below their own threshold
+     */
+    @Transactional(readOnly = true)
+    public List<LocationStockDTO> getLowStockLocations() {
+        Map<Long, StockLocation> locations = locationsById();
+        return locationStockRepository.findLowStockLocations().stream()
+                .map(row -> toDto(row, locations))
+                .toList();
+    }
+
+    private Map<Long, StockLocation> locationsById() {
+        return locationRepository.findAll().stream()
+                .collect(Collectors.toMap(StockLocation::getId, Function.identity()));
+    }
+
+    private static LocationStockDTO toDto(ProductLocationStock row, Map<Long, StockLocation> locations) {
+        StockLocation location = locations.get(row.getLocationId());
+        return new LocationStockDTO(row.getProductId(), row.getLocationId(), location != null ? location.getCode() : null,
+                row.getStockLevel(), row.getLowStockThreshold(),
+                StockAlertLevel.of(row.getStockLevel(), row.getLowStockThreshold(), null));
+    }
+}
@@ -0,0 +1,249 @@
+package dev.oasis.stockify.service;
+
+import dev.oasis.stockify.config.tenant.TenantMigrationOrchestrator;
+import dev.oasis.stockify.config.tenant.TenantRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.Date;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.time.format.DateTimeFormatter;
+import java.util.HashSet;
+import java.util.Locale;
+import java.util.Set;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Maintains the monthly partitions of stock_movement on PostgreSQL (see db/vendor/postgresql/V12).
+ * <p>
+ * Each run creates the partitions of the current month and the next premake-months for every tenant, so
+ * rows never land in the default partition, and, when retention-months is set, takes months older than that
+ * out of the table: DETACH keeps them as stock_movement_archive_YYYYMM tables in the tenant schema, DROP
+ * removes them. Months after the tenant's latest stock snapshot are always kept, since reconciliation
+ * replays the movements after it; each removed month is recorded in stock_movement_removed_month, before
+ * which StockSnapshotService no longer answers point-in-time queries. Without partitioning (H2) a run does
+ * nothing, and the scheduled run skips tenants still waiting for their lazy migration.
+ */
+@Slf4j
+@Service
+public class StockMovementPartitionService {
+
+    public enum RetentionMode { DETACH, DROP }
+
+    private static final Pattern PARTITION_NAME = Pattern.compile("stock_movement_p(\\d{6})");
+    private static final DateTimeFormatter PARTITION_MONTH = DateTimeFormatter.ofPattern("yyyyMM");
+
+    private final DataSource dataSource;
+    private final TenantRegistry tenantRegistry;
+    private final TenantMigrationOrchestrator migrationOrchestrator;
+
+    @Value("${stockify.stock.partitions.enabled:true}")
+    private boolean enabled;
+
+    @Value("${stockify.stock.partitions.premake-months:3}")
+    private int premakeMonths;
+
+    @Value("${stockify.stock.partitions.retention-months:0}")
+    private int retentionMonths;
+
+    @Value("${stockify.stock.partitions.retention-mode:DETACH}")
+    private RetentionMode retentionMode;
+
+    public StockMovementPartitionService(DataSource dataSource, TenantRegistry tenantRegistry,
+                                         TenantMigrationOrchestrator migrationOrchestrator) {
+        this.dataSource = dataSource;
+        this.tenantRegistry = tenantRegistry;
+        this.migrationOrchestrator = migrationOrchestrator;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    @Scheduled(cron = "${stockify.stock.partitions.cron:0 0 1 * * *}")
+    public void maintainAllTenants() {
+        if (!enabled || !isPostgres()) {
+            return;
+        }
+        for (String tenant : tenantRegistry.allTenants()) {
+            if (!migrationOrchestrator.isMigrated(tenant)) {
+                log.debug("Schema {} is not migrated yet, skipping stock movement partition maintenance", tenant);
+                continue;
+            }
+            try {
+                maintainTenant(tenant);
+            } catch (SQLException | RuntimeException e) {
+                log.warn("⚠️ Stock movement partition maintenance failed for tenant {}: {}", tenant, e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * Creates missing future partitions and applies retention in the tenant's schema
+     */
+    public void maintainTenant(String tenantId) throws SQLException {
+        String schema = tenantId.toLowerCase(Locale.ROOT);
+        try (Connection connection = connection(schema)) {
+            if (!isPartitioned(connection, schema)) {
+                return;
+            }
+            Set<YearMonth> months = partitionMonths(connection, schema);
+            YearMonth current = YearMonth.now();
+            for (int i = 0; i <= premakeMonths; i++) {
+                YearMonth month = current.plusMonths(i);
+                if (!months.contains(month)) {
+                    createPartition(connection, schema, month);
+                }
+            }
+            if (retentionMonths > 0) {
+                YearMonth keepFrom = current.minusMonths(retentionMonths);
+                YearMonth snapshotMonth = latestSnapshotMonth(connection);
+                if (snapshotMonth == null) {
+                    log.debug("No stock snapshot in schema {}, keeping all stock movement partitions", schema);
+                    return;
+                }
+                if (snapshotMonth.isBefore(keepFrom)) {
+                    keepFrom = snapshotMonth;
+                }
+                for (YearMonth month : months) {
+                    if (month.isBefore(keepFrom)) {
+                        removePartition(connection, schema, month);
+                    }
+                }
+            }
+        }
+    }
+
+    private void createPartition(Connection connection, String schema, YearMonth month) {
+        LocalDate from = month.atDay(1);
+        String sql = String.format("CREATE TABLE IF NOT EXISTS %s.%s PARTITION OF %s.stock_movement FOR VALUES FROM ('%s') TO ('%s')",
+                schema, partitionName(month), schema, from, from.plusMonths(1));
+        try (Statement statement = connection.createStatement()) {
+            statement.execute(sql);
+            log.info("🗂️ Created stock movement partition {}.{}", schema, partitionName(month));
+        } catch (SQLException e) {
+            // Fails when the default partition already holds rows of that month; they must be moved first
+            log.warn("⚠️ Could not create stock movement partition {}.{}: {}", schema, partitionName(month), e.getMessage());
+        }
+    }
+
+    /**
+     * Detaches or drops the month and records it in stock_movement_removed_month, in one transaction.
+     * Journal entries applied before the month's end are forgotten with it (stock_journal_entry).
+     */
+    private void removePartition(Connection connection, String schema, YearMonth month) throws SQLException {
+        String partition = partitionName(month);
+        connection.setAutoCommit(false);
+        try (Statement statement = connection.createStatement();
+             PreparedStatement removed = connection.prepareStatement(
+                     "INSERT INTO stock_movement_removed_month (removed_month, retention_mode) VALUES (?, ?)");
+             PreparedStatement forgotten = connection.prepareStatement(
+                     "DELETE FROM stock_journal_entry WHERE applied_at < ?")) {
+            statement.execute(String.format("ALTER TABLE %s.stock_movement DETACH PARTITION %s.%s", schema, schema, partition));
+            if (retentionMode == RetentionMode.DROP) {
+                statement.execute(String.format("DROP TABLE %s.%s", schema, partition));
+            } else {
+                statement.execute(String.format("ALTER TABLE %s.%s RENAME TO stock_movement_archive_%s",
+                        schema, partition, month.format(PARTITION_MONTH)));
+            }
+            removed.setDate(1, Date.valueOf(month.atDay(1)));
+            removed.setString(2, retentionMode.name());
+            removed.executeUpdate();
+            forgotten.setTimestamp(1, Timestamp.valueOf(month.plusMonths(1).atDay(1).atStartOfDay()));
+            forgotten.executeUpdate();
+            connection.commit();
+        } catch (SQLException | RuntimeException e) {
+            connection.rollback();
+            throw e;
+        } finally {
+            connection.setAutoCommit(true);
+        }
+        if (retentionMode == RetentionMode.DROP) {
+            log.info("🧹 Dropped stock movement partition {}.{}", schema, partition);
+        } else {
+            log.info("📦 Detached stock movement partition {}.{} as stock_movement_archive_{}",
+                    schema, partition, month.format(PARTITION_MONTH));
+        }
+    }
+
+    private static boolean isPartitioned(Connection connection, String schema) throws SQLException {
+        try (PreparedStatement statement = connection.prepareStatement(
+                "SELECT 1 FROM pg_partitioned_table pt JOIN pg_class c ON c.oid = pt.partrelid " +
+                "JOIN pg_namespace n ON n.oid = c.relnamespace WHERE n.nspname = ? AND c.relname = 'stock_movement'")) {
+            statement.setString(1, schema);
+            try (ResultSet rs = statement.executeQuery()) {
+                return rs.next();
+            }
+        }
+    }
+
+    /**
+     * Months with an attached monthly partition; the default partition is not one of them
+     */
+    private static Set<YearMonth> partitionMonths(Connection connection, String schema) throws SQLException {
+        Set<YearMonth> months = new HashSet<>();
+        try (PreparedStatement statement = connection.prepareStatement(
+                "SELECT c.relname FROM pg_inherits i JOIN pg_class c ON c.oid = i.inhrelid " +
+                "JOIN pg_class parent ON parent.oid = i.inhparent JOIN pg_namespace n ON n.oid = parent.relnamespace " +
+                "WHERE n.nspname = ? AND parent.relname = 'stock_movement'")) {
+            statement.setString(1, schema);
+            try (ResultSet rs = statement.executeQuery()) {
+                while (rs.next()) {
+                    Matcher matcher = PARTITION_NAME.matcher(rs.getString(1));
+                    if (matcher.matches()) {
+                        months.add(YearMonth.parse(matcher.group(1), PARTITION_MONTH));
+                    }
+                }
+            }
+        }
+        return months;
+    }
+
+    private static YearMonth latestSnapshotMonth(Connection connection) throws SQLException {
+        try (Statement statement = connection.createStatement();
+             ResultSet rs = statement.executeQuery("SELECT MAX(as_of) FROM stock_snapshot")) {
+            if (rs.next() && rs.getTimestamp(1) != null) {
+                return YearMonth.from(rs.getTimestamp(1).toLocalDateTime());
+            }
+            return null;
+        }
+    }
+
+    /**
+     * Pooled connection in the tenant's schema; with lazy tenant migration the first access migrates it first
+     */
+    private Connection connection(String schema) throws SQLException {
+        migrationOrchestrator.ensureTenantReady(schema);
+        Connection connection = dataSource.getConnection();
+        try {
+            connection.setSchema(schema);
+            return connection;
+        } catch (SQLException e) {
+            connection.close();
+            throw e;
+        }
+    }
+
+    private boolean isPostgres() {
+        try (Connection connection = dataSource.getConnection()) {
+            return "PostgreSQL".equals(connection.getMetaData().getDatabaseProductName());
+        } catch (SQLException e) {
+            log.warn("⚠️ Could not determine the database for stock movement partitions: {}", e.getMessage());
+            return false;
+        }
+    }
+
+    private static String partitionName(YearMonth month) {
+        return "stock_movement_p" + month.format(PARTITION_MONTH);
+    }
+}
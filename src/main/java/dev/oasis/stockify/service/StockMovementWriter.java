@@ -0,0 +1,465 @@
+package dev.oasis.stockify.service;
+
+import dev.oasis.stockify.model.StockAlertLevel;
+import dev.oasis.stockify.repository.ProductRepository;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import lombok.extern.slf4j.Slf4j;
+import org.hibernate.Session;
+import org.springframework.stereotype.Component;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+
+/**
+ * Writes stock deltas of the current tenant: one UPDATE per product, one per touched location row
+ * and one batched stock_movement insert, on the transaction's own connection (so the tenant schema
+ * applies). product.stock_level is kept as the total of the location rows. Used for single
+ * adjustments, transfers and write-behind flushes alike.
+ */
+@Slf4j
+@Component
+public class StockMovementWriter {
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    private final ProductRepository productRepository;
+    private final StockNotificationService stockNotificationService;
+    private final KitAvailabilityService kitAvailabilityService;
+
+    public StockMovementWriter(ProductRepository productRepository, StockNotificationService stockNotificationService,
+                               KitAvailabilityService kitAvailabilityService) {
+        this.productRepository = productRepository;
+        this.stockNotificationService = stockNotificationService;
+        this.kitAvailabilityService = kitAvailabilityService;
+    }
+
+    /**
+     * Applies the deltas in order inside the caller's transaction.
+     * Product rows and then their location rows are locked in id order so concurrent batches cannot
+     * deadlock. A delta that would take the product or its location below zero, or whose product or
+     * location is gone, is skipped and reported back. Stock alerts are checked once per product, from
+     * the level before the batch to the level after it, and once per location row with its own threshold.
+     * Kits using the written products are locked together with them and recomputed afterwards.
+     */
+    public Result apply(List<StockDelta> deltas) {
+        if (deltas.isEmpty()) {
+            return new Result(Map.of(), List.of());
+        }
+        TreeSet<Long> productIds = new TreeSet<>();
+        deltas.forEach(delta -> productIds.add(delta.productId()));
+        Set<Long> kitIds = new HashSet<>(kitAvailabilityService.findKitIds(productIds));
+        Session session = entityManager.unwrap(Session.class);
+        Written written = session.doReturningWork(connection -> write(connection, deltas, productIds, kitIds));
+
+        written.previousLevels().forEach((productId, previousLevel) -> productRepository.findById(productId)
+                .ifPresent(product -> {
+                    if (StockAlertLevel.of(product) != previousLevel) {
+                        stockNotificationService.checkStockAlert(previousLevel, product);
+                    }
+                }));
+        written.locationAlerts().forEach(alert -> productRepository.findById(alert.stock().productId)
+                .ifPresent(product -> stockNotificationService.checkLocationStockAlert(alert.previous(),
+                        alert.stock().level(), product, alert.locationCode(), alert.stock().stockLevel,
+                        alert.stock().lowStockThreshold)));
+        kitAvailabilityService.recompute(written.kitIds());
+        return new Result(written.stockLevels(), written.skipped());
+    }
+
+    private Written write(Connection connection, List<StockDelta> deltas, Set<Long> productIds, Set<Long> kitIds)
+            throws SQLException {
+        Map<Long, ProductStock> products = lockProducts(connection, productIds, kitIds);
+        Map<Long, StockAlertLevel> previousLevels = new LinkedHashMap<>();
+        products.forEach((id, stock) -> previousLevels.put(id, stock.level()));
+        Map<Long, Location> locations = locations(connection);
+        Location defaultLocation = locations.values().stream().filter(Location::isDefault).findFirst().orElse(null);
+        lockLocationStock(connection, products, defaultLocation);
+
+        List<StockDelta> skipped = new ArrayList<>();
+        List<Movement> movements = new ArrayList<>(deltas.size());
+        for (StockDelta delta : deltas) {
+            ProductStock stock = products.get(delta.productId());
+            LocationStock locationStock = stock != null && stock.stockLevel + delta.delta() >= 0
+                    ? locationFor(delta, stock, locations, defaultLocation) : null;
+            if (locationStock == null) {
+                skipped.add(delta);
+                continue;
+            }
+            int previous = locationStock.stockLevel;
+            stock.stockLevel += delta.delta();
+            locationStock.stockLevel += delta.delta();
+            movements.add(new Movement(delta, locationStock.locationId, previous, locationStock.stockLevel));
+        }
+        if (movements.isEmpty()) {
+            return new Written(stockLevels(products), Map.of(), List.of(), Set.of(), skipped);
+        }
+
+        LocalDateTime now = LocalDateTime.now();
+        try (PreparedStatement update = connection.prepareStatement(
+                "UPDATE product SET stock_level = ?, version = version + 1, updated_at = ? WHERE id = ?")) {
+            for (ProductStock stock : products.values()) {
+                if (stock.stockLevel != stock.initialLevel) {
+                    update.setInt(1, stock.stockLevel);
+                    update.setTimestamp(2, Timestamp.valueOf(now));
+                    update.setLong(3, stock.id);
+                    update.addBatch();
+                }
+            }
+            update.executeBatch();
+        }
+        writeLocationStock(connection, products, now);
+
+        Map<String, Long> userIds = userIds(connection, movements);
+        try (PreparedStatement insert = connection.prepareStatement(
+                "INSERT INTO stock_movement (product_id, movement_type, quantity, previous_stock, new_stock, " +
+                "reference_id, created_by, created_at, journal_id, location_id) VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?)")) {
+            for (Movement movement : movements) {
+                StockDelta delta = movement.delta();
+                Long userId = delta.username() != null ? userIds.get(delta.username()) : null;
+                insert.setLong(1, delta.productId());
+                insert.setString(2, delta.type().name());
+                insert.setInt(3, delta.delta());
+                insert.setInt(4, movement.previousStock());
+                insert.setInt(5, movement.newStock());
+                insert.setString(6, delta.reference());
+                if (userId != null) {
+                    insert.setLong(7, userId);
+                } else {
+                    insert.setNull(7, Types.BIGINT);
+                }
+                insert.setTimestamp(8, Timestamp.valueOf(delta.createdAt()));
+                insert.setString(9, delta.journalId());
+                insert.setLong(10, movement.locationId());
+                insert.addBatch();
+            }
+            insert.executeBatch();
+        }
+        recordJournalEntries(connection, movements, now);
+
+        // Only products whose alert level moved need an alert check
+        previousLevels.entrySet().removeIf(entry -> products.get(entry.getKey()).level() == entry.getValue());
+        List<LocationAlert> locationAlerts = new ArrayList<>();
+        for (ProductStock stock : products.values()) {
+            for (LocationStock locationStock : stock.locations.values()) {
+                StockAlertLevel previous = locationStock.initialLevel();
+                if (locationStock.lowStockThreshold != null
+                        && StockNotificationService.isCrossing(previous, locationStock.level())) {
+                    String code = locations.get(locationStock.locationId).code();
+                    locationAlerts.add(new LocationAlert(locationStock, code, previous));
+                }
+            }
+        }
+        return new Written(stockLevels(products), previousLevels, locationAlerts, kitIds, skipped);
+    }
+
+    /**
+     * The location row a delta moves, or null when the delta cannot be applied there.
+     * Without a location, stock comes into the default location and goes out of it, or out of the
+     * location holding the most of the product when the default cannot cover the delta.
+     */
+    private static LocationStock locationFor(StockDelta delta, ProductStock stock, Map<Long, Location> locations,
+                                             Location defaultLocation) {
+        LocationStock locationStock;
+        if (delta.locationId() != null) {
+            Location location = locations.get(delta.locationId());
+            if (location == null || !location.active()) {
+                return null;
+            }
+            locationStock = stock.locations.computeIfAbsent(location.id(), id -> new LocationStock(stock.id, id, null, 0, null));
+        } else {
+            if (defaultLocation == null) {
+                return null;
+            }
+            locationStock = stock.locations.get(defaultLocation.id());
+            if (delta.delta() < 0 && locationStock.stockLevel + delta.delta() < 0) {
+                locationStock = stock.locations.values().stream()
+                        .filter(candidate -> locations.containsKey(candidate.locationId)
+                                && locations.get(candidate.locationId).active())
+                        .max(Comparator.comparingInt(candidate -> candidate.stockLevel))
+                        .orElse(locationStock);
+            }
+        }
+        return locationStock.stockLevel + delta.delta() >= 0 ? locationStock : null;
+    }
+
+    private static Map<Long, Location> locations(Connection connection) throws SQLException {
+        // A tenant has a handful of locations, read them all
+        Map<Long, Location> locations = new HashMap<>();
+        try (PreparedStatement statement = connection.prepareStatement(
+                     "SELECT id, code, is_default, is_active FROM stock_location");
+             ResultSet rs = statement.executeQuery()) {
+            while (rs.next()) {
+                Location location = new Location(rs.getLong("id"), rs.getString("code"),
+                        rs.getBoolean("is_default"), rs.getBoolean("is_active"));
+                locations.put(location.id(), location);
+            }
+        }
+        return locations;
+    }
+
+    /**
+     * Locks the location rows of the locked products. A product without a default location row, e.g. one
+     * inserted outside ProductService, gets one holding the part of its total not held elsewhere.
+     */
+    private static void lockLocationStock(Connection connection, Map<Long, ProductStock> products, Location defaultLocation)
+            throws SQLException {
+        if (products.isEmpty()) {
+            return;
+        }
+        TreeSet<Long> ids = new TreeSet<>(products.keySet());
+        String query = "SELECT id, product_id, location_id, stock_level, low_stock_threshold FROM product_location_stock " +
+                "WHERE product_id IN (" + placeholders(ids.size()) + ") ORDER BY product_id, location_id FOR UPDATE";
+        try (PreparedStatement statement = connection.prepareStatement(query)) {
+            int index = 1;
+            for (Long id : ids) {
+                statement.setLong(index++, id);
+            }
+            try (ResultSet rs = statement.executeQuery()) {
+                while (rs.next()) {
+                    LocationStock locationStock = new LocationStock(rs.getLong("product_id"), rs.getLong("location_id"),
+                            rs.getLong("id"), rs.getInt("stock_level"), (Integer) rs.getObject("low_stock_threshold"));
+                    products.get(locationStock.productId).locations.put(locationStock.locationId, locationStock);
+                }
+            }
+        }
+        if (defaultLocation == null) {
+            return;
+        }
+        for (ProductStock stock : products.values()) {
+            if (!stock.locations.containsKey(defaultLocation.id())) {
+                int elsewhere = stock.locations.values().stream().mapToInt(locationStock -> locationStock.stockLevel).sum();
+                LocationStock missing = new LocationStock(stock.id, defaultLocation.id(), null, 0, null);
+                // Counted as a change from zero so the row gets inserted
+                missing.stockLevel = Math.max(0, stock.initialLevel - elsewhere);
+                stock.locations.put(defaultLocation.id(), missing);
+            }
+        }
+    }
+
+    private static void writeLocationStock(Connection connection, Map<Long, ProductStock> products, LocalDateTime now)
+            throws SQLException {
+        try (PreparedStatement update = connection.prepareStatement(
+                     "UPDATE product_location_stock SET stock_level = ?, updated_at = ? WHERE id = ?");
+             PreparedStatement insert = connection.prepareStatement(
+                     "INSERT INTO product_location_stock (product_id, location_id, stock_level, updated_at) VALUES (?, ?, ?, ?)")) {
+            for (ProductStock stock : products.values()) {
+                for (LocationStock locationStock : stock.locations.values()) {
+                    if (locationStock.stockLevel == locationStock.initialStock) {
+                        continue;
+                    }
+                    if (locationStock.rowId != null) {
+                        update.setInt(1, locationStock.stockLevel);
+                        update.setTimestamp(2, Timestamp.valueOf(now));
+                        update.setLong(3, locationStock.rowId);
+                        update.addBatch();
+                    } else {
+                        insert.setLong(1, locationStock.productId);
+                        insert.setLong(2, locationStock.locationId);
+                        insert.setInt(3, locationStock.stockLevel);
+                        insert.setTimestamp(4, Timestamp.valueOf(now));
+                        insert.addBatch();
+                    }
+                }
+            }
+            update.executeBatch();
+            insert.executeBatch();
+        }
+    }
+
+    private Map<Long, ProductStock> lockProducts(Connection connection, Set<Long> productIds, Set<Long> kitIds)
+            throws SQLException {
+        // Kits are locked in the same id ordered pass, so their recomputation cannot deadlock with other batches
+        TreeSet<Long> ids = new TreeSet<>(productIds);
+        ids.addAll(kitIds);
+        String query = "SELECT id, stock_level, low_stock_threshold, overstock_threshold FROM product WHERE id IN ("
+                + placeholders(ids.size()) + ") ORDER BY id FOR UPDATE";
+
+        Map<Long, ProductStock> products = new HashMap<>();
+        try (PreparedStatement statement = connection.prepareStatement(query)) {
+            int index = 1;
+            for (Long id : ids) {
+                statement.setLong(index++, id);
+            }
+            try (ResultSet rs = statement.executeQuery()) {
+                while (rs.next()) {
+                    ProductStock stock = new ProductStock(rs.getLong("id"), rs.getInt("stock_level"),
+                            rs.getInt("low_stock_threshold"), (Integer) rs.getObject("overstock_threshold"));
+                    products.put(stock.id, stock);
+                }
+            }
+        }
+        return products;
+    }
+
+    private Map<String, Long> userIds(Connection connection, List<Movement> movements) throws SQLException {
+        TreeSet<String> usernames = new TreeSet<>();
+        movements.forEach(movement -> {
+            if (movement.delta().username() != null) {
+                usernames.add(movement.delta().username());
+            }
+        });
+        if (usernames.isEmpty()) {
+            return Map.of();
+        }
+
+        Map<String, Long> userIds = new HashMap<>();
+        String query = "SELECT id, username FROM app_user WHERE username IN (" + placeholders(usernames.size()) + ")";
+        try (PreparedStatement statement = connection.prepareStatement(query)) {
+            int index = 1;
+            for (String username : usernames) {
+                statement.setString(index++, username);
+            }
+            try (ResultSet rs = statement.executeQuery()) {
+                while (rs.next()) {
+                    userIds.put(rs.getString("username"), rs.getLong("id"));
+                }
+            }
+        }
+        return userIds;
+    }
+
+    /**
+     * Marks the journal ids of the written movements as applied (stock_journal_entry). The primary key rejects
+     * an entry written before, whatever created_at its replay carries.
+     */
+    private static void recordJournalEntries(Connection connection, List<Movement> movements, LocalDateTime now)
+            throws SQLException {
+        try (PreparedStatement insert = connection.prepareStatement(
+                "INSERT INTO stock_journal_entry (journal_id, applied_at) VALUES (?, ?)")) {
+            boolean any = false;
+            for (Movement movement : movements) {
+                if (movement.delta().journalId() != null) {
+                    insert.setString(1, movement.delta().journalId());
+                    insert.setTimestamp(2, Timestamp.valueOf(now));
+                    insert.addBatch();
+                    any = true;
+                }
+            }
+            if (any) {
+                insert.executeBatch();
+            }
+        }
+    }
+
+    /**
+     * Journal ids of the given deltas that were already written in the current tenant, looked up in
+     * stock_journal_entry by primary key rather than in the partitioned stock_movement
+     */
+    public List<String> existingJournalIds(Collection<StockDelta> deltas) {
+        if (deltas.isEmpty()) {
+            return List.of();
+        }
+        Session session = entityManager.unwrap(Session.class);
+        return session.doReturningWork(connection -> {
+            List<String> existing = new ArrayList<>();
+            String query = "SELECT journal_id FROM stock_journal_entry WHERE journal_id IN (" + placeholders(deltas.size()) + ")";
+            try (PreparedStatement statement = connection.prepareStatement(query)) {
+                int index = 1;
+                for (StockDelta delta : deltas) {
+                    statement.setString(index++, delta.journalId());
+                }
+                try (ResultSet rs = statement.executeQuery()) {
+                    while (rs.next()) {
+                        existing.add(rs.getString(1));
+                    }
+                }
+            }
+            return existing;
+        });
+    }
+
+    private static String placeholders(int count) {
+        return String.join(", ", Collections.nCopies(count, "?"));
+    }
+
+    private static Map<Long, Integer> stockLevels(Map<Long, ProductStock> products) {
+        Map<Long, Integer> levels = new HashMap<>();
+        products.forEach((id, stock) -> levels.put(id, stock.stockLevel));
+        return levels;
+    }
+
+    /**
+     * Stock level per written product after the batch, and the deltas that were not applied
+     */
+    public record Result(Map<Long, Integer> stockLevels, List<StockDelta> skipped) {
+    }
+
+    private record Written(Map<Long, Integer> stockLevels, Map<Long, StockAlertLevel> previousLevels,
+                           List<LocationAlert> locationAlerts, Set<Long> kitIds, List<StockDelta> skipped) {
+    }
+
+    private record Movement(StockDelta delta, long locationId, int previousStock, int newStock) {
+    }
+
+    private record Location(long id, String code, boolean isDefault, boolean active) {
+    }
+
+    private record LocationAlert(LocationStock stock, String locationCode, StockAlertLevel previous) {
+    }
+
+    private static final class ProductStock {
+        private final long id;
+        private final int initialLevel;
+        private final int lowStockThreshold;
+        private final Integer overstockThreshold;
+        // By location id, so the location holding the most is the lowest id among equals
+        private final Map<Long, LocationStock> locations = new TreeMap<>();
+        private int stockLevel;
+
+        private ProductStock(long id, int stockLevel, int lowStockThreshold, Integer overstockThreshold) {
+            this.id = id;
+            this.initialLevel = stockLevel;
+            this.stockLevel = stockLevel;
+            this.lowStockThreshold = lowStockThreshold;
+            this.overstockThreshold = overstockThreshold;
+        }
+
+        StockAlertLevel level() {
+            return StockAlertLevel.of(stockLevel, lowStockThreshold, overstockThreshold);
+        }
+    }
+
+    private static final class LocationStock {
+        private final long productId;
+        private final long locationId;
+        private final Long rowId;
+        private final int initialStock;
+        private final Integer lowStockThreshold;
+        private int stockLevel;
+
+        private LocationStock(long productId, long locationId, Long rowId, int stockLevel, Integer lowStockThreshold) {
+            this.productId = productId;
+            this.locationId = locationId;
+            this.rowId = rowId;
+            this.initialStock = stockLevel;
+            this.stockLevel = stockLevel;
+            this.lowStockThreshold = lowStockThreshold;
+        }
+
+        StockAlertLevel initialLevel() {
+            return StockAlertLevel.of(initialStock, lowStockThreshold, null);
+        }
+
+        StockAlertLevel level() {
+            return StockAlertLevel.of(stockLevel, lowStockThreshold, null);
+        }
+    }
+}
@@ -1,49 +1,183 @@
 package dev.oasis.stockify.service;
 
+import dev.oasis.stockify.config.tenant.TenantContext;
+import dev.oasis.stockify.config.tenant.TenantScoped;
+import dev.oasis.stockify.dto.NotificationPageDTO;
+import dev.oasis.stockify.event.NotificationCreatedEvent;
+import dev.oasis.stockify.event.NotificationsReadEvent;
 import dev.oasis.stockify.model.Product;
+import dev.oasis.stockify.model.StockAlertLevel;
 import dev.oasis.stockify.model.StockNotification;
 import dev.oasis.stockify.repository.StockNotificationRepository;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.Limit;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
 
 @Service
+@TenantScoped
 public class StockNotificationService {
     private static final Logger logger = LoggerFactory.getLogger(StockNotificationService.class);
     private final StockNotificationRepository notificationRepository;
     private final Optional<EmailService> emailService;
+    private final ApplicationEventPublisher eventPublisher;
+
+    // Unread count per tenant, kept in step with creates/reads and recounted after the TTL
+    // (covers changes made by other instances or outside this service)
+    private final ConcurrentMap<String, UnreadCount> unreadCounts = new ConcurrentHashMap<>();
+
+    @Value("${stockify.notifications.unread-count-ttl-ms:60000}")
+    private long unreadCountTtlMs;
+
+    @Value("${stockify.notifications.page-size:20}")
+    private int defaultPageSize;
+
+    @Value("${stockify.notifications.max-page-size:100}")
+    private int maxPageSize;
 
     public StockNotificationService(StockNotificationRepository notificationRepository,
-                                  @Autowired(required = false) EmailService emailService) {
+                                  @Autowired(required = false) EmailService emailService,
+                                  ApplicationEventPublisher eventPublisher) {
         this.notificationRepository = notificationRepository;
         this.emailService = Optional.ofNullable(emailService);
+        this.eventPublisher = eventPublisher;
         logger.info("StockNotificationService initialized. Email service enabled: {}", this.emailService.isPresent());
     }
 
+    /**
+     * Edge-triggered stock alert: a notification (and e-mail) is created only when the write moved the
+     * product into an alert state. Staying in a state, e.g. editing the description of a product that is
+     * already low, creates nothing; neither does recovering from out of stock to low.
+     *
+     * @param previous the product's state before the write, null for a new product
+     */
     @Transactional
-    public void checkAndCreateLowStockNotification(Product product) {
-        if (product.isLowStock()) {
-            StockNotification notification = new StockNotification();
-            notification.setProduct(product);
-            notification.setMessage(String.format("'%s' ürününün stok seviyesi düşük! Mevcut stok: %d, Eşik: %d",
-                    product.getTitle(), product.getStockLevel(), product.getLowStockThreshold()));
-            notification.setRead(false);
-            notificationRepository.save(notification);
-            logger.info("Created low stock notification for product: {}", product.getTitle());
-
-            // Send email notification if service is available
-            emailService.ifPresent(service -> {
-                try {
-                    service.sendLowStockNotification(product);
-                } catch (Exception e) {
-                    logger.error("Failed to send email notification", e);
-                }
-            });
+    public void checkStockAlert(StockAlertLevel previous, Product product) {
+        StockAlertLevel current = StockAlertLevel.of(product);
+        if (!isCrossing(previous != null ? previous : StockAlertLevel.NORMAL, current)) {
+            return;
+        }
+
+        createNotification(product, current, messageOf(current, product));
+        logger.info("Created {} notification for product: {} ({} -> {})", current, product.getTitle(), previous, current);
+
+        if (current == StockAlertLevel.OVERSTOCKED) {
+            return;
+        }
+        // Send email notification if service is available
+        emailService.ifPresent(service -> {
+            try {
+                service.sendLowStockNotification(product);
+            } catch (Exception e) {
+                logger.error("Failed to send email notification", e);
+            }
+        });
+    }
+
+    /**
+     * Edge-triggered alert for the stock of a product at one location, evaluated against the location's
+     * own threshold. Only a notification is created; e-mails stay with alerts on the product total.
+     */
+    @Transactional
+    public void checkLocationStockAlert(StockAlertLevel previous, StockAlertLevel current, Product product,
+                                        String locationCode, int locationStock, int threshold) {
+        if (!isCrossing(previous, current) || current == StockAlertLevel.OVERSTOCKED) {
+            return;
+        }
+        String message = current == StockAlertLevel.OUT_OF_STOCK
+                ? String.format("'%s' ürününün %s deposundaki stoğu tükendi!", product.getTitle(), locationCode)
+                : String.format("'%s' ürününün %s deposundaki stok seviyesi düşük! Mevcut stok: %d, Eşik: %d",
+                        product.getTitle(), locationCode, locationStock, threshold);
+        createNotification(product, current, message);
+        logger.info("Created {} notification for product: {} at location {} ({} -> {})",
+                current, product.getTitle(), locationCode, previous, current);
+    }
+
+    /**
+     * Edge-triggered alert for a kit whose buildable quantity, limited by its components' stock,
+     * crossed the kit's own thresholds. Like location alerts this creates a notification only.
+     */
+    @Transactional
+    public void checkKitStockAlert(StockAlertLevel previous, StockAlertLevel current, Product kit, int availability) {
+        if (!isCrossing(previous, current) || current == StockAlertLevel.OVERSTOCKED) {
+            return;
         }
+        String message = current == StockAlertLevel.OUT_OF_STOCK
+                ? String.format("'%s' kiti için bileşen stoğu tükendi!", kit.getTitle())
+                : String.format("'%s' kiti için bileşen stoğu düşük! Kurulabilir adet: %d, Eşik: %d",
+                        kit.getTitle(), availability, kit.getLowStockThreshold());
+        createNotification(kit, current, message);
+        logger.info("Created {} notification for kit: {} ({} -> {})", current, kit.getTitle(), previous, current);
+    }
+
+    /**
+     * Reorder alert from the demand forecast: stock reached the product's reorder point, so an order placed
+     * now arrives before the stock runs out. Edge-triggering is up to the caller (product_demand.reorder_alerted).
+     */
+    @Transactional
+    public void notifyReorder(Product product, int reorderPoint, int suggestedQuantity) {
+        String message = String.format("'%s' ürünü yeniden sipariş noktasına ulaştı! Mevcut stok: %d, Sipariş noktası: %d, Önerilen sipariş: %d",
+                product.getTitle(), product.getStockLevel(), reorderPoint, suggestedQuantity);
+        createNotification(product, "REORDER", "MEDIUM", message);
+        logger.info("Created REORDER notification for product: {} (stock {}, reorder point {})",
+                product.getTitle(), product.getStockLevel(), reorderPoint);
+    }
+
+    private void createNotification(Product product, StockAlertLevel level, String message) {
+        createNotification(product, level.name(), priorityOf(level), message);
+    }
+
+    private void createNotification(Product product, String type, String priority, String message) {
+        StockNotification notification = new StockNotification();
+        notification.setProduct(product);
+        notification.setNotificationType(type);
+        notification.setPriority(priority);
+        notification.setMessage(message);
+        notification.setRead(false);
+        notificationRepository.save(notification);
+        adjustUnreadCount(1);
+        // Delivered to live streams (NotificationStreamService) after commit
+        eventPublisher.publishEvent(new NotificationCreatedEvent(TenantContext.getCurrentTenant(),
+                notification.getId(), product.getId(), product.getTitle(), notification.getMessage(),
+                notification.getNotificationType(), notification.getPriority(), notification.getCreatedAt()));
+    }
+
+    static boolean isCrossing(StockAlertLevel previous, StockAlertLevel current) {
+        if (!current.isAlert() || current == previous) {
+            return false;
+        }
+        return !(previous == StockAlertLevel.OUT_OF_STOCK && current == StockAlertLevel.LOW_STOCK);
+    }
+
+    private static String priorityOf(StockAlertLevel level) {
+        return switch (level) {
+            case OUT_OF_STOCK -> "CRITICAL";
+            case OVERSTOCKED -> "LOW";
+            default -> "MEDIUM";
+        };
+    }
+
+    private static String messageOf(StockAlertLevel level, Product product) {
+        return switch (level) {
+            case OUT_OF_STOCK -> String.format("'%s' ürününün stoğu tükendi!", product.getTitle());
+            case OVERSTOCKED -> String.format("'%s' ürününün stok seviyesi çok yüksek! Mevcut stok: %d, Üst sınır: %d",
+                    product.getTitle(), product.getStockLevel(), product.getOverstockThreshold());
+            default -> String.format("'%s' ürününün stok seviyesi düşük! Mevcut stok: %d, Eşik: %d",
+                    product.getTitle(), product.getStockLevel(), product.getLowStockThreshold());
+        };
     }
 
     public List<StockNotification> getUnreadNotifications() {
@@ -54,11 +188,115 @@ public class StockNotificationService {
         return notificationRepository.findAllByOrderByCreatedAtDesc();
     }
 
+    /**
+     * Keyset page, newest first; pass the previous page's nextBefore/nextBeforeId to continue
+     */
+    @Transactional(readOnly = true)
+    public NotificationPageDTO getNotificationPage(boolean unreadOnly, LocalDateTime before, Long beforeId, Integer size) {
+        int pageSize = size == null || size < 1 ? defaultPageSize : Math.min(size, maxPageSize);
+        // One extra row tells whether another page exists
+        Limit limit = Limit.of(pageSize + 1);
+        List<StockNotification> rows;
+        if (before == null || beforeId == null) {
+            rows = unreadOnly ? notificationRepository.findUnreadFirstPage(limit) : notificationRepository.findFirstPage(limit);
+        } else {
+            rows = unreadOnly ? notificationRepository.findUnreadPage(before, beforeId, limit)
+                    : notificationRepository.findPage(before, beforeId, limit);
+        }
+
+        boolean hasMore = rows.size() > pageSize;
+        List<StockNotification> page = hasMore ? rows.subList(0, pageSize) : rows;
+        StockNotification last = hasMore ? page.get(page.size() - 1) : null;
+        return new NotificationPageDTO(page, hasMore,
+                last != null ? last.getCreatedAt() : null, last != null ? last.getId() : null);
+    }
+
+    public long getUnreadCount() {
+        String tenant = TenantContext.getCurrentTenant();
+        long now = System.currentTimeMillis();
+        UnreadCount cached = unreadCounts.get(tenant);
+        if (cached == null || now >= cached.expiresAt) {
+            cached = new UnreadCount(new AtomicLong(notificationRepository.countByReadFalse()), now + unreadCountTtlMs);
+            unreadCounts.put(tenant, cached);
+        }
+        return Math.max(0, cached.count.get());
+    }
+
     @Transactional
     public void markAsRead(Long notificationId) {
         notificationRepository.findById(notificationId).ifPresent(notification -> {
-            notification.setRead(true);
-            notificationRepository.save(notification);
+            if (!notification.isRead()) {
+                notification.setRead(true);
+                notification.setReadAt(LocalDateTime.now());
+                notificationRepository.save(notification);
+                adjustUnreadCount(-1);
+                eventPublisher.publishEvent(new NotificationsReadEvent(TenantContext.getCurrentTenant(), 1));
+            }
         });
     }
+
+    /**
+     * Mark the given notifications as read with a single UPDATE
+     *
+     * @return number of notifications that were unread
+     */
+    @Transactional
+    public int markAsRead(Collection<Long> notificationIds) {
+        if (notificationIds == null || notificationIds.isEmpty()) {
+            return 0;
+        }
+        return acknowledged(notificationRepository.markReadByIds(notificationIds, LocalDateTime.now()));
+    }
+
+    /**
+     * Mark every unread notification of a product as read
+     */
+    @Transactional
+    public int markProductAsRead(Long productId) {
+        return acknowledged(notificationRepository.markReadByProduct(productId, LocalDateTime.now()));
+    }
+
+    /**
+     * Mark every unread notification created before the given time as read
+     */
+    @Transactional
+    public int markAllAsRead(LocalDateTime before) {
+        LocalDateTime now = LocalDateTime.now();
+        return acknowledged(notificationRepository.markReadBefore(before != null ? before : now, now));
+    }
+
+    private int acknowledged(int updated) {
+        if (updated > 0) {
+            adjustUnreadCount(-updated);
+            eventPublisher.publishEvent(new NotificationsReadEvent(TenantContext.getCurrentTenant(), updated));
+            logger.info("Marked {} notifications as read", updated);
+        }
+        return updated;
+    }
+
+    /**
+     * Apply a change to the cached unread count once the surrounding transaction commits
+     */
+    private void adjustUnreadCount(long delta) {
+        String tenant = TenantContext.getCurrentTenant();
+        Runnable adjust = () -> {
+            UnreadCount cached = unreadCounts.get(tenant);
+            if (cached != null) {
+                cached.count.addAndGet(delta);
+            }
+        };
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    adjust.run();
+                }
+            });
+        } else {
+            adjust.run();
+        }
+    }
+
+    private record UnreadCount(AtomicLong count, long expiresAt) {
+    }
 }
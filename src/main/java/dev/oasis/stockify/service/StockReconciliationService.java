@@ -0,0 +1,326 @@
+package dev.oasis.stockify.service;
+
+import dev.oasis.stockify.config.metrics.TenantMetricsTags;
+import dev.oasis.stockify.config.tenant.TenantAwareExecutors;
+import dev.oasis.stockify.config.tenant.TenantContext;
+import dev.oasis.stockify.config.tenant.TenantMigrationOrchestrator;
+import dev.oasis.stockify.config.tenant.TenantRegistry;
+import dev.oasis.stockify.config.tenant.TenantScoped;
+import dev.oasis.stockify.dto.StockReconciliationDTO;
+import dev.oasis.stockify.dto.StockReconciliationDTO.Mismatch;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Locale;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Checks every product's stock_level against the stock_movement ledger and against its location rows.
+ * <p>
+ * The ledger level of a product is its line in the tenant's latest snapshot plus the movements after the
+ * snapshot (snapshots follow the ledger, see StockSnapshotService), or the net sum of all its movements
+ * when the tenant has no snapshot yet. Products are checked in id range chunks on a worker pool; each
+ * chunk is one statement that lets the database aggregate the movements and location rows per product
+ * (over the product_id indexes) and streams one row per product back, so memory does not grow with the
+ * ledger. Chunks hold a permit for their connection, and the permits are max-connection-share of the
+ * connection pool over all runs, so the job never takes more than that share from request traffic.
+ */
+@Slf4j
+@Service
+public class StockReconciliationService {
+
+    private final DataSource dataSource;
+    private final TenantRegistry tenantRegistry;
+    private final MeterRegistry meterRegistry;
+    private final TenantMetricsTags tenantTags;
+    private final TenantMigrationOrchestrator migrationOrchestrator;
+    private final ExecutorService workers;
+    private final Semaphore connectionPermits;
+
+    private final ConcurrentMap<String, CompletableFuture<StockReconciliationDTO>> running = new ConcurrentHashMap<>();
+    private final ConcurrentMap<String, StockReconciliationDTO> lastReports = new ConcurrentHashMap<>();
+
+    @Value("${stockify.stock.reconciliation.enabled:true}")
+    private boolean enabled;
+
+    @Value("${stockify.stock.reconciliation.chunk-size:1000}")
+    private int chunkSize;
+
+    @Value("${stockify.stock.reconciliation.max-reported:100}")
+    private int maxReported;
+
+    public StockReconciliationService(DataSource dataSource,
+                                      TenantRegistry tenantRegistry,
+                                      MeterRegistry meterRegistry,
+                                      TenantMetricsTags tenantTags,
+                                      TenantMigrationOrchestrator migrationOrchestrator,
+                                      @Value("${stockify.stock.reconciliation.workers:4}") int workerCount,
+                                      @Value("${stockify.stock.reconciliation.max-connection-share:0.25}") double maxConnectionShare,
+                                      @Value("${spring.datasource.hikari.maximum-pool-size:10}") int poolSize) {
+        this.dataSource = dataSource;
+        this.tenantRegistry = tenantRegistry;
+        this.meterRegistry = meterRegistry;
+        this.tenantTags = tenantTags;
+        this.migrationOrchestrator = migrationOrchestrator;
+        int permits = Math.max(1, (int) Math.floor(poolSize * maxConnectionShare));
+        this.connectionPermits = new Semaphore(permits, true);
+        // More workers than permits would only wait for them
+        int threads = Math.max(1, Math.min(workerCount, permits));
+        AtomicInteger counter = new AtomicInteger();
+        this.workers = TenantAwareExecutors.wrap(Executors.newFixedThreadPool(threads, runnable -> {
+            Thread thread = new Thread(runnable, "stock-reconcile-" + counter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        }));
+        log.info("🧮 Stock reconciliation uses {} workers and at most {} of {} pooled connections", threads, permits, poolSize);
+    }
+
+    @PreDestroy
+    void shutdown() {
+        workers.shutdownNow();
+    }
+
+    @Scheduled(cron = "${stockify.stock.reconciliation.cron:0 30 2 * * *}")
+    public void reconcileAllTenants() {
+        if (!enabled) {
+            return;
+        }
+        for (String tenant : tenantRegistry.allTenants()) {
+            if (!migrationOrchestrator.isMigrated(tenant)) {
+                log.debug("Schema {} is not migrated yet, skipping stock reconciliation", tenant);
+                continue;
+            }
+            try {
+                reconcile(tenant);
+            } catch (RuntimeException e) {
+                log.warn("⚠️ Stock reconciliation failed for tenant {}: {}", tenant, e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * Reconciles the current tenant now; a run already in progress for it is joined instead
+     */
+    @TenantScoped
+    public StockReconciliationDTO reconcileCurrentTenant() {
+        return reconcile(TenantContext.getCurrentTenant());
+    }
+
+    @TenantScoped
+    public Optional<StockReconciliationDTO> getLastReport() {
+        return Optional.ofNullable(lastReports.get(TenantContext.getCurrentTenant()));
+    }
+
+    public StockReconciliationDTO reconcile(String tenantId) {
+        CompletableFuture<StockReconciliationDTO> run = new CompletableFuture<>();
+        CompletableFuture<StockReconciliationDTO> existing = running.putIfAbsent(tenantId, run);
+        if (existing != null) {
+            return existing.join();
+        }
+        try {
+            // Chunk checks run on the workers as this tenant too
+            StockReconciliationDTO report = TenantContext.callAs(tenantId, () -> runReconciliation(tenantId));
+            lastReports.put(tenantId, report);
+            run.complete(report);
+            return report;
+        } catch (RuntimeException e) {
+            run.completeExceptionally(e);
+            throw e;
+        } finally {
+            running.remove(tenantId, run);
+        }
+    }
+
+    private StockReconciliationDTO runReconciliation(String tenantId) {
+        String schema = tenantId.toLowerCase(Locale.ROOT);
+        LocalDateTime startedAt = LocalDateTime.now();
+        long start = System.nanoTime();
+
+        Baseline baseline = withConnection(schema, this::baseline);
+        List<CompletableFuture<ChunkResult>> chunks = new ArrayList<>();
+        if (baseline.minId() != null) {
+            for (long from = baseline.minId(); from <= baseline.maxId(); from += chunkSize) {
+                long to = Math.min(from + chunkSize - 1, baseline.maxId());
+                long chunkFrom = from;
+                chunks.add(CompletableFuture.supplyAsync(
+                        () -> withConnection(schema, connection -> checkChunk(connection, baseline, chunkFrom, to)), workers));
+            }
+        }
+
+        long checked = 0;
+        long mismatchCount = 0;
+        List<Mismatch> mismatches = new ArrayList<>();
+        try {
+            for (CompletableFuture<ChunkResult> chunk : chunks) {
+                ChunkResult result = chunk.join();
+                checked += result.checked();
+                mismatchCount += result.mismatchCount();
+                mismatches.addAll(result.mismatches());
+            }
+        } catch (CompletionException e) {
+            chunks.forEach(chunk -> chunk.cancel(false));
+            throw e.getCause() instanceof RuntimeException runtime ? runtime : e;
+        }
+        mismatches.sort(Comparator.comparing(Mismatch::getProductId));
+        if (mismatches.size() > maxReported) {
+            mismatches = new ArrayList<>(mismatches.subList(0, maxReported));
+        }
+
+        long durationNanos = System.nanoTime() - start;
+        Timer.builder("stockify.stock.reconciliation.duration")
+                .description("Duration of ledger reconciliation runs")
+                .tag(TenantMetricsTags.TAG, tenantTags.of(tenantId))
+                .register(meterRegistry)
+                .record(durationNanos, TimeUnit.NANOSECONDS);
+        Counter.builder("stockify.stock.reconciliation.mismatches")
+                .description("Products whose stock level differs from the ledger or their locations")
+                .tag(TenantMetricsTags.TAG, tenantTags.of(tenantId))
+                .register(meterRegistry)
+                .increment(mismatchCount);
+
+        StockReconciliationDTO report = new StockReconciliationDTO(tenantId, startedAt,
+                TimeUnit.NANOSECONDS.toMillis(durationNanos), baseline.snapshotAsOf(), chunks.size(), checked,
+                mismatchCount, mismatches);
+        if (mismatchCount > 0) {
+            log.warn("⚠️ Stock reconciliation of tenant {}: {} of {} products do not match the ledger, first: {}",
+                    tenantId, mismatchCount, checked, mismatches.get(0));
+        } else {
+            log.info("✅ Stock reconciliation of tenant {}: {} products match the ledger ({} chunks, {} ms)",
+                    tenantId, checked, chunks.size(), report.getDurationMs());
+        }
+        return report;
+    }
+
+    /**
+     * Latest snapshot and the product id range, read once per run so all chunks use the same baseline
+     */
+    private Baseline baseline(Connection connection) throws SQLException {
+        Long snapshotId = null;
+        LocalDateTime snapshotAsOf = null;
+        try (PreparedStatement statement = connection.prepareStatement(
+                "SELECT id, as_of FROM stock_snapshot ORDER BY as_of DESC LIMIT 1");
+             ResultSet rs = statement.executeQuery()) {
+            if (rs.next()) {
+                snapshotId = rs.getLong("id");
+                snapshotAsOf = rs.getTimestamp("as_of").toLocalDateTime();
+            }
+        }
+        try (PreparedStatement statement = connection.prepareStatement("SELECT MIN(id), MAX(id) FROM product");
+             ResultSet rs = statement.executeQuery()) {
+            rs.next();
+            return new Baseline(snapshotId, snapshotAsOf, rs.getObject(1, Long.class), rs.getObject(2, Long.class));
+        }
+    }
+
+    private ChunkResult checkChunk(Connection connection, Baseline baseline, long from, long to) throws SQLException {
+        boolean fromSnapshot = baseline.snapshotId() != null;
+        String query = "SELECT p.id, p.sku, p.stock_level, " +
+                (fromSnapshot ? "COALESCE(l.stock_level, 0) + " : "") + "COALESCE(m.q, 0) AS ledger_level, " +
+                "COALESCE(s.total, 0) AS location_level FROM product p " +
+                (fromSnapshot ? "LEFT JOIN stock_snapshot_line l ON l.snapshot_id = ? AND l.product_id = p.id " : "") +
+                "LEFT JOIN (SELECT product_id, SUM(quantity) AS q FROM stock_movement WHERE product_id BETWEEN ? AND ?" +
+                (fromSnapshot ? " AND created_at > ?" : "") + " GROUP BY product_id) m ON m.product_id = p.id " +
+                "LEFT JOIN (SELECT product_id, SUM(stock_level) AS total FROM product_location_stock " +
+                "WHERE product_id BETWEEN ? AND ? GROUP BY product_id) s ON s.product_id = p.id " +
+                "WHERE p.id BETWEEN ? AND ?";
+
+        long checked = 0;
+        long mismatchCount = 0;
+        List<Mismatch> mismatches = new ArrayList<>();
+        try (PreparedStatement statement = connection.prepareStatement(query)) {
+            int index = 1;
+            if (fromSnapshot) {
+                statement.setLong(index++, baseline.snapshotId());
+            }
+            statement.setLong(index++, from);
+            statement.setLong(index++, to);
+            if (fromSnapshot) {
+                statement.setTimestamp(index++, Timestamp.valueOf(baseline.snapshotAsOf()));
+            }
+            for (int range = 0; range < 2; range++) {
+                statement.setLong(index++, from);
+                statement.setLong(index++, to);
+            }
+            statement.setFetchSize(chunkSize);
+            try (ResultSet rs = statement.executeQuery()) {
+                while (rs.next()) {
+                    checked++;
+                    int stockLevel = rs.getInt("stock_level");
+                    long ledgerLevel = rs.getLong("ledger_level");
+                    long locationLevel = rs.getLong("location_level");
+                    if (stockLevel != ledgerLevel || stockLevel != locationLevel) {
+                        mismatchCount++;
+                        // Each chunk keeps at most what the report can show
+                        if (mismatches.size() < maxReported) {
+                            mismatches.add(new Mismatch(rs.getLong("id"), rs.getString("sku"), stockLevel,
+                                    ledgerLevel, locationLevel));
+                        }
+                    }
+                }
+            }
+        }
+        return new ChunkResult(checked, mismatchCount, mismatches);
+    }
+
+    /**
+     * Runs the work on a pooled connection in the tenant's schema, holding a connection permit meanwhile
+     */
+    private <T> T withConnection(String schema, SqlWork<T> work) {
+        migrationOrchestrator.ensureTenantReady(schema);
+        try {
+            connectionPermits.acquire();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting for a reconciliation connection", e);
+        }
+        try (Connection connection = dataSource.getConnection()) {
+            connection.setSchema(schema);
+            connection.setReadOnly(true);
+            try {
+                return work.run(connection);
+            } finally {
+                connection.setReadOnly(false);
+            }
+        } catch (SQLException e) {
+            throw new IllegalStateException("Reconciliation query failed in schema " + schema + ": " + e.getMessage(), e);
+        } finally {
+            connectionPermits.release();
+        }
+    }
+
+    @FunctionalInterface
+    private interface SqlWork<T> {
+        T run(Connection connection) throws SQLException;
+    }
+
+    private record Baseline(Long snapshotId, LocalDateTime snapshotAsOf, Long minId, Long maxId) {
+    }
+
+    private record ChunkResult(long checked, long mismatchCount, List<Mismatch> mismatches) {
+    }
+}
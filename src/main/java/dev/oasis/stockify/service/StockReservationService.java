@@ -0,0 +1,458 @@
+package dev.oasis.stockify.service;
+
+import dev.oasis.stockify.config.metrics.TenantMetricsTags;
+import dev.oasis.stockify.config.tenant.TenantAwareExecutors;
+import dev.oasis.stockify.config.tenant.TenantContext;
+import dev.oasis.stockify.config.tenant.TenantRegistry;
+import dev.oasis.stockify.config.tenant.TenantScoped;
+import dev.oasis.stockify.dto.StockAvailabilityDTO;
+import dev.oasis.stockify.dto.StockReservationDTO;
+import dev.oasis.stockify.exception.GlobalExceptionHandler.ResourceNotFoundException;
+import dev.oasis.stockify.exception.InsufficientStockException;
+import dev.oasis.stockify.exception.ReservationNotActiveException;
+import dev.oasis.stockify.model.ReservationStatus;
+import dev.oasis.stockify.model.StockMovementType;
+import dev.oasis.stockify.model.StockReservation;
+import dev.oasis.stockify.repository.ProductRepository;
+import dev.oasis.stockify.repository.StockReservationRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Optional;
+import java.util.OptionalInt;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Supplier;
+
+/**
+ * Stock reservations (holds) for checkout flows.
+ * <p>
+ * A reservation holds a quantity without touching product.stock_level. Each tenant has an in-memory
+ * index of its HELD reservations with the reserved total per product, so available-to-sell
+ * (stock_level - reserved) costs one primary key read. A reservation is persisted (stock_reservation)
+ * before it is acknowledged, and a tenant's index is rebuilt from the HELD rows the first time the
+ * tenant is used after a start (all tenants are warmed up when the application is ready).
+ * Expiry runs on a hashed timing wheel; expired holds are resolved in one UPDATE per tenant and tick.
+ * Confirming a reservation writes its OUT stock movement in the same transaction as the status change.
+ * <p>
+ * The index is the authority for holds, so one node should serve a tenant's reservations.
+ */
+@Slf4j
+@Service
+public class StockReservationService {
+    private static final int MAX_REFERENCE_LENGTH = 100;
+
+    private final StockReservationRepository reservationRepository;
+    private final ProductRepository productRepository;
+    private final StockMovementWriter stockMovementWriter;
+    private final TransactionTemplate transactionTemplate;
+    private final TenantRegistry tenantRegistry;
+    private final MeterRegistry meterRegistry;
+    private final TenantMetricsTags tenantTags;
+    private final Optional<StockWriteBehindBuffer> writeBehindBuffer;
+    private final ConcurrentMap<String, TenantReservations> tenants = new ConcurrentHashMap<>();
+    private final AtomicInteger heldCount = new AtomicInteger();
+    private final ReservationTimingWheel<Hold> wheel;
+    private final ExecutorService expiryExecutor;
+
+    @Value("${stockify.reservations.default-ttl-seconds:900}")
+    private long defaultTtlSeconds;
+
+    @Value("${stockify.reservations.max-ttl-seconds:86400}")
+    private long maxTtlSeconds;
+
+    @Value("${stockify.reservations.expiry-retry-ms:5000}")
+    private long expiryRetryMs;
+
+    public StockReservationService(StockReservationRepository reservationRepository,
+                                   ProductRepository productRepository,
+                                   StockMovementWriter stockMovementWriter,
+                                   TransactionTemplate transactionTemplate,
+                                   TenantRegistry tenantRegistry,
+                                   MeterRegistry meterRegistry,
+                                   TenantMetricsTags tenantTags,
+                                   Optional<StockWriteBehindBuffer> writeBehindBuffer,
+                                   @Value("${stockify.reservations.wheel.tick-ms:100}") long tickMillis,
+                                   @Value("${stockify.reservations.wheel.size:512}") int wheelSize) {
+        this.reservationRepository = reservationRepository;
+        this.productRepository = productRepository;
+        this.stockMovementWriter = stockMovementWriter;
+        this.transactionTemplate = transactionTemplate;
+        this.tenantRegistry = tenantRegistry;
+        this.meterRegistry = meterRegistry;
+        this.tenantTags = tenantTags;
+        this.writeBehindBuffer = writeBehindBuffer;
+        this.expiryExecutor = TenantAwareExecutors.wrap(Executors.newSingleThreadExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "reservation-expiry");
+            thread.setDaemon(true);
+            return thread;
+        }));
+        this.wheel = new ReservationTimingWheel<>(tickMillis, wheelSize,
+                expired -> expiryExecutor.execute(() -> expire(expired)), "reservation-wheel");
+        Gauge.builder("stockify.reservations.held", heldCount, AtomicInteger::get)
+                .description("Reservations currently holding stock")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Rebuild every tenant's index now, so holds of idle tenants also expire on time
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void warmUp() {
+        for (String tenant : tenantRegistry.allTenants()) {
+            try {
+                index(tenant);
+            } catch (RuntimeException e) {
+                log.warn("⚠️ Could not load stock reservations for tenant {}: {}", tenant, e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * Holds stock of a product for the current tenant
+     * @param ttlSeconds how long the hold lasts; null for stockify.reservations.default-ttl-seconds
+     * @param reference optional caller reference, e.g. a cart id
+     * @throws InsufficientStockException when less than quantity is available to sell
+     */
+    @TenantScoped
+    public StockReservationDTO reserve(Long productId, int quantity, Long ttlSeconds, String reference) {
+        if (productId == null || quantity <= 0) {
+            throw new IllegalArgumentException("Product ID and a positive quantity are required");
+        }
+        long ttl = ttlSeconds != null ? ttlSeconds : defaultTtlSeconds;
+        if (ttl <= 0 || ttl > maxTtlSeconds) {
+            throw new IllegalArgumentException("Reservation TTL must be between 1 and " + maxTtlSeconds + " seconds");
+        }
+        if (reference != null && reference.length() > MAX_REFERENCE_LENGTH) {
+            throw new IllegalArgumentException("Reference cannot exceed " + MAX_REFERENCE_LENGTH + " characters");
+        }
+
+        String tenantId = TenantContext.getCurrentTenant();
+        TenantReservations index = index(tenantId);
+        int stockLevel = stockLevel(productId);
+        int available = index.hold(productId, quantity, stockLevel);
+        if (available < 0) {
+            count(tenantId, "rejected");
+            throw new InsufficientStockException("Not enough stock for product " + productId + ": "
+                    + (available + quantity) + " available to sell");
+        }
+
+        LocalDateTime now = LocalDateTime.now();
+        StockReservation reservation = new StockReservation();
+        reservation.setReservationKey(UUID.randomUUID().toString());
+        reservation.setProductId(productId);
+        reservation.setQuantity(quantity);
+        reservation.setReferenceId(reference != null && !reference.isBlank() ? reference.trim() : null);
+        reservation.setCreatedAt(now);
+        reservation.setExpiresAt(now.plusSeconds(ttl));
+        try {
+            reservationRepository.save(reservation);
+        } catch (RuntimeException e) {
+            index.unhold(productId, quantity);
+            throw e;
+        }
+
+        track(tenantId, index, reservation);
+        count(tenantId, "held");
+        return toDto(reservation, available);
+    }
+
+    /**
+     * Turns a held reservation into a sale (OUT stock movement); confirming it again returns it unchanged
+     */
+    @TenantScoped
+    public StockReservationDTO confirm(String reservationKey) {
+        return resolve(reservationKey, ReservationStatus.CONFIRMED);
+    }
+
+    /**
+     * Gives the held stock back; releasing it again returns it unchanged
+     */
+    @TenantScoped
+    public StockReservationDTO release(String reservationKey) {
+        return resolve(reservationKey, ReservationStatus.RELEASED);
+    }
+
+    @TenantScoped
+    public StockReservationDTO getReservation(String reservationKey) {
+        String tenantId = TenantContext.getCurrentTenant();
+        Hold hold = index(tenantId).holds.get(reservationKey);
+        if (hold != null) {
+            return toDto(hold.reservation, null);
+        }
+        return reservationRepository.findByReservationKey(reservationKey)
+                .map(reservation -> toDto(reservation, null))
+                .orElseThrow(() -> new ResourceNotFoundException("Reservation not found: " + reservationKey));
+    }
+
+    /**
+     * Stock level, reserved quantity and available-to-sell of a product
+     */
+    @TenantScoped
+    public StockAvailabilityDTO getAvailability(Long productId) {
+        int stockLevel = stockLevel(productId);
+        int reserved = index(TenantContext.getCurrentTenant()).reserved(productId);
+        return new StockAvailabilityDTO(productId, stockLevel, reserved, stockLevel - reserved);
+    }
+
+    /**
+     * Quantity of a product the current tenant's active holds keep from sale
+     */
+    @TenantScoped
+    public int reservedQuantity(Long productId) {
+        return index(TenantContext.getCurrentTenant()).reserved(productId);
+    }
+
+    /**
+     * The stock level holds are checked against: with write-behind enabled it includes the buffered movements
+     */
+    private int stockLevel(Long productId) {
+        OptionalInt projected = writeBehindBuffer.map(buffer -> buffer.projectedStock(productId)).orElse(OptionalInt.empty());
+        if (projected.isPresent()) {
+            return projected.getAsInt();
+        }
+        return productRepository.findStockLevelById(productId)
+                .orElseThrow(() -> new ResourceNotFoundException("Product not found with id: " + productId));
+    }
+
+    @PostConstruct
+    public void start() {
+        wheel.start();
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        wheel.stop();
+        expiryExecutor.shutdownNow();
+    }
+
+    private StockReservationDTO resolve(String reservationKey, ReservationStatus target) {
+        String tenantId = TenantContext.getCurrentTenant();
+        TenantReservations index = index(tenantId);
+        Hold hold = index.holds.get(reservationKey);
+        if (hold == null || !hold.state.compareAndSet(ReservationStatus.HELD, target)) {
+            // Already resolved (possibly by a retry of this call) or unknown
+            StockReservation stored = reservationRepository.findByReservationKey(reservationKey)
+                    .orElseThrow(() -> new ResourceNotFoundException("Reservation not found: " + reservationKey));
+            if (stored.getStatus() == target) {
+                return toDto(stored, null);
+            }
+            throw new ReservationNotActiveException("Reservation " + reservationKey + " is "
+                    + (hold != null ? hold.state.get() : stored.getStatus()));
+        }
+
+        StockReservation reservation = hold.reservation;
+        LocalDateTime now = LocalDateTime.now();
+        try {
+            Supplier<Boolean> resolve = () -> transactionTemplate.execute(status -> {
+                if (reservationRepository.resolveHeld(List.of(reservation.getId()), target, now) == 0) {
+                    return false;
+                }
+                if (target == ReservationStatus.CONFIRMED) {
+                    StockDelta sale = new StockDelta(null, 0, tenantId, reservation.getProductId(), null,
+                            -reservation.getQuantity(), StockMovementType.OUT, "reservation:" + reservationKey, currentUsername(), now);
+                    if (!stockMovementWriter.apply(List.of(sale)).skipped().isEmpty()) {
+                        throw new InsufficientStockException("Not enough stock to confirm reservation " + reservationKey);
+                    }
+                }
+                return true;
+            });
+            // The sale is written directly, past buffered movements of the product
+            Boolean resolved = target == ReservationStatus.CONFIRMED
+                    ? StockWriteBehindBuffer.fenceIfEnabled(writeBehindBuffer, List.of(reservation.getProductId()), resolve)
+                    : resolve.get();
+            if (!Boolean.TRUE.equals(resolved)) {
+                // Resolved in the database behind the index's back (e.g. product deleted)
+                forget(index, hold);
+                throw new ReservationNotActiveException("Reservation " + reservationKey + " is no longer held");
+            }
+        } catch (ReservationNotActiveException e) {
+            throw e;
+        } catch (RuntimeException e) {
+            // Still held; the wheel may have skipped it meanwhile, so arm its expiry again
+            hold.state.set(ReservationStatus.HELD);
+            schedule(hold);
+            throw e;
+        }
+
+        reservation.setStatus(target);
+        reservation.setResolvedAt(now);
+        forget(index, hold);
+        count(tenantId, target.name().toLowerCase(Locale.ROOT));
+        return toDto(reservation, null);
+    }
+
+    /**
+     * Wheel callback (on the expiry thread): one UPDATE per tenant for everything that expired in the tick
+     */
+    private void expire(List<Hold> expired) {
+        Map<String, List<Hold>> byTenant = new LinkedHashMap<>();
+        for (Hold hold : expired) {
+            if (hold.state.compareAndSet(ReservationStatus.HELD, ReservationStatus.EXPIRED)) {
+                byTenant.computeIfAbsent(hold.tenantId, t -> new ArrayList<>()).add(hold);
+            }
+        }
+        byTenant.forEach((tenantId, holds) -> {
+            List<Long> ids = holds.stream().map(hold -> hold.reservation.getId()).toList();
+            try {
+                TenantContext.callAs(tenantId, () -> transactionTemplate.execute(status ->
+                        reservationRepository.resolveHeld(ids, ReservationStatus.EXPIRED, LocalDateTime.now())));
+            } catch (RuntimeException e) {
+                log.warn("⚠️ Could not expire {} reservations of tenant {}, retrying in {} ms: {}",
+                        holds.size(), tenantId, expiryRetryMs, e.getMessage());
+                holds.forEach(hold -> {
+                    hold.state.set(ReservationStatus.HELD);
+                    hold.timeout = wheel.schedule(hold, expiryRetryMs);
+                });
+                return;
+            }
+            TenantReservations index = tenants.get(tenantId);
+            holds.forEach(hold -> {
+                hold.reservation.setStatus(ReservationStatus.EXPIRED);
+                forget(index, hold);
+            });
+            Counter.builder("stockify.reservations")
+                    .description("Reservation outcomes")
+                    .tag(TenantMetricsTags.TAG, tenantTags.of(tenantId))
+                    .tag("outcome", "expired")
+                    .register(meterRegistry)
+                    .increment(holds.size());
+            log.debug("⏰ Expired {} reservations of tenant {}", holds.size(), tenantId);
+        });
+    }
+
+    private TenantReservations index(String tenantId) {
+        TenantReservations index = tenants.computeIfAbsent(tenantId, t -> new TenantReservations());
+        if (!index.loaded) {
+            synchronized (index) {
+                if (!index.loaded) {
+                    List<StockReservation> held = TenantContext.callAs(tenantId,
+                            () -> reservationRepository.findByStatus(ReservationStatus.HELD));
+                    held.forEach(reservation -> {
+                        index.add(reservation.getProductId(), reservation.getQuantity());
+                        track(tenantId, index, reservation);
+                    });
+                    index.loaded = true;
+                    if (!held.isEmpty()) {
+                        log.info("📌 Loaded {} held stock reservations for tenant {}", held.size(), tenantId);
+                    }
+                }
+            }
+        }
+        return index;
+    }
+
+    private void track(String tenantId, TenantReservations index, StockReservation reservation) {
+        Hold hold = new Hold(tenantId, reservation);
+        index.holds.put(reservation.getReservationKey(), hold);
+        heldCount.incrementAndGet();
+        schedule(hold);
+    }
+
+    private void schedule(Hold hold) {
+        if (hold.timeout != null) {
+            hold.timeout.cancel();
+        }
+        hold.timeout = wheel.schedule(hold, Duration.between(LocalDateTime.now(), hold.reservation.getExpiresAt()).toMillis());
+    }
+
+    private void forget(TenantReservations index, Hold hold) {
+        hold.timeout.cancel();
+        if (index != null && index.holds.remove(hold.reservation.getReservationKey(), hold)) {
+            index.unhold(hold.reservation.getProductId(), hold.reservation.getQuantity());
+            heldCount.decrementAndGet();
+        }
+    }
+
+    private void count(String tenantId, String outcome) {
+        Counter.builder("stockify.reservations")
+                .description("Reservation outcomes")
+                .tag(TenantMetricsTags.TAG, tenantTags.of(tenantId))
+                .tag("outcome", outcome)
+                .register(meterRegistry)
+                .increment();
+    }
+
+    private static StockReservationDTO toDto(StockReservation reservation, Integer availableToSell) {
+        return new StockReservationDTO(reservation.getReservationKey(), reservation.getProductId(), reservation.getQuantity(),
+                reservation.getStatus(), reservation.getReferenceId(), reservation.getExpiresAt(), availableToSell);
+    }
+
+    private static String currentUsername() {
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        return authentication != null ? authentication.getName() : null;
+    }
+
+    /**
+     * HELD reservations of one tenant and the reserved total per product
+     */
+    private static final class TenantReservations {
+        private final ConcurrentMap<Long, Integer> reserved = new ConcurrentHashMap<>();
+        private final ConcurrentMap<String, Hold> holds = new ConcurrentHashMap<>();
+        private volatile boolean loaded;
+
+        /**
+         * Adds the quantity to the product's reserved total if it fits the stock level
+         * @return available-to-sell after the hold; negative (and nothing held) when it did not fit
+         */
+        int hold(Long productId, int quantity, int stockLevel) {
+            int[] available = new int[1];
+            reserved.compute(productId, (id, current) -> {
+                int held = current != null ? current : 0;
+                available[0] = stockLevel - held - quantity;
+                if (available[0] < 0) {
+                    return current;
+                }
+                return held + quantity;
+            });
+            return available[0];
+        }
+
+        void add(Long productId, int quantity) {
+            reserved.merge(productId, quantity, Integer::sum);
+        }
+
+        void unhold(Long productId, int quantity) {
+            reserved.computeIfPresent(productId, (id, current) -> current > quantity ? current - quantity : null);
+        }
+
+        int reserved(Long productId) {
+            return reserved.getOrDefault(productId, 0);
+        }
+    }
+
+    private static final class Hold {
+        private final String tenantId;
+        private final StockReservation reservation;
+        private final AtomicReference<ReservationStatus> state = new AtomicReference<>(ReservationStatus.HELD);
+        private volatile ReservationTimingWheel.Timeout<Hold> timeout;
+
+        private Hold(String tenantId, StockReservation reservation) {
+            this.tenantId = tenantId;
+            this.reservation = reservation;
+        }
+    }
+}
@@ -0,0 +1,405 @@
+package dev.oasis.stockify.service;
+
+import dev.oasis.stockify.config.metrics.TenantMetricsTags;
+import dev.oasis.stockify.config.tenant.TenantContext;
+import dev.oasis.stockify.config.tenant.TenantRegistry;
+import dev.oasis.stockify.config.tenant.TenantScoped;
+import dev.oasis.stockify.dto.StockAsOfDTO;
+import dev.oasis.stockify.dto.StockValuationDTO;
+import dev.oasis.stockify.dto.StockValuationDTO.CategoryValuation;
+import dev.oasis.stockify.exception.GlobalExceptionHandler.ResourceNotFoundException;
+import dev.oasis.stockify.model.Product;
+import dev.oasis.stockify.model.StockSnapshot;
+import dev.oasis.stockify.repository.ProductRepository;
+import dev.oasis.stockify.repository.StockSnapshotRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import lombok.extern.slf4j.Slf4j;
+import org.hibernate.Session;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.sql.Date;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Point-in-time stock from the stock_movement ledger and periodic snapshots of it.
+ * <p>
+ * A snapshot stores every product's stock as of a time, computed in one statement as the previous snapshot
+ * plus the movements since, so snapshots follow the ledger alone and StockReconciliationService can check
+ * product.stock_level against them. The first snapshot of a tenant has no previous one and is the current
+ * stock minus the movements after its time. The stock as of T is then taken from the checkpoint nearest to T
+ * (the latest snapshot at or before T, the first one after it, or the current stock) by adding the
+ * movements between the checkpoint and T, or subtracting them when the checkpoint is later. A query
+ * therefore replays at most the movements between two snapshots, never the whole history.
+ * <p>
+ * Snapshots are taken settle-seconds in the past, so movements still queued in the write-behind buffer
+ * (which carry their submit time) are written before a snapshot covers their time.
+ * <p>
+ * Once partition retention has taken months out of stock_movement (stock_movement_removed_month), neither
+ * snapshots nor point-in-time stock go back before the first day after the last removed month.
+ */
+@Slf4j
+@Service
+public class StockSnapshotService {
+
+    private final StockSnapshotRepository snapshotRepository;
+    private final ProductRepository productRepository;
+    private final TenantRegistry tenantRegistry;
+    private final TransactionTemplate transactionTemplate;
+    private final MeterRegistry meterRegistry;
+    private final TenantMetricsTags tenantTags;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Value("${stockify.stock.snapshot.enabled:true}")
+    private boolean enabled;
+
+    @Value("${stockify.stock.snapshot.settle-seconds:300}")
+    private long settleSeconds;
+
+    public StockSnapshotService(StockSnapshotRepository snapshotRepository,
+                                ProductRepository productRepository,
+                                TenantRegistry tenantRegistry,
+                                TransactionTemplate transactionTemplate,
+                                MeterRegistry meterRegistry,
+                                TenantMetricsTags tenantTags) {
+        this.snapshotRepository = snapshotRepository;
+        this.productRepository = productRepository;
+        this.tenantRegistry = tenantRegistry;
+        this.transactionTemplate = transactionTemplate;
+        this.meterRegistry = meterRegistry;
+        this.tenantTags = tenantTags;
+    }
+
+    /**
+     * Takes the scheduled snapshot of every tenant. With the default cron (00:05) and settle time (5 minutes)
+     * snapshots fall on midnight, so day, month and year end reports read a snapshot without replaying.
+     */
+    @Scheduled(cron = "${stockify.stock.snapshot.cron:0 5 0 * * *}")
+    public void snapshotAllTenants() {
+        if (!enabled) {
+            return;
+        }
+        LocalDateTime asOf = LocalDateTime.now().minusSeconds(settleSeconds).truncatedTo(ChronoUnit.MINUTES);
+        for (String tenant : tenantRegistry.allTenants()) {
+            String previousTenant = TenantContext.getCurrentTenant();
+            TenantContext.setCurrentTenant(tenant);
+            try {
+                StockSnapshot snapshot = transactionTemplate.execute(status -> takeSnapshot(asOf));
+                log.info("📸 Stock snapshot of tenant {} as of {}: {} products, {} units",
+                        tenant, asOf, snapshot.getProductCount(), snapshot.getTotalUnits());
+            } catch (DataIntegrityViolationException e) {
+                log.debug("Stock snapshot of tenant {} as of {} was taken by another instance", tenant, asOf);
+            } catch (RuntimeException e) {
+                log.warn("⚠️ Stock snapshot failed for tenant {}: {}", tenant, e.getMessage());
+            } finally {
+                if (previousTenant != null) {
+                    TenantContext.setCurrentTenant(previousTenant);
+                } else {
+                    TenantContext.clear();
+                }
+            }
+        }
+    }
+
+    /**
+     * Takes a snapshot of the current tenant as of the given time, or returns the one already taken for it
+     * @param asOf at least settle-seconds in the past; null for the latest settled minute
+     */
+    @TenantScoped
+    @Transactional
+    public StockSnapshot createSnapshot(LocalDateTime asOf) {
+        LocalDateTime settled = LocalDateTime.now().minusSeconds(settleSeconds);
+        if (asOf == null) {
+            asOf = settled.truncatedTo(ChronoUnit.MINUTES);
+        } else if (asOf.isAfter(settled)) {
+            throw new IllegalArgumentException("Snapshots must be at least " + settleSeconds
+                    + " seconds in the past, so buffered stock movements are written first");
+        }
+        requireLedgerFrom(asOf, ledgerStart());
+        return takeSnapshot(asOf);
+    }
+
+    @TenantScoped
+    public List<StockSnapshot> getSnapshots() {
+        return snapshotRepository.findTop50ByOrderByAsOfDesc();
+    }
+
+    private StockSnapshot takeSnapshot(LocalDateTime asOf) {
+        StockSnapshot existing = snapshotRepository.findByAsOf(asOf).orElse(null);
+        if (existing != null) {
+            return existing;
+        }
+        StockSnapshot snapshot = new StockSnapshot();
+        snapshot.setAsOf(asOf);
+        StockSnapshot taken = snapshotRepository.saveAndFlush(snapshot);
+
+        long snapshotId = taken.getId();
+        // A previous snapshot before removed months cannot be followed forward; start from the current stock instead
+        LocalDateTime ledgerStart = ledgerStart();
+        StockSnapshot previous = snapshotRepository.findFirstByAsOfLessThanOrderByAsOfDesc(asOf)
+                .filter(earlier -> ledgerStart == null || !earlier.getAsOf().isBefore(ledgerStart))
+                .orElse(null);
+        entityManager.unwrap(Session.class).doWork(connection -> {
+            // Without a previous snapshot the current stock and the later movements are read by one statement,
+            // so they are consistent. Deleted products still count while their lines and movements say so.
+            String source = previous != null
+                    ? "SELECT ids.id, COALESCE(l.stock_level, 0) + COALESCE(m.q, 0) AS stock_level, " +
+                      "COALESCE(p.price, d.price, l.unit_price) AS price FROM (SELECT id FROM product " +
+                      "UNION SELECT product_id FROM stock_snapshot_line WHERE snapshot_id = ? " +
+                      "UNION SELECT product_id FROM stock_movement WHERE created_at > ? AND created_at <= ?) ids " +
+                      "LEFT JOIN product p ON p.id = ids.id LEFT JOIN deleted_product d ON d.id = ids.id " +
+                      "LEFT JOIN stock_snapshot_line l ON l.snapshot_id = ? AND l.product_id = ids.id " +
+                      "LEFT JOIN (SELECT product_id, SUM(quantity) AS q FROM stock_movement " +
+                      "WHERE created_at > ? AND created_at <= ? GROUP BY product_id) m ON m.product_id = ids.id"
+                    : "SELECT ids.id, COALESCE(p.stock_level, 0) - COALESCE(m.q, 0) AS stock_level, " +
+                      "COALESCE(p.price, d.price, 0) AS price FROM (SELECT id FROM product " +
+                      "UNION SELECT product_id FROM stock_movement WHERE created_at > ?) ids " +
+                      "LEFT JOIN product p ON p.id = ids.id LEFT JOIN deleted_product d ON d.id = ids.id " +
+                      "LEFT JOIN (SELECT product_id, SUM(quantity) AS q FROM stock_movement WHERE created_at > ? " +
+                      "GROUP BY product_id) m ON m.product_id = ids.id";
+            try (PreparedStatement insert = connection.prepareStatement(
+                    "INSERT INTO stock_snapshot_line (snapshot_id, product_id, stock_level, unit_price) " +
+                    "SELECT ?, x.id, x.stock_level, x.price FROM (" + source + ") x WHERE x.stock_level <> 0")) {
+                int index = 1;
+                insert.setLong(index++, snapshotId);
+                // Once for the ids, once for the stock
+                for (int pass = 0; pass < 2; pass++) {
+                    if (previous != null) {
+                        insert.setLong(index++, previous.getId());
+                        insert.setTimestamp(index++, Timestamp.valueOf(previous.getAsOf()));
+                    }
+                    insert.setTimestamp(index++, Timestamp.valueOf(asOf));
+                }
+                insert.executeUpdate();
+            }
+            try (PreparedStatement totals = connection.prepareStatement(
+                    "SELECT COUNT(*), COALESCE(SUM(stock_level), 0), COALESCE(SUM(stock_level * unit_price), 0) " +
+                    "FROM stock_snapshot_line WHERE snapshot_id = ?")) {
+                totals.setLong(1, snapshotId);
+                try (ResultSet rs = totals.executeQuery()) {
+                    rs.next();
+                    taken.setProductCount(rs.getInt(1));
+                    taken.setTotalUnits(rs.getLong(2));
+                    taken.setTotalValue(rs.getBigDecimal(3));
+                }
+            }
+        });
+        return snapshotRepository.save(taken);
+    }
+
+    /**
+     * Stock of a product as of a time
+     * @param at a time not in the future; null for now
+     */
+    @TenantScoped
+    @Transactional(readOnly = true)
+    public StockAsOfDTO getStockAsOf(String sku, LocalDateTime at) {
+        Product product = productRepository.findBySku(sku)
+                .orElseThrow(() -> new ResourceNotFoundException("Product not found with SKU: " + sku));
+        LocalDateTime asOf = validAsOf(at);
+        Replay replay = replayFrom(asOf);
+
+        long start = System.nanoTime();
+        StockAsOfDTO result = entityManager.unwrap(Session.class).doReturningWork(connection -> {
+            String query = "SELECT x.stock_level, x.unit_price, x.moves FROM (" + replaySource(replay, true) + ") x";
+            try (PreparedStatement statement = connection.prepareStatement(query)) {
+                int index = bindReplay(statement, replay, asOf);
+                statement.setLong(index++, product.getId());
+                statement.setLong(index, product.getId());
+                try (ResultSet rs = statement.executeQuery()) {
+                    rs.next();
+                    int stockLevel = rs.getInt(1);
+                    BigDecimal unitPrice = rs.getBigDecimal(2);
+                    return new StockAsOfDTO(product.getId(), product.getSku(), product.getTitle(), asOf, stockLevel,
+                            unitPrice, unitPrice.multiply(BigDecimal.valueOf(stockLevel)), replay.checkpointAsOf(),
+                            rs.getLong(3));
+                }
+            }
+        });
+        replayTimer("product", replay).record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        return result;
+    }
+
+    /**
+     * Stock and value of the whole catalog as of a time. Products are valued at the unit price of the
+     * checkpoint's snapshot, or at their current price when replayed from the current stock. Products deleted
+     * since count with the category and price they had when deleted (deleted_product).
+     * @param at a time not in the future; null for now
+     */
+    @TenantScoped
+    @Transactional(readOnly = true)
+    public StockValuationDTO getValuationAsOf(LocalDateTime at) {
+        LocalDateTime asOf = validAsOf(at);
+        Replay replay = replayFrom(asOf);
+
+        long start = System.nanoTime();
+        StockValuationDTO result = entityManager.unwrap(Session.class).doReturningWork(connection -> {
+            String query = "SELECT x.category, COUNT(CASE WHEN x.stock_level <> 0 THEN 1 END), " +
+                    "COALESCE(SUM(x.stock_level), 0), COALESCE(SUM(x.stock_level * x.unit_price), 0), " +
+                    "COALESCE(SUM(x.moves), 0) FROM (" + replaySource(replay, false) + ") x " +
+                    "GROUP BY x.category ORDER BY x.category";
+            List<CategoryValuation> categories = new ArrayList<>();
+            long replayed = 0;
+            try (PreparedStatement statement = connection.prepareStatement(query)) {
+                bindReplay(statement, replay, asOf, bindReplay(statement, replay, asOf));
+                try (ResultSet rs = statement.executeQuery()) {
+                    while (rs.next()) {
+                        categories.add(new CategoryValuation(rs.getString(1), rs.getInt(2), rs.getLong(3),
+                                rs.getBigDecimal(4)));
+                        replayed += rs.getLong(5);
+                    }
+                }
+            }
+            return new StockValuationDTO(asOf, replay.checkpointAsOf(), replayed,
+                    categories.stream().mapToInt(CategoryValuation::getProductCount).sum(),
+                    categories.stream().mapToLong(CategoryValuation::getUnits).sum(),
+                    categories.stream().map(CategoryValuation::getValue).reduce(BigDecimal.ZERO, BigDecimal::add),
+                    categories);
+        });
+        replayTimer("catalog", replay).record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        return result;
+    }
+
+    private static LocalDateTime validAsOf(LocalDateTime at) {
+        LocalDateTime now = LocalDateTime.now();
+        if (at == null) {
+            return now;
+        }
+        if (at.isAfter(now)) {
+            throw new IllegalArgumentException("As-of time cannot be in the future");
+        }
+        return at;
+    }
+
+    /**
+     * The checkpoint nearest to asOf in time, as a proxy for the fewest movements to replay. Snapshots before
+     * the ledger start are not replayed forward, since the movements after them are partly gone.
+     */
+    private Replay replayFrom(LocalDateTime asOf) {
+        LocalDateTime ledgerStart = ledgerStart();
+        requireLedgerFrom(asOf, ledgerStart);
+        StockSnapshot before = snapshotRepository.findFirstByAsOfLessThanEqualOrderByAsOfDesc(asOf)
+                .filter(snapshot -> ledgerStart == null || !snapshot.getAsOf().isBefore(ledgerStart))
+                .orElse(null);
+        StockSnapshot after = snapshotRepository.findFirstByAsOfGreaterThanOrderByAsOfAsc(asOf).orElse(null);
+        Duration afterDistance = Duration.between(asOf, after != null ? after.getAsOf() : LocalDateTime.now());
+        if (before != null && Duration.between(before.getAsOf(), asOf).compareTo(afterDistance) <= 0) {
+            return new Replay(before, true);
+        }
+        return new Replay(after, false);
+    }
+
+    /**
+     * Start of the movements still in stock_movement: the first day after the last month removed by partition
+     * retention, or null when none was
+     */
+    private LocalDateTime ledgerStart() {
+        return entityManager.unwrap(Session.class).doReturningWork(connection -> {
+            try (Statement statement = connection.createStatement();
+                 ResultSet rs = statement.executeQuery("SELECT MAX(removed_month) FROM stock_movement_removed_month")) {
+                Date month = rs.next() ? rs.getDate(1) : null;
+                return month != null ? month.toLocalDate().plusMonths(1).atStartOfDay() : null;
+            }
+        });
+    }
+
+    private static void requireLedgerFrom(LocalDateTime asOf, LocalDateTime ledgerStart) {
+        if (ledgerStart != null && asOf.isBefore(ledgerStart)) {
+            throw new IllegalArgumentException("Stock movements before " + ledgerStart
+                    + " are no longer kept; the as-of time must not be earlier");
+        }
+    }
+
+    /**
+     * Per product stock as of the replay's time: stock_level, unit_price and moves (movements replayed).
+     * Parameters: snapshot id (with a snapshot), range start, range end (with a snapshot), and the
+     * product id twice for a single product. The catalog also covers deleted products, whose lines and
+     * movements are kept: the ids of products, snapshot lines and movements in the range come first and
+     * take the same parameters once more.
+     */
+    private static String replaySource(Replay replay, boolean singleProduct) {
+        String level;
+        String price;
+        if (replay.snapshot() == null) {
+            level = "COALESCE(p.stock_level, 0) - COALESCE(m.q, 0)";
+            price = "COALESCE(p.price, d.price)";
+        } else {
+            level = "COALESCE(l.stock_level, 0) " + (replay.forward() ? "+" : "-") + " COALESCE(m.q, 0)";
+            price = "COALESCE(l.unit_price, p.price, d.price)";
+        }
+        String range = "created_at > ?" + (replay.snapshot() != null ? " AND created_at <= ?" : "");
+        String id = singleProduct ? "p.id" : "ids.id";
+        String products = singleProduct
+                ? "product p"
+                : "(SELECT id FROM product" +
+                  (replay.snapshot() != null ? " UNION SELECT product_id FROM stock_snapshot_line WHERE snapshot_id = ?" : "") +
+                  " UNION SELECT product_id FROM stock_movement WHERE " + range + ") ids LEFT JOIN product p ON p.id = ids.id";
+        return "SELECT " + id + " AS id, COALESCE(p.category, d.category) AS category, " + level + " AS stock_level, " +
+                price + " AS unit_price, COALESCE(m.moves, 0) AS moves FROM " + products + " " +
+                "LEFT JOIN deleted_product d ON d.id = " + id + " " +
+                (replay.snapshot() != null ? "LEFT JOIN stock_snapshot_line l ON l.snapshot_id = ? AND l.product_id = " + id + " " : "") +
+                "LEFT JOIN (SELECT product_id, SUM(quantity) AS q, COUNT(*) AS moves FROM stock_movement " +
+                "WHERE " + range + (singleProduct ? " AND product_id = ?" : "") + " GROUP BY product_id) m ON m.product_id = " + id +
+                (singleProduct ? " WHERE p.id = ?" : "");
+    }
+
+    private static int bindReplay(PreparedStatement statement, Replay replay, LocalDateTime asOf) throws SQLException {
+        return bindReplay(statement, replay, asOf, 1);
+    }
+
+    private static int bindReplay(PreparedStatement statement, Replay replay, LocalDateTime asOf, int index) throws SQLException {
+        if (replay.snapshot() == null) {
+            // Back from the current stock: everything after asOf
+            statement.setTimestamp(index++, Timestamp.valueOf(asOf));
+            return index;
+        }
+        statement.setLong(index++, replay.snapshot().getId());
+        if (replay.forward()) {
+            statement.setTimestamp(index++, Timestamp.valueOf(replay.snapshot().getAsOf()));
+            statement.setTimestamp(index++, Timestamp.valueOf(asOf));
+        } else {
+            statement.setTimestamp(index++, Timestamp.valueOf(asOf));
+            statement.setTimestamp(index++, Timestamp.valueOf(replay.snapshot().getAsOf()));
+        }
+        return index;
+    }
+
+    private Timer replayTimer(String scope, Replay replay) {
+        return Timer.builder("stockify.stock.as-of")
+                .description("Point-in-time stock queries, by scope and the checkpoint they replayed from")
+                .tag(TenantMetricsTags.TAG, tenantTags.current())
+                .tag("scope", scope)
+                .tag("checkpoint", replay.snapshot() != null ? "snapshot" : "live")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Checkpoint of a query: a snapshot replayed forward (before asOf) or backward (after it),
+     * or the current stock replayed backward when snapshot is null
+     */
+    private record Replay(StockSnapshot snapshot, boolean forward) {
+        LocalDateTime checkpointAsOf() {
+            return snapshot != null ? snapshot.getAsOf() : null;
+        }
+    }
+}
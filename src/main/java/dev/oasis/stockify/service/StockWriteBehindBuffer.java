@@ -0,0 +1,588 @@
+package dev.oasis.stockify.service;
+
+import dev.oasis.stockify.config.metrics.TenantMetricsTags;
+import dev.oasis.stockify.config.tenant.TenantContext;
+import dev.oasis.stockify.exception.InsufficientStockException;
+import dev.oasis.stockify.model.StockMovementType;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.OptionalInt;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.IntSupplier;
+import java.util.function.Supplier;
+
+/**
+ * Write-behind buffer for stock deltas, enabled with stockify.stock.write-behind.enabled=true.
+ * <p>
+ * An accepted delta is appended to the local {@link StockJournal} and added to its (tenant, product)
+ * accumulator in one of the lock stripes; the caller gets the projected stock (committed stock plus
+ * pending deltas) without touching the product row. One flusher thread drains the stripes every
+ * {@code flush-interval-ms}, or as soon as {@code flush-max-operations} deltas are pending, and writes
+ * each tenant's deltas in one transaction through {@link StockMovementWriter}: one UPDATE per product
+ * plus a batched stock_movement insert. A hot product's row gets one writer per flush window instead
+ * of one transaction per sale.
+ * <p>
+ * Durability: a delta is in the journal before it is acknowledged. By default the journal is forced to
+ * disk once per flush window, so a process crash loses nothing and a power loss at most the last
+ * window; {@code journal.sync-each-write=true} forces every append instead. Deltas not yet flushed
+ * are replayed from the journal on the next start, exactly once (stock_journal_entry). Until the
+ * replay is done committed stock misses them, so submits wait for it (503 after {@code recovery-wait-ms}).
+ * <p>
+ * Reads see committed stock, so a product's stock level lags by up to one flush window. Writes that
+ * bypass the buffer (product edits, transfers, reservation confirms) run through {@link #fence}: they
+ * wait for the product's pending deltas to be written and hold new ones back until they are done, so
+ * a delta is only acknowledged against the stock it is written on. A delta that still does not fit at
+ * flush time is skipped, logged and counted in stockify.stock.write-behind.skipped.
+ */
+@Slf4j
+@Service
+@ConditionalOnProperty(name = "stockify.stock.write-behind.enabled", havingValue = "true")
+public class StockWriteBehindBuffer {
+
+    private static final int RECOVERY_CHUNK_SIZE = 1000;
+
+    private final StockMovementWriter writer;
+    private final TransactionTemplate transactionTemplate;
+    private final MeterRegistry meterRegistry;
+    private final TenantMetricsTags tenantTags;
+    private final StockJournal journal;
+    private final Stripe[] stripes;
+    private final AtomicInteger pendingOperations = new AtomicInteger();
+    private final Object flushSignal = new Object();
+    private final Thread flusher;
+    private final CountDownLatch recovered = new CountDownLatch(1);
+    private volatile boolean running = true;
+
+    @Value("${stockify.stock.write-behind.flush-interval-ms:10}")
+    private long flushIntervalMs;
+
+    @Value("${stockify.stock.write-behind.flush-max-operations:500}")
+    private int flushMaxOperations;
+
+    @Value("${stockify.stock.write-behind.failure-backoff-ms:1000}")
+    private long failureBackoffMs;
+
+    @Value("${stockify.stock.write-behind.recovery-wait-ms:30000}")
+    private long recoveryWaitMs;
+
+    public StockWriteBehindBuffer(StockMovementWriter writer,
+                                  TransactionTemplate transactionTemplate,
+                                  MeterRegistry meterRegistry,
+                                  TenantMetricsTags tenantTags,
+                                  @Value("${stockify.stock.write-behind.stripes:64}") int stripeCount,
+                                  @Value("${stockify.stock.write-behind.journal.directory:data/stock-journal}") String journalDirectory,
+                                  @Value("${stockify.stock.write-behind.journal.segment-bytes:16777216}") long segmentBytes,
+                                  @Value("${stockify.stock.write-behind.journal.sync-each-write:false}") boolean syncEachWrite)
+            throws IOException {
+        this.writer = writer;
+        this.transactionTemplate = transactionTemplate;
+        this.meterRegistry = meterRegistry;
+        this.tenantTags = tenantTags;
+        this.journal = new StockJournal(Path.of(journalDirectory), segmentBytes, syncEachWrite);
+
+        int size = 1;
+        while (size < stripeCount) {
+            size <<= 1;
+        }
+        this.stripes = new Stripe[size];
+        for (int i = 0; i < size; i++) {
+            stripes[i] = new Stripe();
+        }
+
+        this.flusher = new Thread(this::runFlusher, "stock-write-behind");
+        flusher.setDaemon(true);
+        Gauge.builder("stockify.stock.write-behind.pending", pendingOperations, AtomicInteger::get)
+                .description("Stock deltas accepted but not yet written")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Replays what an earlier run left in the journal, then starts flushing
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        try {
+            recover();
+        } finally {
+            recovered.countDown();
+        }
+        flusher.start();
+        log.info("📦 Stock write-behind enabled: flush every {} ms or {} deltas, {} stripes",
+                flushIntervalMs, flushMaxOperations, stripes.length);
+    }
+
+    /**
+     * Accepts a delta of the current tenant and returns the projected stock level
+     *
+     * @param committedStock reads the product's committed stock when it has no pending deltas yet
+     * @param reserved the product's quantity held by reservations; an OUT must leave it in stock
+     * @throws InsufficientStockException when the projected stock would drop below zero (below the reserved
+     *                                    quantity for OUT), in total or at the location the delta takes stock from
+     * @throws ResponseStatusException 503 while the journal recovery is still running
+     */
+    public int submit(StockDelta delta, Supplier<CommittedStock> committedStock, IntSupplier reserved) {
+        awaitRecovery();
+        Key key = new Key(delta.tenantId(), delta.productId());
+        Stripe stripe = stripeOf(key);
+        CommittedStock loadedStock = null;
+        long generation = -1;
+        int projected;
+        while (true) {
+            stripe.lock.lock();
+            try {
+                while (stripe.fences.containsKey(key)) {
+                    stripe.released.awaitUninterruptibly();
+                }
+                Pending pending = stripe.pending.get(key);
+                // A direct write finished since the stock was read: read it again
+                if (pending == null && loadedStock != null && generation == stripe.generation) {
+                    pending = new Pending(loadedStock);
+                    stripe.pending.put(key, pending);
+                }
+                if (pending != null) {
+                    projected = pending.projected() + delta.delta();
+                    if (projected < 0) {
+                        throw new InsufficientStockException("Not enough stock for product " + delta.productId()
+                                + ": " + pending.projected() + " available");
+                    }
+                    int held = delta.type() == StockMovementType.OUT ? reserved.getAsInt() : 0;
+                    if (projected < held) {
+                        throw new InsufficientStockException("Not enough stock for product " + delta.productId()
+                                + ": " + (pending.projected() - held) + " available to sell, " + held + " reserved");
+                    }
+                    Long locationId = pending.locationFor(delta);
+                    if (locationId == null) {
+                        throw new InsufficientStockException("Not enough stock of product " + delta.productId()
+                                + (delta.locationId() != null ? " at location " + delta.locationId() : " at any one location")
+                                + " to take " + -delta.delta());
+                    }
+                    pending.deltas.add(journal.append(delta));
+                    pending.queued += delta.delta();
+                    pending.locations.merge(locationId, delta.delta(), Integer::sum);
+                    break;
+                }
+                generation = stripe.generation;
+            } finally {
+                stripe.lock.unlock();
+            }
+            // First delta for this product in a while: read its stock outside the stripe lock
+            loadedStock = committedStock.get();
+        }
+
+        if (pendingOperations.incrementAndGet() == flushMaxOperations) {
+            synchronized (flushSignal) {
+                flushSignal.notifyAll();
+            }
+        }
+        return projected;
+    }
+
+    /**
+     * Projected stock of a product of the current tenant while the buffer tracks it, otherwise empty
+     */
+    public OptionalInt projectedStock(Long productId) {
+        Key key = new Key(TenantContext.getCurrentTenant(), productId);
+        Stripe stripe = stripeOf(key);
+        stripe.lock.lock();
+        try {
+            Pending pending = stripe.pending.get(key);
+            return pending != null ? OptionalInt.of(pending.projected()) : OptionalInt.empty();
+        } finally {
+            stripe.lock.unlock();
+        }
+    }
+
+    /**
+     * Runs a write of the current tenant's products that bypasses the buffer. Their pending deltas are
+     * written first, submits for them wait until the write is done and then read committed stock again.
+     * Must be called outside a transaction, and the write must commit its own.
+     *
+     * @throws ResponseStatusException 503 when pending deltas of the products could not be written
+     */
+    public <T> T fence(Collection<Long> productIds, Supplier<T> write) {
+        if (TransactionSynchronizationManager.isActualTransactionActive()) {
+            throw new IllegalStateException("Direct stock writes must not run inside a transaction with write-behind enabled");
+        }
+        awaitRecovery();
+        String tenantId = TenantContext.getCurrentTenant();
+        List<Key> keys = new TreeSet<>(productIds).stream().map(productId -> new Key(tenantId, productId)).toList();
+        for (Key key : keys) {
+            Stripe stripe = stripeOf(key);
+            stripe.lock.lock();
+            try {
+                stripe.fences.merge(key, 1, Integer::sum);
+            } finally {
+                stripe.lock.unlock();
+            }
+        }
+        try {
+            flush();
+            for (Key key : keys) {
+                Stripe stripe = stripeOf(key);
+                stripe.lock.lock();
+                try {
+                    Pending pending = stripe.pending.get(key);
+                    if (pending != null && !pending.deltas.isEmpty()) {
+                        throw new ResponseStatusException(HttpStatus.SERVICE_UNAVAILABLE,
+                                "Buffered stock movements of product " + key.productId() + " could not be written yet");
+                    }
+                } finally {
+                    stripe.lock.unlock();
+                }
+            }
+            return write.get();
+        } finally {
+            for (Key key : keys) {
+                Stripe stripe = stripeOf(key);
+                stripe.lock.lock();
+                try {
+                    if (stripe.fences.merge(key, -1, Integer::sum) == 0) {
+                        stripe.fences.remove(key);
+                    }
+                    Pending pending = stripe.pending.get(key);
+                    if (pending != null && pending.deltas.isEmpty()) {
+                        stripe.pending.remove(key);
+                    }
+                    stripe.generation++;
+                    stripe.released.signalAll();
+                } finally {
+                    stripe.lock.unlock();
+                }
+            }
+        }
+    }
+
+    /**
+     * {@link #fence} when write-behind is enabled, otherwise just the write
+     */
+    public static <T> T fenceIfEnabled(Optional<StockWriteBehindBuffer> buffer, Collection<Long> productIds, Supplier<T> write) {
+        return buffer.isPresent() ? buffer.get().fence(productIds, write) : write.get();
+    }
+
+    /**
+     * Requests can arrive before the journal replay on ApplicationReadyEvent has run; they wait for it
+     */
+    private void awaitRecovery() {
+        try {
+            if (recovered.await(recoveryWaitMs, TimeUnit.MILLISECONDS)) {
+                return;
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        throw new ResponseStatusException(HttpStatus.SERVICE_UNAVAILABLE, "Stock journal recovery is still running");
+    }
+
+    @PreDestroy
+    public void shutdown() throws InterruptedException {
+        // No interrupt: a flush in progress finishes its transaction
+        running = false;
+        synchronized (flushSignal) {
+            flushSignal.notifyAll();
+        }
+        flusher.join(TimeUnit.SECONDS.toMillis(5));
+        if (!flush()) {
+            log.warn("⚠️ {} stock deltas left in the journal, they are replayed on the next start", pendingOperations.get());
+        }
+        journal.close();
+    }
+
+    private void runFlusher() {
+        boolean failed = false;
+        while (running) {
+            synchronized (flushSignal) {
+                if (running && (failed || pendingOperations.get() < flushMaxOperations)) {
+                    try {
+                        flushSignal.wait(failed ? failureBackoffMs : flushIntervalMs);
+                    } catch (InterruptedException e) {
+                        return;
+                    }
+                }
+            }
+            if (running) {
+                failed = !flush();
+            }
+        }
+    }
+
+    /**
+     * Writes everything pending, one transaction per tenant
+     *
+     * @return false when a tenant's write failed; its deltas are queued again
+     */
+    synchronized boolean flush() {
+        Map<String, List<Drained>> byTenant = drain();
+        if (byTenant.isEmpty()) {
+            return true;
+        }
+        journal.sync();
+
+        boolean ok = true;
+        for (Map.Entry<String, List<Drained>> entry : byTenant.entrySet()) {
+            ok &= flushTenant(entry.getKey(), entry.getValue());
+        }
+        return ok;
+    }
+
+    private Map<String, List<Drained>> drain() {
+        Map<String, List<Drained>> byTenant = new LinkedHashMap<>();
+        int drained = 0;
+        for (Stripe stripe : stripes) {
+            stripe.lock.lock();
+            try {
+                Iterator<Map.Entry<Key, Pending>> entries = stripe.pending.entrySet().iterator();
+                while (entries.hasNext()) {
+                    Map.Entry<Key, Pending> entry = entries.next();
+                    Pending pending = entry.getValue();
+                    if (pending.deltas.isEmpty()) {
+                        // Idle since the last flush; the next delta reads committed stock again
+                        entries.remove();
+                        continue;
+                    }
+                    byTenant.computeIfAbsent(entry.getKey().tenantId(), t -> new ArrayList<>())
+                            .add(new Drained(stripe, pending, pending.deltas));
+                    drained += pending.deltas.size();
+                    pending.inFlight = pending.queued;
+                    pending.queued = 0;
+                    pending.deltas = new ArrayList<>();
+                }
+            } finally {
+                stripe.lock.unlock();
+            }
+        }
+        pendingOperations.addAndGet(-drained);
+        return byTenant;
+    }
+
+    private boolean flushTenant(String tenantId, List<Drained> drained) {
+        List<StockDelta> deltas = new ArrayList<>();
+        drained.forEach(d -> deltas.addAll(d.deltas()));
+
+        long start = System.nanoTime();
+        StockMovementWriter.Result result;
+        try {
+            result = inTenant(tenantId, () -> transactionTemplate.execute(status -> writer.apply(deltas)));
+        } catch (RuntimeException e) {
+            log.warn("⚠️ Stock write-behind flush failed for tenant {}, {} deltas queued again: {}",
+                    tenantId, deltas.size(), e.getMessage());
+            for (Drained d : drained) {
+                d.stripe().lock.lock();
+                try {
+                    d.pending().deltas.addAll(0, d.deltas());
+                    d.pending().queued += d.pending().inFlight;
+                    d.pending().inFlight = 0;
+                } finally {
+                    d.stripe().lock.unlock();
+                }
+            }
+            pendingOperations.addAndGet(deltas.size());
+            return false;
+        }
+
+        for (Drained d : drained) {
+            Long productId = d.deltas().get(0).productId();
+            d.stripe().lock.lock();
+            try {
+                d.pending().committed = result.stockLevels().getOrDefault(productId, d.pending().committed);
+                d.pending().inFlight = 0;
+            } finally {
+                d.stripe().lock.unlock();
+            }
+        }
+        journal.committed(deltas);
+
+        String tenantTag = tenantTags.of(tenantId);
+        Timer.builder("stockify.stock.write-behind.flush")
+                .description("Write-behind flush transactions (deltas / flushes = coalescing)")
+                .tag(TenantMetricsTags.TAG, tenantTag)
+                .register(meterRegistry)
+                .record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        Counter.builder("stockify.stock.write-behind.deltas")
+                .description("Stock deltas written by the write-behind buffer")
+                .tag(TenantMetricsTags.TAG, tenantTag)
+                .register(meterRegistry)
+                .increment(deltas.size() - result.skipped().size());
+        if (!result.skipped().isEmpty()) {
+            Counter.builder("stockify.stock.write-behind.skipped")
+                    .description("Buffered stock deltas that no longer fit the committed stock")
+                    .tag(TenantMetricsTags.TAG, tenantTag)
+                    .register(meterRegistry)
+                    .increment(result.skipped().size());
+            result.skipped().forEach(skipped -> log.warn("⚠️ Skipped buffered stock delta {} for product {} ({} {}) in tenant {}",
+                    skipped.journalId(), skipped.productId(), skipped.type(), skipped.delta(), tenantId));
+        }
+        return true;
+    }
+
+    private void recover() {
+        List<StockDelta> recovered = journal.recovered();
+        if (recovered.isEmpty()) {
+            journal.recoveryDone();
+            return;
+        }
+
+        Map<String, List<StockDelta>> byTenant = new LinkedHashMap<>();
+        recovered.forEach(delta -> byTenant.computeIfAbsent(delta.tenantId(), t -> new ArrayList<>()).add(delta));
+        int replayed = 0;
+        boolean complete = true;
+        for (Map.Entry<String, List<StockDelta>> entry : byTenant.entrySet()) {
+            List<StockDelta> deltas = entry.getValue();
+            try {
+                for (int from = 0; from < deltas.size(); from += RECOVERY_CHUNK_SIZE) {
+                    List<StockDelta> chunk = deltas.subList(from, Math.min(from + RECOVERY_CHUNK_SIZE, deltas.size()));
+                    Integer applied = inTenant(entry.getKey(), () -> transactionTemplate.execute(status -> {
+                        Set<String> existing = new HashSet<>(writer.existingJournalIds(chunk));
+                        LocalDateTime replayedAt = LocalDateTime.now();
+                        List<StockDelta> missing = chunk.stream()
+                                .filter(delta -> !existing.contains(delta.journalId()))
+                                .map(delta -> replayedAt(delta, replayedAt))
+                                .toList();
+                        return missing.size() - writer.apply(missing).skipped().size();
+                    }));
+                    replayed += applied != null ? applied : 0;
+                }
+            } catch (RuntimeException e) {
+                complete = false;
+                log.error("❌ Could not replay journaled stock deltas for tenant {}: {}", entry.getKey(), e.getMessage());
+            }
+        }
+        log.info("♻️ Stock journal recovery: {} of {} journaled deltas were not yet written and have been applied",
+                replayed, recovered.size());
+        if (complete) {
+            journal.recoveryDone();
+        } else {
+            log.warn("⚠️ Stock journal segments kept for the next start");
+        }
+    }
+
+    /**
+     * A replayed movement is dated when it is written: a snapshot taken since may already cover its original
+     * time, and a row inserted before that snapshot's as_of would be missing from it and from the replay on top
+     */
+    private static StockDelta replayedAt(StockDelta delta, LocalDateTime replayedAt) {
+        return new StockDelta(delta.journalId(), delta.sequence(), delta.tenantId(), delta.productId(), delta.locationId(),
+                delta.delta(), delta.type(), delta.reference(), delta.username(), replayedAt);
+    }
+
+    private static <T> T inTenant(String tenantId, Supplier<T> work) {
+        String previousTenant = TenantContext.getCurrentTenant();
+        TenantContext.setCurrentTenant(tenantId);
+        try {
+            return work.get();
+        } finally {
+            if (previousTenant != null) {
+                TenantContext.setCurrentTenant(previousTenant);
+            } else {
+                TenantContext.clear();
+            }
+        }
+    }
+
+    private Stripe stripeOf(Key key) {
+        return stripes[spread(key.hashCode()) & (stripes.length - 1)];
+    }
+
+    private static int spread(int hash) {
+        return hash ^ (hash >>> 16);
+    }
+
+    /**
+     * A product's committed stock: the total, the levels at the locations a delta may move (active ones and
+     * the default) and the default location, null without one
+     */
+    public record CommittedStock(int stockLevel, Map<Long, Integer> locationLevels, Long defaultLocationId) {
+    }
+
+    private record Key(String tenantId, Long productId) {
+    }
+
+    private record Drained(Stripe stripe, Pending pending, List<StockDelta> deltas) {
+    }
+
+    private static final class Stripe {
+        private final ReentrantLock lock = new ReentrantLock();
+        private final Condition released = lock.newCondition();
+        private final Map<Key, Pending> pending = new HashMap<>();
+        // Products with a direct write running, and how many
+        private final Map<Key, Integer> fences = new HashMap<>();
+        // Bumped when a direct write ends, so stock read before it is not used
+        private long generation;
+    }
+
+    /**
+     * Accumulated state of one product; guarded by its stripe's lock
+     */
+    private static final class Pending {
+        private int committed;
+        private int inFlight;
+        private int queued;
+        private List<StockDelta> deltas = new ArrayList<>();
+        // Location levels with every accepted delta applied, by location id
+        private final TreeMap<Long, Integer> locations;
+        private final Long defaultLocationId;
+
+        private Pending(CommittedStock stock) {
+            this.committed = stock.stockLevel();
+            this.locations = new TreeMap<>(stock.locationLevels());
+            this.defaultLocationId = stock.defaultLocationId();
+        }
+
+        int projected() {
+            return committed + inFlight + queued;
+        }
+
+        /**
+         * The location the writer will move for the delta, chosen like StockMovementWriter.locationFor on the
+         * projected levels (ties go to the lowest location id there as well); null when it cannot cover the delta
+         */
+        Long locationFor(StockDelta delta) {
+            Long locationId = delta.locationId() != null ? delta.locationId() : defaultLocationId;
+            if (locationId == null) {
+                return null;
+            }
+            int level = locations.getOrDefault(locationId, 0);
+            if (delta.locationId() == null && delta.delta() < 0 && level + delta.delta() < 0) {
+                for (Map.Entry<Long, Integer> candidate : locations.entrySet()) {
+                    if (candidate.getValue() > level) {
+                        locationId = candidate.getKey();
+                        level = candidate.getValue();
+                    }
+                }
+            }
+            return level + delta.delta() >= 0 ? locationId : null;
+        }
+    }
+}
@@ -1,13 +1,16 @@
 package dev.oasis.stockify.service;
 
 import dev.oasis.stockify.config.tenant.TenantContext;
+import dev.oasis.stockify.config.tenant.TenantRegistry;
+import dev.oasis.stockify.config.tenant.TenantSchemaProvisioner;
 import dev.oasis.stockify.dto.TenantCreateDTO;
 import dev.oasis.stockify.dto.TenantDTO;
-import dev.oasis.stockify.dto.UserCreateDTO;
 import dev.oasis.stockify.exception.TenantAlreadyExistsException;
 import dev.oasis.stockify.exception.TenantNotFoundException;
+import io.micrometer.core.instrument.MeterRegistry;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
@@ -17,8 +20,10 @@ import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.sql.Statement;
+import java.time.Duration;
 import java.time.LocalDateTime;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
 import java.util.Locale;
 import java.util.UUID;
@@ -33,39 +38,38 @@ import java.util.UUID;
 public class TenantManagementService {
 
     private final DataSource dataSource;
-    private final AppUserService appUserService;
+    private final PasswordEncoder passwordEncoder;
+    private final TenantRegistry tenantRegistry;
+    private final TenantSchemaProvisioner tenantSchemaProvisioner;
+    private final MeterRegistry meterRegistry;
 
     /**
      * Create a new tenant with complete setup
+     * Runs over plain JDBC instead of a JPA transaction, whose session would be bound to the caller's tenant
      */
-    @Transactional
     public TenantDTO createTenant(TenantCreateDTO createDTO) {
         String tenantId = generateTenantId(createDTO.getCompanyName());
         
         log.info("🏢 Creating new tenant: {} for company: {}", tenantId, createDTO.getCompanyName());
         
+        // Check if tenant already exists
+        if (tenantExists(tenantId)) {
+            throw new TenantAlreadyExistsException("Tenant already exists: " + tenantId);
+        }
+        
+        long start = System.nanoTime();
         try {
-            // Check if tenant already exists
-            if (tenantExists(tenantId)) {
-                throw new TenantAlreadyExistsException("Tenant already exists: " + tenantId);
-            }
-            
-            // Create tenant schema
-            createTenantSchema(tenantId);
+            // Create tenant schema and tables
+            Duration schemaTime = tenantSchemaProvisioner.provision(tenantId);
+            tenantRegistry.register(tenantId);
             
-            // Set tenant context for data operations
-            TenantContext.setCurrentTenant(tenantId);
-            
-            // Create tenant configuration
-            setupTenantConfiguration(tenantId, createDTO);
-            
-            // Create initial admin user
-            createTenantAdmin(createDTO);
+            // Tenant configuration and initial admin user in one transaction
+            seedTenant(tenantId, createDTO);
             
-            // Create default configurations
-            setupDefaultConfigurations(tenantId, createDTO);
-            
-            log.info("✅ Successfully created tenant: {}", tenantId);
+            Duration total = Duration.ofNanos(System.nanoTime() - start);
+            meterRegistry.timer("stockify.tenant.provisioning").record(total);
+            log.info("✅ Successfully created tenant: {} in {} ms (schema: {} ms)",
+                    tenantId, total.toMillis(), schemaTime.toMillis());
             
             return TenantDTO.builder()
                     .tenantId(tenantId)
@@ -73,6 +77,7 @@ public class TenantManagementService {
                     .adminEmail(createDTO.getAdminEmail())
                     .status("ACTIVE")
                     .createdAt(LocalDateTime.now())
+                    .provisioningTimeMs(total.toMillis())
                     .build();
                     
         } catch (Exception e) {
@@ -80,8 +85,6 @@ public class TenantManagementService {
             // Cleanup on failure
             cleanupFailedTenant(tenantId);
             throw new RuntimeException("Failed to create tenant: " + e.getMessage(), e);
-        } finally {
-            TenantContext.clear();
         }
     }
 
@@ -190,84 +193,54 @@ public class TenantManagementService {
         return baseId + "_" + suffix;
     }
 
-    private void createTenantSchema(String tenantId) throws SQLException {
-        try (Connection connection = dataSource.getConnection();
-             Statement statement = connection.createStatement()) {
-            
-            String schemaName = tenantId.toLowerCase(Locale.ROOT);
-            
-            // Create schema only - Flyway handles table creation
-            statement.execute(String.format("CREATE SCHEMA IF NOT EXISTS %s", schemaName));
-            log.debug("🏗️ Created schema: {} (tables will be created by Flyway)", schemaName);
-        }
-    }
-
-    private void setupTenantConfiguration(String tenantId, TenantCreateDTO createDTO) throws SQLException {
+    private void seedTenant(String tenantId, TenantCreateDTO createDTO) throws SQLException {
+        List<String[]> configs = List.of(
+            new String[] {"company_name", createDTO.getCompanyName(), "STRING", "Company display name"},
+            new String[] {"admin_email", createDTO.getAdminEmail(), "STRING", "Primary admin email"},
+            new String[] {"tenant_status", "ACTIVE", "STRING", "Tenant activation status"},
+            new String[] {"timezone", "UTC", "STRING", "Default timezone"},
+            new String[] {"currency", "USD", "STRING", "Default currency"},
+            new String[] {"low_stock_threshold", "5", "INTEGER", "Default low stock threshold"},
+            new String[] {"email_notifications", "true", "BOOLEAN", "Enable email notifications"}
+        );
+        
         try (Connection connection = dataSource.getConnection()) {
             connection.setSchema(tenantId.toLowerCase(Locale.ROOT));
-            
-            String insertConfigSQL = """
-                INSERT INTO tenant_config (config_key, config_value, config_type, description) VALUES (?, ?, ?, ?)
-                """;
-            
-            try (PreparedStatement stmt = connection.prepareStatement(insertConfigSQL)) {
-                // Company name
-                stmt.setString(1, "company_name");
-                stmt.setString(2, createDTO.getCompanyName());
-                stmt.setString(3, "STRING");
-                stmt.setString(4, "Company display name");
-                stmt.executeUpdate();
+            connection.setAutoCommit(false);
+            try {
+                // All configuration rows in a single multi-row insert
+                String insertConfigSQL = "INSERT INTO tenant_config (config_key, config_value, config_type, description) VALUES "
+                        + String.join(", ", Collections.nCopies(configs.size(), "(?, ?, ?, ?)"));
+                try (PreparedStatement stmt = connection.prepareStatement(insertConfigSQL)) {
+                    int index = 1;
+                    for (String[] config : configs) {
+                        for (String value : config) {
+                            stmt.setString(index++, value);
+                        }
+                    }
+                    stmt.executeUpdate();
+                }
                 
-                // Admin email
-                stmt.setString(1, "admin_email");
-                stmt.setString(2, createDTO.getAdminEmail());
-                stmt.setString(3, "STRING");
-                stmt.setString(4, "Primary admin email");
-                stmt.executeUpdate();
+                try (PreparedStatement stmt = connection.prepareStatement(
+                        "INSERT INTO app_user (username, password, role, is_active, primary_tenant) VALUES (?, ?, ?, ?, ?)")) {
+                    stmt.setString(1, createDTO.getAdminUsername());
+                    stmt.setString(2, passwordEncoder.encode(createDTO.getAdminPassword()));
+                    stmt.setString(3, "ADMIN");
+                    stmt.setBoolean(4, true);
+                    stmt.setString(5, tenantId.toLowerCase(Locale.ROOT));
+                    stmt.executeUpdate();
+                }
                 
-                // Tenant status
-                stmt.setString(1, "tenant_status");
-                stmt.setString(2, "ACTIVE");
-                stmt.setString(3, "STRING");
-                stmt.setString(4, "Tenant activation status");
-                stmt.executeUpdate();
+                connection.commit();
+                log.debug("👤 Created configuration and admin user for tenant {}", tenantId);
+            } catch (SQLException e) {
+                connection.rollback();
+                throw e;
             }
         }
     }
 
-    private void createTenantAdmin(TenantCreateDTO createDTO) {
-        try {
-            UserCreateDTO adminUser = new UserCreateDTO();
-            adminUser.setUsername(createDTO.getAdminUsername());
-            adminUser.setPassword(createDTO.getAdminPassword());
-            adminUser.setRole("ADMIN");
-            adminUser.setEmail(createDTO.getAdminEmail());
-            
-            appUserService.saveUser(adminUser);
-            log.debug("👤 Created admin user for tenant");
-        } catch (Exception e) {
-            log.error("❌ Failed to create admin user: {}", e.getMessage());
-            throw new RuntimeException("Failed to create admin user", e);
-        }
-    }    private void setupDefaultConfigurations(String tenantId, TenantCreateDTO createDTO) throws SQLException {
-        try (Connection connection = dataSource.getConnection()) {
-            connection.setSchema(tenantId.toLowerCase(Locale.ROOT));
-            
-            String[] defaultConfigs = {
-                "('timezone', 'UTC', 'STRING', 'Default timezone')",
-                "('currency', 'USD', 'STRING', 'Default currency')",
-                "('low_stock_threshold', '5', 'INTEGER', 'Default low stock threshold')",
-                "('email_notifications', 'true', 'BOOLEAN', 'Enable email notifications')"
-            };
-            
-            try (Statement statement = connection.createStatement()) {
-                for (String config : defaultConfigs) {
-                    String sql = "INSERT INTO tenant_config (config_key, config_value, config_type, description) VALUES " + config;
-                    statement.execute(sql);
-                }
-            }
-        }
-    }    private TenantDTO getTenantInfo(String tenantId) {
+    private TenantDTO getTenantInfo(String tenantId) {
         try (Connection connection = dataSource.getConnection()) {
             connection.setSchema(tenantId.toLowerCase(Locale.ROOT));
             
@@ -328,6 +301,7 @@ public class TenantManagementService {
             
             String schemaName = tenantId.toLowerCase(Locale.ROOT);
             statement.execute(String.format("DROP SCHEMA IF EXISTS %s CASCADE", schemaName));
+            tenantRegistry.unregister(schemaName);
             log.info("🧹 Cleaned up failed tenant schema: {}", schemaName);
             
         } catch (SQLException e) {
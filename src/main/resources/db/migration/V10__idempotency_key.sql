@@ -0,0 +1,19 @@
+-- =============================================================================
+-- IDEMPOTENCY KEYS
+-- =============================================================================
+-- Cold tier of the idempotency store: the response of a mutation sent with an
+-- Idempotency-Key header, replayed when the same key is sent again until it expires.
+-- request_hash is a 64 bit fingerprint of method, path and parameters; a key reused
+-- for a different request is rejected. Hot entries live in memory per instance.
+CREATE TABLE IF NOT EXISTS idempotency_key (
+    idempotency_key VARCHAR(128) PRIMARY KEY,
+    request_hash BIGINT NOT NULL,
+    status_code INTEGER NOT NULL,
+    content_type VARCHAR(100),
+    location VARCHAR(500),
+    response_body VARCHAR(8000),
+    created_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP,
+    expires_at TIMESTAMP NOT NULL
+);
+
+CREATE INDEX IF NOT EXISTS idx_idempotency_key_expires ON idempotency_key(expires_at);
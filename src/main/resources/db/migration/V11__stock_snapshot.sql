@@ -0,0 +1,33 @@
+-- =============================================================================
+-- STOCK SNAPSHOTS (LEDGER CHECKPOINTS)
+-- =============================================================================
+-- stock_movement is the ledger of every stock change. A snapshot stores the stock level of each
+-- product as of a point in time, so the stock at any time T is the nearest snapshot plus (or minus)
+-- the movements between the two, instead of the whole history. Snapshots hold products with
+-- non-zero stock only; a product without a line had none. unit_price is the price when the
+-- snapshot was taken and values the snapshot's stock.
+CREATE TABLE IF NOT EXISTS stock_snapshot (
+    id BIGINT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+    as_of TIMESTAMP NOT NULL,
+    product_count INTEGER NOT NULL DEFAULT 0,
+    total_units BIGINT NOT NULL DEFAULT 0,
+    total_value DECIMAL(19,2) NOT NULL DEFAULT 0.00,
+    created_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP,
+
+    CONSTRAINT uk_stock_snapshot_as_of UNIQUE (as_of)
+);
+
+CREATE TABLE IF NOT EXISTS stock_snapshot_line (
+    snapshot_id BIGINT NOT NULL,
+    product_id BIGINT NOT NULL,
+    stock_level INTEGER NOT NULL,
+    unit_price DECIMAL(15,2) NOT NULL,
+
+    -- Constraints
+    CONSTRAINT pk_stock_snapshot_line PRIMARY KEY (snapshot_id, product_id),
+    CONSTRAINT fk_snapshot_line_snapshot FOREIGN KEY (snapshot_id) REFERENCES stock_snapshot(id) ON DELETE CASCADE,
+    CONSTRAINT fk_snapshot_line_product FOREIGN KEY (product_id) REFERENCES product(id) ON DELETE CASCADE
+);
+
+-- Replaying one product between a snapshot and T reads only that product's movements in the range
+CREATE INDEX IF NOT EXISTS idx_stock_movement_product_created ON stock_movement(product_id, created_at);
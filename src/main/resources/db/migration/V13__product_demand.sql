@@ -0,0 +1,32 @@
+-- =============================================================================
+-- DEMAND FORECAST
+-- =============================================================================
+-- Smoothed daily demand (OUT movements) per product and the reorder point derived from it.
+-- Rows are folded forward one day at a time up to through_day; products that never sold have no row.
+-- reorder_alerted is set once a REORDER notification was sent and cleared when stock recovers above
+-- the reorder point, so each crossing notifies once.
+CREATE TABLE IF NOT EXISTS product_demand (
+    product_id BIGINT PRIMARY KEY,
+    -- Exponentially smoothed units per day and the smoothed variance around it
+    demand_rate DOUBLE PRECISION NOT NULL DEFAULT 0,
+    demand_variance DOUBLE PRECISION NOT NULL DEFAULT 0,
+    through_day DATE NOT NULL,
+    reorder_point INTEGER NOT NULL DEFAULT 0,
+    reorder_alerted BOOLEAN NOT NULL DEFAULT FALSE,
+    updated_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP,
+
+    -- Constraints
+    CONSTRAINT fk_product_demand_product FOREIGN KEY (product_id) REFERENCES product(id) ON DELETE CASCADE
+);
+
+-- One row per completed forecast run; the latest through_day is where the next run continues
+CREATE TABLE IF NOT EXISTS demand_forecast_run (
+    id BIGINT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+    from_day DATE NOT NULL,
+    through_day DATE NOT NULL,
+    products_updated BIGINT NOT NULL DEFAULT 0,
+    duration_ms BIGINT NOT NULL DEFAULT 0,
+    created_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP
+);
+
+CREATE INDEX IF NOT EXISTS idx_demand_forecast_run_through ON demand_forecast_run(through_day DESC);
@@ -0,0 +1,18 @@
+-- =============================================================================
+-- STOCK HISTORY OF DELETED PRODUCTS
+-- =============================================================================
+-- The ledger and the snapshots are history: deleting a product must not delete its movements or
+-- snapshot lines, or stock and valuation as of earlier times change after the fact. Deleting a
+-- product now writes its remaining stock off with ADJUSTMENT movements and keeps the rows, which
+-- reference a product id that no longer exists.
+ALTER TABLE stock_movement DROP CONSTRAINT IF EXISTS fk_stock_movement_product;
+ALTER TABLE stock_snapshot_line DROP CONSTRAINT IF EXISTS fk_snapshot_line_product;
+
+-- What past valuations need of a deleted product: its category and last price
+CREATE TABLE IF NOT EXISTS deleted_product (
+    id BIGINT PRIMARY KEY,
+    sku VARCHAR(100) NOT NULL,
+    category VARCHAR(100) NOT NULL,
+    price DECIMAL(15,2) NOT NULL,
+    deleted_at TIMESTAMP NOT NULL
+);
@@ -0,0 +1,6 @@
+-- =============================================================================
+-- STOCK MOVEMENT LOCATION REFERENCE
+-- =============================================================================
+-- stock_movement.location_id (V8) had no foreign key. Locations are deactivated rather than deleted,
+-- so a location that movements refer to cannot be deleted.
+ALTER TABLE stock_movement ADD CONSTRAINT fk_stock_movement_location FOREIGN KEY (location_id) REFERENCES stock_location(id);
@@ -0,0 +1,7 @@
+-- =============================================================================
+-- IDEMPOTENCY KEY CLAIMS
+-- =============================================================================
+-- The first request for a key inserts a pending row (status_code 0) before it runs, so a duplicate
+-- on another instance finds the key taken and waits for the response instead of running again.
+-- The response replaces the row; a pending row expires after stockify.idempotency.pending-ttl-seconds.
+ALTER TABLE idempotency_key ADD COLUMN IF NOT EXISTS pending BOOLEAN NOT NULL DEFAULT FALSE;
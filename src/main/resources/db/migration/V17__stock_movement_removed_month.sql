@@ -0,0 +1,12 @@
+-- =============================================================================
+-- STOCK MOVEMENT MONTHS TAKEN OUT BY RETENTION
+-- =============================================================================
+-- On PostgreSQL, partition retention detaches or drops whole months of stock_movement
+-- (StockMovementPartitionService) and records each one here in the same transaction. Point-in-time
+-- stock replays the ledger, so it is only answered from the first day after the last removed month;
+-- earlier times would replay movements that are no longer in the table. Stays empty on H2.
+CREATE TABLE IF NOT EXISTS stock_movement_removed_month (
+    removed_month DATE PRIMARY KEY,
+    retention_mode VARCHAR(10) NOT NULL,
+    removed_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP
+);
@@ -0,0 +1,15 @@
+-- =============================================================================
+-- APPLIED STOCK JOURNAL ENTRIES
+-- =============================================================================
+-- Journal ids of the write-behind movements already written, one row each, inserted in the
+-- same transaction as the movement. On PostgreSQL stock_movement is partitioned and its unique
+-- index covers (journal_id, created_at), while a journal entry replayed after a crash is dated at
+-- replay time, so only this table keeps a journal entry from being applied twice. Rows go with
+-- the stock_movement months that partition retention removes.
+CREATE TABLE IF NOT EXISTS stock_journal_entry (
+    journal_id VARCHAR(64) PRIMARY KEY,
+    applied_at TIMESTAMP NOT NULL
+);
+
+INSERT INTO stock_journal_entry (journal_id, applied_at)
+SELECT journal_id, MIN(created_at) FROM stock_movement WHERE journal_id IS NOT NULL GROUP BY journal_id;
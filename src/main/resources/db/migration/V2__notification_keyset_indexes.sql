@@ -0,0 +1,15 @@
+-- =============================================================================
+-- NOTIFICATION KEYSET PAGING INDEXES
+-- =============================================================================
+-- Notification pages are read newest first with (created_at, id) as the keyset cursor.
+-- The date indexes get the id tiebreak so a page is a short index range scan that stops
+-- after page size + 1 rows instead of sorting every (unread) notification of the tenant.
+-- The single column is_read index is dropped: the composite index covers its lookups.
+
+DROP INDEX IF EXISTS idx_stock_notification_read;
+
+DROP INDEX IF EXISTS idx_stock_notification_created;
+CREATE INDEX IF NOT EXISTS idx_stock_notification_created ON stock_notification(created_at DESC, id DESC);
+
+DROP INDEX IF EXISTS idx_stock_notification_unread_by_date;
+CREATE INDEX IF NOT EXISTS idx_stock_notification_unread_by_date ON stock_notification(is_read, created_at DESC, id DESC);
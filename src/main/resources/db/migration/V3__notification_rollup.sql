@@ -0,0 +1,18 @@
+-- =============================================================================
+-- NOTIFICATION ROLLUP TABLE
+-- =============================================================================
+-- Daily notification counts kept when the retention job removes old read notifications.
+-- One row per retention chunk and (day, product, type); report totals with SUM(notification_count).
+CREATE TABLE IF NOT EXISTS stock_notification_rollup (
+    id BIGINT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+    rollup_date DATE NOT NULL,
+    product_id BIGINT NOT NULL,
+    notification_type VARCHAR(50) NOT NULL,
+    notification_count INTEGER NOT NULL,
+    created_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP,
+
+    -- Constraints
+    CONSTRAINT fk_stock_notification_rollup_product FOREIGN KEY (product_id) REFERENCES product(id) ON DELETE CASCADE
+);
+
+CREATE INDEX IF NOT EXISTS idx_stock_notification_rollup_product_date ON stock_notification_rollup(product_id, rollup_date);
@@ -0,0 +1,5 @@
+-- =============================================================================
+-- OVERSTOCK THRESHOLD
+-- =============================================================================
+-- Optional upper stock limit; crossing it raises an OVERSTOCKED notification. NULL disables the check.
+ALTER TABLE product ADD COLUMN IF NOT EXISTS overstock_threshold INTEGER;
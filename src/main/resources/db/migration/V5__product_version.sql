@@ -0,0 +1,6 @@
+-- =============================================================================
+-- PRODUCT OPTIMISTIC LOCKING
+-- =============================================================================
+-- Row version checked and incremented by every product update (JPA @Version); a writer
+-- holding an older version gets a conflict instead of overwriting a concurrent change.
+ALTER TABLE product ADD COLUMN IF NOT EXISTS version BIGINT DEFAULT 0 NOT NULL;
@@ -0,0 +1,9 @@
+-- =============================================================================
+-- STOCK MOVEMENT JOURNAL REFERENCE
+-- =============================================================================
+-- Movements written by the stock write-behind buffer carry the id of their local journal
+-- entry ("<node>:<sequence>"). After a crash the journal is replayed and entries whose id
+-- is already present are skipped, so every buffered stock change is applied exactly once.
+ALTER TABLE stock_movement ADD COLUMN IF NOT EXISTS journal_id VARCHAR(64);
+
+CREATE UNIQUE INDEX IF NOT EXISTS idx_stock_movement_journal ON stock_movement(journal_id);
@@ -0,0 +1,26 @@
+-- =============================================================================
+-- STOCK RESERVATION TABLE
+-- =============================================================================
+-- Stock held for carts until payment. A reservation does not change product.stock_level;
+-- confirming it records an OUT stock movement, releasing or expiring it frees the quantity.
+-- Available-to-sell is stock_level minus the quantity of HELD reservations, kept in memory
+-- and rebuilt from the HELD rows on startup.
+CREATE TABLE IF NOT EXISTS stock_reservation (
+    id BIGINT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+    reservation_key VARCHAR(36) NOT NULL UNIQUE,
+    product_id BIGINT NOT NULL,
+    quantity INTEGER NOT NULL,
+    status VARCHAR(20) NOT NULL DEFAULT 'HELD',
+    reference_id VARCHAR(100),
+    created_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP,
+    expires_at TIMESTAMP NOT NULL,
+    resolved_at TIMESTAMP,
+
+    -- Constraints
+    CONSTRAINT fk_stock_reservation_product FOREIGN KEY (product_id) REFERENCES product(id) ON DELETE CASCADE,
+    CONSTRAINT chk_reservation_status CHECK (status IN ('HELD', 'CONFIRMED', 'RELEASED', 'EXPIRED')),
+    CONSTRAINT chk_reservation_quantity_positive CHECK (quantity > 0)
+);
+
+CREATE INDEX IF NOT EXISTS idx_stock_reservation_status_expires ON stock_reservation(status, expires_at);
+CREATE INDEX IF NOT EXISTS idx_stock_reservation_product ON stock_reservation(product_id);
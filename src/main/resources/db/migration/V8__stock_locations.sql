@@ -0,0 +1,49 @@
+-- =============================================================================
+-- STOCK LOCATIONS (WAREHOUSES)
+-- =============================================================================
+-- Stock is held per location. product.stock_level stays the total over all locations and is
+-- updated in the same transaction as the location row, so list and dashboard queries keep
+-- reading one column instead of summing locations. Movements without a location go to the
+-- default location, which is seeded as MAIN and holds all stock that existed before.
+CREATE TABLE IF NOT EXISTS stock_location (
+    id BIGINT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+    code VARCHAR(50) NOT NULL UNIQUE,
+    name VARCHAR(255) NOT NULL,
+    is_default BOOLEAN NOT NULL DEFAULT FALSE,
+    is_active BOOLEAN NOT NULL DEFAULT TRUE,
+    created_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP
+);
+
+INSERT INTO stock_location (code, name, is_default)
+SELECT 'MAIN', 'Ana Depo', TRUE
+WHERE NOT EXISTS (SELECT 1 FROM stock_location WHERE is_default = TRUE);
+
+CREATE TABLE IF NOT EXISTS product_location_stock (
+    id BIGINT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+    product_id BIGINT NOT NULL,
+    location_id BIGINT NOT NULL,
+    stock_level INTEGER NOT NULL DEFAULT 0,
+    -- Optional per-location alert threshold; without it only the product total is evaluated
+    low_stock_threshold INTEGER,
+    updated_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP,
+
+    -- Constraints
+    CONSTRAINT fk_location_stock_product FOREIGN KEY (product_id) REFERENCES product(id) ON DELETE CASCADE,
+    CONSTRAINT fk_location_stock_location FOREIGN KEY (location_id) REFERENCES stock_location(id) ON DELETE CASCADE,
+    CONSTRAINT uk_location_stock_product_location UNIQUE (product_id, location_id),
+    CONSTRAINT chk_location_stock_non_negative CHECK (stock_level >= 0)
+);
+
+CREATE INDEX IF NOT EXISTS idx_location_stock_location ON product_location_stock(location_id);
+
+-- Existing stock belongs to the default location
+INSERT INTO product_location_stock (product_id, location_id, stock_level)
+SELECT p.id, l.id, p.stock_level
+FROM product p
+JOIN stock_location l ON l.is_default = TRUE
+WHERE NOT EXISTS (SELECT 1 FROM product_location_stock s WHERE s.product_id = p.id AND s.location_id = l.id);
+
+ALTER TABLE stock_movement ADD COLUMN IF NOT EXISTS location_id BIGINT;
+
+-- previous_stock/new_stock of a movement are the levels at its location
+CREATE INDEX IF NOT EXISTS idx_stock_movement_location ON stock_movement(location_id);
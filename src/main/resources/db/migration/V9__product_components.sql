@@ -0,0 +1,27 @@
+-- =============================================================================
+-- KIT / BUNDLE BILL OF MATERIALS
+-- =============================================================================
+-- A kit is a product built from component products. Its buildable quantity,
+-- MIN(component stock / quantity per kit), is stored in product.kit_availability and
+-- recomputed in the transaction that changes a component's stock. The component_id
+-- index is the reverse dependency index: it finds the kits of a changed component
+-- without scanning the kits.
+CREATE TABLE IF NOT EXISTS product_component (
+    id BIGINT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+    kit_id BIGINT NOT NULL,
+    component_id BIGINT NOT NULL,
+    quantity INTEGER NOT NULL,
+    created_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP,
+
+    -- Constraints
+    CONSTRAINT fk_product_component_kit FOREIGN KEY (kit_id) REFERENCES product(id) ON DELETE CASCADE,
+    CONSTRAINT fk_product_component_component FOREIGN KEY (component_id) REFERENCES product(id) ON DELETE CASCADE,
+    CONSTRAINT uk_product_component UNIQUE (kit_id, component_id),
+    CONSTRAINT chk_product_component_quantity_positive CHECK (quantity > 0),
+    CONSTRAINT chk_product_component_not_self CHECK (kit_id <> component_id)
+);
+
+CREATE INDEX IF NOT EXISTS idx_product_component_component ON product_component(component_id);
+
+-- NULL for products that are not kits
+ALTER TABLE product ADD COLUMN IF NOT EXISTS kit_availability INTEGER;
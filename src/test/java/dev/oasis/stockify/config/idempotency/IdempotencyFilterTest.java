@@ -0,0 +1,106 @@
+package dev.oasis.stockify.config.idempotency;
+
+import dev.oasis.stockify.config.metrics.TenantMetricsTags;
+import dev.oasis.stockify.config.tenant.TenantContext;
+import dev.oasis.stockify.config.tenant.TenantMigrationOrchestrator;
+import dev.oasis.stockify.config.tenant.TenantRegistry;
+import dev.oasis.stockify.repository.IdempotencyRecordRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.Timestamp;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.mockingDetails;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * A request that fails without a response gives its key back, and waiting for another instance's request
+ * does not hold a pooled connection.
+ */
+class IdempotencyFilterTest {
+
+    private static final String TENANT = "acme_corp";
+    private static final String KEY = "order-42";
+
+    @BeforeEach
+    void setUp() {
+        TenantContext.setCurrentTenant(TENANT);
+    }
+
+    @AfterEach
+    void tearDown() {
+        TenantContext.clear();
+    }
+
+    @Test
+    void failedChainReleasesThePendingKey() throws Exception {
+        IdempotencyStore store = mock(IdempotencyStore.class);
+        when(store.claimCold(anyString(), eq(KEY), anyLong())).thenReturn(IdempotencyStore.ColdClaim.CLAIMED);
+        IdempotencyFilter filter = new IdempotencyFilter(store, new SimpleMeterRegistry(), mock(TenantMetricsTags.class));
+        MockHttpServletRequest request = new MockHttpServletRequest("POST", "/products");
+        request.addHeader(IdempotencyFilter.HEADER, KEY);
+        FilterChain chain = mock(FilterChain.class);
+        doThrow(new ServletException("handler failed")).when(chain).doFilter(any(), any());
+
+        assertThatThrownBy(() -> filter.doFilterInternal(request, new MockHttpServletResponse(), chain))
+                .isInstanceOf(ServletException.class);
+
+        verify(store).releaseCold(KEY);
+        verify(store, never()).persist(anyString(), any());
+        verify(store).release(eq(TENANT + '/' + KEY), any());
+    }
+
+    @Test
+    void pendingKeyIsPolledWithoutHoldingAConnection() throws Exception {
+        DataSource dataSource = mock(DataSource.class);
+        Connection connection = mock(Connection.class);
+        PreparedStatement statement = mock(PreparedStatement.class);
+        ResultSet pendingRow = mock(ResultSet.class);
+        when(dataSource.getConnection()).thenReturn(connection);
+        when(connection.prepareStatement(anyString())).thenReturn(statement);
+        when(statement.executeQuery()).thenReturn(pendingRow);
+        when(pendingRow.next()).thenReturn(true);
+        when(pendingRow.getTimestamp("expires_at")).thenReturn(new Timestamp(System.currentTimeMillis() + 60_000));
+        when(pendingRow.getLong("request_hash")).thenReturn(7L);
+        when(pendingRow.getBoolean("pending")).thenReturn(true);
+
+        IdempotencyStore store = new IdempotencyStore(mock(IdempotencyRecordRepository.class), mock(TransactionTemplate.class),
+                mock(TenantRegistry.class), dataSource, mock(TenantMigrationOrchestrator.class));
+        ReflectionTestUtils.setField(store, "waitTimeoutMs", 300L);
+
+        IdempotencyStore.ColdClaim claim = store.claimCold(TENANT + '/' + KEY, KEY, 7L);
+
+        assertThat(claim).isEqualTo(IdempotencyStore.ColdClaim.IN_PROGRESS);
+        long opened = mockingDetails(dataSource).getInvocations().stream()
+                .filter(invocation -> invocation.getMethod().getName().equals("getConnection"))
+                .count();
+        long closed = mockingDetails(connection).getInvocations().stream()
+                .filter(invocation -> invocation.getMethod().getName().equals("close"))
+                .count();
+        // One connection per poll, each returned before the next one is taken
+        assertThat(opened).isGreaterThan(1);
+        assertThat(closed).isEqualTo(opened);
+    }
+}
@@ -0,0 +1,37 @@
+package dev.oasis.stockify.config.metrics;
+
+import dev.oasis.stockify.exception.QueryBudgetExceededException;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.security.test.context.support.WithMockUser;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.catchThrowable;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+
+/**
+ * The test profile turns the statement budget into a hard failure; the budget is lowered here
+ * so the admin dashboard, which runs a handful of statistics queries, goes over it.
+ */
+@SpringBootTest(properties = "stockify.query-guard.statement-budget=2")
+@AutoConfigureMockMvc
+@ActiveProfiles({"dev", "test"})
+class QueryGuardFilterTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Test
+    @WithMockUser(roles = "ADMIN")
+    void requestOverTheStatementBudgetFails() {
+        Throwable failure = catchThrowable(() -> mockMvc.perform(get("/admin/dashboard").header("X-TenantId", "acme_corp")));
+
+        assertThat(failure).isNotNull();
+        assertThat(failure).hasRootCauseInstanceOf(QueryBudgetExceededException.class);
+        assertThat(failure.getMessage()).contains("statement budget of 2");
+    }
+}
@@ -0,0 +1,44 @@
+package dev.oasis.stockify.config.tenant;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Tasks handed to a wrapped executor run as the submitting tenant and leave the pooled thread clean
+ */
+class TenantAwareExecutorsTest {
+
+    private final ExecutorService executor = TenantAwareExecutors.wrap(Executors.newSingleThreadExecutor());
+
+    @AfterEach
+    void tearDown() {
+        executor.shutdownNow();
+        TenantContext.clear();
+    }
+
+    @Test
+    void taskRunsAsTheSubmittingTenant() throws Exception {
+        String seen = TenantContext.callAs("acme_corp",
+                () -> CompletableFuture.supplyAsync(TenantContext::getCurrentTenant, executor).join());
+
+        assertThat(seen).isEqualTo("acme_corp");
+        assertThat(executor.submit(TenantContext::getCurrentTenant).get()).isNull();
+        assertThat(TenantContext.getCurrentTenant()).isNull();
+    }
+
+    @Test
+    void callAsRestoresTheCallersTenant() {
+        TenantContext.setCurrentTenant("globex");
+
+        String seen = TenantContext.callAs("acme_corp", TenantContext::getCurrentTenant);
+
+        assertThat(seen).isEqualTo("acme_corp");
+        assertThat(TenantContext.getCurrentTenant()).isEqualTo("globex");
+    }
+}
@@ -0,0 +1,49 @@
+package dev.oasis.stockify.config.tenant;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.security.test.context.support.WithMockUser;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * A signed-in session stays on the tenant it logged in to, whatever tenant header it sends
+ */
+@SpringBootTest
+@AutoConfigureMockMvc
+@ActiveProfiles({"dev", "test"})
+class TenantHeaderFilterTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Test
+    @WithMockUser(roles = "ADMIN")
+    void headerForAnotherTenantIsRejectedForASession() throws Exception {
+        mockMvc.perform(get("/products")
+                        .sessionAttr(TenantResolver.SESSION_ATTRIBUTE, "acme_corp")
+                        .header("X-TenantId", "global_trade"))
+                .andExpect(status().isForbidden());
+    }
+
+    @Test
+    @WithMockUser(roles = "ADMIN")
+    void headerForTheSessionTenantIsAccepted() throws Exception {
+        mockMvc.perform(get("/products")
+                        .sessionAttr(TenantResolver.SESSION_ATTRIBUTE, "acme_corp")
+                        .header("X-TenantId", "ACME_CORP"))
+                .andExpect(status().isOk());
+    }
+
+    @Test
+    @WithMockUser(roles = "ADMIN")
+    void headerSelectsTheTenantWithoutASession() throws Exception {
+        mockMvc.perform(get("/products").header("X-TenantId", "global_trade"))
+                .andExpect(status().isOk());
+    }
+}
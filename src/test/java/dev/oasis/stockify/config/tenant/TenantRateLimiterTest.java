@@ -0,0 +1,69 @@
+package dev.oasis.stockify.config.tenant;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * A tenant_config read that fails keeps the limits the tenant already had
+ */
+class TenantRateLimiterTest {
+
+    private static final String TENANT = "acme_corp";
+
+    private final DataSource dataSource = mock(DataSource.class);
+    private final TenantRateLimiter rateLimiter = new TenantRateLimiter(dataSource, new SimpleMeterRegistry());
+
+    @BeforeEach
+    void setUp() {
+        ReflectionTestUtils.setField(rateLimiter, "defaultRequestsPerSecond", 50);
+        ReflectionTestUtils.setField(rateLimiter, "defaultBurst", 100);
+        ReflectionTestUtils.setField(rateLimiter, "defaultMaxConcurrent", 20);
+        // Every request after the first finds the limits stale
+        ReflectionTestUtils.setField(rateLimiter, "configRefreshSeconds", 0L);
+    }
+
+    @Test
+    void failedRefreshKeepsConfiguredLimits() throws SQLException {
+        Connection connection = mock(Connection.class);
+        PreparedStatement statement = mock(PreparedStatement.class);
+        ResultSet config = mock(ResultSet.class);
+        when(dataSource.getConnection()).thenReturn(connection);
+        when(connection.prepareStatement(anyString())).thenReturn(statement);
+        when(statement.executeQuery()).thenReturn(config);
+        when(config.next()).thenReturn(true, true, false);
+        when(config.getString("config_key")).thenReturn(TenantRateLimiter.RATE_KEY, TenantRateLimiter.BURST_KEY);
+        when(config.getString("config_value")).thenReturn("1", "1");
+
+        try (TenantRateLimiter.Permit first = rateLimiter.tryAcquire(TENANT)) {
+            assertThat(first.isGranted()).isTrue();
+        }
+
+        when(dataSource.getConnection()).thenThrow(new SQLException("connection refused"));
+        try (TenantRateLimiter.Permit second = rateLimiter.tryAcquire(TENANT)) {
+            // Still one request per second: the defaults (50/s, burst 100) would have let it through
+            assertThat(second.isGranted()).isFalse();
+        }
+    }
+
+    @Test
+    void unreadableConfigFallsBackToDefaults() throws SQLException {
+        when(dataSource.getConnection()).thenThrow(new SQLException("connection refused"));
+
+        try (TenantRateLimiter.Permit permit = rateLimiter.tryAcquire(TENANT)) {
+            assertThat(permit.isGranted()).isTrue();
+        }
+    }
+}
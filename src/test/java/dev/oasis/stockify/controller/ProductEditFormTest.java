@@ -0,0 +1,108 @@
+package dev.oasis.stockify.controller;
+
+import dev.oasis.stockify.config.tenant.TenantContext;
+import dev.oasis.stockify.dto.ProductResponseDTO;
+import dev.oasis.stockify.service.ProductService;
+import jakarta.servlet.http.HttpSession;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.security.test.context.support.WithMockUser;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.web.util.HtmlUtils;
+
+import java.util.Collections;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.redirectedUrl;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * An edit form carries the state it started from in a hidden field; submitting it after a sale only
+ * applies the user's own stock change on top of the sale.
+ */
+@SpringBootTest
+@AutoConfigureMockMvc
+@ActiveProfiles({"dev", "test"})
+class ProductEditFormTest {
+
+    private static final String TENANT = "acme_corp";
+    private static final Pattern EDIT_BASE = Pattern.compile("name=\"editBase\" value=\"([^\"]*)\"");
+
+    @Autowired
+    private MockMvc mockMvc;
+    @Autowired
+    private ProductService productService;
+
+    @AfterEach
+    void tearDown() {
+        TenantContext.clear();
+    }
+
+    @Test
+    @WithMockUser(roles = "ADMIN")
+    void staleFormRebasesStockOnTheCurrentLevel() throws Exception {
+        ProductResponseDTO product = firstProduct();
+        int opened = product.getStockLevel();
+
+        MvcResult form = mockMvc.perform(get("/products/edit/{id}", product.getId()).header("X-TenantId", TENANT))
+                .andExpect(status().isOk())
+                .andReturn();
+        HttpSession session = form.getRequest().getSession(false);
+        if (session != null) {
+            assertThat(Collections.list(session.getAttributeNames())).noneMatch(name -> name.startsWith("productEditBase"));
+        }
+        Matcher matcher = EDIT_BASE.matcher(form.getResponse().getContentAsString());
+        assertThat(matcher.find()).isTrue();
+        String editBase = HtmlUtils.htmlUnescape(matcher.group(1));
+
+        // A sale committed while the form is open
+        mockMvc.perform(post("/products/{id}/stock", product.getId()).header("X-TenantId", TENANT)
+                        .param("type", "OUT").param("quantity", "2"))
+                .andExpect(status().isOk());
+
+        // The user raises the stock they saw by 3
+        mockMvc.perform(post("/products/edit/{id}", product.getId()).header("X-TenantId", TENANT)
+                        .param("title", product.getTitle())
+                        .param("description", product.getDescription())
+                        .param("sku", product.getSku())
+                        .param("category", product.getCategory())
+                        .param("price", product.getPrice().toPlainString())
+                        .param("stockLevel", String.valueOf(opened + 3))
+                        .param("lowStockThreshold", String.valueOf(product.getLowStockThreshold()))
+                        .param("version", String.valueOf(product.getVersion()))
+                        .param("editBase", editBase))
+                .andExpect(redirectedUrl("/products"));
+
+        assertThat(reload(product).getStockLevel()).isEqualTo(opened - 2 + 3);
+    }
+
+    private ProductResponseDTO firstProduct() {
+        TenantContext.setCurrentTenant(TENANT);
+        try {
+            return productService.getAllProducts().stream()
+                    .filter(candidate -> candidate.getStockLevel() >= 2 && candidate.getKitAvailability() == null)
+                    .findFirst()
+                    .orElseThrow();
+        } finally {
+            TenantContext.clear();
+        }
+    }
+
+    private ProductResponseDTO reload(ProductResponseDTO product) {
+        TenantContext.setCurrentTenant(TENANT);
+        try {
+            return productService.getProductById(product.getId()).orElseThrow();
+        } finally {
+            TenantContext.clear();
+        }
+    }
+}
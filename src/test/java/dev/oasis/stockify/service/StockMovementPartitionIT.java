@@ -0,0 +1,336 @@
+package dev.oasis.stockify.service;
+
+import dev.oasis.stockify.config.tenant.TenantContext;
+import dev.oasis.stockify.config.tenant.TenantSchemaProvisioner;
+import dev.oasis.stockify.model.StockMovementType;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.sql.DataSource;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Monthly stock_movement partitions on PostgreSQL (mvn -Ppostgres-it verify, see the profile for the database).
+ * Each test provisions a tenant, so V12 partitions its ledger, adds the three months before the current one as
+ * V12 does for existing rows, writes one movement per month and a snapshot at the start of last month. The
+ * statements the as-of, reconciliation and journal lookups run are captured with their parameters from the
+ * DataSource and EXPLAINed, to check the months they read.
+ */
+@SpringBootTest(properties = {
+        "stockify.scheduling.enabled=false",
+        "stockify.stock.partitions.premake-months=4"
+})
+@ActiveProfiles("prod")
+@Import(StockMovementPartitionIT.RecordingDataSourceConfig.class)
+class StockMovementPartitionIT {
+
+    private static final String TENANT = "it_partitions";
+    private static final DateTimeFormatter PARTITION_MONTH = DateTimeFormatter.ofPattern("yyyyMM");
+    private static final Pattern SCANNED_PARTITION = Pattern.compile("on (stock_movement_(?:p\\d{6}|default))\\b");
+
+    @Autowired
+    private TenantSchemaProvisioner provisioner;
+    @Autowired
+    private StockMovementPartitionService partitionService;
+    @Autowired
+    private StockSnapshotService snapshotService;
+    @Autowired
+    private StockReconciliationService reconciliationService;
+    @Autowired
+    private StockMovementWriter movementWriter;
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+    @Autowired
+    private DataSource dataSource;
+
+    private final YearMonth current = YearMonth.now();
+    private LocalDateTime snapshotAsOf;
+
+    @BeforeEach
+    void setUp() throws SQLException {
+        dropTenant();
+        provisioner.provision(TENANT);
+        try (Connection connection = tenantConnection(); Statement statement = connection.createStatement()) {
+            for (int i = 3; i >= 1; i--) {
+                YearMonth month = current.minusMonths(i);
+                statement.execute(String.format("CREATE TABLE %s PARTITION OF stock_movement FOR VALUES FROM ('%s') TO ('%s')",
+                        partition(month), month.atDay(1), month.plusMonths(1).atDay(1)));
+            }
+            statement.execute("INSERT INTO product (sku, title, description, category, price, stock_level, low_stock_threshold) " +
+                    "VALUES ('PART-1', 'Partitioned item', 'Integration test product', 'Test', 10.00, 40, 5)");
+            try (PreparedStatement insert = connection.prepareStatement(
+                    "INSERT INTO stock_movement (product_id, movement_type, quantity, previous_stock, new_stock, created_at) " +
+                    "VALUES ((SELECT id FROM product WHERE sku = 'PART-1'), 'IN', 10, ?, ?, ?)")) {
+                for (int i = 3; i >= 0; i--) {
+                    LocalDateTime createdAt = i > 0 ? current.minusMonths(i).atDay(15).atTime(12, 0)
+                            : LocalDateTime.now().minusMinutes(1);
+                    insert.setInt(1, 30 - i * 10);
+                    insert.setInt(2, 40 - i * 10);
+                    insert.setTimestamp(3, Timestamp.valueOf(createdAt));
+                    insert.executeUpdate();
+                }
+            }
+        }
+        snapshotAsOf = current.minusMonths(1).atDay(1).atStartOfDay();
+        TenantContext.setCurrentTenant(TENANT);
+        snapshotService.createSnapshot(snapshotAsOf);
+    }
+
+    @AfterEach
+    void tearDown() throws SQLException {
+        TenantContext.clear();
+        ReflectionTestUtils.setField(partitionService, "retentionMonths", 0);
+        ReflectionTestUtils.setField(partitionService, "retentionMode", StockMovementPartitionService.RetentionMode.DETACH);
+        dropTenant();
+    }
+
+    @Test
+    void maintenanceCreatesMonthsAheadAndQueriesReadOnlyTheirMonths() throws SQLException {
+        partitionService.maintainTenant(TENANT);
+        assertThat(attachedPartitions()).contains(partition(current.plusMonths(4)));
+
+        // Halfway through last month: forward from the snapshot at its start
+        LocalDateTime asOf = current.minusMonths(1).atDay(15).atTime(18, 0);
+        recorder().clear();
+        assertThat(snapshotService.getStockAsOf("PART-1", asOf).getStockLevel()).isEqualTo(30);
+        assertThat(scannedPartitions("created_at > ?")).containsExactly(partition(current.minusMonths(1)));
+
+        recorder().clear();
+        snapshotService.getValuationAsOf(asOf);
+        assertThat(scannedPartitions("created_at > ?")).containsExactly(partition(current.minusMonths(1)));
+
+        // Reconciliation replays everything after the latest snapshot
+        recorder().clear();
+        reconciliationService.reconcile(TENANT);
+        assertThat(scannedPartitions("product_location_stock")).isEqualTo(monthsFrom(current.minusMonths(1)));
+
+        // Journal lookups go to stock_journal_entry and read no partition
+        recorder().clear();
+        StockDelta delta = new StockDelta("it:1", 1, TENANT, 1L, null, 1, StockMovementType.IN, null, null,
+                LocalDateTime.now().minusMinutes(5));
+        transactionTemplate.execute(status -> movementWriter.existingJournalIds(List.of(delta)));
+        assertThat(scannedPartitions("journal_id IN")).isEmpty();
+    }
+
+    @Test
+    void droppedMonthsAreRecordedAndAsOfQueriesStopAfterThem() throws SQLException {
+        ReflectionTestUtils.setField(partitionService, "retentionMonths", 1);
+        ReflectionTestUtils.setField(partitionService, "retentionMode", StockMovementPartitionService.RetentionMode.DROP);
+        partitionService.maintainTenant(TENANT);
+
+        assertThat(attachedPartitions()).doesNotContain(partition(current.minusMonths(3)), partition(current.minusMonths(2)));
+        try (Connection connection = tenantConnection(); Statement statement = connection.createStatement();
+             ResultSet rs = statement.executeQuery("SELECT COUNT(*), MAX(removed_month) FROM stock_movement_removed_month")) {
+            rs.next();
+            assertThat(rs.getInt(1)).isEqualTo(2);
+            assertThat(rs.getDate(2).toLocalDate()).isEqualTo(current.minusMonths(2).atDay(1));
+        }
+
+        assertThatThrownBy(() -> snapshotService.getStockAsOf("PART-1", current.minusMonths(2).atDay(20).atStartOfDay()))
+                .isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> snapshotService.createSnapshot(current.minusMonths(2).atDay(20).atStartOfDay()))
+                .isInstanceOf(IllegalArgumentException.class);
+        assertThat(snapshotService.getStockAsOf("PART-1", snapshotAsOf).getStockLevel()).isEqualTo(20);
+    }
+
+    @Test
+    void ledgerHasNoForeignKeyToProduct() throws SQLException {
+        // Deleting a product must keep the movements that partition retention and as-of queries read
+        try (Connection connection = tenantConnection(); Statement statement = connection.createStatement();
+             ResultSet rs = statement.executeQuery("SELECT COUNT(*) FROM pg_constraint " +
+                     "WHERE conrelid = 'stock_movement'::regclass AND confrelid = 'product'::regclass")) {
+            rs.next();
+            assertThat(rs.getInt(1)).isZero();
+        }
+    }
+
+    /**
+     * stock_movement partitions in the plan of the captured statement containing the given SQL
+     */
+    private Set<String> scannedPartitions(String sqlFragment) throws SQLException {
+        RecordedStatement recorded = recorder().statements().stream()
+                .filter(statement -> statement.sql().contains(sqlFragment))
+                .reduce((first, second) -> second)
+                .orElseThrow(() -> new AssertionError("No statement with " + sqlFragment + " was executed"));
+        Set<String> partitions = new TreeSet<>();
+        try (Connection connection = tenantConnection();
+             PreparedStatement explain = connection.prepareStatement("EXPLAIN " + recorded.sql())) {
+            recorded.parameters().forEach((index, value) -> {
+                try {
+                    explain.setObject(index, value);
+                } catch (SQLException e) {
+                    throw new IllegalStateException(e);
+                }
+            });
+            try (ResultSet rs = explain.executeQuery()) {
+                while (rs.next()) {
+                    Matcher matcher = SCANNED_PARTITION.matcher(rs.getString(1));
+                    while (matcher.find()) {
+                        partitions.add(matcher.group(1));
+                    }
+                }
+            }
+        }
+        return partitions;
+    }
+
+    /**
+     * The month's partition, every later one up to premake-months ahead and the default partition
+     */
+    private Set<String> monthsFrom(YearMonth first) {
+        Set<String> partitions = new TreeSet<>();
+        for (YearMonth month = first; !month.isAfter(current.plusMonths(4)); month = month.plusMonths(1)) {
+            partitions.add(partition(month));
+        }
+        partitions.add("stock_movement_default");
+        return partitions;
+    }
+
+    private Set<String> attachedPartitions() throws SQLException {
+        Set<String> partitions = new TreeSet<>();
+        try (Connection connection = tenantConnection(); Statement statement = connection.createStatement();
+             ResultSet rs = statement.executeQuery(
+                     "SELECT c.relname FROM pg_inherits i JOIN pg_class c ON c.oid = i.inhrelid " +
+                     "WHERE i.inhparent = 'stock_movement'::regclass")) {
+            while (rs.next()) {
+                partitions.add(rs.getString(1));
+            }
+        }
+        return partitions;
+    }
+
+    private RecordingDataSource recorder() {
+        return (RecordingDataSource) dataSource;
+    }
+
+    private Connection tenantConnection() throws SQLException {
+        Connection connection = dataSource.getConnection();
+        connection.setSchema(TENANT);
+        return connection;
+    }
+
+    private void dropTenant() throws SQLException {
+        try (Connection connection = dataSource.getConnection(); Statement statement = connection.createStatement()) {
+            statement.execute("DROP SCHEMA IF EXISTS " + TENANT + " CASCADE");
+        }
+    }
+
+    private static String partition(YearMonth month) {
+        return "stock_movement_p" + month.format(PARTITION_MONTH);
+    }
+
+    record RecordedStatement(String sql, Map<Integer, Object> parameters) {
+    }
+
+    /**
+     * Keeps every prepared statement executed through the application's DataSource, with its parameters
+     */
+    static class RecordingDataSource extends DelegatingDataSource {
+        private final List<RecordedStatement> statements = new CopyOnWriteArrayList<>();
+
+        RecordingDataSource(DataSource target) {
+            super(target);
+        }
+
+        List<RecordedStatement> statements() {
+            return new ArrayList<>(statements);
+        }
+
+        void clear() {
+            statements.clear();
+        }
+
+        @Override
+        public Connection getConnection() throws SQLException {
+            return recording(super.getConnection());
+        }
+
+        @Override
+        public Connection getConnection(String username, String password) throws SQLException {
+            return recording(super.getConnection(username, password));
+        }
+
+        private Connection recording(Connection connection) {
+            return (Connection) Proxy.newProxyInstance(Connection.class.getClassLoader(), new Class<?>[] {Connection.class},
+                    (proxy, method, args) -> {
+                        Object result = invoke(connection, method, args);
+                        if (result instanceof PreparedStatement statement && method.getName().equals("prepareStatement")) {
+                            return recording(statement, (String) args[0]);
+                        }
+                        return result;
+                    });
+        }
+
+        private PreparedStatement recording(PreparedStatement statement, String sql) {
+            Map<Integer, Object> parameters = new TreeMap<>();
+            return (PreparedStatement) Proxy.newProxyInstance(PreparedStatement.class.getClassLoader(),
+                    new Class<?>[] {PreparedStatement.class},
+                    (proxy, method, args) -> {
+                        String name = method.getName();
+                        if (name.startsWith("set") && args != null && args.length >= 2 && args[0] instanceof Integer index) {
+                            parameters.put(index, args[1]);
+                        } else if (name.startsWith("execute") && (args == null || args.length == 0)) {
+                            statements.add(new RecordedStatement(sql, new TreeMap<>(parameters)));
+                        }
+                        return invoke(statement, method, args);
+                    });
+        }
+
+        private static Object invoke(Object target, Method method, Object[] args) throws Throwable {
+            try {
+                return method.invoke(target, args);
+            } catch (InvocationTargetException e) {
+                throw e.getCause();
+            }
+        }
+    }
+
+    @TestConfiguration
+    static class RecordingDataSourceConfig {
+
+        @Bean
+        static BeanPostProcessor recordingDataSourcePostProcessor() {
+            return new BeanPostProcessor() {
+                @Override
+                public Object postProcessAfterInitialization(Object bean, String beanName) {
+                    return bean instanceof DataSource dataSource && !(bean instanceof RecordingDataSource)
+                            ? new RecordingDataSource(dataSource) : bean;
+                }
+            };
+        }
+    }
+}
@@ -0,0 +1,69 @@
+package dev.oasis.stockify.service;
+
+import dev.oasis.stockify.config.tenant.TenantContext;
+import dev.oasis.stockify.dto.ProductResponseDTO;
+import dev.oasis.stockify.model.StockMovementType;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Journaled movements are recognised by journal id alone, so a replay dated at replay time is not applied twice
+ */
+@SpringBootTest
+@ActiveProfiles({"dev", "test"})
+class StockMovementWriterTest {
+
+    private static final String TENANT = "acme_corp";
+
+    @Autowired
+    private StockMovementWriter writer;
+    @Autowired
+    private ProductService productService;
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @BeforeEach
+    void setUp() {
+        TenantContext.setCurrentTenant(TENANT);
+    }
+
+    @AfterEach
+    void tearDown() {
+        TenantContext.clear();
+    }
+
+    @Test
+    void replayedJournalEntryIsFoundAndRejected() {
+        ProductResponseDTO product = productService.getAllProducts().get(0);
+        String journalId = UUID.randomUUID() + ":1";
+        LocalDateTime acceptedAt = LocalDateTime.now().minusHours(1);
+        StockDelta written = delta(journalId, product.getId(), acceptedAt);
+        transactionTemplate.execute(status -> writer.apply(List.of(written)));
+
+        // The same entry as journal recovery replays it: dated now
+        StockDelta replayed = delta(journalId, product.getId(), LocalDateTime.now());
+        List<String> existing = transactionTemplate.execute(status -> writer.existingJournalIds(List.of(replayed)));
+        assertThat(existing).containsExactly(journalId);
+        // Rejected by stock_journal_entry (and on H2 also by the unique journal_id index of stock_movement)
+        assertThatThrownBy(() -> transactionTemplate.execute(status -> writer.apply(List.of(replayed))))
+                .isInstanceOf(RuntimeException.class);
+        assertThat(productService.getProductById(product.getId()).orElseThrow().getStockLevel())
+                .isEqualTo(product.getStockLevel() + 1);
+    }
+
+    private static StockDelta delta(String journalId, Long productId, LocalDateTime createdAt) {
+        return new StockDelta(journalId, 1, TENANT, productId, null, 1, StockMovementType.IN, "test", null, createdAt);
+    }
+}
@@ -0,0 +1,52 @@
+package dev.oasis.stockify.service;
+
+import dev.oasis.stockify.config.metrics.TenantMetricsTags;
+import dev.oasis.stockify.config.tenant.TenantMigrationOrchestrator;
+import dev.oasis.stockify.config.tenant.TenantRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import javax.sql.DataSource;
+import java.sql.SQLException;
+import java.util.LinkedHashSet;
+import java.util.List;
+
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * The scheduled run leaves lazily migrated schemas alone until their first request has migrated them
+ */
+class StockReconciliationServiceTest {
+
+    private final DataSource dataSource = mock(DataSource.class);
+    private final TenantRegistry tenantRegistry = mock(TenantRegistry.class);
+    private final TenantMigrationOrchestrator migrationOrchestrator = mock(TenantMigrationOrchestrator.class);
+    private final StockReconciliationService service = new StockReconciliationService(dataSource, tenantRegistry,
+            new SimpleMeterRegistry(), mock(TenantMetricsTags.class), migrationOrchestrator, 1, 1.0, 1);
+
+    @AfterEach
+    void tearDown() {
+        service.shutdown();
+    }
+
+    @Test
+    void scheduledRunSkipsSchemasThatAreNotMigrated() throws SQLException {
+        ReflectionTestUtils.setField(service, "enabled", true);
+        when(tenantRegistry.allTenants()).thenReturn(new LinkedHashSet<>(List.of("acme_corp", "lazy_corp")));
+        when(migrationOrchestrator.isMigrated("acme_corp")).thenReturn(true);
+        when(migrationOrchestrator.isMigrated("lazy_corp")).thenReturn(false);
+        when(dataSource.getConnection()).thenThrow(new SQLException("no database in this test"));
+
+        service.reconcileAllTenants();
+
+        verify(migrationOrchestrator).ensureTenantReady("acme_corp");
+        verify(migrationOrchestrator, never()).ensureTenantReady("lazy_corp");
+        verify(migrationOrchestrator, never()).migrateTenant(anyString());
+    }
+}